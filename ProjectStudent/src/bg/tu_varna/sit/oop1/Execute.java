@@ -6,14 +6,42 @@ import bg.tu_varna.sit.oop1.reporters.StudentReporter;
 import bg.tu_varna.sit.oop1.repositories.ProgramRepository;
 import bg.tu_varna.sit.oop1.repositories.StudentRepository;
 import bg.tu_varna.sit.oop1.services.StudentService;
+import bg.tu_varna.sit.oop1.utilities.OutputSink;
+import bg.tu_varna.sit.oop1.utilities.StudentFilter;
+import bg.tu_varna.sit.oop1.utilities.WriterOutputSink;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * The Execute class is handling user inputs and executing corresponding commands.
  */
 public class Execute {
+    private static final String WHERE = "WHERE";
+    private static final String COMMENT = "#";
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+    //The commands which replace or write the whole dataset, so no other session may run a command at the same time
+    private static final Set<String> EXCLUSIVE_COMMANDS = new HashSet<>(Arrays.asList(
+            String.valueOf(Command.OPEN), String.valueOf(Command.CLOSE), String.valueOf(Command.SAVE),
+            String.valueOf(Command.SAVEAS), String.valueOf(Command.CONVERT)));
+
     private String pathToFileHelp = ".\\HelpInfo.txt";
 
     private Scanner scanner;
@@ -25,14 +53,41 @@ public class Execute {
 
     private CommandLine commandLine;
 
+    private boolean isFileLoaded;
+    private String fileName = "";
+    private String filePath = "";
+    private StorageMode defaultStorageMode = StorageMode.HEAP;
+    private HashMap<String, Command> sessionCommands;
+    private ReadWriteLock sessionsLock;
+
     /**
      * Constructor to initialize the repositories, serializers, deserializers, services, and file managers.
      */
     public Execute() {
+        this(WriterOutputSink.console());
+    }
+
+    /**
+     * Constructor which writes the output of the services and the reporters to the given sink.
+     *
+     * @param outputSink The sink for the output of the commands.
+     */
+    public Execute(OutputSink outputSink) {
         this.studentRepository = new StudentRepository();
         this.programRepository = new ProgramRepository();
         this.scanner = new Scanner(System.in);
-        this.commandLine = new CommandLine(studentRepository, programRepository);
+        this.commandLine = new CommandLine(studentRepository, programRepository, outputSink);
+        this.sessionCommands = getCommands();
+        this.sessionsLock = new ReentrantReadWriteLock();
+    }
+
+    /**
+     * Sets the storage of a file which is opened without a storage argument.
+     *
+     * @param defaultStorageMode The storage to use when none is given.
+     */
+    public void setDefaultStorageMode(StorageMode defaultStorageMode) {
+        this.defaultStorageMode = defaultStorageMode;
     }
 
     /**
@@ -40,133 +95,356 @@ public class Execute {
      * It runs in a loop, processing input commands until an exit command is given.
      */
     public void runProject() {
-        boolean isFileLoaded = false;
-        String fileName = "";
-        String filePath = "";
-
         System.out.println(UserMessages.GREETING.message);
 
-        HashMap<String, Integer> validCommands = getCommands();
+        HashMap<String, Command> validCommands = getCommands();
 
         while (true) {
             System.out.print(UserMessages.ENTER_COMMAND.message);
             String commandLine = scanner.nextLine();
             String[] commandParts = commandLine.split(" ");
 
-            String command = commandParts[0].toUpperCase();
+            String command = commandParts[0].toUpperCase(Locale.ROOT);
 
-            //Checking if the given command is valid
-            boolean isCommandValid = validCommands.containsKey(command);
-            if (!isCommandValid) {
-                System.out.println(UserMessages.COMMAND_UNKNOWN.message);
+            //Checking if the given command is valid and has a valid arguments' count
+            String validationError = getValidationError(command, commandParts, validCommands);
+            if (validationError != null) {
+                System.out.println(validationError);
                 continue;
             }
 
-            //Checking if the given arguments' count is valid
-            boolean areArgumentsCorrectCount = ValidateArgumentsCount(command, commandParts.length, validCommands);
-            if (!areArgumentsCorrectCount) {
-                System.out.println(UserMessages.WRONG_ARGUMENTS_COUNT.message);
-                continue;
-            }
-
-            if (command.equals(String.valueOf(Command.EXIT))) {
-                this.commandLine.exit();
+            try {
+                executeCommand(command, commandParts);
+            } catch (Exception e) {
+                System.out.println("Error: " + e.getMessage());
             }
+        }
+    }
 
-            if (command.equals(String.valueOf(Command.HELP))) {
-                this.commandLine.help(pathToFileHelp);
-                continue;
-            }
+    /**
+     * Runs the commands of a script file or of the standard input without prompts.
+     * The output of the commands is buffered and written in large blocks instead of line by line.
+     * The failed commands are not reported between the output of the other commands but in a summary at the end.
+     * The application exits after the last command or an exit command, with status 1 if a command failed.
+     *
+     * @param scriptPath The path of the script file or null to read the commands from the standard input.
+     * @param isFailFast true to stop at the first failed command and false to run all commands.
+     */
+    public void runBatch(String scriptPath, boolean isFailFast) {
+        PrintStream console = System.out;
+        PrintStream bufferedOut = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), OUTPUT_BUFFER_SIZE), false);
+        System.setOut(bufferedOut);
 
-            try {
-                if (command.equals(String.valueOf(Command.OPEN)) && !isFileLoaded) {
-                    filePath = commandParts[1];
-                    fileName = getFileName(filePath);
+        HashMap<String, Command> validCommands = getCommands();
+        List<String> errors = new ArrayList<>();
+        int commandsCount = 0;
+        boolean isStopped = false;
+        long startTime = System.nanoTime();
 
-                    this.commandLine.open(filePath);
+        try (BufferedReader reader = new BufferedReader(scriptPath == null
+                ? new InputStreamReader(System.in) : new FileReader(scriptPath))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
 
-                    System.out.println("Successfully opened " + fileName);
-                    isFileLoaded = true;
+                //Empty lines and comments make a script easier to read
+                String trimmedLine = line.trim();
+                if (trimmedLine.isEmpty() || trimmedLine.startsWith(COMMENT)) {
                     continue;
                 }
 
-                if (!isFileLoaded) {
-                    throw new Exception(UserMessages.FILE_NOT_LOADED.message);
+                String[] commandParts = line.split(" ");
+                String command = commandParts[0].toUpperCase(Locale.ROOT);
+                if (command.equals(String.valueOf(Command.EXIT))) {
+                    break;
                 }
 
-                switch (command) {
-                    case "OPEN":
-                        System.out.println(fileName + " is already opened.");
-                        break;
-                    case "CLOSE":
-                        this.commandLine.close();
-                        isFileLoaded = false;
-                        System.out.println("Successfully closed " + fileName);
-                        break;
-                    case "SAVE":
-                        this.commandLine.save(filePath);
-                        System.out.println("Successfully saved " + fileName);
-                        break;
-                    case "SAVE AS":
-                        String newPath = commandParts[1];
-                        String anotherFileName = getFileName(newPath);
-                        this.commandLine.save(newPath);
-                        System.out.println("Successfully saved another " + anotherFileName);
-                        break;
-                    case "ENROLL":
-                        this.commandLine.enroll(commandParts);
-                        break;
-                    case "ADVANCE":
-                        this.commandLine.advance(commandParts);
-                        break;
-                    case "CHANGE":
-                        this.commandLine.change(commandParts);
-                        break;
-                    case "GRADUATE":
-                        this.commandLine.graduate(commandParts);
-                        break;
-                    case "INTERRUPT":
-                        this.commandLine.interrupt(commandParts);
-                        break;
-                    case "RESUME":
-                        this.commandLine.resume(commandParts);
-                        break;
-                    case "ENROLLIN":
-                        this.commandLine.enrollIn(commandParts);
-                        break;
-                    case "ADDGRADE":
-                        this.commandLine.addGrade(commandParts);
-                        break;
-                    case "PRINT":
-                        this.commandLine.print(commandParts);
-                        break;
-                    case "PRINTALL":
-                        this.commandLine.printAll(commandParts);
-                        break;
-                    case "PROTOCOL":
-                        this.commandLine.protocol(commandParts);
-                        break;
-                    case "REPORT":
-                        this.commandLine.report(commandParts);
+                commandsCount++;
+                String error = getValidationError(command, commandParts, validCommands);
+                if (error == null) {
+                    try {
+                        executeCommand(command, commandParts);
+                    } catch (Exception e) {
+                        error = e.getMessage();
+                    }
+                }
+
+                if (error != null) {
+                    errors.add(String.format(UserMessages.BATCH_ERROR.message, lineNumber, line, error));
+                    if (isFailFast) {
+                        isStopped = true;
                         break;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            errors.add("Error: " + e.getMessage());
+        }
+
+        long elapsedMillis = (System.nanoTime() - startTime) / 1_000_000;
+        System.out.println(String.format(UserMessages.BATCH_SUMMARY.message, commandsCount, elapsedMillis, errors.size()));
+        for (String error : errors) {
+            System.out.println(error);
+        }
+        if (isStopped) {
+            System.out.println(UserMessages.BATCH_STOPPED.message);
+        }
+
+        //The exit does not return, so the console is restored before it, after the buffered output is written
+        bufferedOut.flush();
+        System.setOut(console);
+
+        //The exit waits for a background save, which may still print its result
+        this.commandLine.exit(errors.isEmpty() ? 0 : 1);
+    }
+
+    /**
+     * Runs the commands of one client session of the server, with the same prompts and messages as the console.
+     * Several sessions run at the same time on the same opened file. The session ends with an exit command
+     * or when the client closes the connection, and the application keeps running for the other sessions.
+     *
+     * @param reader The reader of the commands of the client.
+     * @throws IOException If the commands can not be read.
+     */
+    public void runSession(BufferedReader reader) throws IOException {
+        System.out.println(UserMessages.GREETING.message);
+
+        while (true) {
+            System.out.print(UserMessages.ENTER_COMMAND.message);
+            //The answer of a command is sent to the client when it waits for the next one
+            System.out.flush();
+
+            String line = reader.readLine();
+            if (line == null || !runSessionCommand(line)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Runs one command of a session. On a file in the concurrent storage most commands run at the same time
+     * as the commands of other sessions, as the students they change are locked one by one. The commands which open,
+     * close or write the whole file, and all commands on a file in another storage, wait until no other command runs.
+     *
+     * @param line The command line.
+     * @return false if the command ends the session and true otherwise.
+     */
+    public boolean runSessionCommand(String line) {
+        String[] commandParts = line.split(" ");
+        String command = commandParts[0].toUpperCase(Locale.ROOT);
+        if (command.equals(String.valueOf(Command.EXIT))) {
+            return false;
+        }
+
+        //Checking if the given command is valid and has a valid arguments' count
+        String validationError = getValidationError(command, commandParts, sessionCommands);
+        if (validationError != null) {
+            System.out.println(validationError);
+            return true;
+        }
+
+        Lock lock = sessionsLock.readLock();
+        lock.lock();
+        //The storage is checked while the lock is held, as another session may open a file in another storage before
+        if (EXCLUSIVE_COMMANDS.contains(command) || !commandLine.isThreadSafe()) {
+            lock.unlock();
+            lock = sessionsLock.writeLock();
+            lock.lock();
+        }
+
+        try {
+            executeCommand(command, commandParts);
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks if the given command is known and has a valid arguments' count.
+     *
+     * @param command The command name in upper case.
+     * @param commandParts An array containing the command parts.
+     * @param validCommands A map containing valid commands and their corresponding Command values.
+     * @return The message of the problem or null if the command can be executed.
+     */
+    private String getValidationError(String command, String[] commandParts, HashMap<String, Command> validCommands) {
+        if (!validCommands.containsKey(command)) {
+            return UserMessages.COMMAND_UNKNOWN.message;
+        }
+
+        if (!ValidateArgumentsCount(command, commandParts.length, validCommands)) {
+            return UserMessages.WRONG_ARGUMENTS_COUNT.message;
+        }
+
+        return null;
+    }
+
+    /**
+     * Executes a valid command.
+     *
+     * @param command The command name in upper case.
+     * @param commandParts An array containing the command parts.
+     * @throws Exception If the command fails.
+     */
+    private void executeCommand(String command, String[] commandParts) throws Exception {
+        try {
+            runCommand(command, commandParts);
+        } finally {
+            //The output of the command is buffered, so it is written before the messages which follow it
+            this.commandLine.flushOutput();
+        }
+    }
+
+    /**
+     * Runs a valid command.
+     *
+     * @param command The command name in upper case.
+     * @param commandParts An array containing the command parts.
+     * @throws Exception If the command fails.
+     */
+    private void runCommand(String command, String[] commandParts) throws Exception {
+        if (command.equals(String.valueOf(Command.EXIT))) {
+            this.commandLine.exit();
+        }
+
+        if (command.equals(String.valueOf(Command.HELP))) {
+            this.commandLine.help(pathToFileHelp);
+            return;
+        }
+
+        if (command.equals(String.valueOf(Command.OPEN)) && !isFileLoaded) {
+            filePath = commandParts[1];
+            fileName = getFileName(filePath);
+            StorageMode storageMode = defaultStorageMode;
+            LoadMode loadMode = LoadMode.SEQUENTIAL;
+            StudentFilter filter = null;
+
+            //The storage and the load mode can be given in any order, the WHERE clause comes last
+            for (int i = 2; i < commandParts.length; i++) {
+                if (commandParts[i].equalsIgnoreCase(WHERE)) {
+                    filter = StudentFilter.parse(commandParts, i + 1);
+                    break;
+                }
+
+                LoadMode parsedLoadMode = getLoadMode(commandParts[i]);
+                if (parsedLoadMode != null) {
+                    loadMode = parsedLoadMode;
+                } else {
+                    storageMode = getStorageMode(commandParts[i]);
                 }
-            } catch (Exception e) {
-                System.out.println("Error: " + e.getMessage());
             }
+
+            this.commandLine.open(filePath, storageMode, loadMode, filter);
+
+            System.out.println("Successfully opened " + fileName);
+            isFileLoaded = true;
+            return;
+        }
+
+        //Converting does not change the opened file, so it does not need one
+        if (command.equals(String.valueOf(Command.CONVERT))) {
+            this.commandLine.convert(commandParts);
+            return;
+        }
+
+        if (!isFileLoaded) {
+            throw new Exception(UserMessages.FILE_NOT_LOADED.message);
+        }
+
+        switch (command) {
+            case "OPEN":
+                System.out.println(fileName + " is already opened.");
+                break;
+            case "CLOSE":
+                this.commandLine.close();
+                isFileLoaded = false;
+                System.out.println("Successfully closed " + fileName);
+                break;
+            case "SAVE":
+                if (commandParts.length == 1) {
+                    this.commandLine.save(filePath);
+                    System.out.println("Successfully saved " + fileName);
+                } else if (commandParts[1].equalsIgnoreCase("async")) {
+                    this.commandLine.saveInBackground(filePath);
+                } else if (commandParts[1].equalsIgnoreCase("status")) {
+                    this.commandLine.saveStatus();
+                } else {
+                    throw new IllegalArgumentException(String.format(UserMessages.SAVE_OPTION_UNKNOWN.message, commandParts[1]));
+                }
+                break;
+            case "SAVE AS":
+                String newPath = commandParts[1];
+                String anotherFileName = getFileName(newPath);
+                this.commandLine.save(newPath);
+                System.out.println("Successfully saved another " + anotherFileName);
+                break;
+            case "ENROLL":
+                this.commandLine.enroll(commandParts);
+                break;
+            case "ENROLLBULK":
+                this.commandLine.enrollBulk(commandParts);
+                break;
+            case "ADVANCE":
+                this.commandLine.advance(commandParts);
+                break;
+            case "CHANGE":
+                this.commandLine.change(commandParts);
+                break;
+            case "GRADUATE":
+                this.commandLine.graduate(commandParts);
+                break;
+            case "INTERRUPT":
+                this.commandLine.interrupt(commandParts);
+                break;
+            case "RESUME":
+                this.commandLine.resume(commandParts);
+                break;
+            case "ENROLLIN":
+                this.commandLine.enrollIn(commandParts);
+                break;
+            case "ADDGRADE":
+                this.commandLine.addGrade(commandParts);
+                break;
+            case "ADDGRADES":
+                this.commandLine.addGrades(commandParts);
+                break;
+            case "PRINT":
+                this.commandLine.print(commandParts);
+                break;
+            case "PRINTALL":
+                this.commandLine.printAll(commandParts);
+                break;
+            case "PROTOCOL":
+                this.commandLine.protocol(commandParts);
+                break;
+            case "REPORT":
+                this.commandLine.report(commandParts);
+                break;
+            case "STORAGE":
+                this.commandLine.storage();
+                break;
+            case "ARCHIVE":
+                this.commandLine.archive(commandParts);
+                break;
         }
     }
 
     /**
-     * Validates if the given number of arguments matches the expected count for the specified command.
+     * Validates if the given number of arguments is in the expected range for the specified command.
      *
      * @param command        The command for which the arguments count needs validation.
      * @param argumentsCount The number of arguments provided.
-     * @param validCommands  A map containing valid commands and their corresponding expected argument counts.
-     * @return true if the provided arguments count matches the expected count for the command, otherwise false.
+     * @param validCommands  A map containing valid commands and their corresponding Command values.
+     * @return true if the provided arguments count is in the expected range for the command, otherwise false.
      */
-    private boolean ValidateArgumentsCount(String command, int argumentsCount, HashMap<String, Integer> validCommands) {
-        int neededCount = validCommands.get(command);
-        if (neededCount == argumentsCount) {
+    private boolean ValidateArgumentsCount(String command, int argumentsCount, HashMap<String, Command> validCommands) {
+        Command neededCommand = validCommands.get(command);
+        if (argumentsCount >= neededCommand.argumentsCount && argumentsCount <= neededCommand.maxArgumentsCount) {
             return true;
         }
 
@@ -174,21 +452,54 @@ public class Execute {
     }
 
     /**
-     * Retrieves all commands and their corresponding argument counts as a HashMap.
+     * Retrieves all commands as a HashMap.
      *
-     * @return A HashMap containing commands as keys and their corresponding argument counts as values.
+     * @return A HashMap containing command names as keys and the corresponding Command values as values.
      */
-    private HashMap<String, Integer> getCommands() {
+    private HashMap<String, Command> getCommands() {
         Command[] commands = Command.values();
-        HashMap<String, Integer> commandMap = new HashMap<>();
+        HashMap<String, Command> commandMap = new HashMap<>();
 
         for (Command command : commands) {
-            commandMap.put(command.toString(), command.argumentsCount);
+            commandMap.put(command.toString(), command);
         }
 
         return commandMap;
     }
 
+    /**
+     * Parses the storage mode argument of the open command.
+     *
+     * @param value The storage mode argument.
+     * @return The corresponding StorageMode.
+     * @throws IllegalArgumentException If there is no storage mode with this name.
+     */
+    private StorageMode getStorageMode(String value) {
+        for (StorageMode storageMode : StorageMode.values()) {
+            if (storageMode.toString().equalsIgnoreCase(value)) {
+                return storageMode;
+            }
+        }
+
+        throw new IllegalArgumentException(String.format(UserMessages.OPEN_OPTION_UNKNOWN.message, value));
+    }
+
+    /**
+     * Parses the load mode argument of the open command.
+     *
+     * @param value The load mode argument.
+     * @return The corresponding LoadMode or null if there is no load mode with this name.
+     */
+    private LoadMode getLoadMode(String value) {
+        for (LoadMode loadMode : LoadMode.values()) {
+            if (loadMode.toString().equalsIgnoreCase(value)) {
+                return loadMode;
+            }
+        }
+
+        return null;
+    }
+
     /**
      * Extracts the file name from a given file path.
      *
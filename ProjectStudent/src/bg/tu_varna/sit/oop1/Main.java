@@ -1,15 +1,85 @@
 package bg.tu_varna.sit.oop1;
 
+import bg.tu_varna.sit.oop1.enums.StorageMode;
+import bg.tu_varna.sit.oop1.enums.UserMessages;
+import bg.tu_varna.sit.oop1.server.CommandServer;
+import bg.tu_varna.sit.oop1.utilities.CommonUtility;
+import bg.tu_varna.sit.oop1.utilities.PerThreadOutputSink;
+import bg.tu_varna.sit.oop1.utilities.WriterOutputSink;
+
+import java.io.IOException;
+
 /**
  * The Main class is entry point of the application.
  */
 public class Main {
+    private static final String BATCH_OPTION = "--batch";
+    private static final String FAIL_FAST_OPTION = "--fail-fast";
+    private static final String SERVER_OPTION = "--server";
+    private static final String OPTION_PREFIX = "--";
+
     /**
      * The main method that starts the execution of the application.
+     * Without arguments the application reads commands interactively.
+     * With --batch, --fail-fast or a script path it runs the commands of the script, or of the standard input
+     * if no script is given, without prompts.
+     * With --server, a port and optionally a file and its storage it serves the commands of local TCP clients.
+     *
+     * @param args The options and the path of the script.
      */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals(SERVER_OPTION)) {
+            runServer(args);
+            return;
+        }
+
         Execute execute = new Execute();
-        execute.runProject();
+        if (args.length == 0) {
+            execute.runProject();
+            return;
+        }
+
+        boolean isFailFast = false;
+        String scriptPath = null;
+        for (String arg : args) {
+            if (arg.equals(FAIL_FAST_OPTION)) {
+                isFailFast = true;
+            } else if (arg.startsWith(OPTION_PREFIX) && !arg.equals(BATCH_OPTION)) {
+                System.out.println(String.format(UserMessages.BATCH_OPTION_UNKNOWN.message, arg));
+                System.exit(2);
+            } else if (!arg.equals(BATCH_OPTION)) {
+                scriptPath = arg;
+            }
+        }
+
+        execute.runBatch(scriptPath, isFailFast);
     }
 
+    /**
+     * Starts the command server. The file is opened before the first client connects,
+     * and all clients work with it in the concurrent storage unless another storage is given.
+     * The commands of the clients run one at a time on a file in any other storage.
+     *
+     * @param args The --server option, the port, and optionally the path of the file and its storage.
+     */
+    private static void runServer(String[] args) {
+        if (args.length < 2 || args.length > 4) {
+            System.out.println(UserMessages.SERVER_USAGE.message);
+            System.exit(2);
+        }
+
+        try {
+            int port = CommonUtility.intParser(args[1]);
+            Execute execute = new Execute(new PerThreadOutputSink(WriterOutputSink::console));
+            execute.setDefaultStorageMode(StorageMode.CONCURRENT);
+            if (args.length > 2) {
+                execute.runSessionCommand("open " + args[2] + (args.length > 3 ? " " + args[3] : ""));
+            }
+
+            new CommandServer(execute, port).run();
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
 }
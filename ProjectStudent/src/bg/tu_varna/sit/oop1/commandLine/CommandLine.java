@@ -1,19 +1,51 @@
 package bg.tu_varna.sit.oop1.commandLine;
 
+import bg.tu_varna.sit.oop1.enums.FileFormat;
+import bg.tu_varna.sit.oop1.enums.LoadMode;
+import bg.tu_varna.sit.oop1.enums.StorageMode;
 import bg.tu_varna.sit.oop1.enums.UserMessages;
 import bg.tu_varna.sit.oop1.exceptions.StudentException;
+import bg.tu_varna.sit.oop1.models.Student;
 import bg.tu_varna.sit.oop1.reporters.StudentReporter;
+import bg.tu_varna.sit.oop1.repositories.ColumnarStudentRepository;
+import bg.tu_varna.sit.oop1.repositories.ConcurrentStudentRepository;
+import bg.tu_varna.sit.oop1.repositories.LazyStudentStore;
+import bg.tu_varna.sit.oop1.repositories.OffHeapStudentRepository;
 import bg.tu_varna.sit.oop1.repositories.ProgramRepository;
+import bg.tu_varna.sit.oop1.repositories.ShardedStudentStore;
 import bg.tu_varna.sit.oop1.repositories.StudentRepository;
+import bg.tu_varna.sit.oop1.repositories.StudentStore;
+import bg.tu_varna.sit.oop1.repositories.SubjectRepository;
+import bg.tu_varna.sit.oop1.repositories.TieredStudentStore;
+import bg.tu_varna.sit.oop1.serialization.deserializer.BinaryStudentDeserializer;
+import bg.tu_varna.sit.oop1.serialization.deserializer.FilteredBinaryStudentDeserializer;
+import bg.tu_varna.sit.oop1.serialization.deserializer.FilteredStudentDeserializer;
 import bg.tu_varna.sit.oop1.serialization.deserializer.ProgramDeserializer;
 import bg.tu_varna.sit.oop1.serialization.deserializer.StudentDeserializer;
+import bg.tu_varna.sit.oop1.serialization.serializer.BinaryStudentSerializer;
 import bg.tu_varna.sit.oop1.serialization.serializer.StudentSerializer;
 import bg.tu_varna.sit.oop1.services.StudentService;
+import bg.tu_varna.sit.oop1.utilities.BackgroundSave;
+import bg.tu_varna.sit.oop1.utilities.CommonUtility;
 import bg.tu_varna.sit.oop1.utilities.FileManager;
+import bg.tu_varna.sit.oop1.utilities.OutputSink;
+import bg.tu_varna.sit.oop1.utilities.ShardedDataset;
+import bg.tu_varna.sit.oop1.utilities.StripedLocks;
+import bg.tu_varna.sit.oop1.utilities.StudentArchive;
+import bg.tu_varna.sit.oop1.utilities.StudentFilter;
+import bg.tu_varna.sit.oop1.utilities.StudentJournal;
+import bg.tu_varna.sit.oop1.utilities.WriterOutputSink;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * The CommandLine class implements the CommandLineInterface for handling user commands in the application.
@@ -23,13 +55,29 @@ public class CommandLine implements CommandLineInterface {
 
     private StudentSerializer studentSerializer;
     private StudentDeserializer studentDeserializer;
+    private BinaryStudentSerializer binaryStudentSerializer;
+    private BinaryStudentDeserializer binaryStudentDeserializer;
     private ProgramDeserializer programDeserializer;
-    private FileManager studentsFileManager;
+    private FileManager<Student> studentsFileManager;
     private FileManager programFileManager;
-    private StudentRepository studentRepository;
+    private StudentRepository heapStudentRepository;
+    private StudentStore studentRepository;
     private ProgramRepository programRepository;
+    private SubjectRepository subjectRepository;
     private StudentService studentService;
     private StudentReporter studentReporter;
+    private StudentJournal studentJournal;
+    private TieredStudentStore tieredStudentStore;
+    private LazyStudentStore lazyStudentStore;
+    private BackgroundSave backgroundSave;
+    private boolean isBackgroundSaveCompleted;
+    private Exception backgroundSaveError;
+    private long savedJournalLength;
+    private Set<Integer> savedRestoredStudents;
+    private StudentFilter openFilter;
+    private OutputSink outputSink;
+    private StripedLocks studentLocks;
+    private boolean isThreadSafe;
 
     /**
      * Constructs a CommandLine instance.
@@ -38,47 +86,349 @@ public class CommandLine implements CommandLineInterface {
      * @param programRepository The repository for program data.
      */
     public CommandLine(StudentRepository studentRepository, ProgramRepository programRepository) {
-        this.studentRepository = new StudentRepository();
-        this.programRepository = new ProgramRepository();
+        this(studentRepository, programRepository, WriterOutputSink.console());
+    }
+
+    /**
+     * Constructs a CommandLine instance which writes the reports and the messages of the services to the given sink.
+     *
+     * @param studentRepository The repository for student data.
+     * @param programRepository The repository for program data.
+     * @param outputSink The sink for the output of the commands.
+     */
+    public CommandLine(StudentRepository studentRepository, ProgramRepository programRepository, OutputSink outputSink) {
+        this.outputSink = outputSink;
+        this.studentLocks = new StripedLocks();
+        this.heapStudentRepository = studentRepository;
+        this.programRepository = programRepository;
+        this.subjectRepository = new SubjectRepository();
         this.studentSerializer = new StudentSerializer();
-        this.studentDeserializer = new StudentDeserializer();
-        this.programDeserializer = new ProgramDeserializer();
-        this.studentsFileManager = new FileManager(studentSerializer, studentDeserializer, studentRepository);
+        this.studentDeserializer = new StudentDeserializer(programRepository, subjectRepository);
+        this.binaryStudentSerializer = new BinaryStudentSerializer();
+        this.binaryStudentDeserializer = new BinaryStudentDeserializer(programRepository, subjectRepository);
+        this.programDeserializer = new ProgramDeserializer(subjectRepository);
         this.programFileManager = new FileManager(programDeserializer, programRepository);
-        this.studentService = new StudentService(studentRepository, programRepository);
-        this.studentReporter = new StudentReporter(studentRepository);
+        useStudentStore(studentRepository);
     }
 
     /**
      * Opens the specified file path for reading student data. Also opens the file with the programs data.
+     * The programs are loaded first, so the students can be linked to them.
      *
      * @param path The path to the file to open.
      * @throws IOException If an error occurs while opening the file.
      */
     @Override
     public void open(String path) throws IOException {
-        studentsFileManager.open(path);
-        programFileManager.open(pathToProgramsDatabaseFile);
+        open(path, StorageMode.HEAP);
+    }
+
+    /**
+     * Opens the specified file path for reading student data and keeps the students in the given kind of storage.
+     * Also opens the file with the programs data before the students, so the students can be linked to them.
+     *
+     * @param path The path to the file to open.
+     * @param storageMode The storage in which the students are kept.
+     * @throws IOException If an error occurs while opening the file.
+     */
+    @Override
+    public void open(String path, StorageMode storageMode) throws IOException {
+        open(path, storageMode, LoadMode.SEQUENTIAL);
+    }
+
+    /**
+     * Opens the specified file path for reading student data, loads it in the given way
+     * and keeps the students in the given kind of storage.
+     * The programs file is small, so it is always loaded sequentially. It is loaded before the students,
+     * except for the pipelined loading, in which it is loaded on another thread while the students file is read.
+     * The changes saved in the journal of the file are applied after the students are loaded.
+     * The graduated and dropped students archived next to the file are not loaded until they are requested.
+     * A directory is opened as a sharded dataset, whose segments are loaded only when a command needs them.
+     * A lazily opened text file is only indexed and its students are parsed when a command needs them.
+     *
+     * @param path The path to the file to open.
+     * @param storageMode The storage in which the students are kept.
+     * @param loadMode The way in which the students file is loaded.
+     * @throws IOException If an error occurs while opening the file.
+     */
+    @Override
+    public void open(String path, StorageMode storageMode, LoadMode loadMode) throws IOException {
+        open(path, storageMode, loadMode, null);
     }
 
     /**
-     * Closes any open files.
+     * Opens the specified file path for reading student data and loads only the students which match the filter.
+     * The program and the year of every record are checked before the record is deserialized,
+     * so the skipped students cost neither parsing nor memory. The students changed by the journal are loaded too
+     * and the ones which do not match after the replay are removed. The file can not be saved over with such a part
+     * of its students.
+     *
+     * @param path The path to the file to open.
+     * @param storageMode The storage in which the students are kept.
+     * @param loadMode The way in which the students file is loaded.
+     * @param filter The filter of the loaded students or null to load all students.
+     * @throws IOException If an error occurs while opening the file.
+     * @throws IllegalArgumentException If a filter is given for a dataset directory or a lazily opened file.
      */
     @Override
-    public void close() {
+    public void open(String path, StorageMode storageMode, LoadMode loadMode, StudentFilter filter) throws IOException {
+        boolean isDataset = ShardedDataset.isDatasetPath(path);
+        if (filter != null && isDataset) {
+            throw new IllegalArgumentException(UserMessages.WHERE_FOR_DATASET.message);
+        }
+        if (filter != null && loadMode == LoadMode.LAZY) {
+            throw new IllegalArgumentException(UserMessages.WHERE_FOR_LAZY.message);
+        }
+
+        //Only the concurrent storage is changed by several threads, the other ones keep plain arrays and maps
+        isThreadSafe = false;
+        StudentArchive studentArchive = new StudentArchive(path);
+        studentArchive.load();
+        tieredStudentStore = new TieredStudentStore(createStudentStore(storageMode), studentArchive,
+                studentSerializer, studentDeserializer);
+        lazyStudentStore = null;
+        if (isDataset) {
+            useStudentStore(new ShardedStudentStore(tieredStudentStore, studentSerializer, studentDeserializer));
+        } else if (loadMode == LoadMode.LAZY) {
+            lazyStudentStore = new LazyStudentStore(tieredStudentStore, studentDeserializer);
+            useStudentStore(lazyStudentStore);
+        } else {
+            useStudentStore(tieredStudentStore, filter);
+        }
+
+        studentJournal = new StudentJournal(path, studentRepository, programRepository, subjectRepository);
+        if (filter != null) {
+            filter.include(studentJournal.readFacultyNumbers());
+        }
+
+        if (loadMode != LoadMode.PIPELINED) {
+            programFileManager.open(pathToProgramsDatabaseFile);
+            studentsFileManager.open(path, loadMode);
+        } else {
+            ExecutorService catalogExecutor = Executors.newSingleThreadExecutor();
+            try {
+                Future<?> catalogLoad = catalogExecutor.submit(() -> {
+                    programFileManager.open(pathToProgramsDatabaseFile);
+                    return null;
+                });
+                studentsFileManager.open(path, loadMode, catalogLoad);
+            } finally {
+                catalogExecutor.shutdown();
+            }
+        }
+
+        int appliedCount = studentJournal.replay();
+        if (appliedCount > 0) {
+            System.out.println(String.format(UserMessages.JOURNAL_REPLAYED.message, appliedCount));
+        }
+        studentService.setStudentJournal(studentJournal);
+
+        openFilter = filter;
+        isThreadSafe = storageMode == StorageMode.CONCURRENT && !isDataset && loadMode != LoadMode.LAZY;
+        if (filter != null) {
+            removeNotMatchingStudents(filter);
+            System.out.println(String.format(UserMessages.STUDENTS_FILTERED.message, studentRepository.getAll().size(), filter));
+        }
+    }
+
+    /**
+     * Removes the loaded students which do not match the filter, like the ones which were loaded only for the journal.
+     *
+     * @param filter The filter of the loaded students.
+     */
+    private void removeNotMatchingStudents(StudentFilter filter) {
+        List<Integer> facultyNumbers = new ArrayList<>();
+        for (Student student : studentRepository.getAll()) {
+            if (!filter.matches(student)) {
+                facultyNumbers.add(student.getFacultyNumber());
+            }
+        }
+
+        for (int facultyNumber : facultyNumbers) {
+            studentRepository.remove(facultyNumber);
+        }
+    }
+
+    /**
+     * Checks that the file at the given path is not the one which was opened with a filter,
+     * because saving it would drop the students which are not loaded.
+     *
+     * @param path The path to save the student data.
+     * @throws IllegalStateException If the path is the one of the file which was opened with a filter.
+     */
+    private void checkNotFiltered(String path) {
+        if (openFilter != null && studentJournal != null && studentJournal.isJournalOf(path)) {
+            throw new IllegalStateException(String.format(UserMessages.FILTERED_SAVE.message, openFilter));
+        }
+    }
+
+    /**
+     * Closes any open files. A running background save is finished first.
+     *
+     * @throws IOException If an error occurs while completing a background save.
+     */
+    @Override
+    public void close() throws IOException {
+        //A running background save still needs the journal and the archive of the file
+        completeBackgroundSave();
+
+        //Changes which are not saved are dropped together with the students
+        studentJournal = null;
+        studentService.setStudentJournal(null);
         studentsFileManager.close();
         programFileManager.close();
+        subjectRepository.clear();
+        tieredStudentStore = null;
+        lazyStudentStore = null;
+        openFilter = null;
+        isThreadSafe = false;
     }
 
     /**
      * Saves the student data to the specified file path.
+     * When the path is the one of the opened file, only the changes since the last save are appended to its journal.
+     * The whole file is written again when it is saved to another path, when the journal has grown too big
+     * or when graduated and dropped students have to be moved to the archive of the file.
      *
      * @param path The path to save the student data.
      * @throws IOException If an error occurs while saving the data.
      */
     @Override
     public void save(String path) throws IOException {
+        checkNotFiltered(path);
+        boolean isOpenedFile = studentJournal != null && studentJournal.isJournalOf(path);
+        if (isOpenedFile && !studentJournal.needsCheckpoint() && !tieredStudentStore.hasStudentsToArchive()) {
+            int savedCount = studentJournal.flush();
+            System.out.println(String.format(UserMessages.JOURNAL_FLUSHED.message, savedCount));
+
+            //Only students which are unchanged since they were loaded from the archive are left to remove from memory
+            tieredStudentStore.archiveInactiveStudents();
+            return;
+        }
+
+        //Two saves must not replace the file at the same time
+        completeBackgroundSave();
+
+        //The archive is written before the file, so an evicted student is always in one of them
+        if (isOpenedFile) {
+            int archivedCount = tieredStudentStore.archiveInactiveStudents();
+            if (archivedCount > 0) {
+                System.out.println(String.format(UserMessages.STUDENTS_ARCHIVED.message, archivedCount));
+            }
+        }
+
         studentsFileManager.save(path);
+
+        //The saved file already has all changes, so the journal is removed only after the file is fully written
+        if (isOpenedFile) {
+            tieredStudentStore.releaseRestoredStudents();
+            studentJournal.clear();
+        } else {
+            StudentJournal.deleteJournalOf(path);
+            if (tieredStudentStore != null) {
+                tieredStudentStore.getArchive().copyTo(path);
+            }
+        }
+    }
+
+    /**
+     * Starts saving a snapshot of the students to the specified file path on a background thread.
+     * The snapshot is copied before this method returns, so the students can be read and changed while it is written.
+     * The changes made before the snapshot are written to the journal first, so they are kept even if the save fails.
+     * Only these changes are removed from the journal when the save is completed.
+     *
+     * @param path The path to save the student data.
+     * @throws IOException If an error occurs while writing the journal or the archive.
+     * @throws IllegalStateException If another background save is still running or the file was opened with a filter.
+     */
+    @Override
+    public void saveInBackground(String path) throws IOException {
+        checkNotFiltered(path);
+        if (backgroundSave != null && !backgroundSave.isDone()) {
+            throw new IllegalStateException(String.format(UserMessages.SAVE_IN_PROGRESS.message, backgroundSave.getFilePath()));
+        }
+        completeBackgroundSave();
+
+        savedJournalLength = -1;
+        savedRestoredStudents = null;
+        if (studentJournal != null && studentJournal.isJournalOf(path)) {
+            int archivedCount = tieredStudentStore.archiveInactiveStudents();
+            if (archivedCount > 0) {
+                System.out.println(String.format(UserMessages.STUDENTS_ARCHIVED.message, archivedCount));
+            }
+
+            studentJournal.flush();
+            savedJournalLength = studentJournal.getFileLength();
+            savedRestoredStudents = tieredStudentStore.takeRestoredStudents();
+        }
+
+        backgroundSave = studentsFileManager.saveInBackground(path, Student::new);
+        isBackgroundSaveCompleted = false;
+        backgroundSaveError = null;
+        System.out.println(String.format(UserMessages.SAVE_STARTED.message, backgroundSave.getTotalCount(), path));
+    }
+
+    /**
+     * Prints the progress of the background save or its result if it is done.
+     *
+     * @throws IOException If an error occurs while completing a finished save.
+     */
+    @Override
+    public void saveStatus() throws IOException {
+        if (backgroundSave == null) {
+            System.out.println(UserMessages.NO_BACKGROUND_SAVE.message);
+            return;
+        }
+
+        if (!backgroundSave.isDone()) {
+            int totalCount = backgroundSave.getTotalCount();
+            int writtenCount = backgroundSave.getWrittenCount();
+            long percent = totalCount == 0 ? 100 : (long) writtenCount * 100 / totalCount;
+            System.out.println(String.format(UserMessages.SAVE_RUNNING.message, backgroundSave.getFilePath(),
+                    writtenCount, totalCount, percent, backgroundSave.getElapsedMillis()));
+            return;
+        }
+
+        if (!isBackgroundSaveCompleted) {
+            completeBackgroundSave();
+        } else if (backgroundSaveError != null) {
+            System.out.println(String.format(UserMessages.SAVE_FAILED.message, backgroundSave.getFilePath(), backgroundSaveError.getMessage()));
+        }
+
+        if (backgroundSaveError == null) {
+            System.out.println(String.format(UserMessages.SAVE_FINISHED.message, backgroundSave.getTotalCount(),
+                    backgroundSave.getFilePath(), backgroundSave.getElapsedMillis()));
+        }
+    }
+
+    /**
+     * Waits for the background save, if there is one, and completes it once.
+     * After a successful save the saved records are removed from the journal and the saved students
+     * which were loaded from the archive are removed from it. A failed save is reported and the journal is kept.
+     *
+     * @throws IOException If the journal or the archive can not be written.
+     */
+    private void completeBackgroundSave() throws IOException {
+        if (backgroundSave == null || isBackgroundSaveCompleted) {
+            return;
+        }
+
+        backgroundSaveError = backgroundSave.await();
+        isBackgroundSaveCompleted = true;
+        if (backgroundSaveError != null) {
+            System.out.println(String.format(UserMessages.SAVE_FAILED.message, backgroundSave.getFilePath(), backgroundSaveError.getMessage()));
+            return;
+        }
+
+        if (savedJournalLength >= 0) {
+            studentJournal.checkpoint(savedJournalLength);
+            tieredStudentStore.getArchive().remove(savedRestoredStudents);
+        } else {
+            StudentJournal.deleteJournalOf(backgroundSave.getFilePath());
+            if (tieredStudentStore != null) {
+                tieredStudentStore.getArchive().copyTo(backgroundSave.getFilePath());
+            }
+        }
     }
 
     /**
@@ -97,8 +447,34 @@ public class CommandLine implements CommandLineInterface {
      */
     @Override
     public void exit() {
+        exit(0);
+    }
+
+    /**
+     * Exits the application with the given exit status, so a script which runs the application can check the result.
+     *
+     * @param status The exit status of the process.
+     */
+    @Override
+    public void exit(int status) {
+        //The file is replaced only at the end of a background save, so it is finished before exiting
+        try {
+            completeBackgroundSave();
+        } catch (IOException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+
         System.out.println(UserMessages.EXIT.message);
-        System.exit(0);
+        System.out.flush();
+        System.exit(status);
+    }
+
+    /**
+     * Writes the buffered output of the last command, so it comes before any later message.
+     */
+    @Override
+    public void flushOutput() {
+        outputSink.flush();
     }
 
     /**
@@ -112,6 +488,17 @@ public class CommandLine implements CommandLineInterface {
         this.studentService.enroll(commandParts);
     }
 
+    /**
+     * Enrolls the students of a CSV file into their programs.
+     *
+     * @param commandParts An array containing the command parts.
+     * @throws IOException If the CSV file can not be read or the rejects file can not be written.
+     */
+    @Override
+    public void enrollBulk(String[] commandParts) throws IOException {
+        this.studentService.enrollBulk(commandParts);
+    }
+
     /**
      * Advances a student to the next academic year based on the provided command parts.
      *
@@ -188,13 +575,39 @@ public class CommandLine implements CommandLineInterface {
         this.studentService.addGrade(commandParts);
     }
 
+    /**
+     * Adds the grades of one or more exam sheet files.
+     *
+     * @param commandParts An array containing the command parts.
+     * @throws IOException If a file can not be read or a rejects file can not be written.
+     */
+    @Override
+    public void addGrades(String[] commandParts) throws IOException {
+        this.studentService.addGrades(commandParts);
+    }
+
     /**
      * Prints a report for a specific student based on the given command parts.
+     * A student of a lazily opened file which is not parsed yet is printed straight from its line in the file,
+     * which is the same as the report of the unchanged student.
      *
      * @param commandParts An array containing the command parts.
+     * @throws UncheckedIOException If the lazily opened file can not be read.
      */
     @Override
     public void print(String[] commandParts) {
+        if (lazyStudentStore != null) {
+            int facultyNumber = CommonUtility.intParser(commandParts[1]); //Parses if possible and throws exception if not
+            if (lazyStudentStore.isUnread(facultyNumber)) {
+                try {
+                    outputSink.println(lazyStudentStore.readLine(facultyNumber));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return;
+            }
+        }
+
         this.studentReporter.print(commandParts);
     }
 
@@ -228,6 +641,138 @@ public class CommandLine implements CommandLineInterface {
         this.studentReporter.report(commandParts);
     }
 
+    /**
+     * Creates an empty student storage of the given kind.
+     *
+     * @param storageMode The kind of storage to create.
+     * @return The empty student storage.
+     */
+    private StudentStore createStudentStore(StorageMode storageMode) {
+        switch (storageMode) {
+            case COLUMNAR:
+                return new ColumnarStudentRepository();
+            case OFFHEAP:
+                return new OffHeapStudentRepository();
+            case CONCURRENT:
+                return new ConcurrentStudentRepository();
+            default:
+                heapStudentRepository.clear();
+                return heapStudentRepository;
+        }
+    }
+
+    /**
+     * Sets the student storage used by the file manager, the service and the reporter.
+     *
+     * @param studentStore The student storage to use.
+     */
+    private void useStudentStore(StudentStore studentStore) {
+        useStudentStore(studentStore, null);
+    }
+
+    /**
+     * Sets the student storage used by the file manager, the service and the reporter.
+     * The file manager loads only the students which match the given filter.
+     *
+     * @param studentStore The student storage to use.
+     * @param filter The filter of the loaded students or null to load all students.
+     */
+    private void useStudentStore(StudentStore studentStore, StudentFilter filter) {
+        this.studentRepository = studentStore;
+        if (filter == null) {
+            this.studentsFileManager = new FileManager<>(studentSerializer, studentDeserializer,
+                    binaryStudentSerializer, binaryStudentDeserializer, studentStore);
+        } else {
+            this.studentsFileManager = new FileManager<>(studentSerializer, new FilteredStudentDeserializer(studentDeserializer, filter),
+                    binaryStudentSerializer, new FilteredBinaryStudentDeserializer(binaryStudentDeserializer, filter), studentStore);
+            //A snapshot of a part of the students would be taken for the whole file
+            this.studentsFileManager.setSnapshotEnabled(false);
+        }
+        this.studentService = new StudentService(studentStore, programRepository, outputSink, studentLocks);
+        this.studentReporter = new StudentReporter(studentStore, outputSink, studentLocks);
+    }
+
+    /**
+     * Checks if the students of the opened file can be read and changed by several sessions at the same time.
+     * This is so only for a file which is fully loaded into the concurrent storage, as the other storages,
+     * the lazily opened files and the datasets keep their students in collections which are not thread-safe.
+     *
+     * @return true if the commands of several sessions can run at the same time and false otherwise.
+     */
+    @Override
+    public boolean isThreadSafe() {
+        return isThreadSafe;
+    }
+
+    /**
+     * Prints how many students are stored and how much memory their storage uses.
+     */
+    @Override
+    public void storage() {
+        System.out.println(studentRepository.getStorageReport());
+    }
+
+    /**
+     * Converts a students file from text to binary format or from binary to text format.
+     * The format of the source file is detected from its first bytes.
+     * When the source or the target is a directory, the students are converted between a text file
+     * and a sharded dataset with one segment per program and year.
+     * The students are loaded into their own storage, so the opened file is not changed. The journal of the source
+     * is applied to them, as the saved changes may still be only in the journal. The target gets the archive
+     * of the source instead of its own journal and archive, like a file which is saved to another path.
+     *
+     * @param commandParts An array containing the command parts including the source and the target file paths.
+     * @throws Exception If the source file can not be read or the target file can not be written.
+     */
+    @Override
+    public void convert(String[] commandParts) throws Exception {
+        String sourcePath = commandParts[1];
+        String targetPath = commandParts[2];
+
+        //An archived student changed by the journal is loaded back from the archive, as on open
+        StudentArchive sourceArchive = new StudentArchive(sourcePath);
+        sourceArchive.load();
+        StudentStore convertStore = new TieredStudentStore(new StudentRepository(), sourceArchive, studentSerializer, studentDeserializer);
+        if (ShardedDataset.isDatasetPath(sourcePath) || ShardedDataset.isDatasetPath(targetPath)) {
+            convertStore = new ShardedStudentStore(convertStore, studentSerializer, studentDeserializer);
+        }
+
+        FileManager<Student> convertFileManager = new FileManager<>(studentSerializer, studentDeserializer,
+                binaryStudentSerializer, binaryStudentDeserializer, convertStore);
+        if (programRepository.getAll().isEmpty()) {
+            programFileManager.open(pathToProgramsDatabaseFile);
+        }
+        convertFileManager.read(sourcePath);
+
+        int appliedCount = new StudentJournal(sourcePath, convertStore, programRepository, subjectRepository).replay();
+        if (appliedCount > 0) {
+            System.out.println(String.format(UserMessages.JOURNAL_REPLAYED.message, appliedCount));
+        }
+
+        FileFormat targetFormat = convertFileManager.convert(targetPath);
+        StudentJournal.deleteJournalOf(targetPath);
+        sourceArchive.copyTo(targetPath);
+        System.out.println(String.format(UserMessages.FILE_CONVERTED.message, sourcePath, targetPath, targetFormat.toString().toLowerCase()));
+    }
+
+    /**
+     * Prints the statistics of the archive of the opened file or the archived student with the given faculty number.
+     * An archived student is read from the archive file without loading it back into memory.
+     *
+     * @param commandParts An array containing the command parts including the optional faculty number.
+     * @throws IOException If the archive can not be read.
+     */
+    @Override
+    public void archive(String[] commandParts) throws IOException {
+        if (commandParts.length == 1) {
+            outputSink.println(tieredStudentStore.getArchive().getReport());
+            return;
+        }
+
+        int facultyNumber = CommonUtility.intParser(commandParts[1]); //Parses if possible and throws exception if not
+        outputSink.println(tieredStudentStore.readArchived(facultyNumber));
+    }
+
     /**
      * Retrieves help information from a specified file.
      *
@@ -1,6 +1,9 @@
 package bg.tu_varna.sit.oop1.commandLine;
 
+import bg.tu_varna.sit.oop1.enums.LoadMode;
+import bg.tu_varna.sit.oop1.enums.StorageMode;
 import bg.tu_varna.sit.oop1.exceptions.StudentException;
+import bg.tu_varna.sit.oop1.utilities.StudentFilter;
 
 import java.io.IOException;
 
@@ -16,10 +19,42 @@ public interface CommandLineInterface {
      */
     void open(String path) throws IOException;
 
+    /**
+     * Opens a file specified by the given path and keeps its content in the given kind of storage.
+     *
+     * @param path The path to the file to be opened.
+     * @param storageMode The storage in which the content of the file is kept.
+     * @throws IOException If an error occurs while opening the file.
+     */
+    void open(String path, StorageMode storageMode) throws IOException;
+
+    /**
+     * Opens a file specified by the given path, loads it in the given way and keeps its content in the given kind of storage.
+     *
+     * @param path The path to the file to be opened.
+     * @param storageMode The storage in which the content of the file is kept.
+     * @param loadMode The way in which the file is loaded.
+     * @throws IOException If an error occurs while opening the file.
+     */
+    void open(String path, StorageMode storageMode, LoadMode loadMode) throws IOException;
+
+    /**
+     * Opens a file specified by the given path and loads only the content which matches the given filter.
+     *
+     * @param path The path to the file to be opened.
+     * @param storageMode The storage in which the content of the file is kept.
+     * @param loadMode The way in which the file is loaded.
+     * @param filter The filter of the loaded students or null to load all students.
+     * @throws IOException If an error occurs while opening the file.
+     */
+    void open(String path, StorageMode storageMode, LoadMode loadMode, StudentFilter filter) throws IOException;
+
     /**
      * Closes the currently opened file.
+     *
+     * @throws IOException If an error occurs while completing a background save.
      */
-    void close();
+    void close() throws IOException;
 
     /**
      * Saves the content of the current file to the specified path.
@@ -29,6 +64,21 @@ public interface CommandLineInterface {
      */
     void save(String path) throws IOException;
 
+    /**
+     * Starts saving a snapshot of the data to the specified file path on a background thread.
+     *
+     * @param path The path to save the data.
+     * @throws IOException If an error occurs while preparing the snapshot.
+     */
+    void saveInBackground(String path) throws IOException;
+
+    /**
+     * Prints the progress of the background save or its result if it is done.
+     *
+     * @throws IOException If an error occurs while completing a finished save.
+     */
+    void saveStatus() throws IOException;
+
     /**
      * Displays help information from the specified file path.
      *
@@ -41,6 +91,25 @@ public interface CommandLineInterface {
      */
     void exit();
 
+    /**
+     * Exits the program with the given exit status.
+     *
+     * @param status The exit status of the process.
+     */
+    void exit(int status);
+
+    /**
+     * Writes the buffered output of the last command.
+     */
+    void flushOutput();
+
+    /**
+     * Checks if the commands of several sessions can run at the same time on the opened file.
+     *
+     * @return true if the opened students can be used by several threads and false otherwise.
+     */
+    boolean isThreadSafe();
+
     /**
      * Enrolls a student into a program based on the provided command parts.
      *
@@ -49,6 +118,14 @@ public interface CommandLineInterface {
      */
     void enroll (String[] commandParts) throws StudentException;
 
+    /**
+     * Enrolls the students of a CSV file into their programs.
+     *
+     * @param commandParts An array containing the command parts.
+     * @throws IOException If the CSV file can not be read or the rejects file can not be written.
+     */
+    void enrollBulk(String[] commandParts) throws IOException;
+
     /**
      * Advances a student to the next academic year based on the provided command parts.
      *
@@ -104,6 +181,14 @@ public interface CommandLineInterface {
      */
     void addGrade(String[] commandParts) throws StudentException;
 
+    /**
+     * Adds the grades of one or more exam sheet files.
+     *
+     * @param commandParts An array containing the command parts.
+     * @throws IOException If a file can not be read or a rejects file can not be written.
+     */
+    void addGrades(String[] commandParts) throws IOException;
+
     /**
      * Prints a report for a specific student based on the given command parts.
      *
@@ -131,4 +216,25 @@ public interface CommandLineInterface {
      * @param commandParts An array containing the command parts including the student's ID.
      */
     void report(String[] commandParts);
+
+    /**
+     * Prints a report of the memory used by the storage of the opened file.
+     */
+    void storage();
+
+    /**
+     * Converts a students file from text to binary format or from binary to text format.
+     *
+     * @param commandParts An array containing the command parts including the source and the target file paths.
+     * @throws Exception If the source file can not be read or the target file can not be written.
+     */
+    void convert(String[] commandParts) throws Exception;
+
+    /**
+     * Prints a summary of the archive of the opened file or the archived student with the given faculty number.
+     *
+     * @param commandParts An array containing the command parts including the optional faculty number.
+     * @throws IOException If the archive can not be read.
+     */
+    void archive(String[] commandParts) throws IOException;
 }
@@ -4,14 +4,15 @@ package bg.tu_varna.sit.oop1.enums;
  * Enum representing various commands with their corresponding number of arguments.
  */
 public enum Command {
-    OPEN(2),         // Command to open a file with 2 arguments
+    OPEN(2, 8),      // Command to open a file with 2 arguments, an optional storage and load mode and an optional WHERE clause
     CLOSE(1),        // Command to close a file with 1 argument
-    SAVE(1),         // Command to save a file with 1 argument
+    SAVE(1, 2),      // Command to save a file with 1 argument and an optional "async" or "status" option
     SAVEAS(2),       // Command to save a file as another with 2 arguments
     HELP(1),         // Command to display help with 1 argument
     EXIT(1),         // Command to exit the program with 1 argument
 
     ENROLL(5),       // Command to enroll a student with 5 arguments
+    ENROLLBULK(2),   // Command to enroll the students of a CSV file with 2 arguments
     ADVANCE(2),      // Command to advance a student with 2 arguments
     CHANGE(4),       // Command to change a student's data with 4 arguments
     GRADUATE(2),     // Command to graduate a student with 2 arguments
@@ -19,13 +20,18 @@ public enum Command {
     RESUME(2),       // Command to resume a student's studies with 2 arguments
     ENROLLIN(3),     // Command to enroll a student in a program with 3 arguments
     ADDGRADE(4),     // Command to add a grade for a student with 4 arguments
+    ADDGRADES(2, Integer.MAX_VALUE), // Command to add the grades of one or more files with at least 2 arguments
 
     PRINT(2),        // Command to print information with 2 arguments
     PRINTALL(3),     // Command to print all information with 3 arguments
     PROTOCOL(2),     // Command to generate a protocol with 2 arguments
-    REPORT(2);       // Command to generate a report with 2 arguments
+    REPORT(2),       // Command to generate a report with 2 arguments
+    STORAGE(1),      // Command to print the memory used by the storage with 1 argument
+    CONVERT(3),      // Command to convert a file between the text and the binary format with 3 arguments
+    ARCHIVE(1, 2);   // Command to print the archive or an archived student with 1 argument and an optional faculty number
 
     public final int argumentsCount;
+    public final int maxArgumentsCount;
 
     /**
      * Constructor for Command enum.
@@ -33,6 +39,17 @@ public enum Command {
      * @param argumentsCount The number of arguments for the command.
      */
     private Command (int argumentsCount) {
+        this(argumentsCount, argumentsCount);
+    }
+
+    /**
+     * Constructor for Command enum with optional arguments.
+     *
+     * @param argumentsCount The number of required arguments for the command.
+     * @param maxArgumentsCount The number of arguments for the command including the optional ones.
+     */
+    private Command (int argumentsCount, int maxArgumentsCount) {
         this.argumentsCount = argumentsCount;
+        this.maxArgumentsCount = maxArgumentsCount;
     }
 }
@@ -0,0 +1,26 @@
+package bg.tu_varna.sit.oop1.enums;
+
+/**
+ * Represents the formats in which the data files can be written.
+ */
+public enum FileFormat {
+    /**
+     * Indicates a text file with one labeled record per line.
+     */
+    TEXT,
+
+    /**
+     * Indicates a binary file with a header, a dictionary block and length-prefixed records.
+     */
+    BINARY,
+
+    /**
+     * Indicates a dataset directory with one text segment file per program and year, described by a manifest.
+     */
+    SHARDED,
+
+    /**
+     * Indicates a text file whose lines are compressed in independent blocks, which can be parsed in parallel.
+     */
+    COMPRESSED
+}
@@ -0,0 +1,26 @@
+package bg.tu_varna.sit.oop1.enums;
+
+/**
+ * Represents the ways in which the records of a file can be loaded on open.
+ */
+public enum LoadMode {
+    /**
+     * Indicates that the file is read and parsed line by line on the current thread.
+     */
+    SEQUENTIAL,
+
+    /**
+     * Indicates that the file is memory-mapped, split into chunks and the chunks are parsed in parallel.
+     */
+    PARALLEL,
+
+    /**
+     * Indicates that reading, parsing and adding the records run in overlapped stages on separate threads.
+     */
+    PIPELINED,
+
+    /**
+     * Indicates that only the positions of the records are indexed and every record is parsed when it is first needed.
+     */
+    LAZY
+}
@@ -0,0 +1,26 @@
+package bg.tu_varna.sit.oop1.enums;
+
+/**
+ * Represents the ways in which the students of an opened file can be stored in memory.
+ */
+public enum StorageMode {
+    /**
+     * Indicates that every student is kept as a separate object.
+     */
+    HEAP,
+
+    /**
+     * Indicates that the students are kept in primitive columns, one array per field.
+     */
+    COLUMNAR,
+
+    /**
+     * Indicates that the students are encoded as records in memory outside of the heap.
+     */
+    OFFHEAP,
+
+    /**
+     * Indicates that every student is kept as a separate object in a map which several sessions can use at the same time.
+     */
+    CONCURRENT
+}
@@ -25,10 +25,23 @@ public enum UserMessages {
     //Deserialization exceptions:
     WRONG_PROGRAM_DATA_FORMAT("Invalid program data format."),
     WRONG_STUDENT_DATA_FORMAT("Invalid student data format."),
+    DUPLICATE_RECORD("Skipped record %d: %s"),
+    WRONG_BINARY_DATA_FORMAT("Invalid binary data format."),
+    WRONG_COMPRESSED_DATA_FORMAT("Invalid compressed data format."),
+    FILE_CONVERTED("Successfully converted %s into %s in %s format."),
+    WRONG_JOURNAL_DATA_FORMAT("Invalid journal record format."),
+    JOURNAL_RECORD_SKIPPED("Skipped journal record %d: %s"),
+    UNSUPPORTED_BINARY_VERSION("Unsupported binary file version %d."),
+    WRONG_ARCHIVE_RECORD("Invalid archive record of student %d: %s"),
+    WRONG_MANIFEST_DATA_FORMAT("Invalid dataset manifest format."),
+    WRONG_SEGMENT_DATA("Invalid record in segment %s: %s"),
+    SEGMENT_RECORD_SKIPPED("Skipped record in segment %s: %s"),
+    LAZY_RECORD_SKIPPED("Skipped record of student %d: %s"),
 
     //StudentService exceptions:
     STUDENT_EXISTS("The student already exists in the database."),
     STUDENT_NOT_EXISTS("The student is not part of the database!"),
+    STUDENT_NOT_ARCHIVED("The student %d is not in the archive."),
     STUDENT_DROPPED("This student has interrupted education."),
     PROGRAM_NOT_FOUND("The program is not part of the database."),
     NEW_STUDENT_YEAR_WRONG_VALUE("The student can not skip years."),
@@ -49,6 +62,52 @@ public enum UserMessages {
     STUDENT_STATUS_CHANGED("Successfully changed student %d status."),
     WRONG_NUMBER_DATA("The value \"%s\" must be a number"),
     WRONG_STRING_DATA("The value \"%s\" can not be a number"),
+    OPEN_OPTION_UNKNOWN("Unknown open option \"%s\"."),
+    WHERE_CONDITION_UNKNOWN("Unknown condition \"%s\". Use program=<name> and year=<year>."),
+    WHERE_CONDITION_MISSING("The WHERE clause needs a program or a year condition."),
+    WHERE_FOR_LAZY("A lazily opened file already parses only the students which are needed, so it can not be opened with WHERE."),
+    WHERE_FOR_DATASET("A dataset directory already loads only the segments which are needed, so it can not be opened with WHERE."),
+    STUDENTS_FILTERED("Loaded %d students matching %s. Saving to this file is disabled, as the other students are not loaded."),
+    FILTERED_SAVE("The file was opened with WHERE %s and can not be saved over with a part of its students."),
+    JOURNAL_REPLAYED("Applied %d changes from the journal."),
+    JOURNAL_FLUSHED("Saved %d changes to the journal."),
+    SAVE_OPTION_UNKNOWN("Unknown save option \"%s\"."),
+    SAVE_IN_PROGRESS("A background save of %s is still running."),
+    SAVE_STARTED("Saving %d students to %s in the background. Use \"save status\" to follow it."),
+    SAVE_RUNNING("Saving %s: %d of %d students written (%d%%) in %d ms."),
+    SAVE_FINISHED("Saved %d students to %s in the background in %d ms."),
+    SAVE_FAILED("The background save of %s failed: %s"),
+    NO_BACKGROUND_SAVE("No background save was started."),
+    STUDENTS_ARCHIVED("Moved %d graduated or dropped students to the archive."),
+    SHARDED_REPORT("Dataset: %d of %d segments loaded, %d students not loaded yet."),
+    CONCURRENT_REPORT("Concurrent heap storage: %d students kept as separate objects in a concurrent map."),
+    LAZY_REPORT("Lazy file: %d of %d students not parsed yet, %d bytes of offset index in memory."),
+    SAVE_DATASET_IN_BACKGROUND("A dataset directory can not be saved in the background."),
+    ARCHIVE_REPORT("Archive: %d students, %d bytes of records, %d bytes of index file, %d bytes of index in memory."),
+    SNAPSHOT_LOADED("Loaded %d records from the snapshot %s in %d ms."),
+    RECORDS_LOADED("Loaded %d records in %d ms (%d records per second)."),
+    PIPELINE_TIMINGS("Loaded %d records in %d ms. Catalog: %d ms, read: %d ms, parse: %d ms on %d threads, insert: %d ms."),
+
+    BATCH_SUMMARY("Executed %d commands in %d ms, %d failed."),
+    BATCH_ERROR("Line %d: %s -> %s"),
+    BATCH_STOPPED("Stopped after the first failed command, because of --fail-fast."),
+    BATCH_OPTION_UNKNOWN("Unknown option \"%s\". Use [--batch] [--fail-fast] [<script>]."),
+
+    BULK_FIELDS_COUNT("Expected %d comma-separated fields but found %d."),
+    BULK_FIELD_EMPTY("Field %d is empty."),
+    BULK_DUPLICATE_ROW("The faculty number is already enrolled by line %d of the file."),
+    BULK_REJECTED_ROW("# Line %d: %s"),
+    BULK_REJECTS_WRITTEN("Rejected %d rows, written with their reasons to %s."),
+    ENROLL_BULK_SUMMARY("Enrolled %d of %d students from %s in %d ms."),
+    ADD_GRADES_SUMMARY("Added %d of %d grades from %d files for %d students in %d ms (%d grades per second)."),
+
+    SERVER_STARTED("Listening on %s:%d, one %s thread per client."),
+    SERVER_USAGE("Use --server <port> [<file> [<storage>]]."),
+    SESSION_OPENED("Client %s connected."),
+    SESSION_CLOSED("Client %s disconnected."),
+    SESSION_FAILED("Client %s disconnected: %s"),
+    SESSION_OUTPUT_CLOSED("The connection of the session is closed."),
+    SESSION_WRITE_TIMEOUT("The client did not read the output for %d ms, so the connection was closed."),
 
     MISSING_DIRECTORY_ERROR("Invalid path");
 
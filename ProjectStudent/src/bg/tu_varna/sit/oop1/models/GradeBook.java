@@ -0,0 +1,413 @@
+package bg.tu_varna.sit.oop1.models;
+
+import bg.tu_varna.sit.oop1.enums.UserMessages;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The GradeBook class is a compact map of the grades of one student.
+ * It keeps the canonical subjects and the grades in two parallel arrays instead of map entries.
+ * The grades are stored as fixed-point hundredths in a short, since they are always between 2.00 and 6.00.
+ * A grade with more decimals is rounded to two decimals, so it is also saved with two decimals.
+ * Subclasses can override {@code onChange()} to write the changed grades back to another storage.
+ */
+public class GradeBook extends AbstractMap<Subject, Double> {
+    private static final double MIN_GRADE = 2.00;
+    private static final double MAX_GRADE = 6.00;
+    private static final Subject[] NO_SUBJECTS = new Subject[0];
+    private static final short[] NO_GRADES = new short[0];
+
+    private Subject[] subjects;
+    private short[] grades;
+    private int size;
+
+    /**
+     * Constructs a new empty GradeBook.
+     */
+    public GradeBook() {
+        this.subjects = NO_SUBJECTS;
+        this.grades = NO_GRADES;
+    }
+
+    /**
+     * Constructs a new GradeBook with the grades of the given map.
+     *
+     * @param gradesBySubject The grades by subject map to copy.
+     */
+    public GradeBook(Map<Subject, Double> gradesBySubject) {
+        this.subjects = new Subject[gradesBySubject.size()];
+        this.grades = new short[gradesBySubject.size()];
+        putAll(gradesBySubject);
+    }
+
+    /**
+     * Checks if a grade is between 2.00 and 6.00, so it can be kept in a grade book.
+     *
+     * @param grade The grade to check.
+     * @return true if the grade is valid and false otherwise.
+     */
+    public static boolean isValidGrade(double grade) {
+        return grade >= MIN_GRADE && grade <= MAX_GRADE;
+    }
+
+    /**
+     * Converts a grade into fixed-point hundredths. The grade is rounded to two decimals.
+     *
+     * @param grade The grade to convert.
+     * @return The grade in hundredths.
+     * @throws IllegalArgumentException If the grade is not between 2.00 and 6.00.
+     */
+    public static short toHundredths(double grade) {
+        //A grade out of the range could overflow the short and be kept as another grade
+        if (!isValidGrade(grade)) {
+            throw new IllegalArgumentException(UserMessages.GRADE_WRONG_VALUE.message);
+        }
+
+        return (short) Math.round(grade * 100);
+    }
+
+    /**
+     * Converts fixed-point hundredths back into a grade.
+     *
+     * @param hundredths The grade in hundredths.
+     * @return The grade.
+     */
+    public static double fromHundredths(int hundredths) {
+        return hundredths / 100.0;
+    }
+
+    /**
+     * Gets the number of grades in the grade book.
+     *
+     * @return The number of grades.
+     */
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets the subject at the given position of the grade book.
+     *
+     * @param index The position of the grade.
+     * @return The subject of the grade.
+     */
+    public Subject getSubject(int index) {
+        checkIndex(index);
+        return this.subjects[index];
+    }
+
+    /**
+     * Gets the grade at the given position of the grade book in hundredths.
+     *
+     * @param index The position of the grade.
+     * @return The grade in hundredths.
+     */
+    public short getHundredths(int index) {
+        checkIndex(index);
+        return this.grades[index];
+    }
+
+    /**
+     * Checks if the grade book has a grade for the given subject.
+     *
+     * @param subject The subject to look for.
+     * @return true if there is a grade for the subject and false otherwise.
+     */
+    @Override
+    public boolean containsKey(Object subject) {
+        return indexOf(subject) >= 0;
+    }
+
+    /**
+     * Gets the grade for the given subject.
+     *
+     * @param subject The subject of the grade.
+     * @return The grade or null if there is no grade for the subject.
+     */
+    @Override
+    public Double get(Object subject) {
+        int index = indexOf(subject);
+        if (index < 0) {
+            return null;
+        }
+
+        return fromHundredths(this.grades[index]);
+    }
+
+    /**
+     * Sets the grade for the given subject.
+     *
+     * @param subject The subject of the grade.
+     * @param grade The grade to set.
+     * @return The previous grade or null if there was no grade for the subject.
+     */
+    @Override
+    public Double put(Subject subject, Double grade) {
+        Objects.requireNonNull(subject);
+        Objects.requireNonNull(grade);
+
+        int index = indexOf(subject);
+        if (index >= 0) {
+            Double previousGrade = fromHundredths(this.grades[index]);
+            this.grades[index] = toHundredths(grade);
+            onChange();
+            return previousGrade;
+        }
+
+        if (this.size == this.subjects.length) {
+            int capacity = Math.max(4, this.size * 2);
+            this.subjects = Arrays.copyOf(this.subjects, capacity);
+            this.grades = Arrays.copyOf(this.grades, capacity);
+        }
+
+        this.subjects[this.size] = subject;
+        this.grades[this.size] = toHundredths(grade);
+        this.size++;
+        onChange();
+        return null;
+    }
+
+    /**
+     * Removes the grade for the given subject.
+     *
+     * @param subject The subject of the grade.
+     * @return The removed grade or null if there was no grade for the subject.
+     */
+    @Override
+    public Double remove(Object subject) {
+        int index = indexOf(subject);
+        if (index < 0) {
+            return null;
+        }
+
+        Double removedGrade = fromHundredths(this.grades[index]);
+        removeAt(index);
+        onChange();
+        return removedGrade;
+    }
+
+    /**
+     * Removes all grades from the grade book.
+     */
+    @Override
+    public void clear() {
+        Arrays.fill(this.subjects, 0, this.size, null);
+        this.size = 0;
+        onChange();
+    }
+
+    /**
+     * Gets a set view of the grades. Changes to the entries are written into the grade book.
+     *
+     * @return A set of subject and grade entries.
+     */
+    @Override
+    public Set<Entry<Subject, Double>> entrySet() {
+        return new AbstractSet<Entry<Subject, Double>>() {
+            @Override
+            public Iterator<Entry<Subject, Double>> iterator() {
+                return new GradeIterator();
+            }
+
+            @Override
+            public int size() {
+                return GradeBook.this.size;
+            }
+        };
+    }
+
+    /**
+     * Called after every change of the grades.
+     * The grade book does nothing, subclasses can write the grades to their own storage.
+     */
+    protected void onChange() {
+    }
+
+    /**
+     * Finds the position of the given subject. The canonical subjects are compared by reference first.
+     *
+     * @param subject The subject to look for.
+     * @return The position of the subject or -1 if there is no grade for it.
+     */
+    private int indexOf(Object subject) {
+        for (int i = 0; i < this.size; i++) {
+            if (this.subjects[i] == subject) {
+                return i;
+            }
+        }
+        for (int i = 0; i < this.size; i++) {
+            if (this.subjects[i].equals(subject)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Removes the grade at the given position and shifts the following grades.
+     *
+     * @param index The position of the grade.
+     */
+    private void removeAt(int index) {
+        int movedCount = this.size - index - 1;
+        System.arraycopy(this.subjects, index + 1, this.subjects, index, movedCount);
+        System.arraycopy(this.grades, index + 1, this.grades, index, movedCount);
+        this.size--;
+        this.subjects[this.size] = null;
+    }
+
+    /**
+     * Checks if the given position is inside the grade book.
+     *
+     * @param index The position to check.
+     * @throws IndexOutOfBoundsException If the position is not inside the grade book.
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+    }
+
+    /**
+     * Iterator over the grades of the grade book which supports removing the current grade.
+     */
+    private class GradeIterator implements Iterator<Entry<Subject, Double>> {
+        private int next;
+        private int current = -1;
+
+        /**
+         * Checks if there are more grades to iterate.
+         *
+         * @return true if there are more grades and false otherwise.
+         */
+        @Override
+        public boolean hasNext() {
+            return this.next < size;
+        }
+
+        /**
+         * Moves to the next grade of the grade book.
+         *
+         * @return The entry of the next grade.
+         */
+        @Override
+        public Entry<Subject, Double> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            this.current = this.next++;
+            return new GradeEntry(this.current);
+        }
+
+        /**
+         * Removes the current grade from the grade book.
+         */
+        @Override
+        public void remove() {
+            if (this.current < 0) {
+                throw new IllegalStateException();
+            }
+
+            removeAt(this.current);
+            onChange();
+            this.next = this.current;
+            this.current = -1;
+        }
+    }
+
+    /**
+     * Entry of the grade book which reads and writes the grade at a given position.
+     */
+    private class GradeEntry implements Entry<Subject, Double> {
+        private final int index;
+
+        /**
+         * Constructs an entry for the grade at the given position.
+         *
+         * @param index The position of the grade.
+         */
+        GradeEntry(int index) {
+            this.index = index;
+        }
+
+        /**
+         * Gets the subject of the grade.
+         *
+         * @return The subject of the grade.
+         */
+        @Override
+        public Subject getKey() {
+            return subjects[this.index];
+        }
+
+        /**
+         * Gets the grade.
+         *
+         * @return The grade.
+         */
+        @Override
+        public Double getValue() {
+            return fromHundredths(grades[this.index]);
+        }
+
+        /**
+         * Sets the grade in the grade book.
+         *
+         * @param grade The grade to set.
+         * @return The previous grade.
+         */
+        @Override
+        public Double setValue(Double grade) {
+            Double previousGrade = getValue();
+            grades[this.index] = toHundredths(Objects.requireNonNull(grade));
+            onChange();
+            return previousGrade;
+        }
+
+        /**
+         * Compares the entry with another map entry by subject and grade.
+         *
+         * @param object The object to compare with.
+         * @return true if the object is an entry with the same subject and grade and false otherwise.
+         */
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof Entry)) {
+                return false;
+            }
+
+            Entry<?, ?> entry = (Entry<?, ?>) object;
+            return getKey().equals(entry.getKey()) && getValue().equals(entry.getValue());
+        }
+
+        /**
+         * Computes the hash code of the entry as defined by the Map.Entry contract.
+         *
+         * @return The hash code of the entry.
+         */
+        @Override
+        public int hashCode() {
+            return getKey().hashCode() ^ getValue().hashCode();
+        }
+
+        /**
+         * Gets the entry as a string.
+         *
+         * @return The subject name and the grade.
+         */
+        @Override
+        public String toString() {
+            return getKey().getName() + "=" + getValue();
+        }
+    }
+}
@@ -12,6 +12,7 @@ import java.util.*;
 public class Program {
     private String name;
     private Map<Integer, Collection<Subject>> subjectsByCourse = new HashMap<>();
+    private Map<Integer, Map<String, Subject>> subjectsByCourseAndName = new HashMap<>();
 
     /**
      * Constructs a new Program with the specified name.
@@ -73,5 +74,28 @@ public class Program {
         }
 
         this.subjectsByCourse.put(course, courseSubjects);
+
+        Map<String, Subject> subjectsByName = new HashMap<>();
+        for (Subject subject : courseSubjects) {
+            subjectsByName.put(subject.getName().toLowerCase(Locale.ROOT), subject);
+        }
+        this.subjectsByCourseAndName.put(course, subjectsByName);
+    }
+
+    /**
+     * Finds a subject by name in the given year of study of the program.
+     * The name is matched case-insensitively.
+     *
+     * @param course The year of study in which the subject is taught.
+     * @param subjectName The name of the subject.
+     * @return The Subject object or null if the year of study has no subject with this name.
+     */
+    public Subject getSubject(int course, String subjectName) {
+        Map<String, Subject> subjectsByName = this.subjectsByCourseAndName.get(course);
+        if (subjectsByName == null) {
+            return null;
+        }
+
+        return subjectsByName.get(subjectName.toLowerCase(Locale.ROOT));
     }
 }
@@ -4,8 +4,7 @@ import bg.tu_varna.sit.oop1.enums.UserMessages;
 import bg.tu_varna.sit.oop1.exceptions.StudentException;
 import bg.tu_varna.sit.oop1.enums.StudentStatus;
 
-import java.util.Collection;
-import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 
 /**
@@ -21,7 +20,13 @@ public class Student {
     private StudentStatus status;
     private String averageGrade;
 
-    private Map<Subject, Double> gradesBySubject = new HashMap<>();
+    private GradeBook gradesBySubject = new GradeBook();
+
+    /**
+     * Constructs an empty Student for subclasses that keep the student data outside of the object.
+     */
+    protected Student () {
+    }
 
     /**
      * Constructs a new Student with the specified name, faculty number, program, year, and group.
@@ -41,6 +46,23 @@ public class Student {
         setGroup(group);
     }
 
+    /**
+     * Constructs a copy of the given student which does not share its grades with it.
+     * It is used to keep the state of a student while the original one can still be changed.
+     *
+     * @param student The student to copy.
+     */
+    public Student (Student student) {
+        this.name = student.getName();
+        this.facultyNumber = student.getFacultyNumber();
+        this.year = student.getYear();
+        this.program = student.getProgram();
+        this.group = student.getGroup();
+        this.status = student.getStatus();
+        this.averageGrade = student.getAverageGrade();
+        this.gradesBySubject = new GradeBook(student.getGradeBook());
+    }
+
     /**
      * Gets the name of the student.
      *
@@ -176,7 +198,7 @@ public class Student {
             throw new StudentException(UserMessages.STUDENT_STATUS_TYPE_WRONG_VALUE.message);
         }
 
-        this.status = StudentStatus.valueOf(statusString.toUpperCase());
+        this.status = StudentStatus.valueOf(statusString.toUpperCase(Locale.ROOT));
     }
 
     /**
@@ -203,16 +225,30 @@ public class Student {
      * @return Map containing the grade for each enrolled subject.
      */
     public Map<Subject, Double> getGradesBySubject() {
+        return getGradeBook();
+    }
+
+    /**
+     * Gets the compact grade book with the grades of the student.
+     *
+     * @return The grade book of the student.
+     */
+    public GradeBook getGradeBook() {
         return this.gradesBySubject;
     }
 
     /**
      * Sets the grades of the student.
+     * Grades from another kind of map are copied into a compact {@link GradeBook}.
      *
      * @param gradesBySubject the grades by subject map that needs to set.
      */
     public void setGradesBySubject (Map<Subject, Double> gradesBySubject) {
-        this.gradesBySubject = gradesBySubject;
+        if (gradesBySubject instanceof GradeBook) {
+            this.gradesBySubject = (GradeBook) gradesBySubject;
+        } else {
+            this.gradesBySubject = new GradeBook(gradesBySubject);
+        }
     }
 
     /**
@@ -221,14 +257,14 @@ public class Student {
      * @return The average grade.
      */
     private double calculateAverageGrade() {
-        int gradesCount = gradesBySubject.size();
-        Collection<Double> studentGrades = gradesBySubject.values();
-        double gradesSum = 0;
+        GradeBook gradeBook = getGradeBook();
+        int gradesCount = gradeBook.size();
+        int gradesSum = 0;
 
-        for(Double grade : studentGrades) {
-            gradesSum += grade;
+        for (int i = 0; i < gradesCount; i++) {
+            gradesSum += gradeBook.getHundredths(i);
         }
 
-        return gradesSum / gradesCount;
+        return GradeBook.fromHundredths(gradesSum) / gradesCount;
     }
 }
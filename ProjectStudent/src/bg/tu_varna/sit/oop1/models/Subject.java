@@ -3,8 +3,11 @@ package bg.tu_varna.sit.oop1.models;
 import bg.tu_varna.sit.oop1.enums.UserMessages;
 import bg.tu_varna.sit.oop1.exceptions.SubjectException;
 
+import java.util.Locale;
+
 /**
  * The Subject class represents a subject with attributes name and type.
+ * Two subjects are equal when they have the same name and type.
  */
 public class Subject {
     private String name;
@@ -65,6 +68,35 @@ public class Subject {
             throw new SubjectException(UserMessages.SUBJECT_TYPE_WRONG_VALUE.message);
         }
 
-        this.type = type.toLowerCase();
+        this.type = type.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Compares the subject with another object by name and type.
+     *
+     * @param object The object to compare with.
+     * @return true if the object is a subject with the same name and type and false otherwise.
+     */
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (!(object instanceof Subject)) {
+            return false;
+        }
+
+        Subject subject = (Subject) object;
+        return this.name.equals(subject.name) && this.type.equals(subject.type);
+    }
+
+    /**
+     * Computes the hash code of the subject from its name and type.
+     *
+     * @return The hash code of the subject.
+     */
+    @Override
+    public int hashCode() {
+        return 31 * this.name.hashCode() + this.type.hashCode();
     }
 }
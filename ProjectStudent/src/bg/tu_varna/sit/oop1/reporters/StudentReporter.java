@@ -3,11 +3,15 @@ package bg.tu_varna.sit.oop1.reporters;
 import bg.tu_varna.sit.oop1.enums.UserMessages;
 import bg.tu_varna.sit.oop1.models.Student;
 import bg.tu_varna.sit.oop1.models.Subject;
-import bg.tu_varna.sit.oop1.repositories.Repository;
+import bg.tu_varna.sit.oop1.repositories.StudentStore;
 import bg.tu_varna.sit.oop1.serialization.serializer.StudentSerializer;
 import bg.tu_varna.sit.oop1.utilities.CommonUtility;
+import bg.tu_varna.sit.oop1.utilities.OutputSink;
+import bg.tu_varna.sit.oop1.utilities.StripedLocks;
+import bg.tu_varna.sit.oop1.utilities.WriterOutputSink;
 
 import java.util.*;
+import java.util.concurrent.locks.Lock;
 import java.util.stream.Collectors;
 
 /**
@@ -16,16 +20,43 @@ import java.util.stream.Collectors;
  */
 public class StudentReporter implements Reportable {
     private StudentSerializer serializer;
-    private Repository<Student> studentRepository;
+    private StudentStore studentRepository;
+    private OutputSink output;
+    private StripedLocks studentLocks;
 
     /**
-     * Constructs a new StudentReporter with the specified student repository.
+     * Constructs a new StudentReporter with the specified student repository, which writes the reports to the console.
      *
      * @param studentRepository The repository containing student data.
      */
-    public StudentReporter (Repository<Student> studentRepository) {
+    public StudentReporter (StudentStore studentRepository) {
+        this(studentRepository, WriterOutputSink.console());
+    }
+
+    /**
+     * Constructs a new StudentReporter with the specified student repository and output sink.
+     *
+     * @param studentRepository The repository containing student data.
+     * @param output The sink to which the reports are written.
+     */
+    public StudentReporter (StudentStore studentRepository, OutputSink output) {
+        this(studentRepository, output, new StripedLocks());
+    }
+
+    /**
+     * Constructs a new StudentReporter which shares the locks of the students with the services.
+     * The reports go over the students without a lock and only lock one student while it is written,
+     * so a report does not stop the sessions which change the students.
+     *
+     * @param studentRepository The repository containing student data.
+     * @param output The sink to which the reports are written.
+     * @param studentLocks The locks of the students.
+     */
+    public StudentReporter (StudentStore studentRepository, OutputSink output, StripedLocks studentLocks) {
+        this.studentLocks = studentLocks;
         this.studentRepository = studentRepository;
         this.serializer = new StudentSerializer();
+        this.output = output;
     }
 
     /**
@@ -36,9 +67,15 @@ public class StudentReporter implements Reportable {
     @Override
     public void print(String[] commandParts) {
         int facultyNumber = CommonUtility.intParser(commandParts[1]); //Parses if possible and throws exception if not
-        Student student = studentRepository.getOrThrow(facultyNumber); //Returns the student if exists and throws exception if it doesn't
-        String studentReport = serializer.serialize(student); //Serializes student
-        System.out.println(studentReport);
+
+        Lock studentLock = studentLocks.get(facultyNumber);
+        studentLock.lock();
+        try {
+            Student student = studentRepository.getOrThrow(facultyNumber); //Returns the student if exists and throws exception if it doesn't
+            printStudent(student); //Serializes student
+        } finally {
+            studentLock.unlock();
+        }
     }
 
     /**
@@ -57,20 +94,16 @@ public class StudentReporter implements Reportable {
         int year = CommonUtility.intParser(commandParts[2]); //Parses if possible and throws exception if not
 
         //returns all students which properties match the given program and year
-        List<Student> filteredStudents = studentRepository.getAll().stream()
-                .filter(student -> student.getYear() == year)
-                .filter(student -> student.getProgram().getName().equals(programName))
-                .collect(Collectors.toList());
+        Collection<Student> filteredStudents = studentRepository.getByProgramAndYear(programName, year);
 
         if (filteredStudents.isEmpty())
         {
-            System.out.println("There are no enrolled students in this program or year.");
+            output.println("There are no enrolled students in this program or year.");
         }
 
-        //Serializes each item from the collection above and prints the result
+        //Serializes each item from the collection above straight into the output
         for (Student student : filteredStudents) {
-            String studentReport = serializer.serialize(student);
-            System.out.println(studentReport);
+            printStudent(student);
         }
     }
 
@@ -87,10 +120,10 @@ public class StudentReporter implements Reportable {
             throw new IllegalArgumentException(String.format(UserMessages.WRONG_STRING_DATA.message, subjectName));
         }
 
-        System.out.println(">>>>>Program report by course<<<<<");
+        output.println(">>>>>Program report by course<<<<<");
         printSubjectsByProgram(subjectName);
-        System.out.println();
-        System.out.println(">>>>>Program report by year<<<<<");
+        output.println();
+        output.println(">>>>>Program report by year<<<<<");
         printSubjectsByYear(subjectName);
     }
 
@@ -102,18 +135,41 @@ public class StudentReporter implements Reportable {
     @Override
     public void report(String[] commandParts) {
         int facultyNumber = CommonUtility.intParser(commandParts[1]); //Parses if possible and throws exception if not
-        Student student = studentRepository.getOrThrow(facultyNumber); //Returns the student if exists and throws exception if it doesn't
 
-        Map<Subject, Double> studentGradesBySubject = student.getGradesBySubject();
-        if (studentGradesBySubject.size() == 0) {
-            System.out.println(String.format("Student %d has no grades yet.", facultyNumber));
-            return;
+        Lock studentLock = studentLocks.get(facultyNumber);
+        studentLock.lock();
+        try {
+            Student student = studentRepository.getOrThrow(facultyNumber); //Returns the student if exists and throws exception if it doesn't
+            Map<Subject, Double> studentGradesBySubject = student.getGradesBySubject();
+            if (studentGradesBySubject.size() == 0) {
+                output.println(String.format("Student %d has no grades yet.", facultyNumber));
+                return;
+            }
+
+            String takenExams = takenExamsInfo(student);
+            String failedExams = failedExamsInfo(student);
+            String fullExamReport = generateFullExamReport(student, takenExams, failedExams);
+            output.println(fullExamReport);
+        } finally {
+            studentLock.unlock();
         }
+    }
 
-        String takenExams = takenExamsInfo(student);
-        String failedExams = failedExamsInfo(student);
-        String fullExamReport = generateFullExamReport(student, takenExams, failedExams);
-        System.out.println(fullExamReport);
+    /**
+     * Writes one student to the output. The student is locked while it is written,
+     * so a change of another session does not show up half done.
+     *
+     * @param student The student to write.
+     */
+    private void printStudent(Student student) {
+        Lock studentLock = studentLocks.get(student.getFacultyNumber());
+        studentLock.lock();
+        try {
+            serializer.serialize(student, output);
+            output.println();
+        } finally {
+            studentLock.unlock();
+        }
     }
 
     /**
@@ -202,7 +258,6 @@ public class StudentReporter implements Reportable {
      * @param subjectName The name of the subject to filter the students by.
      */
     private void printSubjectsByProgram (String subjectName) {
-        StringBuilder sb = new StringBuilder();
 
 //        List<Student> programFilteredStudents = studentRepository.getAll().stream()
 //                .filter(student -> student.getGradesBySubject().keySet().stream()
@@ -218,10 +273,8 @@ public class StudentReporter implements Reportable {
                 .collect(Collectors.toList());
 
         for (Student student : programFilteredStudents) {
-            String studentReport = serializer.serialize(student);
-            sb.append(studentReport).append(System.lineSeparator());
+            printStudent(student);
         }
-        System.out.print(sb);
     }
 
     /**
@@ -231,7 +284,6 @@ public class StudentReporter implements Reportable {
      * @param subjectName The name of the subject to filter the students by.
      */
     private void printSubjectsByYear (String subjectName) {
-        StringBuilder sb = new StringBuilder();
         Integer year = null;
         List<Student> yearFilteredStudents = studentRepository.getAll().stream()
                 .filter(student -> student.getProgram().getName().equalsIgnoreCase(subjectName)) // Filter by program name
@@ -240,9 +292,7 @@ public class StudentReporter implements Reportable {
                 .collect(Collectors.toList());
 
         for (Student student : yearFilteredStudents) {
-            String studentReport = serializer.serialize(student);
-            sb.append(studentReport).append(System.lineSeparator());
+            printStudent(student);
         }
-        System.out.print(sb);
     }
 }
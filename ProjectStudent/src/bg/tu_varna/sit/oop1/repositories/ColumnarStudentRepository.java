@@ -0,0 +1,579 @@
+package bg.tu_varna.sit.oop1.repositories;
+
+import bg.tu_varna.sit.oop1.enums.StudentStatus;
+import bg.tu_varna.sit.oop1.enums.UserMessages;
+import bg.tu_varna.sit.oop1.exceptions.StudentException;
+import bg.tu_varna.sit.oop1.models.GradeBook;
+import bg.tu_varna.sit.oop1.models.Program;
+import bg.tu_varna.sit.oop1.models.Student;
+import bg.tu_varna.sit.oop1.models.Subject;
+import bg.tu_varna.sit.oop1.utilities.IdDictionary;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * The ColumnarStudentRepository class implements the StudentStore interface with a struct-of-arrays layout.
+ * Every field of the students is kept in its own primitive column and the programs and subjects are replaced by ids.
+ * The grades of all students are kept in one shared pair of arrays, where every student owns a range
+ * described by an offset and a count.
+ * The repository hands out Student views which read and write the columns of their row.
+ */
+public class ColumnarStudentRepository implements StudentStore {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final byte NO_STATUS = -1;
+    private static final StudentStatus[] STATUSES = StudentStatus.values();
+
+    private int size;
+    private int[] facultyNumbers;
+    private String[] names;
+    private int[] programIds;
+    private byte[] years;
+    private int[] groups;
+    private byte[] statuses;
+
+    private int[] gradeOffsets;
+    private int[] gradeCounts;
+    private int[] gradeSubjectIds;
+    private short[] gradeValues;
+    private int gradesEnd;
+    private int unusedGradesCount;
+
+    private Map<Integer, Integer> rowsByFacultyNumber;
+    private IdDictionary<Program> programs;
+    private IdDictionary<Subject> subjects;
+
+    /**
+     * Constructs a new ColumnarStudentRepository.
+     * Initializes empty columns.
+     */
+    public ColumnarStudentRepository() {
+        this.rowsByFacultyNumber = new HashMap<>();
+        this.programs = new IdDictionary<>();
+        this.subjects = new IdDictionary<>();
+        clear();
+    }
+
+    /**
+     * Retrieves all students in the repository.
+     *
+     * @return A collection of Student views over all rows of the repository.
+     */
+    @Override
+    public Collection<Student> getAll() {
+        return new AbstractCollection<Student>() {
+            @Override
+            public Iterator<Student> iterator() {
+                return new Iterator<Student>() {
+                    private int row;
+
+                    @Override
+                    public boolean hasNext() {
+                        return this.row < size;
+                    }
+
+                    @Override
+                    public Student next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+
+                        return new StudentView(this.row++);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Adds a new student to the repository by copying its fields into a new row.
+     *
+     * @param student The Student object to be added to the repository.
+     * @throws IllegalArgumentException If a student with the same faculty number is already in the repository.
+     */
+    @Override
+    public void addNew(Student student) {
+        int facultyNumber = student.getFacultyNumber();
+        if (this.rowsByFacultyNumber.containsKey(facultyNumber)) {
+            throw new IllegalArgumentException(UserMessages.STUDENT_EXISTS.message);
+        }
+
+        ensureCapacity(this.size + 1);
+
+        int row = this.size++;
+        this.facultyNumbers[row] = facultyNumber;
+        this.names[row] = student.getName();
+        this.programIds[row] = this.programs.getOrAddId(student.getProgram());
+        this.years[row] = (byte) student.getYear();
+        this.groups[row] = student.getGroup();
+        this.statuses[row] = student.getStatus() == null ? NO_STATUS : (byte) student.getStatus().ordinal();
+        this.gradeOffsets[row] = this.gradesEnd;
+        this.gradeCounts[row] = 0;
+        writeGrades(row, student.getGradeBook());
+
+        this.rowsByFacultyNumber.put(facultyNumber, row);
+    }
+
+    /**
+     * Clears all students from the repository.
+     */
+    @Override
+    public void clear() {
+        this.size = 0;
+        this.facultyNumbers = new int[INITIAL_CAPACITY];
+        this.names = new String[INITIAL_CAPACITY];
+        this.programIds = new int[INITIAL_CAPACITY];
+        this.years = new byte[INITIAL_CAPACITY];
+        this.groups = new int[INITIAL_CAPACITY];
+        this.statuses = new byte[INITIAL_CAPACITY];
+        this.gradeOffsets = new int[INITIAL_CAPACITY];
+        this.gradeCounts = new int[INITIAL_CAPACITY];
+        this.gradeSubjectIds = new int[INITIAL_CAPACITY];
+        this.gradeValues = new short[INITIAL_CAPACITY];
+        this.gradesEnd = 0;
+        this.unusedGradesCount = 0;
+        this.rowsByFacultyNumber.clear();
+        this.programs.clear();
+        this.subjects.clear();
+    }
+
+    /**
+     * Checks if a student with the given faculty number is stored in the repository.
+     *
+     * @param facultyNumber The faculty number to look for.
+     * @return true if such a student exists and false otherwise.
+     */
+    @Override
+    public boolean exists(int facultyNumber) {
+        return this.rowsByFacultyNumber.containsKey(facultyNumber);
+    }
+
+    /**
+     * Returns a view of the student with the given faculty number. If no student is found with the given
+     * faculty number, an exception is thrown.
+     *
+     * @param facultyNumber The faculty number of the student to be retrieved.
+     * @return A Student view over the row of the student.
+     * @throws IllegalArgumentException If no student is found with the specified faculty number.
+     */
+    @Override
+    public Student getOrThrow(int facultyNumber) {
+        Integer row = this.rowsByFacultyNumber.get(facultyNumber);
+
+        if (row == null) {
+            throw new IllegalArgumentException(UserMessages.STUDENT_NOT_EXISTS.message);
+        }
+        return new StudentView(row);
+    }
+
+    /**
+     * Removes the student with the given faculty number from the repository.
+     * The last row is moved into the place of the removed one, so the rows stay next to each other.
+     * Views which were handed out for the moved row or the removed row must not be used after that.
+     *
+     * @param facultyNumber The faculty number of the student to remove.
+     */
+    @Override
+    public void remove(int facultyNumber) {
+        Integer row = this.rowsByFacultyNumber.remove(facultyNumber);
+        if (row == null) {
+            return;
+        }
+
+        this.unusedGradesCount += this.gradeCounts[row];
+        int lastRow = --this.size;
+        if (row != lastRow) {
+            this.facultyNumbers[row] = this.facultyNumbers[lastRow];
+            this.names[row] = this.names[lastRow];
+            this.programIds[row] = this.programIds[lastRow];
+            this.years[row] = this.years[lastRow];
+            this.groups[row] = this.groups[lastRow];
+            this.statuses[row] = this.statuses[lastRow];
+            this.gradeOffsets[row] = this.gradeOffsets[lastRow];
+            this.gradeCounts[row] = this.gradeCounts[lastRow];
+            this.rowsByFacultyNumber.put(this.facultyNumbers[row], row);
+        }
+        this.names[lastRow] = null;
+        this.gradeCounts[lastRow] = 0;
+
+        if (this.unusedGradesCount > INITIAL_CAPACITY && this.unusedGradesCount > this.gradesEnd / 2) {
+            compactGrades();
+        }
+    }
+
+    /**
+     *  Finds a student by name or returns exception if the student is not found.
+     *  This method is not needed at the current state of the project. It will be used for a future functionalities.
+     */
+    @Override
+    public Student getOrThrow(String name) {
+        return null;
+    }
+
+    /**
+     * Retrieves all students of the given program who are in the given year of study.
+     * The program name is compared once per program id and the rows are filtered by scanning only the
+     * year and program columns.
+     *
+     * @param programName The name of the program.
+     * @param year The year of study.
+     * @return A collection of Student views over the matching rows.
+     */
+    @Override
+    public Collection<Student> getByProgramAndYear(String programName, int year) {
+        boolean[] isMatchingProgram = new boolean[this.programs.size()];
+        for (int programId = 0; programId < isMatchingProgram.length; programId++) {
+            isMatchingProgram[programId] = this.programs.get(programId).getName().equals(programName);
+        }
+
+        List<Student> students = new ArrayList<>();
+        for (int row = 0; row < this.size; row++) {
+            if (this.years[row] == year && isMatchingProgram[this.programIds[row]]) {
+                students.add(new StudentView(row));
+            }
+        }
+
+        return students;
+    }
+
+    /**
+     * Describes the memory used by the columns of the repository.
+     *
+     * @return A report with the number of students and the bytes of the row and grade columns.
+     */
+    @Override
+    public String getStorageReport() {
+        //int columns: faculty number, program id, group, grade offset and count; byte columns: year and status
+        long rowColumnsBytes = (long) this.facultyNumbers.length * (5 * Integer.BYTES + 2);
+        long gradeColumnsBytes = (long) this.gradeSubjectIds.length * (Integer.BYTES + Short.BYTES);
+        return String.format("Columnar storage: %d students, %d bytes of row columns, %d bytes of grade columns (%d unused grades).",
+                this.size, rowColumnsBytes, gradeColumnsBytes, this.unusedGradesCount);
+    }
+
+    /**
+     * Grows all row columns so they can hold the given number of rows.
+     *
+     * @param capacity The number of rows which the columns must hold.
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity <= this.facultyNumbers.length) {
+            return;
+        }
+
+        int newCapacity = Math.max(capacity, this.facultyNumbers.length * 2);
+        this.facultyNumbers = Arrays.copyOf(this.facultyNumbers, newCapacity);
+        this.names = Arrays.copyOf(this.names, newCapacity);
+        this.programIds = Arrays.copyOf(this.programIds, newCapacity);
+        this.years = Arrays.copyOf(this.years, newCapacity);
+        this.groups = Arrays.copyOf(this.groups, newCapacity);
+        this.statuses = Arrays.copyOf(this.statuses, newCapacity);
+        this.gradeOffsets = Arrays.copyOf(this.gradeOffsets, newCapacity);
+        this.gradeCounts = Arrays.copyOf(this.gradeCounts, newCapacity);
+    }
+
+    /**
+     * Grows the grade columns so they can hold the given number of grades.
+     *
+     * @param capacity The number of grades which the columns must hold.
+     */
+    private void ensureGradesCapacity(int capacity) {
+        if (capacity <= this.gradeSubjectIds.length) {
+            return;
+        }
+
+        int newCapacity = Math.max(capacity, this.gradeSubjectIds.length * 2);
+        this.gradeSubjectIds = Arrays.copyOf(this.gradeSubjectIds, newCapacity);
+        this.gradeValues = Arrays.copyOf(this.gradeValues, newCapacity);
+    }
+
+    /**
+     * Writes the grades of a row. The grades are written over the old range of the row if they fit in it,
+     * otherwise they are appended at the end of the grade columns and the old range becomes unused.
+     *
+     * @param row The row of the student.
+     * @param gradeBook The grades to write.
+     */
+    private void writeGrades(int row, GradeBook gradeBook) {
+        int count = gradeBook.size();
+        int oldCount = this.gradeCounts[row];
+
+        if (count > oldCount) {
+            ensureGradesCapacity(this.gradesEnd + count);
+            this.gradeOffsets[row] = this.gradesEnd;
+            this.gradesEnd += count;
+            this.unusedGradesCount += oldCount;
+        } else {
+            this.unusedGradesCount += oldCount - count;
+        }
+
+        int offset = this.gradeOffsets[row];
+        for (int i = 0; i < count; i++) {
+            this.gradeSubjectIds[offset + i] = this.subjects.getOrAddId(gradeBook.getSubject(i));
+            this.gradeValues[offset + i] = gradeBook.getHundredths(i);
+        }
+        this.gradeCounts[row] = count;
+
+        if (this.unusedGradesCount > INITIAL_CAPACITY && this.unusedGradesCount > this.gradesEnd / 2) {
+            compactGrades();
+        }
+    }
+
+    /**
+     * Moves the grades of all rows next to each other, so the unused ranges are released.
+     */
+    private void compactGrades() {
+        int usedGradesCount = this.gradesEnd - this.unusedGradesCount;
+        int[] compactSubjectIds = new int[Math.max(INITIAL_CAPACITY, usedGradesCount)];
+        short[] compactValues = new short[compactSubjectIds.length];
+
+        int end = 0;
+        for (int row = 0; row < this.size; row++) {
+            int count = this.gradeCounts[row];
+            System.arraycopy(this.gradeSubjectIds, this.gradeOffsets[row], compactSubjectIds, end, count);
+            System.arraycopy(this.gradeValues, this.gradeOffsets[row], compactValues, end, count);
+            this.gradeOffsets[row] = end;
+            end += count;
+        }
+
+        this.gradeSubjectIds = compactSubjectIds;
+        this.gradeValues = compactValues;
+        this.gradesEnd = end;
+        this.unusedGradesCount = 0;
+    }
+
+    /**
+     * Student view which reads and writes the columns of one row.
+     * The setters validate the values as Student does before writing them.
+     */
+    private class StudentView extends Student {
+        private final int row;
+        private GradeBook gradeBook;
+
+        /**
+         * Constructs a view over the given row.
+         *
+         * @param row The row of the student.
+         */
+        StudentView(int row) {
+            this.row = row;
+        }
+
+        /**
+         * Gets the name of the student from the name column.
+         *
+         * @return The name of the student.
+         */
+        @Override
+        public String getName() {
+            return names[this.row];
+        }
+
+        /**
+         * Sets the name of the student in the name column.
+         *
+         * @param name The name to set.
+         * @throws StudentException if the name is null or empty.
+         */
+        @Override
+        public void setName(String name) throws StudentException {
+            super.setName(name);
+            names[this.row] = name;
+        }
+
+        /**
+         * Gets the faculty number of the student from the faculty number column.
+         *
+         * @return The faculty number of the student.
+         */
+        @Override
+        public int getFacultyNumber() {
+            return facultyNumbers[this.row];
+        }
+
+        /**
+         * Sets the faculty number of the student in the faculty number column and the index.
+         *
+         * @param facultyNumber The faculty number to set.
+         * @throws StudentException if the faculty number is null or equal to zero.
+         * @throws IllegalArgumentException If another student has this faculty number.
+         */
+        @Override
+        public void setFacultyNumber(Integer facultyNumber) throws StudentException {
+            super.setFacultyNumber(facultyNumber);
+            if (facultyNumber == facultyNumbers[this.row]) {
+                return;
+            }
+            if (rowsByFacultyNumber.containsKey(facultyNumber)) {
+                throw new IllegalArgumentException(UserMessages.STUDENT_EXISTS.message);
+            }
+
+            rowsByFacultyNumber.remove(facultyNumbers[this.row]);
+            rowsByFacultyNumber.put(facultyNumber, this.row);
+            facultyNumbers[this.row] = facultyNumber;
+        }
+
+        /**
+         * Gets the year of study of the student from the year column.
+         *
+         * @return The year of study of the student.
+         */
+        @Override
+        public int getYear() {
+            return years[this.row];
+        }
+
+        /**
+         * Sets the year of study of the student in the year column.
+         *
+         * @param year The year of study to set.
+         * @throws StudentException if the year is null or not in the range [1-4].
+         */
+        @Override
+        public void setYear(Integer year) throws StudentException {
+            super.setYear(year);
+            years[this.row] = year.byteValue();
+        }
+
+        /**
+         * Gets the program of the student through the program id column.
+         *
+         * @return The program of the student.
+         */
+        @Override
+        public Program getProgram() {
+            return programs.get(programIds[this.row]);
+        }
+
+        /**
+         * Sets the program of the student in the program id column.
+         *
+         * @param program The program to set.
+         * @throws StudentException if the program is null.
+         */
+        @Override
+        public void setProgram(Program program) throws StudentException {
+            super.setProgram(program);
+            programIds[this.row] = programs.getOrAddId(program);
+        }
+
+        /**
+         * Gets the group of the student from the group column.
+         *
+         * @return The group of the student.
+         */
+        @Override
+        public int getGroup() {
+            return groups[this.row];
+        }
+
+        /**
+         * Sets the group of the student in the group column.
+         *
+         * @param group The group to set.
+         * @throws StudentException if the group is null or is equal to zero.
+         */
+        @Override
+        public void setGroup(Integer group) throws StudentException {
+            super.setGroup(group);
+            groups[this.row] = group;
+        }
+
+        /**
+         * Gets the status of the student from the status column.
+         *
+         * @return The status of the student.
+         */
+        @Override
+        public StudentStatus getStatus() {
+            byte status = statuses[this.row];
+            return status == NO_STATUS ? null : STATUSES[status];
+        }
+
+        /**
+         * Sets the status of the student in the status column.
+         *
+         * @param statusString The status to set.
+         * @throws StudentException if the status is not "dropped", "enrolled" or "graduated".
+         */
+        @Override
+        public void setStatus(String statusString) throws StudentException {
+            super.setStatus(statusString);
+            statuses[this.row] = (byte) super.getStatus().ordinal();
+        }
+
+        /**
+         * Gets the grades of the student. The grade book is read from the grade columns once per view
+         * and writes every change back to them.
+         *
+         * @return The grade book of the student.
+         */
+        @Override
+        public GradeBook getGradeBook() {
+            if (this.gradeBook == null) {
+                this.gradeBook = new RowGradeBook(this.row);
+            }
+
+            return this.gradeBook;
+        }
+
+        /**
+         * Sets the grades of the student in the grade columns.
+         *
+         * @param gradesBySubject the grades by subject map that needs to set.
+         */
+        @Override
+        public void setGradesBySubject(Map<Subject, Double> gradesBySubject) {
+            GradeBook newGradeBook = gradesBySubject instanceof GradeBook
+                    ? (GradeBook) gradesBySubject
+                    : new GradeBook(gradesBySubject);
+            writeGrades(this.row, newGradeBook);
+            this.gradeBook = null;
+        }
+    }
+
+    /**
+     * Grade book filled from the grade range of one row, which writes its changes back to the grade columns.
+     */
+    private class RowGradeBook extends GradeBook {
+        private final int row;
+        private boolean isLoaded;
+
+        /**
+         * Constructs a grade book with the grades of the given row.
+         *
+         * @param row The row of the student.
+         */
+        RowGradeBook(int row) {
+            this.row = row;
+
+            int offset = gradeOffsets[row];
+            for (int i = 0; i < gradeCounts[row]; i++) {
+                Subject subject = subjects.get(gradeSubjectIds[offset + i]);
+                put(subject, GradeBook.fromHundredths(gradeValues[offset + i]));
+            }
+            this.isLoaded = true;
+        }
+
+        /**
+         * Writes the changed grades back to the grade columns.
+         */
+        @Override
+        protected void onChange() {
+            if (this.isLoaded) {
+                writeGrades(this.row, this);
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package bg.tu_varna.sit.oop1.repositories;
+
+import bg.tu_varna.sit.oop1.enums.UserMessages;
+import bg.tu_varna.sit.oop1.models.Student;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * The ConcurrentStudentRepository class implements the StudentStore interface for students which are used
+ * by several sessions at the same time. The students are kept in a concurrent map indexed by their faculty number,
+ * so adding, finding and removing students needs no lock. The returned collections are weakly consistent views:
+ * a report goes over them without blocking the sessions which change the students, and it may or may not see
+ * a change made while it runs. The changes of a single student are guarded by the per-student locks of the service.
+ */
+public class ConcurrentStudentRepository implements StudentStore {
+    private Map<Integer, Student> studentsByFacultyNumber;
+
+    /**
+     * Constructs a new ConcurrentStudentRepository.
+     * Initializes an empty faculty number index of students.
+     */
+    public ConcurrentStudentRepository() {
+        this.studentsByFacultyNumber = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Retrieves all students in the repository as a weakly consistent view, which can be read while students are added.
+     *
+     * @return A collection of all Student objects currently stored in the repository.
+     */
+    @Override
+    public Collection<Student> getAll() {
+        return Collections.unmodifiableCollection(this.studentsByFacultyNumber.values());
+    }
+
+    /**
+     * Adds a new student to the repository. Of two sessions which add the same faculty number, only one succeeds.
+     *
+     * @param student The Student object to be added to the repository.
+     * @throws IllegalArgumentException If a student with the same faculty number is already in the repository.
+     */
+    @Override
+    public void addNew(Student student) {
+        if (this.studentsByFacultyNumber.putIfAbsent(student.getFacultyNumber(), student) != null) {
+            throw new IllegalArgumentException(UserMessages.STUDENT_EXISTS.message);
+        }
+    }
+
+    /**
+     * Clears all students from the repository.
+     */
+    @Override
+    public void clear() {
+        this.studentsByFacultyNumber.clear();
+    }
+
+    /**
+     * Checks if a student with the given faculty number is stored in the repository.
+     *
+     * @param facultyNumber The faculty number to look for.
+     * @return true if such a student exists and false otherwise.
+     */
+    @Override
+    public boolean exists(int facultyNumber) {
+        return this.studentsByFacultyNumber.containsKey(facultyNumber);
+    }
+
+    /**
+     * Returns a student by faculty number. If no student is found with the given faculty number,
+     * an exception is thrown.
+     *
+     * @param facultyNumber The faculty number of the student to be retrieved.
+     * @return The student object corresponding to the given faculty number.
+     * @throws IllegalArgumentException If no student is found with the specified faculty number.
+     */
+    @Override
+    public Student getOrThrow(int facultyNumber) {
+        Student student = this.studentsByFacultyNumber.get(facultyNumber);
+
+        if (student == null) {
+            throw new IllegalArgumentException(UserMessages.STUDENT_NOT_EXISTS.message);
+        }
+        return student;
+    }
+
+    /**
+     * Retrieves all students of the given program who are in the given year of study.
+     * The students are collected from a weakly consistent view, so no session is blocked.
+     *
+     * @param programName The name of the program.
+     * @param year The year of study.
+     * @return A collection of the matching students.
+     */
+    @Override
+    public Collection<Student> getByProgramAndYear(String programName, int year) {
+        return this.studentsByFacultyNumber.values().stream()
+                .filter(student -> student.getYear() == year)
+                .filter(student -> student.getProgram().getName().equals(programName))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Describes the storage of the repository.
+     *
+     * @return A report with the number of students kept as objects on the heap.
+     */
+    @Override
+    public String getStorageReport() {
+        return String.format(UserMessages.CONCURRENT_REPORT.message, this.studentsByFacultyNumber.size());
+    }
+
+    /**
+     * Removes the student with the given faculty number from the repository.
+     *
+     * @param facultyNumber The faculty number of the student to remove.
+     */
+    @Override
+    public void remove(int facultyNumber) {
+        this.studentsByFacultyNumber.remove(facultyNumber);
+    }
+
+    /**
+     *  Finds a student by name or returns exception if the student is not found.
+     *  This method is not needed at the current state of the project. It will be used for a future functionalities.
+     */
+    @Override
+    public Student getOrThrow(String name) {
+        return null;
+    }
+}
@@ -0,0 +1,16 @@
+package bg.tu_varna.sit.oop1.repositories;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * The LazyRepository interface is implemented by the repositories which can open a text file
+ * without parsing its records. Such a repository reads a record when it is first needed.
+ */
+public interface LazyRepository {
+
+    /**
+     * Opens the given text file by indexing the positions of its records. No record is parsed.
+     */
+    void openLazily(File file) throws IOException;
+}
@@ -0,0 +1,281 @@
+package bg.tu_varna.sit.oop1.repositories;
+
+import bg.tu_varna.sit.oop1.enums.UserMessages;
+import bg.tu_varna.sit.oop1.models.Student;
+import bg.tu_varna.sit.oop1.serialization.deserializer.StudentDeserializer;
+import bg.tu_varna.sit.oop1.utilities.StudentFilter;
+import bg.tu_varna.sit.oop1.utilities.StudentOffsetIndex;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+
+/**
+ * The LazyStudentStore class implements the StudentStore interface over a students file which is opened lazily.
+ * Opening the file only indexes the offsets of its lines, so the first command can run right away.
+ * A student is parsed and added to the inner storage the first time a command needs it.
+ * The scans, like the ones of the reports, parse only the lines which may match, and saving parses all lines first.
+ * Until a student is parsed its line in the file is the current state of the student,
+ * so it can be printed without parsing.
+ */
+public class LazyStudentStore implements StudentStore, LazyRepository {
+    private StudentStore store;
+    private StudentDeserializer deserializer;
+    private StudentOffsetIndex index;
+
+    /**
+     * Constructs a new LazyStudentStore without an opened file.
+     *
+     * @param store The storage into which the students are parsed.
+     * @param deserializer The deserializer of the lines of the file.
+     */
+    public LazyStudentStore(StudentStore store, StudentDeserializer deserializer) {
+        this.store = store;
+        this.deserializer = deserializer;
+    }
+
+    /**
+     * Retrieves all students. The students which are not parsed yet are parsed first.
+     *
+     * @return A collection of all students.
+     * @throws UncheckedIOException If the students file can not be read.
+     */
+    @Override
+    public Collection<Student> getAll() {
+        materialize(null);
+        return this.store.getAll();
+    }
+
+    /**
+     * Adds a new student to the inner storage.
+     *
+     * @param student The Student object to be added.
+     * @throws IllegalArgumentException If a student with the same faculty number already exists.
+     */
+    @Override
+    public void addNew(Student student) {
+        if (isUnread(student.getFacultyNumber())) {
+            throw new IllegalArgumentException(UserMessages.STUDENT_EXISTS.message);
+        }
+
+        this.store.addNew(student);
+    }
+
+    /**
+     * Clears all students and closes the students file.
+     *
+     * @throws UncheckedIOException If the students file can not be closed.
+     */
+    @Override
+    public void clear() {
+        closeIndex();
+        this.store.clear();
+    }
+
+    /**
+     * Checks if a student with the given faculty number exists without parsing it.
+     *
+     * @param facultyNumber The faculty number to look for.
+     * @return true if such a student exists and false otherwise.
+     */
+    @Override
+    public boolean exists(int facultyNumber) {
+        return isUnread(facultyNumber) || this.store.exists(facultyNumber);
+    }
+
+    /**
+     * Returns a student by faculty number. The student is parsed first if it is not parsed yet.
+     *
+     * @param facultyNumber The faculty number of the student to be retrieved.
+     * @return The student from the inner storage.
+     * @throws IllegalArgumentException If no student is found with the specified faculty number.
+     * @throws UncheckedIOException If the students file can not be read.
+     */
+    @Override
+    public Student getOrThrow(int facultyNumber) {
+        if (isUnread(facultyNumber)) {
+            try {
+                addLine(facultyNumber, this.index.readLine(facultyNumber));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        return this.store.getOrThrow(facultyNumber);
+    }
+
+    /**
+     *  Finds a student by name or returns exception if the student is not found.
+     *  This method is not needed at the current state of the project. It will be used for a future functionalities.
+     */
+    @Override
+    public Student getOrThrow(String name) {
+        return null;
+    }
+
+    /**
+     * Retrieves all students of the given program who are in the given year of study.
+     * Only the lines whose program and year match are parsed.
+     *
+     * @param programName The name of the program.
+     * @param year The year of study.
+     * @return A collection of the matching students.
+     * @throws UncheckedIOException If the students file can not be read.
+     */
+    @Override
+    public Collection<Student> getByProgramAndYear(String programName, int year) {
+        materialize(new StudentFilter(programName, year));
+        return this.store.getByProgramAndYear(programName, year);
+    }
+
+    /**
+     * Describes the inner storage and how many students are not parsed yet.
+     *
+     * @return A report with one line for the inner storage and one for the lazily opened file.
+     */
+    @Override
+    public String getStorageReport() {
+        String report = this.store.getStorageReport();
+        if (this.index == null) {
+            return report;
+        }
+
+        return report + System.lineSeparator() + String.format(UserMessages.LAZY_REPORT.message,
+                this.index.size(), this.index.getRecordsCount(), this.index.getBytes());
+    }
+
+    /**
+     * Removes the student with the given faculty number. A student which is not parsed yet is only removed from the index.
+     *
+     * @param facultyNumber The faculty number of the student to remove.
+     * @throws UncheckedIOException If the students file can not be closed.
+     */
+    @Override
+    public void remove(int facultyNumber) {
+        if (isUnread(facultyNumber)) {
+            removeFromIndex(facultyNumber);
+        }
+
+        this.store.remove(facultyNumber);
+    }
+
+    /**
+     * Opens the given students file by indexing the offsets of its lines. No student is parsed.
+     * The inner storage is not cleared, as it may already hold data of the file, like the archived students.
+     *
+     * @param file The students file.
+     * @throws IOException If the file can not be read.
+     */
+    @Override
+    public void openLazily(File file) throws IOException {
+        closeIndex();
+        this.index = StudentOffsetIndex.open(file);
+    }
+
+    /**
+     * Checks if the student with the given faculty number is in the file and is not parsed yet.
+     *
+     * @param facultyNumber The faculty number to look for.
+     * @return true if the student is not parsed yet and false otherwise.
+     */
+    public boolean isUnread(int facultyNumber) {
+        return this.index != null && this.index.contains(facultyNumber);
+    }
+
+    /**
+     * Reads the line of a student which is not parsed yet, without parsing it.
+     *
+     * @param facultyNumber The faculty number of the student.
+     * @return The line of the student in the students file.
+     * @throws IllegalArgumentException If the student is not in the file or is already parsed.
+     * @throws IOException If an error occurs while reading the file.
+     */
+    public String readLine(int facultyNumber) throws IOException {
+        if (!isUnread(facultyNumber)) {
+            throw new IllegalArgumentException(UserMessages.STUDENT_NOT_EXISTS.message);
+        }
+
+        return this.index.readLine(facultyNumber);
+    }
+
+    /**
+     * Parses the lines of the students which are not parsed yet and match the filter, in the order of the file.
+     *
+     * @param filter The filter of the lines to parse or null to parse all lines.
+     * @throws UncheckedIOException If the students file can not be read.
+     */
+    private void materialize(StudentFilter filter) {
+        if (this.index == null || this.index.size() == 0) {
+            return;
+        }
+
+        try {
+            this.index.forEachLine((facultyNumber, line) -> {
+                if (filter == null || this.deserializer.matches(line, filter)) {
+                    addLine(facultyNumber, line);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Parses a line of the file and moves the student from the index to the inner storage.
+     * A line which can not be parsed is reported and left out, so the other students can still be used.
+     *
+     * @param facultyNumber The faculty number of the student in the index.
+     * @param line The line of the student.
+     * @throws UncheckedIOException If the students file can not be closed.
+     */
+    private void addLine(int facultyNumber, String line) {
+        removeFromIndex(facultyNumber);
+
+        Student student;
+        try {
+            student = this.deserializer.deserialize(line);
+        } catch (Exception e) {
+            System.out.println(String.format(UserMessages.LAZY_RECORD_SKIPPED.message, facultyNumber, e.getMessage()));
+            return;
+        }
+
+        this.store.addNew(student);
+    }
+
+    /**
+     * Removes a student from the index.
+     *
+     * @param facultyNumber The faculty number of the student.
+     * @throws UncheckedIOException If the students file can not be closed.
+     */
+    private void removeFromIndex(int facultyNumber) {
+        try {
+            this.index.remove(facultyNumber);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Closes the index of the opened file, if there is one.
+     *
+     * @throws UncheckedIOException If the students file can not be closed.
+     */
+    private void closeIndex() {
+        if (this.index == null) {
+            return;
+        }
+
+        try {
+            this.index.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.index = null;
+    }
+}
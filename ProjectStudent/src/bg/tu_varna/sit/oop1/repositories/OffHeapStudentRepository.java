@@ -0,0 +1,616 @@
+package bg.tu_varna.sit.oop1.repositories;
+
+import bg.tu_varna.sit.oop1.enums.StudentStatus;
+import bg.tu_varna.sit.oop1.enums.UserMessages;
+import bg.tu_varna.sit.oop1.exceptions.StudentException;
+import bg.tu_varna.sit.oop1.models.GradeBook;
+import bg.tu_varna.sit.oop1.models.Program;
+import bg.tu_varna.sit.oop1.models.Student;
+import bg.tu_varna.sit.oop1.models.Subject;
+import bg.tu_varna.sit.oop1.utilities.IdDictionary;
+import bg.tu_varna.sit.oop1.utilities.IntHashIndex;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * The OffHeapStudentRepository class implements the StudentStore interface with records kept outside of the heap.
+ * Every student is encoded into a direct byte buffer arena as a record with fixed-width fields
+ * followed by the variable-length name and grades. Only a primitive faculty number index
+ * and the small program and subject dictionaries stay on the heap, so the garbage collector
+ * does not have to trace the students of an opened file.
+ * The repository hands out Student flyweights which read and write their record.
+ */
+public class OffHeapStudentRepository implements StudentStore {
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+    private static final byte NO_STATUS = -1;
+    private static final StudentStatus[] STATUSES = StudentStatus.values();
+
+    //Record layout: the fixed-width header, the UTF-8 name and the grades as (subject id, hundredths) pairs
+    private static final int IS_LIVE = 0;
+    private static final int FACULTY_NUMBER = 1;
+    private static final int PROGRAM_ID = 5;
+    private static final int GROUP = 9;
+    private static final int YEAR = 13;
+    private static final int STATUS = 14;
+    private static final int NAME_LENGTH = 15;
+    private static final int GRADES_COUNT = 17;
+    private static final int HEADER_SIZE = 19;
+    private static final int GRADE_SIZE = 6;
+
+    private ByteBuffer arena;
+    private int end;
+    private int deadBytes;
+
+    private IntHashIndex offsetsByFacultyNumber;
+    private IdDictionary<Program> programs;
+    private IdDictionary<Subject> subjects;
+
+    /**
+     * Constructs a new OffHeapStudentRepository.
+     * Allocates an empty arena.
+     */
+    public OffHeapStudentRepository() {
+        this.offsetsByFacultyNumber = new IntHashIndex();
+        this.programs = new IdDictionary<>();
+        this.subjects = new IdDictionary<>();
+        clear();
+    }
+
+    /**
+     * Retrieves all students in the repository.
+     *
+     * @return A collection of Student flyweights over the live records of the arena.
+     */
+    @Override
+    public Collection<Student> getAll() {
+        return new AbstractCollection<Student>() {
+            @Override
+            public Iterator<Student> iterator() {
+                return new Iterator<Student>() {
+                    private int offset = skipDeadRecords(0);
+
+                    @Override
+                    public boolean hasNext() {
+                        return this.offset < end;
+                    }
+
+                    @Override
+                    public Student next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+
+                        Student student = new StudentView(arena.getInt(this.offset + FACULTY_NUMBER));
+                        this.offset = skipDeadRecords(this.offset + getRecordSize(this.offset));
+                        return student;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return offsetsByFacultyNumber.size();
+            }
+        };
+    }
+
+    /**
+     * Adds a new student to the repository by encoding it as a record at the end of the arena.
+     *
+     * @param student The Student object to be added to the repository.
+     * @throws IllegalArgumentException If a student with the same faculty number is already in the repository.
+     */
+    @Override
+    public void addNew(Student student) {
+        int facultyNumber = student.getFacultyNumber();
+        if (this.offsetsByFacultyNumber.contains(facultyNumber)) {
+            throw new IllegalArgumentException(UserMessages.STUDENT_EXISTS.message);
+        }
+
+        byte status = student.getStatus() == null ? NO_STATUS : (byte) student.getStatus().ordinal();
+        int offset = appendRecord(facultyNumber, student.getName(), this.programs.getOrAddId(student.getProgram()),
+                student.getGroup(), student.getYear(), status, student.getGradeBook());
+        this.offsetsByFacultyNumber.put(facultyNumber, offset);
+    }
+
+    /**
+     * Clears all students from the repository and releases the arena.
+     */
+    @Override
+    public void clear() {
+        this.arena = ByteBuffer.allocateDirect(INITIAL_CAPACITY);
+        this.end = 0;
+        this.deadBytes = 0;
+        this.offsetsByFacultyNumber.clear();
+        this.programs.clear();
+        this.subjects.clear();
+    }
+
+    /**
+     * Checks if a student with the given faculty number is stored in the repository.
+     *
+     * @param facultyNumber The faculty number to look for.
+     * @return true if such a student exists and false otherwise.
+     */
+    @Override
+    public boolean exists(int facultyNumber) {
+        return this.offsetsByFacultyNumber.contains(facultyNumber);
+    }
+
+    /**
+     * Returns a flyweight of the student with the given faculty number. If no student is found with the given
+     * faculty number, an exception is thrown.
+     *
+     * @param facultyNumber The faculty number of the student to be retrieved.
+     * @return A Student flyweight over the record of the student.
+     * @throws IllegalArgumentException If no student is found with the specified faculty number.
+     */
+    @Override
+    public Student getOrThrow(int facultyNumber) {
+        if (!this.offsetsByFacultyNumber.contains(facultyNumber)) {
+            throw new IllegalArgumentException(UserMessages.STUDENT_NOT_EXISTS.message);
+        }
+
+        return new StudentView(facultyNumber);
+    }
+
+    /**
+     * Removes the student with the given faculty number from the repository.
+     * The record is marked as dead and its space is released by the next compaction.
+     *
+     * @param facultyNumber The faculty number of the student to remove.
+     */
+    @Override
+    public void remove(int facultyNumber) {
+        int offset = this.offsetsByFacultyNumber.get(facultyNumber);
+        if (offset < 0) {
+            return;
+        }
+
+        this.arena.put(offset + IS_LIVE, (byte) 0);
+        this.deadBytes += getRecordSize(offset);
+        this.offsetsByFacultyNumber.remove(facultyNumber);
+
+        if (this.deadBytes > INITIAL_CAPACITY && this.deadBytes > this.end / 2) {
+            compact();
+        }
+    }
+
+    /**
+     *  Finds a student by name or returns exception if the student is not found.
+     *  This method is not needed at the current state of the project. It will be used for a future functionalities.
+     */
+    @Override
+    public Student getOrThrow(String name) {
+        return null;
+    }
+
+    /**
+     * Retrieves all students of the given program who are in the given year of study.
+     * The records are filtered by reading only their year and program id.
+     *
+     * @param programName The name of the program.
+     * @param year The year of study.
+     * @return A collection of Student flyweights over the matching records.
+     */
+    @Override
+    public Collection<Student> getByProgramAndYear(String programName, int year) {
+        boolean[] isMatchingProgram = new boolean[this.programs.size()];
+        for (int programId = 0; programId < isMatchingProgram.length; programId++) {
+            isMatchingProgram[programId] = this.programs.get(programId).getName().equals(programName);
+        }
+
+        List<Student> students = new ArrayList<>();
+        for (int offset = 0; offset < this.end; offset += getRecordSize(offset)) {
+            if (this.arena.get(offset + IS_LIVE) == 1
+                    && this.arena.get(offset + YEAR) == year
+                    && isMatchingProgram[this.arena.getInt(offset + PROGRAM_ID)]) {
+                students.add(new StudentView(this.arena.getInt(offset + FACULTY_NUMBER)));
+            }
+        }
+
+        return students;
+    }
+
+    /**
+     * Describes the memory used by the repository on and off the heap.
+     *
+     * @return A report with the number of students and the used bytes.
+     */
+    @Override
+    public String getStorageReport() {
+        return String.format("Off-heap storage: %d students, %d bytes off-heap (%d allocated, %d unused), %d bytes on heap for the index.",
+                this.offsetsByFacultyNumber.size(), this.end, this.arena.capacity(), this.deadBytes,
+                this.offsetsByFacultyNumber.getBytes());
+    }
+
+    /**
+     * Encodes a student record at the end of the arena.
+     *
+     * @param facultyNumber The faculty number of the student.
+     * @param name The name of the student.
+     * @param programId The id of the program of the student.
+     * @param group The group of the student.
+     * @param year The year of study of the student.
+     * @param status The ordinal of the status of the student or -1 if the student has no status.
+     * @param gradeBook The grades of the student.
+     * @return The offset of the record.
+     */
+    private int appendRecord(int facultyNumber, String name, int programId, int group, int year, byte status,
+                             GradeBook gradeBook) {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        int gradesCount = gradeBook.size();
+        int recordSize = HEADER_SIZE + nameBytes.length + gradesCount * GRADE_SIZE;
+        ensureCapacity(this.end + recordSize);
+
+        int offset = this.end;
+        this.arena.put(offset + IS_LIVE, (byte) 1);
+        this.arena.putInt(offset + FACULTY_NUMBER, facultyNumber);
+        this.arena.putInt(offset + PROGRAM_ID, programId);
+        this.arena.putInt(offset + GROUP, group);
+        this.arena.put(offset + YEAR, (byte) year);
+        this.arena.put(offset + STATUS, status);
+        this.arena.putShort(offset + NAME_LENGTH, (short) nameBytes.length);
+        this.arena.putShort(offset + GRADES_COUNT, (short) gradesCount);
+
+        ByteBuffer nameRegion = this.arena.duplicate();
+        nameRegion.position(offset + HEADER_SIZE);
+        nameRegion.put(nameBytes);
+
+        int gradeOffset = offset + HEADER_SIZE + nameBytes.length;
+        for (int i = 0; i < gradesCount; i++) {
+            this.arena.putInt(gradeOffset, this.subjects.getOrAddId(gradeBook.getSubject(i)));
+            this.arena.putShort(gradeOffset + Integer.BYTES, gradeBook.getHundredths(i));
+            gradeOffset += GRADE_SIZE;
+        }
+
+        this.end += recordSize;
+        return offset;
+    }
+
+    /**
+     * Replaces the name or the grades of a student. The variable-length regions can change their size,
+     * so the record is written again at the end of the arena and the old one is marked as dead.
+     *
+     * @param facultyNumber The faculty number of the student.
+     * @param name The new name of the student.
+     * @param gradeBook The new grades of the student.
+     */
+    private void rewriteRecord(int facultyNumber, String name, GradeBook gradeBook) {
+        int oldOffset = this.offsetsByFacultyNumber.get(facultyNumber);
+        int newOffset = appendRecord(facultyNumber, name, this.arena.getInt(oldOffset + PROGRAM_ID),
+                this.arena.getInt(oldOffset + GROUP), this.arena.get(oldOffset + YEAR),
+                this.arena.get(oldOffset + STATUS), gradeBook);
+
+        this.arena.put(oldOffset + IS_LIVE, (byte) 0);
+        this.deadBytes += getRecordSize(oldOffset);
+        this.offsetsByFacultyNumber.put(facultyNumber, newOffset);
+
+        if (this.deadBytes > INITIAL_CAPACITY && this.deadBytes > this.end / 2) {
+            compact();
+        }
+    }
+
+    /**
+     * Reads the name of the record at the given offset.
+     *
+     * @param offset The offset of the record.
+     * @return The name of the student.
+     */
+    private String readName(int offset) {
+        byte[] nameBytes = new byte[Short.toUnsignedInt(this.arena.getShort(offset + NAME_LENGTH))];
+        ByteBuffer nameRegion = this.arena.duplicate();
+        nameRegion.position(offset + HEADER_SIZE);
+        nameRegion.get(nameBytes);
+        return new String(nameBytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Computes the size of the record at the given offset.
+     *
+     * @param offset The offset of the record.
+     * @return The size of the record in bytes.
+     */
+    private int getRecordSize(int offset) {
+        return HEADER_SIZE + Short.toUnsignedInt(this.arena.getShort(offset + NAME_LENGTH))
+                + Short.toUnsignedInt(this.arena.getShort(offset + GRADES_COUNT)) * GRADE_SIZE;
+    }
+
+    /**
+     * Finds the first live record at or after the given offset.
+     *
+     * @param offset The offset to start from.
+     * @return The offset of the live record or the end of the arena if there is none.
+     */
+    private int skipDeadRecords(int offset) {
+        while (offset < this.end && this.arena.get(offset + IS_LIVE) == 0) {
+            offset += getRecordSize(offset);
+        }
+
+        return offset;
+    }
+
+    /**
+     * Grows the arena so it can hold the given number of bytes.
+     *
+     * @param capacity The number of bytes which the arena must hold.
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity <= this.arena.capacity()) {
+            return;
+        }
+
+        ByteBuffer newArena = ByteBuffer.allocateDirect(Math.max(capacity, this.arena.capacity() * 2));
+        ByteBuffer usedRegion = this.arena.duplicate();
+        usedRegion.position(0).limit(this.end);
+        newArena.put(usedRegion);
+        this.arena = newArena;
+    }
+
+    /**
+     * Copies the live records next to each other into a new arena, so the dead records are released.
+     */
+    private void compact() {
+        ByteBuffer newArena = ByteBuffer.allocateDirect(Math.max(INITIAL_CAPACITY, (this.end - this.deadBytes) * 2));
+
+        for (int offset = skipDeadRecords(0); offset < this.end; offset = skipDeadRecords(offset + getRecordSize(offset))) {
+            ByteBuffer record = this.arena.duplicate();
+            record.position(offset).limit(offset + getRecordSize(offset));
+            this.offsetsByFacultyNumber.put(this.arena.getInt(offset + FACULTY_NUMBER), newArena.position());
+            newArena.put(record);
+        }
+
+        this.end = newArena.position();
+        this.deadBytes = 0;
+        this.arena = newArena;
+    }
+
+    /**
+     * Student flyweight which reads and writes the record of one student.
+     * The record is found through the faculty number index on every access, because rewriting
+     * the name or the grades moves the record. The setters validate the values as Student does before writing them.
+     */
+    private class StudentView extends Student {
+        private int facultyNumber;
+        private GradeBook gradeBook;
+
+        /**
+         * Constructs a flyweight over the record of the student with the given faculty number.
+         *
+         * @param facultyNumber The faculty number of the student.
+         */
+        StudentView(int facultyNumber) {
+            this.facultyNumber = facultyNumber;
+        }
+
+        /**
+         * Gets the offset of the record of the student.
+         *
+         * @return The offset of the record.
+         */
+        private int offset() {
+            return offsetsByFacultyNumber.get(this.facultyNumber);
+        }
+
+        /**
+         * Gets the name of the student from the record.
+         *
+         * @return The name of the student.
+         */
+        @Override
+        public String getName() {
+            return readName(offset());
+        }
+
+        /**
+         * Sets the name of the student in the record.
+         *
+         * @param name The name to set.
+         * @throws StudentException if the name is null or empty.
+         */
+        @Override
+        public void setName(String name) throws StudentException {
+            super.setName(name);
+            rewriteRecord(this.facultyNumber, name, getGradeBook());
+        }
+
+        /**
+         * Gets the faculty number of the student.
+         *
+         * @return The faculty number of the student.
+         */
+        @Override
+        public int getFacultyNumber() {
+            return this.facultyNumber;
+        }
+
+        /**
+         * Sets the faculty number of the student in the record and the index.
+         *
+         * @param facultyNumber The faculty number to set.
+         * @throws StudentException if the faculty number is null or equal to zero.
+         * @throws IllegalArgumentException If another student has this faculty number.
+         */
+        @Override
+        public void setFacultyNumber(Integer facultyNumber) throws StudentException {
+            super.setFacultyNumber(facultyNumber);
+            if (facultyNumber == this.facultyNumber) {
+                return;
+            }
+            if (offsetsByFacultyNumber.contains(facultyNumber)) {
+                throw new IllegalArgumentException(UserMessages.STUDENT_EXISTS.message);
+            }
+
+            int offset = offset();
+            arena.putInt(offset + FACULTY_NUMBER, facultyNumber);
+            offsetsByFacultyNumber.remove(this.facultyNumber);
+            offsetsByFacultyNumber.put(facultyNumber, offset);
+            this.facultyNumber = facultyNumber;
+            this.gradeBook = null;
+        }
+
+        /**
+         * Gets the year of study of the student from the record.
+         *
+         * @return The year of study of the student.
+         */
+        @Override
+        public int getYear() {
+            return arena.get(offset() + YEAR);
+        }
+
+        /**
+         * Sets the year of study of the student in the record.
+         *
+         * @param year The year of study to set.
+         * @throws StudentException if the year is null or not in the range [1-4].
+         */
+        @Override
+        public void setYear(Integer year) throws StudentException {
+            super.setYear(year);
+            arena.put(offset() + YEAR, year.byteValue());
+        }
+
+        /**
+         * Gets the program of the student through the program id of the record.
+         *
+         * @return The program of the student.
+         */
+        @Override
+        public Program getProgram() {
+            return programs.get(arena.getInt(offset() + PROGRAM_ID));
+        }
+
+        /**
+         * Sets the program of the student in the record.
+         *
+         * @param program The program to set.
+         * @throws StudentException if the program is null.
+         */
+        @Override
+        public void setProgram(Program program) throws StudentException {
+            super.setProgram(program);
+            arena.putInt(offset() + PROGRAM_ID, programs.getOrAddId(program));
+        }
+
+        /**
+         * Gets the group of the student from the record.
+         *
+         * @return The group of the student.
+         */
+        @Override
+        public int getGroup() {
+            return arena.getInt(offset() + GROUP);
+        }
+
+        /**
+         * Sets the group of the student in the record.
+         *
+         * @param group The group to set.
+         * @throws StudentException if the group is null or is equal to zero.
+         */
+        @Override
+        public void setGroup(Integer group) throws StudentException {
+            super.setGroup(group);
+            arena.putInt(offset() + GROUP, group);
+        }
+
+        /**
+         * Gets the status of the student from the record.
+         *
+         * @return The status of the student.
+         */
+        @Override
+        public StudentStatus getStatus() {
+            byte status = arena.get(offset() + STATUS);
+            return status == NO_STATUS ? null : STATUSES[status];
+        }
+
+        /**
+         * Sets the status of the student in the record.
+         *
+         * @param statusString The status to set.
+         * @throws StudentException if the status is not "dropped", "enrolled" or "graduated".
+         */
+        @Override
+        public void setStatus(String statusString) throws StudentException {
+            super.setStatus(statusString);
+            arena.put(offset() + STATUS, (byte) super.getStatus().ordinal());
+        }
+
+        /**
+         * Gets the grades of the student. The grade book is decoded from the record once per flyweight
+         * and writes every change back to the arena.
+         *
+         * @return The grade book of the student.
+         */
+        @Override
+        public GradeBook getGradeBook() {
+            if (this.gradeBook == null) {
+                this.gradeBook = new RecordGradeBook(this.facultyNumber);
+            }
+
+            return this.gradeBook;
+        }
+
+        /**
+         * Sets the grades of the student in the record.
+         *
+         * @param gradesBySubject the grades by subject map that needs to set.
+         */
+        @Override
+        public void setGradesBySubject(Map<Subject, Double> gradesBySubject) {
+            GradeBook newGradeBook = gradesBySubject instanceof GradeBook
+                    ? (GradeBook) gradesBySubject
+                    : new GradeBook(gradesBySubject);
+            rewriteRecord(this.facultyNumber, getName(), newGradeBook);
+            this.gradeBook = null;
+        }
+    }
+
+    /**
+     * Grade book decoded from the record of one student, which writes its changes back to the arena.
+     */
+    private class RecordGradeBook extends GradeBook {
+        private final int facultyNumber;
+        private boolean isLoaded;
+
+        /**
+         * Constructs a grade book with the grades from the record of the given student.
+         *
+         * @param facultyNumber The faculty number of the student.
+         */
+        RecordGradeBook(int facultyNumber) {
+            this.facultyNumber = facultyNumber;
+
+            int offset = offsetsByFacultyNumber.get(facultyNumber);
+            int gradeOffset = offset + HEADER_SIZE + Short.toUnsignedInt(arena.getShort(offset + NAME_LENGTH));
+            int gradesCount = Short.toUnsignedInt(arena.getShort(offset + GRADES_COUNT));
+            for (int i = 0; i < gradesCount; i++) {
+                Subject subject = subjects.get(arena.getInt(gradeOffset));
+                put(subject, GradeBook.fromHundredths(arena.getShort(gradeOffset + Integer.BYTES)));
+                gradeOffset += GRADE_SIZE;
+            }
+            this.isLoaded = true;
+        }
+
+        /**
+         * Writes the changed grades back to the record.
+         */
+        @Override
+        protected void onChange() {
+            if (this.isLoaded) {
+                int offset = offsetsByFacultyNumber.get(this.facultyNumber);
+                rewriteRecord(this.facultyNumber, readName(offset), this);
+            }
+        }
+    }
+}
@@ -4,21 +4,24 @@ import bg.tu_varna.sit.oop1.enums.UserMessages;
 import bg.tu_varna.sit.oop1.models.Program;
 
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * The ProgramRepository class implements the Repository interface for Program objects.
- * It manages a collection of programs and provides methods to add, retrieve, and clear programs.
+ * It manages a collection of programs indexed by their case-insensitive name
+ * and provides methods to add, retrieve, and clear programs.
  */
 public class ProgramRepository implements Repository<Program> {
-    private Collection<Program> programs;
+    private Map<String, Program> programsByName;
 
     /**
      * Constructs a new ProgramRepository.
-     * Initializes an empty collection of programs.
+     * Initializes an empty name index of programs.
      */
     public ProgramRepository() {
-        this.programs = new HashSet<>();
+        this.programsByName = new HashMap<>();
     }
 
     /**
@@ -28,7 +31,7 @@ public class ProgramRepository implements Repository<Program> {
      */
     @Override
     public Collection<Program> getAll() {
-        return this.programs;
+        return this.programsByName.values();
     }
 
     /**
@@ -38,7 +41,7 @@ public class ProgramRepository implements Repository<Program> {
      */
     @Override
     public void addNew(Program program) {
-        this.programs.add(program);
+        this.programsByName.put(normalizeName(program.getName()), program);
     }
 
     /**
@@ -46,7 +49,16 @@ public class ProgramRepository implements Repository<Program> {
      */
     @Override
     public void clear() {
-        this.programs.clear();
+        this.programsByName.clear();
+    }
+
+    /**
+     *  Checks if a program with the given id exists.
+     *  This method is not needed at the current state of the project. It will be used for a future functionalities.
+     */
+    @Override
+    public boolean exists(int id) {
+        return false;
     }
 
     /**
@@ -59,10 +71,7 @@ public class ProgramRepository implements Repository<Program> {
      */
     @Override
     public Program getOrThrow(String name) {
-        Program program = this.programs.stream()
-                .filter(element -> element.getName().equalsIgnoreCase(name))
-                .findFirst()
-                .orElse(null);
+        Program program = this.programsByName.get(normalizeName(name));
 
         if(program == null) {
             throw new IllegalArgumentException(UserMessages.PROGRAM_NOT_FOUND.message);
@@ -79,4 +88,15 @@ public class ProgramRepository implements Repository<Program> {
     public Program getOrThrow(int id) {
         return null;
     }
+
+    /**
+     * Normalizes a program name into the key used by the name index.
+     * The root locale is used, so the key does not depend on the language of the system, as equalsIgnoreCase does not.
+     *
+     * @param name The name of the program.
+     * @return The lower-cased program name.
+     */
+    private String normalizeName(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
 }
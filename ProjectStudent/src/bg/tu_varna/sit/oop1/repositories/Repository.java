@@ -23,6 +23,11 @@ public interface Repository<T> {
      */
     void clear();
 
+    /**
+     * Checks if an object with the given id is stored in the repository.
+     */
+    boolean exists(int id);
+
     /**
      * Retrieves an object by id.
      * If no object with the given id exists, an exception is thrown.
@@ -0,0 +1,21 @@
+package bg.tu_varna.sit.oop1.repositories;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * The SegmentedRepository interface is implemented by the repositories which keep their objects
+ * in a directory of segment files instead of one file. Such a repository reads and writes its segments by itself.
+ */
+public interface SegmentedRepository {
+
+    /**
+     * Opens the dataset in the given directory. The segments may be loaded later, when they are needed.
+     */
+    void openSegments(File directory) throws IOException;
+
+    /**
+     * Writes the objects of the repository as a dataset in the given directory.
+     */
+    void saveSegments(File directory) throws IOException;
+}
@@ -0,0 +1,404 @@
+package bg.tu_varna.sit.oop1.repositories;
+
+import bg.tu_varna.sit.oop1.enums.UserMessages;
+import bg.tu_varna.sit.oop1.exceptions.DeserializationException;
+import bg.tu_varna.sit.oop1.models.Student;
+import bg.tu_varna.sit.oop1.serialization.deserializer.CustomDeserializable;
+import bg.tu_varna.sit.oop1.serialization.serializer.StreamingSerializable;
+import bg.tu_varna.sit.oop1.utilities.IntHashIndex;
+import bg.tu_varna.sit.oop1.utilities.ShardedDataset;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * The ShardedStudentStore class implements the StudentStore interface over a dataset directory
+ * with one segment file per program and year.
+ * Opening the dataset reads only the manifest and the index of faculty numbers. A segment is loaded into
+ * the inner storage the first time a command needs one of its students, its program and year or all students.
+ * Segments which are needed together are read and parsed in parallel and added to the inner storage in order.
+ * Saving writes only the loaded segments, so the segments which were not needed keep their files.
+ */
+public class ShardedStudentStore implements StudentStore, SegmentedRepository {
+    private static final String KEY_SEPARATOR = "\t";
+
+    private StudentStore store;
+    private StreamingSerializable<Student> serializer;
+    private CustomDeserializable<Student> deserializer;
+
+    private ShardedDataset dataset;
+    private List<ShardedDataset.Segment> segments;
+    private Map<String, Integer> segmentNumbersByKey;
+    private BitSet loadedSegments;
+    private IntHashIndex segmentNumbersByFacultyNumber;
+
+    /**
+     * Constructs a new ShardedStudentStore without a dataset.
+     *
+     * @param store The storage into which the segments are loaded.
+     * @param serializer The serializer of the segment lines.
+     * @param deserializer The deserializer of the segment lines. It must be safe to use from several threads.
+     */
+    public ShardedStudentStore(StudentStore store, StreamingSerializable<Student> serializer,
+                               CustomDeserializable<Student> deserializer) {
+        this.store = store;
+        this.serializer = serializer;
+        this.deserializer = deserializer;
+        this.segmentNumbersByFacultyNumber = new IntHashIndex();
+        clearSegments();
+    }
+
+    /**
+     * Retrieves all students. The segments which are not loaded yet are loaded first.
+     *
+     * @return A collection of all students of the dataset.
+     */
+    @Override
+    public Collection<Student> getAll() {
+        loadSegments(getNotLoadedSegments());
+        return this.store.getAll();
+    }
+
+    /**
+     * Adds a new student to the inner storage. The student belongs to the segment of its program and year.
+     *
+     * @param student The Student object to be added.
+     * @throws IllegalArgumentException If a student with the same faculty number is already in the dataset.
+     */
+    @Override
+    public void addNew(Student student) {
+        if (this.segmentNumbersByFacultyNumber.contains(student.getFacultyNumber())) {
+            throw new IllegalArgumentException(UserMessages.STUDENT_EXISTS.message);
+        }
+
+        this.store.addNew(student);
+        getOrAddSegment(student.getProgram().getName(), student.getYear());
+    }
+
+    /**
+     * Clears all students and forgets the dataset. The dataset files are not changed.
+     */
+    @Override
+    public void clear() {
+        this.store.clear();
+        this.dataset = null;
+        clearSegments();
+    }
+
+    /**
+     * Checks if a student with the given faculty number is in the dataset without loading its segment.
+     *
+     * @param facultyNumber The faculty number to look for.
+     * @return true if such a student exists and false otherwise.
+     */
+    @Override
+    public boolean exists(int facultyNumber) {
+        return this.segmentNumbersByFacultyNumber.contains(facultyNumber) || this.store.exists(facultyNumber);
+    }
+
+    /**
+     * Returns a student by faculty number. The segment of the student is loaded first if it is not loaded yet.
+     *
+     * @param facultyNumber The faculty number of the student to be retrieved.
+     * @return The student from the inner storage.
+     * @throws IllegalArgumentException If no student is found with the specified faculty number.
+     */
+    @Override
+    public Student getOrThrow(int facultyNumber) {
+        int segmentNumber = this.segmentNumbersByFacultyNumber.get(facultyNumber);
+        if (segmentNumber >= 0) {
+            loadSegments(Collections.singletonList(segmentNumber));
+        }
+
+        return this.store.getOrThrow(facultyNumber);
+    }
+
+    /**
+     *  Finds a student by name or returns exception if the student is not found.
+     *  This method is not needed at the current state of the project. It will be used for a future functionalities.
+     */
+    @Override
+    public Student getOrThrow(String name) {
+        return null;
+    }
+
+    /**
+     * Retrieves all students of the given program who are in the given year of study.
+     * Only the segment of this program and year is loaded.
+     *
+     * @param programName The name of the program.
+     * @param year The year of study.
+     * @return A collection of the matching students.
+     */
+    @Override
+    public Collection<Student> getByProgramAndYear(String programName, int year) {
+        Integer segmentNumber = this.segmentNumbersByKey.get(getKey(programName, year));
+        if (segmentNumber != null) {
+            loadSegments(Collections.singletonList(segmentNumber));
+        }
+
+        return this.store.getByProgramAndYear(programName, year);
+    }
+
+    /**
+     * Describes the inner storage and how much of the dataset is loaded.
+     *
+     * @return A report with one line for the inner storage and one for the dataset.
+     */
+    @Override
+    public String getStorageReport() {
+        return this.store.getStorageReport() + System.lineSeparator() + String.format(UserMessages.SHARDED_REPORT.message,
+                this.loadedSegments.cardinality(), this.segments.size(), this.segmentNumbersByFacultyNumber.size());
+    }
+
+    /**
+     * Removes the student with the given faculty number. The segment of the student is loaded first,
+     * so the segment is written without the student on the next save.
+     *
+     * @param facultyNumber The faculty number of the student to remove.
+     */
+    @Override
+    public void remove(int facultyNumber) {
+        int segmentNumber = this.segmentNumbersByFacultyNumber.get(facultyNumber);
+        if (segmentNumber >= 0) {
+            loadSegments(Collections.singletonList(segmentNumber));
+        }
+
+        this.store.remove(facultyNumber);
+    }
+
+    /**
+     * Opens the dataset in the given directory by reading its manifest and index. No segment is loaded.
+     * The inner storage is not cleared, as it may already hold data of the dataset, like the archived students.
+     *
+     * @param directory The directory of the dataset.
+     * @throws IOException If the manifest or the index can not be read.
+     */
+    @Override
+    public void openSegments(File directory) throws IOException {
+        this.dataset = null;
+        clearSegments();
+
+        ShardedDataset openedDataset = new ShardedDataset(directory);
+        try {
+            openedDataset.load();
+        } catch (DeserializationException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+
+        this.dataset = openedDataset;
+        for (ShardedDataset.Segment segment : openedDataset.getSegments()) {
+            this.segmentNumbersByKey.put(getKey(segment.getProgramName(), segment.getYear()), this.segments.size());
+            this.segments.add(segment);
+        }
+
+        int[] index = openedDataset.readIndex();
+        for (int i = 0; i < index.length; i += 2) {
+            this.segmentNumbersByFacultyNumber.put(index[i], index[i + 1]);
+        }
+    }
+
+    /**
+     * Writes the students as a dataset in the given directory.
+     * In the opened dataset only the loaded segments and the segments which got new students are written.
+     * Another directory gets all segments, so every segment is loaded first.
+     *
+     * @param directory The directory of the dataset.
+     * @throws IOException If an error occurs while writing.
+     */
+    @Override
+    public void saveSegments(File directory) throws IOException {
+        File targetDirectory = directory.getAbsoluteFile();
+        if (this.dataset == null || !this.dataset.getDirectory().equals(targetDirectory)) {
+            loadSegments(getNotLoadedSegments());
+
+            ShardedDataset targetDataset = new ShardedDataset(targetDirectory);
+            try {
+                targetDataset.load();
+            } catch (DeserializationException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+
+            List<ShardedDataset.Segment> newSegments = new ArrayList<>(this.segments.size());
+            for (ShardedDataset.Segment segment : this.segments) {
+                newSegments.add(new ShardedDataset.Segment(segment.getProgramName(), segment.getYear()));
+            }
+            this.dataset = targetDataset;
+            this.segments = newSegments;
+        }
+
+        //A student who changed the program or the year belongs to another segment, which has to be loaded to be written
+        List<Integer> segmentNumbersToLoad = new ArrayList<>();
+        for (Student student : this.store.getAll()) {
+            int segmentNumber = getOrAddSegment(student.getProgram().getName(), student.getYear());
+            if (!this.loadedSegments.get(segmentNumber) && !segmentNumbersToLoad.contains(segmentNumber)) {
+                segmentNumbersToLoad.add(segmentNumber);
+            }
+        }
+        loadSegments(segmentNumbersToLoad);
+
+        Map<Integer, List<Student>> studentsBySegment = new TreeMap<>();
+        for (int segmentNumber = this.loadedSegments.nextSetBit(0); segmentNumber >= 0;
+             segmentNumber = this.loadedSegments.nextSetBit(segmentNumber + 1)) {
+            studentsBySegment.put(segmentNumber, new ArrayList<>());
+        }
+
+        Collection<Student> students = this.store.getAll();
+        int[] notLoadedFacultyNumbers = this.segmentNumbersByFacultyNumber.getKeys();
+        int[] index = new int[(students.size() + notLoadedFacultyNumbers.length) * 2];
+        int position = 0;
+        for (Student student : students) {
+            int segmentNumber = this.segmentNumbersByKey.get(getKey(student.getProgram().getName(), student.getYear()));
+            studentsBySegment.get(segmentNumber).add(student);
+            index[position++] = student.getFacultyNumber();
+            index[position++] = segmentNumber;
+        }
+        for (int facultyNumber : notLoadedFacultyNumbers) {
+            index[position++] = facultyNumber;
+            index[position++] = this.segmentNumbersByFacultyNumber.get(facultyNumber);
+        }
+
+        this.dataset.write(this.segments, studentsBySegment, index, this.serializer);
+    }
+
+    /**
+     * Loads the given segments which are not loaded yet. The segment files are read and parsed in parallel
+     * and their students are added to the inner storage on the current thread in the order of the segments.
+     *
+     * @param segmentNumbers The numbers of the segments to load.
+     * @throws UncheckedIOException If a segment file can not be read.
+     * @throws IllegalArgumentException If a segment file has an invalid line.
+     */
+    private void loadSegments(List<Integer> segmentNumbers) {
+        List<Integer> segmentNumbersToRead = new ArrayList<>();
+        List<Callable<List<Student>>> tasks = new ArrayList<>();
+        for (int segmentNumber : segmentNumbers) {
+            if (!this.loadedSegments.get(segmentNumber)) {
+                ShardedDataset.Segment segment = this.segments.get(segmentNumber);
+                segmentNumbersToRead.add(segmentNumber);
+                tasks.add(() -> this.dataset.readSegment(segment, this.deserializer));
+            }
+        }
+        if (tasks.isEmpty()) {
+            return;
+        }
+
+        List<Future<List<Student>>> results;
+        if (tasks.size() == 1) {
+            //A single segment is read on the current thread
+            FutureTask<List<Student>> task = new FutureTask<>(tasks.get(0));
+            task.run();
+            results = Collections.singletonList(task);
+        } else {
+            results = ForkJoinPool.commonPool().invokeAll(tasks);
+        }
+
+        for (int i = 0; i < results.size(); i++) {
+            int segmentNumber = segmentNumbersToRead.get(i);
+            String fileName = this.segments.get(segmentNumber).getFileName();
+            for (Student student : getSegmentStudents(results.get(i), fileName)) {
+                this.segmentNumbersByFacultyNumber.remove(student.getFacultyNumber());
+                try {
+                    this.store.addNew(student);
+                } catch (IllegalArgumentException e) {
+                    System.out.println(String.format(UserMessages.SEGMENT_RECORD_SKIPPED.message, fileName, e.getMessage()));
+                }
+            }
+            this.loadedSegments.set(segmentNumber);
+        }
+    }
+
+    /**
+     * Waits for the students of a segment which is being read.
+     *
+     * @param result The result of the reading.
+     * @param fileName The name of the segment file.
+     * @return The students of the segment.
+     * @throws UncheckedIOException If the segment file can not be read.
+     * @throws IllegalArgumentException If the segment file has an invalid line.
+     */
+    private static List<Student> getSegmentStudents(Future<List<Student>> result, String fileName) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw new UncheckedIOException((IOException) e.getCause());
+            }
+            throw new IllegalArgumentException(String.format(UserMessages.WRONG_SEGMENT_DATA.message, fileName, e.getCause().getMessage()));
+        }
+    }
+
+    /**
+     * Gets the numbers of the segments which are not loaded yet.
+     *
+     * @return The numbers of the segments.
+     */
+    private List<Integer> getNotLoadedSegments() {
+        List<Integer> segmentNumbers = new ArrayList<>();
+        for (int segmentNumber = this.loadedSegments.nextClearBit(0); segmentNumber < this.segments.size();
+             segmentNumber = this.loadedSegments.nextClearBit(segmentNumber + 1)) {
+            segmentNumbers.add(segmentNumber);
+        }
+
+        return segmentNumbers;
+    }
+
+    /**
+     * Gets the number of the segment of the given program and year. A missing segment is added as a loaded one,
+     * because it has no file to load.
+     *
+     * @param programName The name of the program.
+     * @param year The year of study.
+     * @return The number of the segment.
+     */
+    private int getOrAddSegment(String programName, int year) {
+        String key = getKey(programName, year);
+        Integer segmentNumber = this.segmentNumbersByKey.get(key);
+        if (segmentNumber == null) {
+            segmentNumber = this.segments.size();
+            this.segments.add(new ShardedDataset.Segment(programName, year));
+            this.segmentNumbersByKey.put(key, segmentNumber);
+            this.loadedSegments.set(segmentNumber);
+        }
+
+        return segmentNumber;
+    }
+
+    /**
+     * Removes all segments from memory.
+     */
+    private void clearSegments() {
+        this.segments = new ArrayList<>();
+        this.segmentNumbersByKey = new HashMap<>();
+        this.loadedSegments = new BitSet();
+        this.segmentNumbersByFacultyNumber.clear();
+    }
+
+    /**
+     * Builds the key of the segment of the given program and year.
+     *
+     * @param programName The name of the program.
+     * @param year The year of study.
+     * @return The key of the segment.
+     */
+    private static String getKey(String programName, int year) {
+        return programName + KEY_SEPARATOR + year;
+    }
+}
@@ -4,21 +4,24 @@ import bg.tu_varna.sit.oop1.enums.UserMessages;
 import bg.tu_varna.sit.oop1.models.Student;
 
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
- * The StudentRepository class implements the Repository interface for Student objects.
- * It manages a collection of students and provides methods to add, retrieve, and clear students.
+ * The StudentRepository class implements the StudentStore interface for Student objects.
+ * It manages a collection of students indexed by their faculty number
+ * and provides methods to add, retrieve, and clear students.
  */
-public class StudentRepository implements Repository<Student> {
-    private Collection<Student> students;
+public class StudentRepository implements StudentStore {
+    private Map<Integer, Student> studentsByFacultyNumber;
 
     /**
      * Constructs a new StudentRepository.
-     * Initializes an empty collection of students.
+     * Initializes an empty faculty number index of students.
      */
     public StudentRepository() {
-        this.students = new HashSet<>();
+        this.studentsByFacultyNumber = new HashMap<>();
     }
 
     /**
@@ -28,17 +31,23 @@ public class StudentRepository implements Repository<Student> {
      */
     @Override
     public Collection<Student> getAll() {
-        return this.students;
+        return this.studentsByFacultyNumber.values();
     }
 
     /**
      * Adds a new student to the repository.
      *
      * @param student The Student object to be added to the repository.
+     * @throws IllegalArgumentException If a student with the same faculty number is already in the repository.
      */
     @Override
     public void addNew(Student student) {
-        this.students.add(student);
+        int facultyNumber = student.getFacultyNumber();
+        if (this.studentsByFacultyNumber.containsKey(facultyNumber)) {
+            throw new IllegalArgumentException(UserMessages.STUDENT_EXISTS.message);
+        }
+
+        this.studentsByFacultyNumber.put(facultyNumber, student);
     }
 
     /**
@@ -46,7 +55,18 @@ public class StudentRepository implements Repository<Student> {
      */
     @Override
     public void clear() {
-        this.students.clear();
+        this.studentsByFacultyNumber.clear();
+    }
+
+    /**
+     * Checks if a student with the given faculty number is stored in the repository.
+     *
+     * @param facultyNumber The faculty number to look for.
+     * @return true if such a student exists and false otherwise.
+     */
+    @Override
+    public boolean exists(int facultyNumber) {
+        return this.studentsByFacultyNumber.containsKey(facultyNumber);
     }
 
     /**
@@ -59,10 +79,7 @@ public class StudentRepository implements Repository<Student> {
      */
     @Override
     public Student getOrThrow(int facultyNumber) {
-        Student student = this.students.stream()
-                .filter(std -> std.getFacultyNumber() == facultyNumber)
-                .findFirst()
-                .orElse(null);
+        Student student = this.studentsByFacultyNumber.get(facultyNumber);
 
         if (student == null) {
             throw new IllegalArgumentException(UserMessages.STUDENT_NOT_EXISTS.message);
@@ -70,6 +87,41 @@ public class StudentRepository implements Repository<Student> {
         return student;
     }
 
+    /**
+     * Retrieves all students of the given program who are in the given year of study.
+     *
+     * @param programName The name of the program.
+     * @param year The year of study.
+     * @return A collection of the matching students.
+     */
+    @Override
+    public Collection<Student> getByProgramAndYear(String programName, int year) {
+        return this.studentsByFacultyNumber.values().stream()
+                .filter(student -> student.getYear() == year)
+                .filter(student -> student.getProgram().getName().equals(programName))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Describes the storage of the repository.
+     *
+     * @return A report with the number of students kept as objects on the heap.
+     */
+    @Override
+    public String getStorageReport() {
+        return String.format("Heap storage: %d students kept as separate objects.", this.studentsByFacultyNumber.size());
+    }
+
+    /**
+     * Removes the student with the given faculty number from the repository.
+     *
+     * @param facultyNumber The faculty number of the student to remove.
+     */
+    @Override
+    public void remove(int facultyNumber) {
+        this.studentsByFacultyNumber.remove(facultyNumber);
+    }
+
     /**
      *  Finds a student by name or returns exception if the student is not found.
      *  This method is not needed at the current state of the project. It will be used for a future functionalities.
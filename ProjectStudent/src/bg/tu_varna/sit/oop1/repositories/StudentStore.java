@@ -0,0 +1,27 @@
+package bg.tu_varna.sit.oop1.repositories;
+
+import bg.tu_varna.sit.oop1.models.Student;
+
+import java.util.Collection;
+
+/**
+ * The StudentStore interface extends the Repository interface with the queries
+ * which the different student storages can answer in their own efficient way.
+ */
+public interface StudentStore extends Repository<Student> {
+
+    /**
+     * Retrieves all students of the program with the given name who are in the given year of study.
+     */
+    Collection<Student> getByProgramAndYear(String programName, int year);
+
+    /**
+     * Describes how many students are stored and how much memory the storage uses.
+     */
+    String getStorageReport();
+
+    /**
+     * Removes the student with the given faculty number from the storage. Does nothing if there is no such student.
+     */
+    void remove(int facultyNumber);
+}
@@ -0,0 +1,96 @@
+package bg.tu_varna.sit.oop1.repositories;
+
+import bg.tu_varna.sit.oop1.models.Subject;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The SubjectRepository class implements the Repository interface for Subject objects.
+ * It is the pool of canonical subjects of one program catalog. Equal subjects are stored only once,
+ * so every program and student record refers to the same Subject object.
+ * Subjects can be interned from several threads at once, as done by the parallel loading of a file.
+ */
+public class SubjectRepository implements Repository<Subject> {
+    private Map<Subject, Subject> subjects;
+
+    /**
+     * Constructs a new SubjectRepository.
+     * Initializes an empty pool of subjects.
+     */
+    public SubjectRepository() {
+        this.subjects = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Retrieves all subjects in the repository.
+     *
+     * @return A collection of all canonical Subject objects currently stored in the repository.
+     */
+    @Override
+    public Collection<Subject> getAll() {
+        return this.subjects.values();
+    }
+
+    /**
+     * Adds a new subject to the repository if an equal subject is not already stored.
+     *
+     * @param subject The Subject object to be added to the repository.
+     */
+    @Override
+    public void addNew(Subject subject) {
+        intern(subject);
+    }
+
+    /**
+     * Returns the canonical instance of the given subject.
+     * If an equal subject is already stored it is returned, otherwise the given subject is stored and returned.
+     *
+     * @param subject The subject to be interned.
+     * @return The canonical Subject object equal to the given one.
+     */
+    public Subject intern(Subject subject) {
+        Subject canonical = this.subjects.get(subject);
+        if (canonical == null) {
+            canonical = this.subjects.putIfAbsent(subject, subject);
+        }
+
+        return canonical == null ? subject : canonical;
+    }
+
+    /**
+     * Clears all subjects from the repository.
+     */
+    @Override
+    public void clear() {
+        this.subjects.clear();
+    }
+
+    /**
+     *  Checks if a subject with the given id exists.
+     *  This method is not needed at the current state of the project. It will be used for a future functionalities.
+     */
+    @Override
+    public boolean exists(int id) {
+        return false;
+    }
+
+    /**
+     *  Finds a subject by id or returns exception if the subject is not found.
+     *  This method is not needed at the current state of the project. It will be used for a future functionalities.
+     */
+    @Override
+    public Subject getOrThrow(int id) {
+        return null;
+    }
+
+    /**
+     *  Finds a subject by name or returns exception if the subject is not found.
+     *  This method is not needed at the current state of the project. It will be used for a future functionalities.
+     */
+    @Override
+    public Subject getOrThrow(String name) {
+        return null;
+    }
+}
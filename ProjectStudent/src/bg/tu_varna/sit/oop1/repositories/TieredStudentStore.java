@@ -0,0 +1,339 @@
+package bg.tu_varna.sit.oop1.repositories;
+
+import bg.tu_varna.sit.oop1.enums.StudentStatus;
+import bg.tu_varna.sit.oop1.enums.UserMessages;
+import bg.tu_varna.sit.oop1.models.Student;
+import bg.tu_varna.sit.oop1.serialization.deserializer.CustomDeserializable;
+import bg.tu_varna.sit.oop1.serialization.serializer.CustomSerializable;
+import bg.tu_varna.sit.oop1.utilities.StudentArchive;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The TieredStudentStore class implements the StudentStore interface with two tiers.
+ * The hot tier is a student storage in memory with the active students. The cold tier is a StudentArchive
+ * with the graduated and dropped students, which are moved there when the students file is saved.
+ * The scans, like the ones of the reports, only go over the hot tier. An archived student is loaded
+ * back into the hot tier when it is requested by faculty number, so the commands work with it as before.
+ */
+public class TieredStudentStore implements StudentStore {
+    private StudentStore hotStore;
+    private StudentArchive archive;
+    private CustomSerializable<Student> serializer;
+    private CustomDeserializable<Student> deserializer;
+
+    private Set<Integer> archiveCandidates;
+    private Map<Integer, String> restoredLines;
+    private Object restoreLock;
+
+    /**
+     * Constructs a new TieredStudentStore.
+     *
+     * @param hotStore The storage of the active students.
+     * @param archive The archive of the students file.
+     * @param serializer The serializer of the archive lines.
+     * @param deserializer The deserializer of the archive lines.
+     */
+    public TieredStudentStore(StudentStore hotStore, StudentArchive archive, CustomSerializable<Student> serializer,
+                              CustomDeserializable<Student> deserializer) {
+        this.hotStore = hotStore;
+        this.archive = archive;
+        this.serializer = serializer;
+        this.deserializer = deserializer;
+        //Several sessions may look up students at the same time, so the bookkeeping of the tiers is kept in concurrent collections
+        this.archiveCandidates = ConcurrentHashMap.newKeySet();
+        this.restoredLines = new ConcurrentHashMap<>();
+        this.restoreLock = new Object();
+    }
+
+    /**
+     * Retrieves the students of the hot tier.
+     *
+     * @return A collection of the students which are not archived.
+     */
+    @Override
+    public Collection<Student> getAll() {
+        return this.hotStore.getAll();
+    }
+
+    /**
+     * Adds a new student to the hot tier.
+     * A student from the students file is added even if an older copy of it is still archived, because the file is newer.
+     *
+     * @param student The Student object to be added.
+     * @throws IllegalArgumentException If a student with the same faculty number is already in the hot tier.
+     */
+    @Override
+    public void addNew(Student student) {
+        this.hotStore.addNew(student);
+        if (isArchivable(student)) {
+            this.archiveCandidates.add(student.getFacultyNumber());
+        }
+    }
+
+    /**
+     * Clears the students of both tiers from memory. The archive files are not changed.
+     */
+    @Override
+    public void clear() {
+        this.hotStore.clear();
+        this.archive.clear();
+        this.archiveCandidates.clear();
+        this.restoredLines.clear();
+    }
+
+    /**
+     * Checks if a student with the given faculty number is in the hot tier or in the archive.
+     *
+     * @param facultyNumber The faculty number to look for.
+     * @return true if such a student exists and false otherwise.
+     */
+    @Override
+    public boolean exists(int facultyNumber) {
+        return this.hotStore.exists(facultyNumber) || this.archive.contains(facultyNumber);
+    }
+
+    /**
+     * Returns a student by faculty number. An archived student is loaded back into the hot tier first.
+     * The returned student may be changed, so it is checked again for archiving on the next save.
+     *
+     * @param facultyNumber The faculty number of the student to be retrieved.
+     * @return The student from the hot tier.
+     * @throws IllegalArgumentException If no student is found with the specified faculty number.
+     * @throws UncheckedIOException If the archive file can not be read.
+     */
+    @Override
+    public Student getOrThrow(int facultyNumber) {
+        if (!this.hotStore.exists(facultyNumber) && this.archive.contains(facultyNumber)) {
+            restore(facultyNumber);
+        }
+
+        Student student = this.hotStore.getOrThrow(facultyNumber);
+        this.archiveCandidates.add(facultyNumber);
+        return student;
+    }
+
+    /**
+     *  Finds a student by name or returns exception if the student is not found.
+     *  This method is not needed at the current state of the project. It will be used for a future functionalities.
+     */
+    @Override
+    public Student getOrThrow(String name) {
+        return null;
+    }
+
+    /**
+     * Retrieves the students of the hot tier in the given program and year of study.
+     *
+     * @param programName The name of the program.
+     * @param year The year of study.
+     * @return A collection of the matching students which are not archived.
+     */
+    @Override
+    public Collection<Student> getByProgramAndYear(String programName, int year) {
+        return this.hotStore.getByProgramAndYear(programName, year);
+    }
+
+    /**
+     * Describes the storage of the hot tier and the archive.
+     *
+     * @return A report with one line for each tier.
+     */
+    @Override
+    public String getStorageReport() {
+        return this.hotStore.getStorageReport() + System.lineSeparator() + this.archive.getReport();
+    }
+
+    /**
+     * Removes the student with the given faculty number from the hot tier.
+     *
+     * @param facultyNumber The faculty number of the student to remove.
+     */
+    @Override
+    public void remove(int facultyNumber) {
+        this.hotStore.remove(facultyNumber);
+        this.archiveCandidates.remove(facultyNumber);
+        this.restoredLines.remove(facultyNumber);
+    }
+
+    /**
+     * Checks if the student with the given faculty number is archived and not loaded in the hot tier.
+     *
+     * @param facultyNumber The faculty number to look for.
+     * @return true if the student is only in the archive and false otherwise.
+     */
+    public boolean isArchived(int facultyNumber) {
+        return !this.hotStore.exists(facultyNumber) && this.archive.contains(facultyNumber);
+    }
+
+    /**
+     * Reads the line of an archived student without loading the student into the hot tier.
+     *
+     * @param facultyNumber The faculty number of the student.
+     * @return The line of the student in the format of the students file.
+     * @throws IllegalArgumentException If the student is not only in the archive.
+     * @throws IOException If an error occurs while reading the archive file.
+     */
+    public String readArchived(int facultyNumber) throws IOException {
+        if (!isArchived(facultyNumber)) {
+            throw new IllegalArgumentException(String.format(UserMessages.STUDENT_NOT_ARCHIVED.message, facultyNumber));
+        }
+
+        return this.archive.readLine(facultyNumber);
+    }
+
+    /**
+     * Gets the archive of the store.
+     *
+     * @return The archive with the cold tier.
+     */
+    public StudentArchive getArchive() {
+        return this.archive;
+    }
+
+    /**
+     * Checks if some student has to be written to the archive, because the student was graduated or dropped
+     * since the last save or was changed after being loaded from the archive.
+     *
+     * @return true if the archive file has to be written and false otherwise.
+     */
+    public boolean hasStudentsToArchive() {
+        return !collectLinesToArchive().isEmpty();
+    }
+
+    /**
+     * Moves the graduated and dropped students from the hot tier to the archive.
+     * Students whose archive line is still up to date are only removed from the hot tier.
+     * The archive is written first, so a student is never only in memory when the students file is written.
+     *
+     * @return The number of students removed from the hot tier.
+     * @throws IOException If an error occurs while writing the archive.
+     */
+    public int archiveInactiveStudents() throws IOException {
+        this.archive.append(collectLinesToArchive());
+
+        List<Integer> evictedFacultyNumbers = new ArrayList<>();
+        for (int facultyNumber : this.archiveCandidates) {
+            if (this.hotStore.exists(facultyNumber) && isArchivable(this.hotStore.getOrThrow(facultyNumber))) {
+                evictedFacultyNumbers.add(facultyNumber);
+            }
+        }
+        for (int facultyNumber : evictedFacultyNumbers) {
+            this.hotStore.remove(facultyNumber);
+            this.restoredLines.remove(facultyNumber);
+        }
+
+        this.archiveCandidates.clear();
+        return evictedFacultyNumbers.size();
+    }
+
+    /**
+     * Removes the students which were loaded from the archive and are active again from the archive.
+     * It is called after the students file with these students is fully written.
+     *
+     * @throws IOException If an error occurs while writing the archive index.
+     */
+    public void releaseRestoredStudents() throws IOException {
+        this.archive.remove(this.restoredLines.keySet());
+        this.restoredLines.clear();
+    }
+
+    /**
+     * Takes the students which were loaded from the archive and are active again, so they can be removed
+     * from the archive after a snapshot with them is saved in the students file.
+     *
+     * @return The faculty numbers of the students.
+     */
+    public Set<Integer> takeRestoredStudents() {
+        Set<Integer> restoredFacultyNumbers = new HashSet<>(this.restoredLines.keySet());
+        this.restoredLines.clear();
+        return restoredFacultyNumbers;
+    }
+
+    /**
+     * Serializes the graduated and dropped students of the hot tier whose archive line is missing or out of date.
+     *
+     * @return The new archive lines by faculty number.
+     */
+    private Map<Integer, String> collectLinesToArchive() {
+        Map<Integer, String> lines = new LinkedHashMap<>();
+        for (int facultyNumber : this.archiveCandidates) {
+            if (!this.hotStore.exists(facultyNumber)) {
+                continue;
+            }
+
+            Student student = this.hotStore.getOrThrow(facultyNumber);
+            if (isArchivable(student)) {
+                String line = this.serializer.serialize(student);
+                if (!line.equals(this.restoredLines.get(facultyNumber))) {
+                    lines.put(facultyNumber, line);
+                }
+            }
+        }
+
+        return lines;
+    }
+
+    /**
+     * Loads an archived student into the hot tier and keeps its archive line,
+     * so an unchanged student is not written to the archive again.
+     * Two sessions may ask for the same archived student at the same time, so only the first one loads it.
+     *
+     * @param facultyNumber The faculty number of the student.
+     * @throws UncheckedIOException If the archive file can not be read.
+     * @throws IllegalArgumentException If the archive line is not valid.
+     */
+    private void restore(int facultyNumber) {
+        synchronized (this.restoreLock) {
+            if (!this.hotStore.exists(facultyNumber)) {
+                restoreLine(facultyNumber);
+            }
+        }
+    }
+
+    /**
+     * Reads the archive line of a student and adds the student to the hot tier.
+     *
+     * @param facultyNumber The faculty number of the student.
+     * @throws UncheckedIOException If the archive file can not be read.
+     * @throws IllegalArgumentException If the archive line is not valid.
+     */
+    private void restoreLine(int facultyNumber) {
+        String line;
+        try {
+            line = this.archive.readLine(facultyNumber);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        Student student;
+        try {
+            student = this.deserializer.deserialize(line);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(String.format(UserMessages.WRONG_ARCHIVE_RECORD.message, facultyNumber, e.getMessage()));
+        }
+
+        this.hotStore.addNew(student);
+        this.restoredLines.put(facultyNumber, line);
+    }
+
+    /**
+     * Checks if a student belongs to the archive. Graduated and dropped students are archived.
+     *
+     * @param student The student to check.
+     * @return true if the student should be archived and false otherwise.
+     */
+    private static boolean isArchivable(Student student) {
+        StudentStatus status = student.getStatus();
+        return status == StudentStatus.GRADUATED || status == StudentStatus.DROPPED;
+    }
+}
@@ -0,0 +1,32 @@
+package bg.tu_varna.sit.oop1.serialization.deserializer;
+
+import bg.tu_varna.sit.oop1.exceptions.DeserializationException;
+import bg.tu_varna.sit.oop1.exceptions.ProgramException;
+import bg.tu_varna.sit.oop1.exceptions.StudentException;
+import bg.tu_varna.sit.oop1.exceptions.SubjectException;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+
+/**
+ * This interface defines the operations for custom deserialization of objects from a binary file.
+ * It provides methods to recognize and read the file header and a method to deserialize the next record.
+ */
+public interface BinaryDeserializable<T> {
+    /**
+     * Checks if the given first bytes of a file are the magic bytes of the binary format.
+     */
+    boolean isFormatOf(byte[] firstBytes);
+
+    /**
+     * Reads the header of the file, which must be read before the records.
+     * Throws an exception if the header is not valid.
+     */
+    void readHeader(DataInputStream in) throws IOException, DeserializationException, ProgramException, SubjectException;
+
+    /**
+     * Deserializes the next record of the file into an object.
+     * Returns null when there are no more records and throws an exception if the record is not valid.
+     */
+    T deserialize(DataInputStream in) throws IOException, DeserializationException, StudentException, ProgramException, SubjectException;
+}
@@ -0,0 +1,222 @@
+package bg.tu_varna.sit.oop1.serialization.deserializer;
+
+import bg.tu_varna.sit.oop1.enums.StudentStatus;
+import bg.tu_varna.sit.oop1.enums.UserMessages;
+import bg.tu_varna.sit.oop1.exceptions.DeserializationException;
+import bg.tu_varna.sit.oop1.exceptions.ProgramException;
+import bg.tu_varna.sit.oop1.exceptions.StudentException;
+import bg.tu_varna.sit.oop1.exceptions.SubjectException;
+import bg.tu_varna.sit.oop1.models.GradeBook;
+import bg.tu_varna.sit.oop1.models.Program;
+import bg.tu_varna.sit.oop1.models.Student;
+import bg.tu_varna.sit.oop1.models.Subject;
+import bg.tu_varna.sit.oop1.repositories.Repository;
+import bg.tu_varna.sit.oop1.repositories.SubjectRepository;
+import bg.tu_varna.sit.oop1.serialization.serializer.BinaryStudentSerializer;
+import bg.tu_varna.sit.oop1.utilities.BinaryUtility;
+import bg.tu_varna.sit.oop1.utilities.StudentFilter;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The BinaryStudentDeserializer class implements the BinaryDeserializable interface for Student objects.
+ * It reads files written by {@link BinaryStudentSerializer}. The programs and subjects of the dictionary block
+ * are linked to the already loaded catalog, as the text deserializer does.
+ */
+public class BinaryStudentDeserializer implements BinaryDeserializable<Student> {
+    private static final StudentStatus[] STATUSES = StudentStatus.values();
+
+    private Repository<Program> programRepository;
+    private SubjectRepository subjectRepository;
+    private List<Program> programs;
+    private List<Subject> subjects;
+    private int remainingRecordsCount;
+    private byte[] recordBytes;
+
+    /**
+     * Constructs a new BinaryStudentDeserializer.
+     *
+     * @param programRepository The repository of the catalog programs.
+     * @param subjectRepository The pool of subjects of the catalog.
+     */
+    public BinaryStudentDeserializer(Repository<Program> programRepository, SubjectRepository subjectRepository) {
+        this.programRepository = programRepository;
+        this.subjectRepository = subjectRepository;
+        this.programs = new ArrayList<>();
+        this.subjects = new ArrayList<>();
+        this.recordBytes = new byte[256];
+    }
+
+    /**
+     * Checks if the given first bytes of a file are the magic bytes of the binary student format.
+     *
+     * @param firstBytes The first bytes of the file.
+     * @return true if the file is a binary student file and false otherwise.
+     */
+    @Override
+    public boolean isFormatOf(byte[] firstBytes) {
+        int magicLength = BinaryStudentSerializer.MAGIC.length;
+        return firstBytes.length >= magicLength
+                && Arrays.equals(Arrays.copyOf(firstBytes, magicLength), BinaryStudentSerializer.MAGIC);
+    }
+
+    /**
+     * Reads the magic bytes, the version, the dictionary block and the number of records.
+     *
+     * @param in The input to read from.
+     * @throws IOException If an error occurs while reading.
+     * @throws DeserializationException If the header is not valid or the version is not supported.
+     * @throws ProgramException If a program name in the dictionary is with wrong format.
+     * @throws SubjectException If a subject in the dictionary is with wrong format.
+     */
+    @Override
+    public void readHeader(DataInputStream in) throws IOException, DeserializationException, ProgramException, SubjectException {
+        byte[] magic = new byte[BinaryStudentSerializer.MAGIC.length];
+        in.readFully(magic);
+        if (!isFormatOf(magic)) {
+            throw new DeserializationException(UserMessages.WRONG_BINARY_DATA_FORMAT.message);
+        }
+
+        int version = in.readUnsignedByte();
+        if (version > BinaryStudentSerializer.VERSION) {
+            throw new DeserializationException(String.format(UserMessages.UNSUPPORTED_BINARY_VERSION.message, version));
+        }
+
+        this.programs.clear();
+        int programsCount = BinaryUtility.readVarInt(in);
+        for (int i = 0; i < programsCount; i++) {
+            this.programs.add(getProgram(BinaryUtility.readString(in)));
+        }
+
+        this.subjects.clear();
+        int subjectsCount = BinaryUtility.readVarInt(in);
+        for (int i = 0; i < subjectsCount; i++) {
+            String subjectName = BinaryUtility.readString(in);
+            String subjectType = in.readByte() == BinaryStudentSerializer.MANDATORY_TYPE ? "mandatory" : "optional";
+            this.subjects.add(this.subjectRepository.intern(new Subject(subjectName, subjectType)));
+        }
+
+        this.remainingRecordsCount = BinaryUtility.readVarInt(in);
+    }
+
+    /**
+     * Deserializes the next length-prefixed record into a Student object.
+     *
+     * @param in The input to read from.
+     * @return The Student object or null if all records are read.
+     * @throws IOException If an error occurs while reading.
+     * @throws DeserializationException If the record is not valid.
+     * @throws StudentException If the provided student data is with wrong format.
+     */
+    @Override
+    public Student deserialize(DataInputStream in) throws IOException, DeserializationException, StudentException {
+        return deserialize(in, null);
+    }
+
+    /**
+     * Deserializes the next length-prefixed record which has to be loaded by the filter into a Student object.
+     * The faculty number, the program and the year are at the start of a record, so a skipped record
+     * is checked without reading its name and grades.
+     *
+     * @param in The input to read from.
+     * @param filter The filter of the loaded students or null to load every student.
+     * @return The Student object or null if all records are read.
+     * @throws IOException If an error occurs while reading.
+     * @throws DeserializationException If the record is not valid.
+     * @throws StudentException If the provided student data is with wrong format.
+     */
+    public Student deserialize(DataInputStream in, StudentFilter filter) throws IOException, DeserializationException, StudentException {
+        while (this.remainingRecordsCount > 0) {
+            this.remainingRecordsCount--;
+
+            int recordLength = BinaryUtility.readVarInt(in);
+            if (recordLength > this.recordBytes.length) {
+                this.recordBytes = new byte[Math.max(recordLength, this.recordBytes.length * 2)];
+            }
+            in.readFully(this.recordBytes, 0, recordLength);
+
+            try {
+                ByteBuffer record = ByteBuffer.wrap(this.recordBytes, 0, recordLength);
+                if (filter == null || matches(record, filter)) {
+                    record.rewind();
+                    return readRecord(record);
+                }
+            } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+                throw new DeserializationException(UserMessages.WRONG_BINARY_DATA_FORMAT.message);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Checks if the student of the given record has to be loaded by the filter.
+     *
+     * @param record The record, read from its start.
+     * @param filter The filter of the loaded students.
+     * @return true if the record has to be deserialized and false if it can be skipped.
+     * @throws DeserializationException If the start of the record is not valid.
+     */
+    private boolean matches(ByteBuffer record, StudentFilter filter) throws DeserializationException {
+        int facultyNumber = BinaryUtility.readVarInt(record);
+        String programName = this.programs.get(BinaryUtility.readVarInt(record)).getName();
+        int year = record.get();
+
+        return filter.includes(facultyNumber) || (filter.matchesProgram(programName, 0, programName.length()) && filter.matchesYear(year));
+    }
+
+    /**
+     * Decodes the fields of a record. Bytes after the known fields are ignored,
+     * so records of a newer version with additional fields can still be read.
+     *
+     * @param record The buffer with the record bytes.
+     * @return The Student object.
+     * @throws DeserializationException If the record is not valid.
+     * @throws StudentException If the provided student data is with wrong format.
+     */
+    private Student readRecord(ByteBuffer record) throws DeserializationException, StudentException {
+        int facultyNumber = BinaryUtility.readVarInt(record);
+        Program program = this.programs.get(BinaryUtility.readVarInt(record));
+        int year = record.get();
+        int group = BinaryUtility.readVarInt(record);
+        byte status = record.get();
+        String name = BinaryUtility.readString(record);
+
+        Student student = new Student(facultyNumber, name, program, year, group);
+        if (status != BinaryStudentSerializer.NO_STATUS) {
+            student.setStatus(STATUSES[status].toString());
+        }
+
+        int gradesCount = BinaryUtility.readVarInt(record);
+        GradeBook gradeBook = new GradeBook();
+        for (int i = 0; i < gradesCount; i++) {
+            Subject subject = this.subjects.get(BinaryUtility.readVarInt(record));
+            gradeBook.put(subject, GradeBook.fromHundredths(record.getShort()));
+        }
+        student.setGradesBySubject(gradeBook);
+
+        return student;
+    }
+
+    /**
+     * Returns the catalog program with the given name.
+     * A program that is no longer part of the catalog is kept as a program without subjects.
+     *
+     * @param programName The name of the program.
+     * @return The shared Program object from the catalog.
+     * @throws ProgramException If the program name is with wrong format.
+     */
+    private Program getProgram(String programName) throws ProgramException {
+        try {
+            return this.programRepository.getOrThrow(programName);
+        } catch (IllegalArgumentException e) {
+            return new Program(programName);
+        }
+    }
+}
@@ -12,7 +12,7 @@ import bg.tu_varna.sit.oop1.exceptions.SubjectException;
 public interface CustomDeserializable<T> {
     /**
      * Deserializes the given string into an object.
-     * Throws an exception if there is an issue while deserializing the object.
+     * Returns null if the string is skipped by a filter and throws an exception if there is an issue while deserializing the object.
      */
     T deserialize(String data) throws DeserializationException, StudentException, ProgramException, SubjectException;
 }
@@ -0,0 +1,70 @@
+package bg.tu_varna.sit.oop1.serialization.deserializer;
+
+import bg.tu_varna.sit.oop1.exceptions.DeserializationException;
+import bg.tu_varna.sit.oop1.exceptions.ProgramException;
+import bg.tu_varna.sit.oop1.exceptions.StudentException;
+import bg.tu_varna.sit.oop1.exceptions.SubjectException;
+import bg.tu_varna.sit.oop1.models.Student;
+import bg.tu_varna.sit.oop1.utilities.StudentFilter;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+
+/**
+ * The FilteredBinaryStudentDeserializer class implements the BinaryDeserializable interface for the students
+ * which are loaded with a filter. The records which do not match the filter are skipped.
+ */
+public class FilteredBinaryStudentDeserializer implements BinaryDeserializable<Student> {
+    private BinaryStudentDeserializer binaryStudentDeserializer;
+    private StudentFilter filter;
+
+    /**
+     * Constructs a new FilteredBinaryStudentDeserializer.
+     *
+     * @param binaryStudentDeserializer The deserializer of the records.
+     * @param filter The filter of the loaded students.
+     */
+    public FilteredBinaryStudentDeserializer(BinaryStudentDeserializer binaryStudentDeserializer, StudentFilter filter) {
+        this.binaryStudentDeserializer = binaryStudentDeserializer;
+        this.filter = filter;
+    }
+
+    /**
+     * Checks if the given first bytes of a file are the magic bytes of the binary students format.
+     *
+     * @param firstBytes The first bytes of a file.
+     * @return true if the file is a binary students file and false otherwise.
+     */
+    @Override
+    public boolean isFormatOf(byte[] firstBytes) {
+        return this.binaryStudentDeserializer.isFormatOf(firstBytes);
+    }
+
+    /**
+     * Reads the header of the file.
+     *
+     * @param in The input to read from.
+     * @throws IOException If an error occurs while reading.
+     * @throws DeserializationException If the header is not valid.
+     * @throws ProgramException If a program name is with wrong format.
+     * @throws SubjectException If a subject is with wrong format.
+     */
+    @Override
+    public void readHeader(DataInputStream in) throws IOException, DeserializationException, ProgramException, SubjectException {
+        this.binaryStudentDeserializer.readHeader(in);
+    }
+
+    /**
+     * Deserializes the next record which matches the filter into a Student object.
+     *
+     * @param in The input to read from.
+     * @return The Student object or null if all records are read.
+     * @throws IOException If an error occurs while reading.
+     * @throws DeserializationException If a record is not valid.
+     * @throws StudentException If the provided student data is with wrong format.
+     */
+    @Override
+    public Student deserialize(DataInputStream in) throws IOException, DeserializationException, StudentException {
+        return this.binaryStudentDeserializer.deserialize(in, this.filter);
+    }
+}
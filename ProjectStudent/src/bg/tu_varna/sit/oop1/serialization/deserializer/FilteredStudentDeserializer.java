@@ -0,0 +1,48 @@
+package bg.tu_varna.sit.oop1.serialization.deserializer;
+
+import bg.tu_varna.sit.oop1.exceptions.DeserializationException;
+import bg.tu_varna.sit.oop1.exceptions.ProgramException;
+import bg.tu_varna.sit.oop1.exceptions.StudentException;
+import bg.tu_varna.sit.oop1.exceptions.SubjectException;
+import bg.tu_varna.sit.oop1.models.Student;
+import bg.tu_varna.sit.oop1.utilities.StudentFilter;
+
+/**
+ * The FilteredStudentDeserializer class implements the CustomDeserializable interface for the students
+ * which are loaded with a filter. The program and the year of a line are checked before the line is deserialized,
+ * and a line which does not match is skipped without creating any object for it.
+ */
+public class FilteredStudentDeserializer implements CustomDeserializable<Student> {
+    private StudentDeserializer studentDeserializer;
+    private StudentFilter filter;
+
+    /**
+     * Constructs a new FilteredStudentDeserializer.
+     *
+     * @param studentDeserializer The deserializer of the matching lines.
+     * @param filter The filter of the loaded students.
+     */
+    public FilteredStudentDeserializer(StudentDeserializer studentDeserializer, StudentFilter filter) {
+        this.studentDeserializer = studentDeserializer;
+        this.filter = filter;
+    }
+
+    /**
+     * Deserializes the given string line into a Student object if it matches the filter.
+     *
+     * @param data The string that has to be deserialized.
+     * @return A Student object deserialized from the string or null if the line is skipped.
+     * @throws DeserializationException If the string cannot be deserialized into a Student object due to a missing data.
+     * @throws StudentException If the provided student data is with wrong format.
+     * @throws ProgramException If the provided program data is with wrong format.
+     * @throws SubjectException If the provided subject data is with wrong format.
+     */
+    @Override
+    public Student deserialize(String data) throws DeserializationException, StudentException, ProgramException, SubjectException {
+        if (!this.studentDeserializer.matches(data, this.filter)) {
+            return null;
+        }
+
+        return this.studentDeserializer.deserialize(data);
+    }
+}
@@ -6,22 +6,33 @@ import bg.tu_varna.sit.oop1.exceptions.ProgramException;
 import bg.tu_varna.sit.oop1.exceptions.SubjectException;
 import bg.tu_varna.sit.oop1.models.Program;
 import bg.tu_varna.sit.oop1.models.Subject;
+import bg.tu_varna.sit.oop1.repositories.SubjectRepository;
+import bg.tu_varna.sit.oop1.utilities.TextUtility;
 
 import java.util.HashSet;
 
 /**
  * The ProgramDeserializer class implements the CustomDeserializable interface for Program objects.
  * It provides a method to deserialize a string into a Program object.
+ * The subjects of the programs are interned in the subject pool of the catalog.
+ * The line is scanned once without regular expressions, the same way as in {@link StudentDeserializer}.
  */
 public class ProgramDeserializer implements CustomDeserializable<Program> {
-    private HashSet<Program> programs;
+    private static final String NAME_SEPARATOR = ": ";
+    private static final String COURSE_SEPARATOR = "; ";
+    private static final String COURSE_SUBJECTS_SEPARATOR = " -> ";
+    private static final String SUBJECT_SEPARATOR = " | ";
+    private static final String SUBJECT_TYPE_SEPARATOR = " - ";
+
+    private SubjectRepository subjectRepository;
 
     /**
      * Constructs a new ProgramDeserializer.
-     * Initializes an empty set of programs.
+     *
+     * @param subjectRepository The pool of subjects of the catalog.
      */
-    public ProgramDeserializer() {
-        this.programs = new HashSet<>();
+    public ProgramDeserializer(SubjectRepository subjectRepository) {
+        this.subjectRepository = subjectRepository;
     }
 
     /**
@@ -36,72 +47,106 @@ public class ProgramDeserializer implements CustomDeserializable<Program> {
      */
     @Override
     public Program deserialize(String data) throws DeserializationException, ProgramException, SubjectException {
-        String[] parts = data.split(": ");
-
-        if (parts.length < 2) {
+        int nameEnd = data.indexOf(NAME_SEPARATOR);
+        if (nameEnd < 0) {
             throw new DeserializationException(UserMessages.WRONG_PROGRAM_DATA_FORMAT.message);
         }
 
-        String programName = parts[0];
+        int coursesStart = nameEnd + NAME_SEPARATOR.length();
+        int coursesEnd = data.indexOf(NAME_SEPARATOR, coursesStart);
+        coursesEnd = coursesEnd < 0 ? data.length() : coursesEnd;
+
+        String programName = data.substring(0, nameEnd);
         Program program = new Program(programName);
-        getSubjectByCourse(parts[1], program);
+        getSubjectByCourse(data, coursesStart, coursesEnd, program);
 
         return program;
     }
 
     /**
-     * Extracts and sets subjects for a specific year of study of a program.
+     * Extracts and sets subjects for every year of study of a program.
+     * The years are separated by "; " and every year is a course number and its subjects separated by " -> ".
      *
-     * @param info The string containing subject information for a specific course.
+     * @param data The line with the program.
+     * @param start The start of the courses information.
+     * @param end The end of the courses information.
      * @param program The Program object to which the extracted subjects will be added.
      * @throws DeserializationException If the string cannot be properly parsed into subjects due to missing data.
      * @throws SubjectException If the provided subject data is with wrong format.
+     * @throws ProgramException If the course number is not valid.
      */
-    private void getSubjectByCourse(String info, Program program) throws DeserializationException, SubjectException, ProgramException {
-        String[] courseParts = info.split("; ");
-        for (String coursePart : courseParts) {
-            String[] courseSplit = coursePart.split(" -> ");
-            if (courseSplit.length < 2) {
+    private void getSubjectByCourse(String data, int start, int end, Program program) throws DeserializationException, SubjectException, ProgramException {
+        int courseStart = start;
+        while (courseStart <= end) {
+            int courseEnd = TextUtility.indexOf(data, COURSE_SEPARATOR, courseStart, end);
+            courseEnd = courseEnd < 0 ? end : courseEnd;
+
+            int numberEnd = TextUtility.indexOf(data, COURSE_SUBJECTS_SEPARATOR, courseStart, courseEnd);
+            if (numberEnd < 0) {
                 throw new DeserializationException(UserMessages.WRONG_PROGRAM_DATA_FORMAT.message);
             }
 
-            Integer courseNumber = Integer.parseInt(courseSplit[0]);
+            int courseNumber = TextUtility.parseInt(data, courseStart, numberEnd);
 
-            String[] subjectsStrings = courseSplit[1].split(" \\| ");
-            HashSet<Subject> subjects = getSubjectsCollection(subjectsStrings);
+            int subjectsStart = numberEnd + COURSE_SUBJECTS_SEPARATOR.length();
+            int subjectsEnd = TextUtility.indexOf(data, COURSE_SUBJECTS_SEPARATOR, subjectsStart, courseEnd);
+            subjectsEnd = subjectsEnd < 0 ? courseEnd : subjectsEnd;
+            HashSet<Subject> subjects = getSubjectsCollection(data, subjectsStart, subjectsEnd);
 
             program.setSubjectsByCourse(courseNumber, subjects);
+
+            courseStart = courseEnd + COURSE_SEPARATOR.length();
         }
     }
 
     /**
-     * Parses an array of subject strings into a collection of Subject objects.
+     * Parses the subjects of one course into a collection of Subject objects.
+     * The subjects are separated by " | ".
      *
-     * @param subjectsStrings An array of strings, each representing a subject.
+     * @param data The line with the program.
+     * @param start The start of the subjects.
+     * @param end The end of the subjects.
      * @return A collection of Subject objects.
+     * @throws DeserializationException If a subject has no type.
      * @throws SubjectException If the provided subject data is with wrong format.
      */
-    private HashSet<Subject> getSubjectsCollection(String[] subjectsStrings) throws SubjectException {
+    private HashSet<Subject> getSubjectsCollection(String data, int start, int end) throws DeserializationException, SubjectException {
         HashSet<Subject> subjects = new HashSet<>();
-        for (String subjectStr : subjectsStrings) {
-            Subject subject = getSubjectFromString(subjectStr);
-            subjects.add(subject);
+        int subjectStart = start;
+        while (subjectStart <= end) {
+            int subjectEnd = TextUtility.indexOf(data, SUBJECT_SEPARATOR, subjectStart, end);
+            subjectEnd = subjectEnd < 0 ? end : subjectEnd;
+
+            subjects.add(getSubjectFromString(data, subjectStart, subjectEnd));
+
+            subjectStart = subjectEnd + SUBJECT_SEPARATOR.length();
         }
 
         return subjects;
     }
 
     /**
-     * Parses a string into a Subject object.
+     * Parses a subject name and type separated by " - " into a Subject object.
      *
-     * @param subjectStr The string representing the subject.
-     * @return A Subject object.
+     * @param data The line with the program.
+     * @param start The start of the subject.
+     * @param end The end of the subject.
+     * @return The canonical Subject object from the subject pool.
+     * @throws DeserializationException If the subject has no type.
      * @throws SubjectException If the provided subject data is with wrong format.
      */
-    private Subject getSubjectFromString(String subjectStr) throws SubjectException {
-        String[] subjectInfo = subjectStr.split(" - ");
-        String subjectName = subjectInfo[0];
-        String subjectType = subjectInfo[1];
-        return new Subject(subjectName, subjectType);
+    private Subject getSubjectFromString(String data, int start, int end) throws DeserializationException, SubjectException {
+        int nameEnd = TextUtility.indexOf(data, SUBJECT_TYPE_SEPARATOR, start, end);
+        if (nameEnd < 0) {
+            throw new DeserializationException(UserMessages.WRONG_PROGRAM_DATA_FORMAT.message);
+        }
+
+        int typeStart = nameEnd + SUBJECT_TYPE_SEPARATOR.length();
+        int typeEnd = TextUtility.indexOf(data, SUBJECT_TYPE_SEPARATOR, typeStart, end);
+        typeEnd = typeEnd < 0 ? end : typeEnd;
+
+        String subjectName = data.substring(start, nameEnd);
+        String subjectType = data.substring(typeStart, typeEnd);
+        return subjectRepository.intern(new Subject(subjectName, subjectType));
     }
 }
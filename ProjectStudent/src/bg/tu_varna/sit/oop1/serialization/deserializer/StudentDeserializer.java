@@ -1,22 +1,57 @@
 package bg.tu_varna.sit.oop1.serialization.deserializer;
 
+import bg.tu_varna.sit.oop1.enums.StudentStatus;
 import bg.tu_varna.sit.oop1.enums.UserMessages;
 import bg.tu_varna.sit.oop1.exceptions.DeserializationException;
 import bg.tu_varna.sit.oop1.exceptions.ProgramException;
 import bg.tu_varna.sit.oop1.exceptions.StudentException;
 import bg.tu_varna.sit.oop1.exceptions.SubjectException;
+import bg.tu_varna.sit.oop1.models.GradeBook;
 import bg.tu_varna.sit.oop1.models.Program;
 import bg.tu_varna.sit.oop1.models.Student;
 import bg.tu_varna.sit.oop1.models.Subject;
+import bg.tu_varna.sit.oop1.repositories.Repository;
+import bg.tu_varna.sit.oop1.repositories.SubjectRepository;
+import bg.tu_varna.sit.oop1.utilities.StudentFilter;
+import bg.tu_varna.sit.oop1.utilities.TextUtility;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 
 /**
  * The StudentDeserializer class implements the CustomDeserializable interface for Student objects.
  * It provides a method to deserialize a string into a Student object.
+ * Students are linked to the programs and subjects of the already loaded catalog instead of holding their own copies.
+ * The line is scanned once without regular expressions and numbers are parsed in place. Every thread keeps its own
+ * scratch data with the field positions and the recently resolved programs and subjects, so the deserializer
+ * can be used by the parallel loaders and creates only the strings and objects which are kept in the student.
  */
 public class StudentDeserializer implements CustomDeserializable<Student> {
+    private static final String FIELD_SEPARATOR = " | ";
+    private static final String LABEL_SEPARATOR = ": ";
+    private static final String GRADE_SEPARATOR = "; ";
+    private static final String GRADE_PART_SEPARATOR = " -> ";
+    private static final int REQUIRED_FIELDS_COUNT = 6;
+    private static final int FIELDS_COUNT = 7;
+    private static final int FILTERED_FIELDS_COUNT = 4;
+    private static final int MAX_CACHED_COUNT = 256;
+    private static final StudentStatus[] STATUSES = StudentStatus.values();
+
+    private Repository<Program> programRepository;
+    private SubjectRepository subjectRepository;
+    private final ThreadLocal<ParseScratch> scratch = ThreadLocal.withInitial(ParseScratch::new);
+
+    /**
+     * Constructs a new StudentDeserializer.
+     *
+     * @param programRepository The repository of the catalog programs.
+     * @param subjectRepository The pool of subjects of the catalog.
+     */
+    public StudentDeserializer(Repository<Program> programRepository, SubjectRepository subjectRepository) {
+        this.programRepository = programRepository;
+        this.subjectRepository = subjectRepository;
+    }
 
     /**
      * Deserializes the given string line into a Student object.
@@ -30,54 +65,273 @@ public class StudentDeserializer implements CustomDeserializable<Student> {
      * @throws SubjectException If the provided subject data is with wrong format.
      */
     public Student deserialize(String data) throws DeserializationException, StudentException, ProgramException, SubjectException {
-        String[] parts = data.split(" \\| ");
+        ParseScratch scratch = this.scratch.get();
+        int[] starts = scratch.valueStarts;
+        int[] ends = scratch.valueEnds;
 
-        if (parts.length < 6) {
+        int fieldsCount = findFieldValues(data, starts, ends, FIELDS_COUNT);
+        if (fieldsCount < REQUIRED_FIELDS_COUNT) {
             throw new DeserializationException(UserMessages.WRONG_STUDENT_DATA_FORMAT.message);
         }
 
-        String name = parts[0].split(": ")[1];
-        int facultyNumber = Integer.parseInt(parts[1].split(": ")[1]);
-        Program program = new Program(parts[2].split(": ")[1]);
-        int year = Integer.parseInt(parts[3].split(": ")[1]);
-        int group = Integer.parseInt(parts[4].split(": ")[1]);
-        String status = parts[5].split(": ")[1];
+        String name = data.substring(starts[0], ends[0]);
+        int facultyNumber = TextUtility.parseInt(data, starts[1], ends[1]);
+        Program program = getProgram(data, starts[2], ends[2], scratch);
+        int year = TextUtility.parseInt(data, starts[3], ends[3]);
+        int group = TextUtility.parseInt(data, starts[4], ends[4]);
 
         Student student = new Student(facultyNumber, name, program, year, group);
-        student.setStatus(status);
+        student.setStatus(getStatus(data, starts[5], ends[5]));
 
-        if (parts.length > 6) {
-            String[] gradeParts = parts[6].split(": ");
+        if (fieldsCount > REQUIRED_FIELDS_COUNT) {
+            student.setGradesBySubject(getGradesBySubject(data, starts[6], ends[6], scratch));
+        }
 
-            Map<Subject, Double> gradesBySubject = getGradesBySubject(gradeParts[1]);
+        return student;
+    }
 
-            student.setGradesBySubject(gradesBySubject);
+    /**
+     * Checks if the student of the given line has to be loaded by the filter. Only the faculty number,
+     * the program and the year are scanned, so the name and the grades of a skipped line are never parsed.
+     * A line whose fields can not be read is kept, so the deserializing reports it as usual.
+     *
+     * @param data The line to check.
+     * @param filter The filter of the loaded students.
+     * @return true if the line has to be deserialized and false if it can be skipped.
+     */
+    public boolean matches(String data, StudentFilter filter) {
+        ParseScratch scratch = this.scratch.get();
+        int[] starts = scratch.valueStarts;
+        int[] ends = scratch.valueEnds;
+
+        try {
+            if (findFieldValues(data, starts, ends, FILTERED_FIELDS_COUNT) < FILTERED_FIELDS_COUNT) {
+                return true;
+            }
+
+            if (filter.includes(TextUtility.parseInt(data, starts[1], ends[1]))) {
+                return true;
+            }
+
+            return filter.matchesProgram(data, starts[2], ends[2]) && filter.matchesYear(TextUtility.parseInt(data, starts[3], ends[3]));
+        } catch (DeserializationException | NumberFormatException e) {
+            return true;
         }
+    }
 
-        return student;
+    /**
+     * Finds the values of the first fields of the line. The fields are separated by " | " and every field
+     * is a label and a value separated by ": ". A value ends at the next ": " or at the end of its field.
+     *
+     * @param data The line to scan.
+     * @param starts The array in which the start of every value is written.
+     * @param ends The array in which the end of every value is written.
+     * @param maxFieldsCount The number of fields after which the scanning stops.
+     * @return The number of found fields.
+     * @throws DeserializationException If a field has no label.
+     */
+    private int findFieldValues(String data, int[] starts, int[] ends, int maxFieldsCount) throws DeserializationException {
+        int fieldsCount = 0;
+        int fieldStart = 0;
+        while (fieldsCount < maxFieldsCount && fieldStart <= data.length()) {
+            int fieldEnd = data.indexOf(FIELD_SEPARATOR, fieldStart);
+            if (fieldEnd < 0) {
+                fieldEnd = data.length();
+            }
+
+            int labelEnd = TextUtility.indexOf(data, LABEL_SEPARATOR, fieldStart, fieldEnd);
+            if (labelEnd < 0) {
+                throw new DeserializationException(UserMessages.WRONG_STUDENT_DATA_FORMAT.message);
+            }
+
+            int valueStart = labelEnd + LABEL_SEPARATOR.length();
+            int valueEnd = TextUtility.indexOf(data, LABEL_SEPARATOR, valueStart, fieldEnd);
+            starts[fieldsCount] = valueStart;
+            ends[fieldsCount] = valueEnd < 0 ? fieldEnd : valueEnd;
+            fieldsCount++;
+
+            fieldStart = fieldEnd + FIELD_SEPARATOR.length();
+        }
+
+        return fieldsCount;
     }
 
     /**
-     * Parses a string containing grades information into a map of Subject linked to Double.
-     * Double represents the value of a grade.
+     * Returns the catalog program with the name in the given range of the line.
+     * A program that is no longer part of the catalog is kept as a program without subjects.
      *
-     * @param gradesString The string containing the grade information.
-     * @return A map linking each Subject with its corresponding grade.
+     * @param data The line with the program name.
+     * @param start The start of the program name.
+     * @param end The end of the program name.
+     * @param scratch The scratch data of the current thread.
+     * @return The shared Program object from the catalog.
+     * @throws ProgramException If the program name is with wrong format.
+     */
+    private Program getProgram(String data, int start, int end, ParseScratch scratch) throws ProgramException {
+        ProgramEntry entry = null;
+        for (ProgramEntry cachedEntry : scratch.programs) {
+            if (TextUtility.regionEquals(data, start, end, cachedEntry.name, false)) {
+                entry = cachedEntry;
+                break;
+            }
+        }
+        if (entry == null) {
+            entry = new ProgramEntry(data.substring(start, end));
+            scratch.cache(scratch.programs, entry);
+        }
+
+        //The catalog is looked up every time, as it can be reloaded between two files
+        try {
+            entry.program = programRepository.getOrThrow(entry.key);
+            entry.isStub = false;
+        } catch (IllegalArgumentException e) {
+            if (!entry.isStub) {
+                entry.program = new Program(entry.name);
+                entry.isStub = true;
+            }
+        }
+
+        return entry.program;
+    }
+
+    /**
+     * Returns the status name in the given range of the line.
+     * A known status is returned as its constant name, so no string is created.
+     *
+     * @param data The line with the status.
+     * @param start The start of the status.
+     * @param end The end of the status.
+     * @return The status name.
+     */
+    private String getStatus(String data, int start, int end) {
+        for (StudentStatus status : STATUSES) {
+            if (TextUtility.regionEquals(data, start, end, status.name(), true)) {
+                return status.name();
+            }
+        }
+
+        return data.substring(start, end);
+    }
+
+    /**
+     * Parses the grades in the given range of the line into a grade book.
+     * The grades are separated by "; " and every grade is a subject name, a subject type and a value separated by " -> ".
+     *
+     * @param data The line with the grades.
+     * @param start The start of the grades.
+     * @param end The end of the grades.
+     * @param scratch The scratch data of the current thread.
+     * @return A grade book linking each canonical Subject with its corresponding grade.
+     * @throws DeserializationException If a grade has missing data or is not between 2.00 and 6.00.
      * @throws SubjectException If the provided subject data is with wrong format.
      */
-    private Map<Subject, Double> getGradesBySubject(String gradesString) throws SubjectException {
-        Map<Subject, Double> gradesBySubject = new HashMap<>();
-
-        String[] allGrades = gradesString.split("; ");
-        for (String gradeInfo : allGrades) {
-            String[] gradeSplit = gradeInfo.split(" -> ");
-            String subjectName = gradeSplit[0];
-            String subjectType = gradeSplit[1];
-            Subject subject = new Subject(subjectName, subjectType);
-            Double grade = Double.valueOf(gradeSplit[2]);
+    private GradeBook getGradesBySubject(String data, int start, int end, ParseScratch scratch) throws DeserializationException, SubjectException {
+        GradeBook gradesBySubject = new GradeBook();
+
+        int gradeStart = start;
+        while (gradeStart <= end) {
+            int gradeEnd = TextUtility.indexOf(data, GRADE_SEPARATOR, gradeStart, end);
+            if (gradeEnd < 0) {
+                gradeEnd = end;
+            }
+
+            int nameEnd = TextUtility.indexOf(data, GRADE_PART_SEPARATOR, gradeStart, gradeEnd);
+            int typeStart = nameEnd + GRADE_PART_SEPARATOR.length();
+            int typeEnd = nameEnd < 0 ? -1 : TextUtility.indexOf(data, GRADE_PART_SEPARATOR, typeStart, gradeEnd);
+            if (typeEnd < 0) {
+                throw new DeserializationException(UserMessages.WRONG_STUDENT_DATA_FORMAT.message);
+            }
+
+            int valueStart = typeEnd + GRADE_PART_SEPARATOR.length();
+            int valueEnd = TextUtility.indexOf(data, GRADE_PART_SEPARATOR, valueStart, gradeEnd);
+            valueEnd = valueEnd < 0 ? gradeEnd : valueEnd;
+
+            Subject subject = getSubject(data, gradeStart, nameEnd, typeStart, typeEnd, scratch);
+            double grade = TextUtility.parseDouble(data, valueStart, valueEnd);
+            if (!GradeBook.isValidGrade(grade)) {
+                throw new DeserializationException(UserMessages.GRADE_WRONG_VALUE.message);
+            }
             gradesBySubject.put(subject, grade);
+
+            gradeStart = gradeEnd + GRADE_SEPARATOR.length();
         }
 
         return gradesBySubject;
     }
+
+    /**
+     * Returns the canonical subject with the name and the type in the given ranges of the line.
+     *
+     * @param data The line with the subject.
+     * @param nameStart The start of the subject name.
+     * @param nameEnd The end of the subject name.
+     * @param typeStart The start of the subject type.
+     * @param typeEnd The end of the subject type.
+     * @param scratch The scratch data of the current thread.
+     * @return The canonical Subject object from the subject pool.
+     * @throws SubjectException If the provided subject data is with wrong format.
+     */
+    private Subject getSubject(String data, int nameStart, int nameEnd, int typeStart, int typeEnd, ParseScratch scratch) throws SubjectException {
+        List<Subject> subjects = scratch.subjects;
+        for (int i = 0; i < subjects.size(); i++) {
+            Subject cachedSubject = subjects.get(i);
+            if (TextUtility.regionEquals(data, nameStart, nameEnd, cachedSubject.getName(), false)
+                    && TextUtility.regionEquals(data, typeStart, typeEnd, cachedSubject.getType(), true)) {
+                //The pool can be cleared between two files, so the cached subject is interned again
+                Subject canonical = subjectRepository.intern(cachedSubject);
+                subjects.set(i, canonical);
+                return canonical;
+            }
+        }
+
+        Subject subject = new Subject(data.substring(nameStart, nameEnd), data.substring(typeStart, typeEnd));
+        Subject canonical = subjectRepository.intern(subject);
+        scratch.cache(subjects, canonical);
+        return canonical;
+    }
+
+    /**
+     * The scratch data of one thread which is reused for every line.
+     */
+    private static class ParseScratch {
+        private final int[] valueStarts = new int[FIELDS_COUNT];
+        private final int[] valueEnds = new int[FIELDS_COUNT];
+        private final List<ProgramEntry> programs = new ArrayList<>();
+        private final List<Subject> subjects = new ArrayList<>();
+
+        /**
+         * Adds an entry to the given cache. A full cache is emptied first, so it stays small.
+         *
+         * @param cache The cache to add to.
+         * @param entry The entry to add.
+         * @param <E> The type of the cached entries.
+         */
+        private <E> void cache(List<E> cache, E entry) {
+            if (cache.size() == MAX_CACHED_COUNT) {
+                cache.clear();
+            }
+            cache.add(entry);
+        }
+    }
+
+    /**
+     * A program name as it is written in the file and the program resolved for it.
+     */
+    private static class ProgramEntry {
+        private final String name;
+        private final String key;
+        private Program program;
+        private boolean isStub;
+
+        /**
+         * Constructs a new ProgramEntry.
+         *
+         * @param name The program name as it is written in the file.
+         */
+        ProgramEntry(String name) {
+            this.name = name;
+            //The repository looks up names in lower case, so a lower case key does not need to be converted again
+            this.key = name.toLowerCase(Locale.ROOT);
+        }
+    }
 }
@@ -0,0 +1,23 @@
+package bg.tu_varna.sit.oop1.serialization.serializer;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * This interface defines the operations for custom serialization of objects into a binary file.
+ * It provides a method to write the file header and a method to serialize one object as a record.
+ */
+public interface BinarySerializable<T> {
+    /**
+     * Writes the header of the file for the given objects, which must be written before the records.
+     * Throws an exception if there is an issue while writing.
+     */
+    void writeHeader(Collection<T> objects, DataOutputStream out) throws IOException;
+
+    /**
+     * Serializes the given object as a record of the file.
+     * Throws an exception if there is an issue while writing.
+     */
+    void serialize(T object, DataOutputStream out) throws IOException;
+}
@@ -0,0 +1,109 @@
+package bg.tu_varna.sit.oop1.serialization.serializer;
+
+import bg.tu_varna.sit.oop1.models.GradeBook;
+import bg.tu_varna.sit.oop1.models.Student;
+import bg.tu_varna.sit.oop1.models.Subject;
+import bg.tu_varna.sit.oop1.utilities.BinaryUtility;
+import bg.tu_varna.sit.oop1.utilities.IdDictionary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * This class implements the BinarySerializable interface for Student objects.
+ * The file starts with magic bytes, a schema version and a dictionary block with the names of all programs
+ * and subjects, followed by the number of records. Every record is prefixed with its length and refers to
+ * programs and subjects by their id in the dictionary. Faculty numbers and counts are variable-length
+ * integers and grades are fixed-point hundredths.
+ */
+public class BinaryStudentSerializer implements BinarySerializable<Student> {
+    public static final byte[] MAGIC = {'S', 'T', 'D', 'B'};
+    public static final int VERSION = 1;
+    public static final byte NO_STATUS = -1;
+    public static final byte MANDATORY_TYPE = 0;
+    public static final byte OPTIONAL_TYPE = 1;
+
+    private IdDictionary<String> programNames;
+    private IdDictionary<Subject> subjects;
+    private ByteArrayOutputStream recordBuffer;
+    private DataOutputStream recordOut;
+
+    /**
+     * Constructs a new BinaryStudentSerializer.
+     * Initializes the dictionaries and the reusable record buffer.
+     */
+    public BinaryStudentSerializer() {
+        this.programNames = new IdDictionary<>();
+        this.subjects = new IdDictionary<>();
+        this.recordBuffer = new ByteArrayOutputStream();
+        this.recordOut = new DataOutputStream(this.recordBuffer);
+    }
+
+    /**
+     * Writes the magic bytes, the version, the dictionary block and the number of records.
+     * The dictionary contains every program and subject used by the given students.
+     *
+     * @param students The students which will be written after the header.
+     * @param out The output to write to.
+     * @throws IOException If an error occurs while writing.
+     */
+    @Override
+    public void writeHeader(Collection<Student> students, DataOutputStream out) throws IOException {
+        this.programNames.clear();
+        this.subjects.clear();
+        for (Student student : students) {
+            this.programNames.getOrAddId(student.getProgram().getName());
+            GradeBook gradeBook = student.getGradeBook();
+            for (int i = 0; i < gradeBook.size(); i++) {
+                this.subjects.getOrAddId(gradeBook.getSubject(i));
+            }
+        }
+
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+
+        BinaryUtility.writeVarInt(out, this.programNames.size());
+        for (String programName : this.programNames.getAll()) {
+            BinaryUtility.writeString(out, programName);
+        }
+
+        BinaryUtility.writeVarInt(out, this.subjects.size());
+        for (Subject subject : this.subjects.getAll()) {
+            BinaryUtility.writeString(out, subject.getName());
+            out.writeByte(subject.getType().equalsIgnoreCase("mandatory") ? MANDATORY_TYPE : OPTIONAL_TYPE);
+        }
+
+        BinaryUtility.writeVarInt(out, students.size());
+    }
+
+    /**
+     * Serializes the given student as a length-prefixed record.
+     *
+     * @param student The Student object to be serialized.
+     * @param out The output to write to.
+     * @throws IOException If an error occurs while writing.
+     */
+    @Override
+    public void serialize(Student student, DataOutputStream out) throws IOException {
+        this.recordBuffer.reset();
+
+        BinaryUtility.writeVarInt(this.recordOut, student.getFacultyNumber());
+        BinaryUtility.writeVarInt(this.recordOut, this.programNames.getOrAddId(student.getProgram().getName()));
+        this.recordOut.writeByte(student.getYear());
+        BinaryUtility.writeVarInt(this.recordOut, student.getGroup());
+        this.recordOut.writeByte(student.getStatus() == null ? NO_STATUS : student.getStatus().ordinal());
+        BinaryUtility.writeString(this.recordOut, student.getName());
+
+        GradeBook gradeBook = student.getGradeBook();
+        BinaryUtility.writeVarInt(this.recordOut, gradeBook.size());
+        for (int i = 0; i < gradeBook.size(); i++) {
+            BinaryUtility.writeVarInt(this.recordOut, this.subjects.getOrAddId(gradeBook.getSubject(i)));
+            this.recordOut.writeShort(gradeBook.getHundredths(i));
+        }
+
+        BinaryUtility.writeVarInt(out, this.recordBuffer.size());
+        this.recordBuffer.writeTo(out);
+    }
+}
@@ -0,0 +1,17 @@
+package bg.tu_varna.sit.oop1.serialization.serializer;
+
+import bg.tu_varna.sit.oop1.utilities.ChannelTextWriter;
+
+import java.io.IOException;
+
+/**
+ * This interface defines the operation for serialization of objects straight into a writer.
+ * It is used instead of building a string for every object when a whole file is saved.
+ */
+public interface StreamingSerializable<T> extends CustomSerializable<T> {
+    /**
+     * Writes the given object as one line without the line separator.
+     * Throws an exception if there is an issue while writing.
+     */
+    void serialize(T object, ChannelTextWriter writer) throws IOException;
+}
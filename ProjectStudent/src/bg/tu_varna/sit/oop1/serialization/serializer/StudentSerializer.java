@@ -1,15 +1,20 @@
 package bg.tu_varna.sit.oop1.serialization.serializer;
 
+import bg.tu_varna.sit.oop1.models.GradeBook;
 import bg.tu_varna.sit.oop1.models.Student;
 import bg.tu_varna.sit.oop1.models.Subject;
+import bg.tu_varna.sit.oop1.utilities.ChannelTextWriter;
+import bg.tu_varna.sit.oop1.utilities.OutputSink;
 
+import java.io.IOException;
 import java.util.Map;
 
 /**
  * This class implements the CustomSerializable interface for Student objects.
- * It provides a method for serialization a Student object into a string.
+ * It provides a method for serialization a Student object into a string
+ * and a method which writes the same line straight into a writer.
  */
-public class StudentSerializer implements CustomSerializable<Student>{
+public class StudentSerializer implements StreamingSerializable<Student> {
 
     /**
      * Serializes the given Student object into a string.
@@ -42,6 +47,81 @@ public class StudentSerializer implements CustomSerializable<Student>{
         return sb.toString();
     }
 
+    /**
+     * Writes the given Student object into the writer in the same format as {@code serialize(Student)}.
+     * The fields and the grades are written one by one, so no string is built for the student.
+     *
+     * @param student The Student object to be serialized.
+     * @param writer The writer to write to.
+     * @throws IOException If an error occurs while writing.
+     */
+    @Override
+    public void serialize(Student student, ChannelTextWriter writer) throws IOException {
+        writer.write("Name: ");
+        writer.write(student.getName());
+        writer.write(" | Faculty number: ");
+        writer.write(student.getFacultyNumber());
+        writer.write(" | Program: ");
+        writer.write(student.getProgram().getName());
+        writer.write(" | Year: ");
+        writer.write(student.getYear());
+        writer.write(" | Group: ");
+        writer.write(student.getGroup());
+        writer.write(" | Status: ");
+        writer.write(student.getStatus().name());
+
+        GradeBook gradeBook = student.getGradeBook();
+        if (gradeBook.isEmpty()) {
+            return;
+        }
+
+        writer.write(" | Grades: ");
+        for (int i = 0; i < gradeBook.size(); i++) {
+            if (i > 0) {
+                writer.write("; ");
+            }
+
+            Subject subject = gradeBook.getSubject(i);
+            writer.write(subject.getName());
+            writer.write(" -> ");
+            writer.write(subject.getType());
+            writer.write(" -> ");
+            writer.writeHundredths(gradeBook.getHundredths(i));
+        }
+    }
+
+    /**
+     * Writes the given Student object into the output sink in the same format as {@code serialize(Student)}.
+     * The fields and the grades are written one by one, so no string is built for the student.
+     *
+     * @param student The Student object to be serialized.
+     * @param output The sink to write to.
+     */
+    public void serialize(Student student, OutputSink output) {
+        output.print("Name: ").print(student.getName())
+                .print(" | Faculty number: ").print(student.getFacultyNumber())
+                .print(" | Program: ").print(student.getProgram().getName())
+                .print(" | Year: ").print(student.getYear())
+                .print(" | Group: ").print(student.getGroup())
+                .print(" | Status: ").print(student.getStatus().toString());
+
+        GradeBook gradeBook = student.getGradeBook();
+        if (gradeBook.isEmpty()) {
+            return;
+        }
+
+        output.print(" | Grades: ");
+        for (int i = 0; i < gradeBook.size(); i++) {
+            if (i > 0) {
+                output.print("; ");
+            }
+
+            Subject subject = gradeBook.getSubject(i);
+            output.print(subject.getName()).print(" -> ").print(subject.getType()).print(" -> ")
+                    .print(GradeBook.fromHundredths(gradeBook.getHundredths(i)));
+        }
+    }
+
     /**
      * Helper method to create a string of the student's grades.
      *
@@ -0,0 +1,123 @@
+package bg.tu_varna.sit.oop1.server;
+
+import bg.tu_varna.sit.oop1.Execute;
+import bg.tu_varna.sit.oop1.enums.UserMessages;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The CommandServer class accepts the command language of the console over a local TCP socket.
+ * Every connection is a session which runs in its own thread on the shared Execute, so all clients work
+ * with one opened file, which is loaded once. Each client gets the answers of its own commands through its own stream.
+ * The sessions run on virtual threads when the Java runtime has them and on platform threads otherwise.
+ * The server only listens on the loopback address, as the commands are not authenticated.
+ */
+public class CommandServer {
+    private static final int BACKLOG = 50;
+    private static final int SESSION_BUFFER_SIZE = 16 * 1024;
+    private static final long WRITE_TIMEOUT_MILLIS = 10_000;
+
+    private final Execute execute;
+    private final int port;
+    private final PrintStream console;
+    private final SessionPrintStream sessionPrintStream;
+    private ExecutorService sessionExecutor;
+    private boolean isVirtualThreads;
+
+    /**
+     * Constructs a CommandServer.
+     *
+     * @param execute The executor of the commands, which is shared by all sessions.
+     * @param port The port to listen on or 0 for any free port.
+     */
+    public CommandServer(Execute execute, int port) {
+        this.execute = execute;
+        this.port = port;
+        this.console = System.out;
+        this.sessionPrintStream = new SessionPrintStream(this.console);
+    }
+
+    /**
+     * Listens for connections and serves every connection in a new session until the process is stopped.
+     * The standard output is replaced, so the output of the commands of a session goes to its client.
+     *
+     * @throws IOException If the server socket can not be opened.
+     */
+    public void run() throws IOException {
+        this.sessionExecutor = newSessionExecutor();
+        try (ServerSocket serverSocket = new ServerSocket(this.port, BACKLOG, InetAddress.getLoopbackAddress())) {
+            System.setOut(this.sessionPrintStream);
+            this.console.println(String.format(UserMessages.SERVER_STARTED.message, serverSocket.getInetAddress().getHostAddress(),
+                    serverSocket.getLocalPort(), this.isVirtualThreads ? "virtual" : "platform"));
+
+            while (true) {
+                Socket socket = serverSocket.accept();
+                this.sessionExecutor.execute(() -> serve(socket));
+            }
+        } finally {
+            System.setOut(this.console);
+            this.sessionExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs the session of one connection. The session prints into its own stream, which is buffered
+     * and sent when the session waits for a command. The output is sent by a writer task of the session,
+     * so a client which does not read blocks neither the other sessions nor, after the write timeout, its own command.
+     *
+     * @param socket The socket of the connection.
+     */
+    private void serve(Socket socket) {
+        SocketAddress client = socket.getRemoteSocketAddress();
+        this.console.println(String.format(UserMessages.SESSION_OPENED.message, client));
+
+        try (Socket connection = socket;
+             BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
+            SessionOutputStream sessionOutput = new SessionOutputStream(connection, this.sessionExecutor, WRITE_TIMEOUT_MILLIS);
+            PrintStream sessionStream = new PrintStream(new BufferedOutputStream(sessionOutput, SESSION_BUFFER_SIZE), false);
+            this.sessionPrintStream.bind(sessionStream);
+            try {
+                this.execute.runSession(reader);
+            } finally {
+                this.sessionPrintStream.unbind();
+                sessionStream.flush();
+                sessionOutput.close();
+            }
+        } catch (Exception e) {
+            this.console.println(String.format(UserMessages.SESSION_FAILED.message, client, e.getMessage()));
+            return;
+        }
+
+        this.console.println(String.format(UserMessages.SESSION_CLOSED.message, client));
+    }
+
+    /**
+     * Creates the executor of the sessions with one new thread for every session.
+     * The virtual threads are looked up by reflection, so the application still builds and runs on older Java versions.
+     *
+     * @return An executor of virtual threads if the runtime has them and of platform threads otherwise.
+     */
+    private ExecutorService newSessionExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            ExecutorService executor = (ExecutorService) factory.invoke(null);
+            this.isVirtualThreads = true;
+            return executor;
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            //Before Java 21 there are no virtual threads, or they are a preview feature which is not enabled
+            this.isVirtualThreads = false;
+            return Executors.newCachedThreadPool();
+        }
+    }
+}
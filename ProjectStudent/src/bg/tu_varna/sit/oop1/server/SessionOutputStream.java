@@ -0,0 +1,155 @@
+package bg.tu_varna.sit.oop1.server;
+
+import bg.tu_varna.sit.oop1.enums.UserMessages;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The SessionOutputStream class sends the output of one session to its client.
+ * The written bytes are put into a bounded queue and a writer task of the session sends them to the socket,
+ * so the thread of a command never waits on the network. If the client stops reading and the queue stays full
+ * for longer than the write timeout, the connection is closed and the rest of the output is dropped,
+ * so the command ends and frees the other sessions which wait for it.
+ */
+public class SessionOutputStream extends OutputStream {
+    private static final int QUEUE_CAPACITY = 64;
+    private static final byte[] END = new byte[0];
+
+    private final Socket socket;
+    private final OutputStream out;
+    private final long writeTimeoutMillis;
+    private final BlockingQueue<byte[]> chunks;
+    private final CountDownLatch writerDone;
+    private volatile boolean isClosed;
+
+    /**
+     * Constructs a SessionOutputStream and starts its writer task.
+     *
+     * @param socket The socket of the session.
+     * @param writerExecutor The executor which runs the writer task.
+     * @param writeTimeoutMillis The longest time to wait for the client to take more output.
+     * @throws IOException If the output stream of the socket can not be opened.
+     */
+    public SessionOutputStream(Socket socket, Executor writerExecutor, long writeTimeoutMillis) throws IOException {
+        this.socket = socket;
+        this.out = socket.getOutputStream();
+        this.writeTimeoutMillis = writeTimeoutMillis;
+        this.chunks = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        this.writerDone = new CountDownLatch(1);
+        writerExecutor.execute(this::writeChunks);
+    }
+
+    /**
+     * Writes a byte to the queue of the session.
+     *
+     * @param b The byte to write.
+     * @throws IOException If the connection is closed or the client does not read in time.
+     */
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    /**
+     * Writes a part of the given array to the queue of the session.
+     * The stream is used under a buffered stream, so the parts are large blocks of output.
+     *
+     * @param bytes The bytes to write.
+     * @param offset The index of the first byte to write.
+     * @param length The number of bytes to write.
+     * @throws IOException If the connection is closed or the client does not read in time.
+     */
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if (this.isClosed) {
+            throw new IOException(UserMessages.SESSION_OUTPUT_CLOSED.message);
+        }
+        if (length == 0) {
+            return;
+        }
+
+        enqueue(Arrays.copyOfRange(bytes, offset, offset + length));
+    }
+
+    /**
+     * Ends the output of the session. The queued output is sent first, as long as the client takes it in time.
+     *
+     * @throws IOException If the output can not be sent in time.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.isClosed) {
+            return;
+        }
+
+        enqueue(END);
+        try {
+            if (!this.writerDone.await(this.writeTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                abort();
+                throw new IOException(String.format(UserMessages.SESSION_WRITE_TIMEOUT.message, this.writeTimeoutMillis));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort();
+        }
+        this.isClosed = true;
+    }
+
+    /**
+     * Puts a block of output into the queue, waiting at most the write timeout for free space.
+     *
+     * @param chunk The block of output.
+     * @throws IOException If the client does not take the output in time.
+     */
+    private void enqueue(byte[] chunk) throws IOException {
+        try {
+            if (!this.chunks.offer(chunk, this.writeTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                abort();
+                throw new IOException(String.format(UserMessages.SESSION_WRITE_TIMEOUT.message, this.writeTimeoutMillis));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort();
+            throw new IOException(UserMessages.SESSION_OUTPUT_CLOSED.message);
+        }
+    }
+
+    /**
+     * Sends the queued blocks to the client until the end of the output or until the connection fails.
+     */
+    private void writeChunks() {
+        try {
+            byte[] chunk;
+            while ((chunk = this.chunks.take()) != END) {
+                this.out.write(chunk);
+            }
+            this.out.flush();
+        } catch (IOException | InterruptedException e) {
+            abort();
+        } finally {
+            this.writerDone.countDown();
+        }
+    }
+
+    /**
+     * Closes the connection, so a blocked writer task stops and the next writes fail at once.
+     */
+    private void abort() {
+        this.isClosed = true;
+        this.chunks.clear();
+        //A writer task which waits for output is woken up to end
+        this.chunks.offer(END);
+        try {
+            this.socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
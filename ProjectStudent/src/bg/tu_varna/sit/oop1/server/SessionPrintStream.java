@@ -0,0 +1,381 @@
+package bg.tu_varna.sit.oop1.server;
+
+import java.io.PrintStream;
+import java.util.Locale;
+
+/**
+ * The SessionPrintStream class passes everything printed by a thread to the print stream of its session.
+ * The server makes it {@code System.out}, so the commands print their answers as on the console
+ * and every client gets only the answers of its own commands. It keeps no buffer and takes no lock itself,
+ * so a session which waits for its client never holds up the output of another session.
+ * The output of a thread without a session, like the main thread of the server, goes to the console.
+ */
+public class SessionPrintStream extends PrintStream {
+    private final PrintStream console;
+    private final ThreadLocal<PrintStream> sessionStreams;
+
+    /**
+     * Constructs a SessionPrintStream.
+     *
+     * @param console The stream for the threads without a session.
+     */
+    public SessionPrintStream(PrintStream console) {
+        super(console, false);
+        this.console = console;
+        this.sessionStreams = new ThreadLocal<>();
+    }
+
+    /**
+     * Sends the output of the current thread to the given stream until {@code unbind()} is called.
+     *
+     * @param sessionStream The print stream of the session.
+     */
+    public void bind(PrintStream sessionStream) {
+        this.sessionStreams.set(sessionStream);
+    }
+
+    /**
+     * Sends the output of the current thread back to the console.
+     */
+    public void unbind() {
+        this.sessionStreams.remove();
+    }
+
+    /**
+     * Gets the stream of the current thread.
+     *
+     * @return The stream of the session of the thread or the console.
+     */
+    private PrintStream getStream() {
+        PrintStream sessionStream = this.sessionStreams.get();
+        return sessionStream != null ? sessionStream : this.console;
+    }
+
+    /**
+     * Flushes the stream of the current thread.
+     */
+    @Override
+    public void flush() {
+        getStream().flush();
+    }
+
+    /**
+     * Does not close anything, as the streams of the sessions are closed by the server.
+     */
+    @Override
+    public void close() {
+        flush();
+    }
+
+    /**
+     * Checks the stream of the current thread for errors.
+     *
+     * @return true if the stream of the current thread had an error and false otherwise.
+     */
+    @Override
+    public boolean checkError() {
+        return getStream().checkError();
+    }
+
+    /**
+     * Writes a byte to the stream of the current thread.
+     *
+     * @param b The byte to write.
+     */
+    @Override
+    public void write(int b) {
+        getStream().write(b);
+    }
+
+    /**
+     * Writes a part of the given array to the stream of the current thread.
+     *
+     * @param bytes The bytes to write.
+     * @param offset The index of the first byte to write.
+     * @param length The number of bytes to write.
+     */
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        getStream().write(bytes, offset, length);
+    }
+
+    /**
+     * Prints a boolean to the stream of the current thread.
+     *
+     * @param value The value to print.
+     */
+    @Override
+    public void print(boolean value) {
+        getStream().print(value);
+    }
+
+    /**
+     * Prints a character to the stream of the current thread.
+     *
+     * @param value The value to print.
+     */
+    @Override
+    public void print(char value) {
+        getStream().print(value);
+    }
+
+    /**
+     * Prints an integer to the stream of the current thread.
+     *
+     * @param value The value to print.
+     */
+    @Override
+    public void print(int value) {
+        getStream().print(value);
+    }
+
+    /**
+     * Prints a long integer to the stream of the current thread.
+     *
+     * @param value The value to print.
+     */
+    @Override
+    public void print(long value) {
+        getStream().print(value);
+    }
+
+    /**
+     * Prints a float to the stream of the current thread.
+     *
+     * @param value The value to print.
+     */
+    @Override
+    public void print(float value) {
+        getStream().print(value);
+    }
+
+    /**
+     * Prints a double to the stream of the current thread.
+     *
+     * @param value The value to print.
+     */
+    @Override
+    public void print(double value) {
+        getStream().print(value);
+    }
+
+    /**
+     * Prints characters to the stream of the current thread.
+     *
+     * @param value The characters to print.
+     */
+    @Override
+    public void print(char[] value) {
+        getStream().print(value);
+    }
+
+    /**
+     * Prints a string to the stream of the current thread.
+     *
+     * @param value The string to print.
+     */
+    @Override
+    public void print(String value) {
+        getStream().print(value);
+    }
+
+    /**
+     * Prints an object to the stream of the current thread.
+     *
+     * @param value The object to print.
+     */
+    @Override
+    public void print(Object value) {
+        getStream().print(value);
+    }
+
+    /**
+     * Ends the line in the stream of the current thread.
+     */
+    @Override
+    public void println() {
+        getStream().println();
+    }
+
+    /**
+     * Prints a boolean and ends the line in the stream of the current thread.
+     *
+     * @param value The value to print.
+     */
+    @Override
+    public void println(boolean value) {
+        getStream().println(value);
+    }
+
+    /**
+     * Prints a character and ends the line in the stream of the current thread.
+     *
+     * @param value The value to print.
+     */
+    @Override
+    public void println(char value) {
+        getStream().println(value);
+    }
+
+    /**
+     * Prints an integer and ends the line in the stream of the current thread.
+     *
+     * @param value The value to print.
+     */
+    @Override
+    public void println(int value) {
+        getStream().println(value);
+    }
+
+    /**
+     * Prints a long integer and ends the line in the stream of the current thread.
+     *
+     * @param value The value to print.
+     */
+    @Override
+    public void println(long value) {
+        getStream().println(value);
+    }
+
+    /**
+     * Prints a float and ends the line in the stream of the current thread.
+     *
+     * @param value The value to print.
+     */
+    @Override
+    public void println(float value) {
+        getStream().println(value);
+    }
+
+    /**
+     * Prints a double and ends the line in the stream of the current thread.
+     *
+     * @param value The value to print.
+     */
+    @Override
+    public void println(double value) {
+        getStream().println(value);
+    }
+
+    /**
+     * Prints characters and ends the line in the stream of the current thread.
+     *
+     * @param value The characters to print.
+     */
+    @Override
+    public void println(char[] value) {
+        getStream().println(value);
+    }
+
+    /**
+     * Prints a string and ends the line in the stream of the current thread.
+     *
+     * @param value The string to print.
+     */
+    @Override
+    public void println(String value) {
+        getStream().println(value);
+    }
+
+    /**
+     * Prints an object and ends the line in the stream of the current thread.
+     *
+     * @param value The object to print.
+     */
+    @Override
+    public void println(Object value) {
+        getStream().println(value);
+    }
+
+    /**
+     * Prints a formatted string to the stream of the current thread.
+     *
+     * @param format The format string.
+     * @param args The arguments of the format string.
+     * @return This stream.
+     */
+    @Override
+    public PrintStream printf(String format, Object... args) {
+        getStream().printf(format, args);
+        return this;
+    }
+
+    /**
+     * Prints a formatted string to the stream of the current thread.
+     *
+     * @param locale The locale of the formatting.
+     * @param format The format string.
+     * @param args The arguments of the format string.
+     * @return This stream.
+     */
+    @Override
+    public PrintStream printf(Locale locale, String format, Object... args) {
+        getStream().printf(locale, format, args);
+        return this;
+    }
+
+    /**
+     * Prints a formatted string to the stream of the current thread.
+     *
+     * @param format The format string.
+     * @param args The arguments of the format string.
+     * @return This stream.
+     */
+    @Override
+    public PrintStream format(String format, Object... args) {
+        getStream().format(format, args);
+        return this;
+    }
+
+    /**
+     * Prints a formatted string to the stream of the current thread.
+     *
+     * @param locale The locale of the formatting.
+     * @param format The format string.
+     * @param args The arguments of the format string.
+     * @return This stream.
+     */
+    @Override
+    public PrintStream format(Locale locale, String format, Object... args) {
+        getStream().format(locale, format, args);
+        return this;
+    }
+
+    /**
+     * Appends characters to the stream of the current thread.
+     *
+     * @param text The characters to append.
+     * @return This stream.
+     */
+    @Override
+    public PrintStream append(CharSequence text) {
+        getStream().append(text);
+        return this;
+    }
+
+    /**
+     * Appends a part of the given characters to the stream of the current thread.
+     *
+     * @param text The characters to append.
+     * @param start The index of the first character to append.
+     * @param end The index after the last character to append.
+     * @return This stream.
+     */
+    @Override
+    public PrintStream append(CharSequence text, int start, int end) {
+        getStream().append(text, start, end);
+        return this;
+    }
+
+    /**
+     * Appends a character to the stream of the current thread.
+     *
+     * @param value The character to append.
+     * @return This stream.
+     */
+    @Override
+    public PrintStream append(char value) {
+        getStream().append(value);
+        return this;
+    }
+}
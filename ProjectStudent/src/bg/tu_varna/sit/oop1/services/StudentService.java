@@ -8,28 +8,85 @@ import bg.tu_varna.sit.oop1.models.Student;
 import bg.tu_varna.sit.oop1.models.Subject;
 import bg.tu_varna.sit.oop1.repositories.Repository;
 import bg.tu_varna.sit.oop1.utilities.CommonUtility;
+import bg.tu_varna.sit.oop1.utilities.CsvFile;
+import bg.tu_varna.sit.oop1.utilities.OutputSink;
+import bg.tu_varna.sit.oop1.utilities.StudentJournal;
+import bg.tu_varna.sit.oop1.utilities.StripedLocks;
 import bg.tu_varna.sit.oop1.utilities.StudentUtility;
+import bg.tu_varna.sit.oop1.utilities.WriterOutputSink;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * This class manages student services like enrollment and grading.
  */
 public class StudentService {
+    private static final int ENROLL_FIELDS_COUNT = 4;
+    private static final int GRADE_FIELDS_COUNT = 3;
+    //The names which the header of a CSV file may give to each column
+    private static final String[][] ENROLL_COLUMNS = {{"fn", "faculty number"}, {"program"}, {"group"}, {"name"}};
+    private static final String[][] GRADE_COLUMNS = {{"fn", "faculty number"}, {"course", "subject"}, {"grade"}};
+
     private Repository<Student> studentRepository;
     private Repository<Program> programRepository;
     private StudentUtility studentUtility;
+    private StudentJournal studentJournal;
+    private OutputSink output;
+    private StripedLocks studentLocks;
 
     /**
-     * Constructs a new StudentService instance.
+     * Constructs a new StudentService instance which writes its messages to the console.
      *
      * @param studentRepository The repository for managing student data.
      * @param programRepository The repository for managing program data.
      */
     public StudentService(Repository<Student> studentRepository, Repository<Program> programRepository) {
+        this(studentRepository, programRepository, WriterOutputSink.console());
+    }
+
+    /**
+     * Constructs a new StudentService instance.
+     *
+     * @param studentRepository The repository for managing student data.
+     * @param programRepository The repository for managing program data.
+     * @param output The sink to which the messages are written.
+     */
+    public StudentService(Repository<Student> studentRepository, Repository<Program> programRepository, OutputSink output) {
+        this(studentRepository, programRepository, output, new StripedLocks());
+    }
+
+    /**
+     * Constructs a new StudentService instance which shares the locks of the students with other services and reporters.
+     * Every command which reads and then changes a student holds the lock of the student, so the commands of several
+     * sessions on the same students do not overwrite each other's changes.
+     *
+     * @param studentRepository The repository for managing student data.
+     * @param programRepository The repository for managing program data.
+     * @param output The sink to which the messages are written.
+     * @param studentLocks The locks of the students.
+     */
+    public StudentService(Repository<Student> studentRepository, Repository<Program> programRepository, OutputSink output,
+                          StripedLocks studentLocks) {
+        this.studentLocks = studentLocks;
         this.studentRepository = studentRepository;
         this.programRepository = programRepository;
         this.studentUtility = new StudentUtility(studentRepository, programRepository);
+        this.output = output;
+    }
+
+    /**
+     * Sets the journal in which every change of a student is recorded.
+     *
+     * @param studentJournal The journal of the opened file or null if the changes should not be recorded.
+     */
+    public void setStudentJournal(StudentJournal studentJournal) {
+        this.studentJournal = studentJournal;
     }
 
     /**
@@ -40,18 +97,98 @@ public class StudentService {
      */
     public void enroll (String[] commandParts) throws StudentException {
         int facultyNumber = CommonUtility.intParser(commandParts[1]); //Parses if possible and throws exception if not
-        String programName = commandParts[2];
-        int group = CommonUtility.intParser(commandParts[3]); //Parses if possible and throws exception if not
-        String studentName = commandParts[4];
-        int year = 1; //All students start from the first year of study when enrolled
 
-        Student newStudent = studentUtility.generateStudentOrThrow(facultyNumber, studentName, programName, year, group);
-        newStudent.setStatus(String.valueOf(StudentStatus.ENROLLED)); //Student status is always "enrolled" when first added;
+        //The student is read and changed while no other session changes it
+        Lock studentLock = studentLocks.get(facultyNumber);
+        studentLock.lock();
+        try {
+            String programName = commandParts[2];
+            int group = CommonUtility.intParser(commandParts[3]); //Parses if possible and throws exception if not
+            String studentName = commandParts[4];
+            int year = 1; //All students start from the first year of study when enrolled
+
+            Student newStudent = studentUtility.generateStudentOrThrow(facultyNumber, studentName, programName, year, group);
+            newStudent.setStatus(String.valueOf(StudentStatus.ENROLLED)); //Student status is always "enrolled" when first added;
+
+            studentRepository.addNew(newStudent);
+            record(journal -> journal.recordEnroll(newStudent));
+
+            output.println(String.format("Successfully enrolled student %s with faculty number %d in group %d of program %s.",
+                    studentName, facultyNumber, group, programName));
+        } finally {
+            studentLock.unlock();
+        }
+    }
+
+    /**
+     * Enrolls the students of a CSV file with rows of faculty number, program, group and name.
+     * The rows are checked in parallel with the same rules as a single enrollment, as the repositories are only read
+     * until all valid students are added at the end. A faculty number which is on several rows is enrolled
+     * only from its first row. Instead of a line for every student, a summary is printed and the rejected rows
+     * are written to a file next to the CSV file.
+     * The method must receive array of string containing the name of the command and the path of the CSV file.
+     *
+     * @param commandParts The array of strings containing the needed command parts.
+     * @throws IOException If the CSV file can not be read or the rejects file can not be written.
+     */
+    public void enrollBulk(String[] commandParts) throws IOException {
+        long startTime = System.nanoTime();
+        CsvFile csvFile = CsvFile.read(commandParts[1], ENROLL_COLUMNS);
+        int rowsCount = csvFile.size();
+        Student[] newStudents = new Student[rowsCount];
+        Map<Integer, Integer> firstRowByFacultyNumber = new ConcurrentHashMap<>();
+
+        IntStream.range(0, rowsCount).parallel().forEach(row -> {
+            try {
+                String[] fields = csvFile.getFields(row, ENROLL_FIELDS_COUNT);
+                int facultyNumber = CommonUtility.intParser(fields[0]);
+                int group = CommonUtility.intParser(fields[2]);
+
+                //All students start from the first year of study when enrolled
+                Student newStudent = studentUtility.generateStudentOrThrow(facultyNumber, fields[3], fields[1], 1, group);
+                newStudent.setStatus(String.valueOf(StudentStatus.ENROLLED));
+
+                newStudents[row] = newStudent;
+                firstRowByFacultyNumber.merge(facultyNumber, row, Math::min);
+            } catch (Exception e) {
+                csvFile.reject(row, e.getMessage());
+            }
+        });
+
+        //The first row of a faculty number does not depend on the order in which the threads checked the rows
+        int enrolledCount = 0;
+        for (int row = 0; row < rowsCount; row++) {
+            Student newStudent = newStudents[row];
+            if (newStudent == null) {
+                continue;
+            }
+
+            int firstRow = firstRowByFacultyNumber.get(newStudent.getFacultyNumber());
+            if (firstRow != row) {
+                csvFile.reject(row, String.format(UserMessages.BULK_DUPLICATE_ROW.message, csvFile.getLineNumber(firstRow)));
+                continue;
+            }
 
-        studentRepository.addNew(newStudent);
+            //Another session may have enrolled the faculty number since the rows were checked
+            Lock studentLock = studentLocks.get(newStudent.getFacultyNumber());
+            studentLock.lock();
+            try {
+                studentRepository.addNew(newStudent);
+                record(journal -> journal.recordEnroll(newStudent));
+                enrolledCount++;
+            } catch (IllegalArgumentException e) {
+                csvFile.reject(row, e.getMessage());
+            } finally {
+                studentLock.unlock();
+            }
+        }
 
-        System.out.println(String.format("Successfully enrolled student %s with faculty number %d in group %d of program %s.",
-                studentName, facultyNumber, group, programName));
+        int rejectedCount = csvFile.writeRejects();
+        long elapsedMillis = (System.nanoTime() - startTime) / 1_000_000;
+        output.println(String.format(UserMessages.ENROLL_BULK_SUMMARY.message, enrolledCount, rowsCount, csvFile.getName(), elapsedMillis));
+        if (rejectedCount > 0) {
+            output.println(String.format(UserMessages.BULK_REJECTS_WRITTEN.message, rejectedCount, csvFile.getRejectsFile().getPath()));
+        }
     }
 
     /**
@@ -64,10 +201,18 @@ public class StudentService {
     public void advance(String[] commandParts) throws StudentException {
         int facultyNumber = CommonUtility.intParser(commandParts[1]); //Parses if possible and throws exception if not
 
-        Student student = studentRepository.getOrThrow(facultyNumber); //Returns the student if exists and throws exception if it doesn't
-
-        student.setYear(student.getYear() + 1); //Setts the next year of study
-        System.out.println(String.format("Successfully changed student %d year.", facultyNumber));
+        //The student is read and changed while no other session changes it
+        Lock studentLock = studentLocks.get(facultyNumber);
+        studentLock.lock();
+        try {
+            Student student = studentRepository.getOrThrow(facultyNumber); //Returns the student if exists and throws exception if it doesn't
+
+            student.setYear(student.getYear() + 1); //Setts the next year of study
+            record(journal -> journal.recordYear(student));
+            output.println(String.format("Successfully changed student %d year.", facultyNumber));
+        } finally {
+            studentLock.unlock();
+        }
     }
 
     /**
@@ -80,66 +225,76 @@ public class StudentService {
         //Parses if possible and throws exception if not
         int facultyNumber = CommonUtility.intParser(commandParts[1]);
 
-        String option = commandParts[2];
-        String value = commandParts[3];
+        //The student is read and changed while no other session changes it
+        Lock studentLock = studentLocks.get(facultyNumber);
+        studentLock.lock();
+        try {
+            String option = commandParts[2];
+            String value = commandParts[3];
 
-        //Throwing exception if option is number
-        if(CommonUtility.isNumber(option)){
-            throw new IllegalArgumentException(String.format(UserMessages.WRONG_STRING_DATA.message, option));
-        }
+            //Throwing exception if option is number
+            if(CommonUtility.isNumber(option)){
+                throw new IllegalArgumentException(String.format(UserMessages.WRONG_STRING_DATA.message, option));
+            }
 
-        //Returns student if in database and throws exception if the student doesn't exist
-        Student student = studentRepository.getOrThrow(facultyNumber);
+            //Returns student if in database and throws exception if the student doesn't exist
+            Student student = studentRepository.getOrThrow(facultyNumber);
 
-        if(studentUtility.isStudentActive(student)) { //Checks if student status is "enrolled"
-            int currentYear = student.getYear();
-            Map<Subject, Double> gradesBySubject = student.getGradesBySubject();
+            if(studentUtility.isStudentActive(student)) { //Checks if student status is "enrolled"
+                int currentYear = student.getYear();
+                Map<Subject, Double> gradesBySubject = student.getGradesBySubject();
 
-            if (option.equalsIgnoreCase("program")) {
-                //Throwing exception if program name is number
-                if(CommonUtility.isNumber(value)){
-                    throw new IllegalArgumentException(String.format(UserMessages.WRONG_STRING_DATA.message, value));
-                }
+                if (option.equalsIgnoreCase("program")) {
+                    //Throwing exception if program name is number
+                    if(CommonUtility.isNumber(value)){
+                        throw new IllegalArgumentException(String.format(UserMessages.WRONG_STRING_DATA.message, value));
+                    }
 
-                //Returns the program if exist and throw if it doesn't;
-                Program program = programRepository.getOrThrow(value);
+                    //Returns the program if exist and throw if it doesn't;
+                    Program program = programRepository.getOrThrow(value);
 
-                //Extracting all mandatory subjects from the new program that must be taken before the change
-                Collection<Subject> mandatorySubjects = studentUtility.getMandatorySubjects(program.getSubjectsByCourse(), currentYear);
+                    //Extracting all mandatory subjects from the new program that must be taken before the change
+                    Collection<Subject> mandatorySubjects = studentUtility.getMandatorySubjects(program.getSubjectsByCourse(), currentYear);
 
-                //Exception if mandatory subject is not taken
-                studentUtility.checkMandatorySubjectsGrades(gradesBySubject, mandatorySubjects);
+                    //Exception if mandatory subject is not taken
+                    studentUtility.checkMandatorySubjectsGrades(gradesBySubject, mandatorySubjects);
 
-                student.setProgram(program);
+                    student.setProgram(program);
+                    record(journal -> journal.recordProgram(student));
 
-                System.out.println(String.format("Successfully changed student %d program to %s.", facultyNumber, value));
+                    output.println(String.format("Successfully changed student %d program to %s.", facultyNumber, value));
 
-            } else if (option.equalsIgnoreCase("group")) {
-                //Sets the parsed value if possible and throws exception if not
-                student.setGroup(CommonUtility.intParser(value));
+                } else if (option.equalsIgnoreCase("group")) {
+                    //Sets the parsed value if possible and throws exception if not
+                    student.setGroup(CommonUtility.intParser(value));
+                    record(journal -> journal.recordGroup(student));
 
-                System.out.println(String.format("Successfully changed student %d group to %s.", facultyNumber, value));
+                    output.println(String.format("Successfully changed student %d group to %s.", facultyNumber, value));
 
-            } else if (option.equalsIgnoreCase("year")) {
-                //Parses if possible and throws exception if not
-                int newYear = CommonUtility.intParser(value);
+                } else if (option.equalsIgnoreCase("year")) {
+                    //Parses if possible and throws exception if not
+                    int newYear = CommonUtility.intParser(value);
 
-                //Throws exception if new year in not in the range [1-4]
-                if (newYear == currentYear || newYear > currentYear + 1 || newYear < currentYear + 1) {
-                    throw new IllegalArgumentException(UserMessages.NEW_STUDENT_YEAR_WRONG_VALUE.message);
-                }
+                    //Throws exception if new year in not in the range [1-4]
+                    if (newYear == currentYear || newYear > currentYear + 1 || newYear < currentYear + 1) {
+                        throw new IllegalArgumentException(UserMessages.NEW_STUDENT_YEAR_WRONG_VALUE.message);
+                    }
 
-                int allowedFailedExams = 2;
-                //Check if the student can advance to next year of study
-                if (studentUtility.isStudentAllowedYearChange(student, allowedFailedExams)) {
-                    student.setYear(student.getYear() + 1);
-                    System.out.println(String.format("Successfully changed student %d year.", facultyNumber));
-                }
+                    int allowedFailedExams = 2;
+                    //Check if the student can advance to next year of study
+                    if (studentUtility.isStudentAllowedYearChange(student, allowedFailedExams)) {
+                        student.setYear(student.getYear() + 1);
+                        record(journal -> journal.recordYear(student));
+                        output.println(String.format("Successfully changed student %d year.", facultyNumber));
+                    }
 
-            } else {
-                //Exception if the option value is not valid
-                throw new IllegalArgumentException(UserMessages.WRONG_PARAMETER.message);
+                } else {
+                    //Exception if the option value is not valid
+                    throw new IllegalArgumentException(UserMessages.WRONG_PARAMETER.message);
+                }
             }
+        } finally {
+            studentLock.unlock();
         }
     }
 
@@ -153,21 +308,29 @@ public class StudentService {
         //Parses if possible and throws exception if not
         int facultyNumber = CommonUtility.intParser(commandParts[1]);
 
-        //Returns the student if exists and throws exception if it doesn't
-        Student student = studentRepository.getOrThrow(facultyNumber);
+        //The student is read and changed while no other session changes it
+        Lock studentLock = studentLocks.get(facultyNumber);
+        studentLock.lock();
+        try {
+            //Returns the student if exists and throws exception if it doesn't
+            Student student = studentRepository.getOrThrow(facultyNumber);
 
-        Map<Subject, Double> studentGrades = student.getGradesBySubject();
+            Map<Subject, Double> studentGrades = student.getGradesBySubject();
 
-        boolean hasGrades = !studentGrades.isEmpty();
-        boolean areAllExamsPassed = hasGrades && studentGrades.values().stream()
-                .noneMatch(grade -> grade < 3.00);
+            boolean hasGrades = !studentGrades.isEmpty();
+            boolean areAllExamsPassed = hasGrades && studentGrades.values().stream()
+                    .noneMatch(grade -> grade < 3.00);
 
-        //Student can graduate only if he has taken all enrolled grades. Otherwise, an exception.
-        if (hasGrades && areAllExamsPassed) {
-            student.setStatus(String.valueOf(StudentStatus.GRADUATED));
-            System.out.println(String.format(UserMessages.STUDENT_STATUS_CHANGED.message, facultyNumber));
-        } else {
-            throw new StudentException(UserMessages.INSUFFICIENT_TAKEN_EXAMS.message);
+            //Student can graduate only if he has taken all enrolled grades. Otherwise, an exception.
+            if (hasGrades && areAllExamsPassed) {
+                student.setStatus(String.valueOf(StudentStatus.GRADUATED));
+                record(journal -> journal.recordStatus(student));
+                output.println(String.format(UserMessages.STUDENT_STATUS_CHANGED.message, facultyNumber));
+            } else {
+                throw new StudentException(UserMessages.INSUFFICIENT_TAKEN_EXAMS.message);
+            }
+        } finally {
+            studentLock.unlock();
         }
     }
 
@@ -180,11 +343,20 @@ public class StudentService {
     public void interrupt(String[] commandParts) throws StudentException {
         //Parses if possible and throws exception if not
         int facultyNumber = CommonUtility.intParser(commandParts[1]);
-        //Returns the student if exists and throws exception if it doesn't
-        Student student = studentRepository.getOrThrow(facultyNumber);
 
-        student.setStatus(String.valueOf(StudentStatus.DROPPED));
-        System.out.println(String.format(UserMessages.STUDENT_STATUS_CHANGED.message, facultyNumber));
+        //The student is read and changed while no other session changes it
+        Lock studentLock = studentLocks.get(facultyNumber);
+        studentLock.lock();
+        try {
+            //Returns the student if exists and throws exception if it doesn't
+            Student student = studentRepository.getOrThrow(facultyNumber);
+
+            student.setStatus(String.valueOf(StudentStatus.DROPPED));
+            record(journal -> journal.recordStatus(student));
+            output.println(String.format(UserMessages.STUDENT_STATUS_CHANGED.message, facultyNumber));
+        } finally {
+            studentLock.unlock();
+        }
     }
 
     /**
@@ -196,11 +368,20 @@ public class StudentService {
     public void resume(String[] commandParts) throws StudentException {
         //Parses if possible and throws exception if not
         int facultyNumber = CommonUtility.intParser(commandParts[1]);
-        //Returns the student if exists and throws exception if it doesn't
-        Student student = studentRepository.getOrThrow(facultyNumber);
 
-        student.setStatus(String.valueOf(StudentStatus.ENROLLED));
-        System.out.println(String.format(UserMessages.STUDENT_STATUS_CHANGED.message, facultyNumber));
+        //The student is read and changed while no other session changes it
+        Lock studentLock = studentLocks.get(facultyNumber);
+        studentLock.lock();
+        try {
+            //Returns the student if exists and throws exception if it doesn't
+            Student student = studentRepository.getOrThrow(facultyNumber);
+
+            student.setStatus(String.valueOf(StudentStatus.ENROLLED));
+            record(journal -> journal.recordStatus(student));
+            output.println(String.format(UserMessages.STUDENT_STATUS_CHANGED.message, facultyNumber));
+        } finally {
+            studentLock.unlock();
+        }
     }
 
     /**
@@ -211,25 +392,34 @@ public class StudentService {
     public void enrollIn(String[] commandParts) {
         //Parses if possible and throws exception if not
         int facultyNumber = CommonUtility.intParser(commandParts[1]);
-        String subjectName = commandParts[2];
 
-        //Throwing exception if subject name is number
-        if(CommonUtility.isNumber(subjectName)){
-            throw new IllegalArgumentException(String.format(UserMessages.WRONG_STRING_DATA.message, subjectName));
-        }
+        //The student is read and changed while no other session changes it
+        Lock studentLock = studentLocks.get(facultyNumber);
+        studentLock.lock();
+        try {
+            String subjectName = commandParts[2];
+
+            //Throwing exception if subject name is number
+            if(CommonUtility.isNumber(subjectName)){
+                throw new IllegalArgumentException(String.format(UserMessages.WRONG_STRING_DATA.message, subjectName));
+            }
 
-        //Returns the student if exists and throws exception if it doesn't
-        Student student = studentRepository.getOrThrow(facultyNumber);
+            //Returns the student if exists and throws exception if it doesn't
+            Student student = studentRepository.getOrThrow(facultyNumber);
 
-        int studentYear = student.getYear();
-        String studentProgramName = student.getProgram().getName();
+            int studentYear = student.getYear();
+            String studentProgramName = student.getProgram().getName();
 
-        //Throws exception if subject is not available
-        Subject subject = studentUtility.getAvailableSubjectOrThrow(studentProgramName, subjectName, studentYear);
-        Map<Subject, Double> studentGradesBySubject = student.getGradesBySubject();
-        studentGradesBySubject.put(subject, 2.00);
+            //Throws exception if subject is not available
+            Subject subject = studentUtility.getAvailableSubjectOrThrow(studentProgramName, subjectName, studentYear);
+            Map<Subject, Double> studentGradesBySubject = student.getGradesBySubject();
+            studentGradesBySubject.put(subject, 2.00);
+            record(journal -> journal.recordGrade(student, subject));
 
-        System.out.println(String.format("Successfully enrolled student %d in course %s", facultyNumber, subjectName));
+            output.println(String.format("Successfully enrolled student %d in course %s", facultyNumber, subjectName));
+        } finally {
+            studentLock.unlock();
+        }
     }
 
     /**
@@ -241,36 +431,265 @@ public class StudentService {
     public void addGrade(String[] commandParts) throws StudentException {
         //Parses if possible and throws exception if not
         int facultyNumber = CommonUtility.intParser(commandParts[1]);
-        String subjectName = commandParts[2];
 
-        //Throwing exception if subject name is number
-        if(CommonUtility.isNumber(subjectName)){
-            throw new IllegalArgumentException(String.format(UserMessages.WRONG_STRING_DATA.message, subjectName));
+        //The student is read and changed while no other session changes it
+        Lock studentLock = studentLocks.get(facultyNumber);
+        studentLock.lock();
+        try {
+            String subjectName = commandParts[2];
+
+            //Throwing exception if subject name is number
+            if(CommonUtility.isNumber(subjectName)){
+                throw new IllegalArgumentException(String.format(UserMessages.WRONG_STRING_DATA.message, subjectName));
+            }
+
+            //Parses if possible and throws exception if not
+            double grade = CommonUtility.doubleParser(commandParts[3]);
+
+            //Exception if grade is not in the range [2.00-6.00]
+            if (grade < 2.00 || grade > 6.00) {
+                throw new StudentException(UserMessages.GRADE_WRONG_VALUE.message);
+            }
+
+            //Returns the student if exists and throws exception if it doesn't
+            Student student = studentRepository.getOrThrow(facultyNumber);
+            StudentStatus studentStatus = student.getStatus();
+
+            //Exception if student has interrupted education.
+            if (studentStatus.toString().equalsIgnoreCase(String.valueOf(StudentStatus.DROPPED))) {
+                throw new IllegalArgumentException(UserMessages.STUDENT_DROPPED.message);
+            }
+
+            Map<Subject, Double> studentGradesBySubject = student.getGradesBySubject();
+
+            //Exception if student is not enrolled in subject
+            Subject subject = studentUtility.getEnrolledSubjectOrThrow(studentGradesBySubject, subjectName);
+
+            studentGradesBySubject.put(subject, grade);
+            record(journal -> journal.recordGrade(student, subject));
+            output.println(String.format("Successfully added grade %.2f for course %s in student %d record.", grade, subjectName, facultyNumber));
+        } finally {
+            studentLock.unlock();
         }
+    }
 
-        //Parses if possible and throws exception if not
-        double grade = CommonUtility.doubleParser(commandParts[3]);
+    /**
+     * Adds the grades of one or more exam sheet files with rows of faculty number, subject and grade.
+     * The rows are parsed and their grades checked in parallel. Then the rows are grouped by student, so every student
+     * is looked up and checked for an interrupted education once. The subjects of each student are resolved
+     * in parallel from one name index of the grades of the student. The grades are written in one pass at the end,
+     * as the stores and the journal are changed by one thread at a time, and each student is locked while its grades
+     * are checked against its status and written. The rows of one student are applied
+     * in the order of the files, so a later grade for the same subject replaces an earlier one.
+     * A summary with the throughput is printed and the rejected rows of each file are written to a file next to it.
+     *
+     * @param commandParts The array of strings containing the command name and the paths of the files.
+     * @throws IOException If a file can not be read or a rejects file can not be written.
+     */
+    public void addGrades(String[] commandParts) throws IOException {
+        long startTime = System.nanoTime();
+        List<CsvFile> csvFiles = new ArrayList<>();
+        List<GradeRow> gradeRows = new ArrayList<>();
+        int rowsCount = 0;
+        for (int i = 1; i < commandParts.length; i++) {
+            CsvFile csvFile = CsvFile.read(commandParts[i], GRADE_COLUMNS);
+            csvFiles.add(csvFile);
+            rowsCount += csvFile.size();
+
+            gradeRows.addAll(IntStream.range(0, csvFile.size()).parallel()
+                    .mapToObj(row -> parseGradeRow(csvFile, row))
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList()));
+        }
 
-        //Exception if grade is not in the range [2.00-6.00]
-        if (grade < 2.00 || grade > 6.00) {
-            throw new StudentException(UserMessages.GRADE_WRONG_VALUE.message);
+        Map<Integer, List<GradeRow>> rowsByFacultyNumber = gradeRows.stream()
+                .collect(Collectors.groupingBy(gradeRow -> gradeRow.facultyNumber, LinkedHashMap::new, Collectors.toList()));
+
+        //Looking up a student may load it into the storage, so the students are resolved by one thread under their locks
+        List<Student> students = new ArrayList<>();
+        List<List<GradeRow>> studentRows = new ArrayList<>();
+        for (Map.Entry<Integer, List<GradeRow>> entry : rowsByFacultyNumber.entrySet()) {
+            Lock studentLock = studentLocks.get(entry.getKey());
+            studentLock.lock();
+            try {
+                Student student = studentRepository.getOrThrow(entry.getKey());
+                students.add(student);
+                studentRows.add(entry.getValue());
+            } catch (Exception e) {
+                entry.getValue().forEach(gradeRow -> gradeRow.reject(e.getMessage()));
+            } finally {
+                studentLock.unlock();
+            }
+        }
+
+        IntStream.range(0, students.size()).parallel()
+                .forEach(i -> resolveSubjects(students.get(i), studentRows.get(i)));
+
+        int addedCount = 0;
+        for (int i = 0; i < students.size(); i++) {
+            Student student = students.get(i);
+            Lock studentLock = studentLocks.get(student.getFacultyNumber());
+            studentLock.lock();
+            try {
+                addedCount += applyGrades(student, studentRows.get(i));
+            } finally {
+                studentLock.unlock();
+            }
         }
 
-        //Returns the student if exists and throws exception if it doesn't
-        Student student = studentRepository.getOrThrow(facultyNumber);
-        StudentStatus studentStatus = student.getStatus();
+        long elapsedMillis = (System.nanoTime() - startTime) / 1_000_000;
+        output.println(String.format(UserMessages.ADD_GRADES_SUMMARY.message, addedCount, rowsCount, csvFiles.size(),
+                students.size(), elapsedMillis, addedCount * 1000L / Math.max(1, elapsedMillis)));
 
-        //Exception if student has interrupted education.
-        if (studentStatus.toString().equalsIgnoreCase(String.valueOf(StudentStatus.DROPPED))) {
-            throw new IllegalArgumentException(UserMessages.STUDENT_DROPPED.message);
+        for (CsvFile csvFile : csvFiles) {
+            int rejectedCount = csvFile.writeRejects();
+            if (rejectedCount > 0) {
+                output.println(String.format(UserMessages.BULK_REJECTS_WRITTEN.message, rejectedCount, csvFile.getRejectsFile().getPath()));
+            }
+        }
+    }
+
+    /**
+     * Adds the grades of the resolved rows of a student. The status is checked here, while the lock of the student
+     * is held, so a student who has interrupted the education in the meantime gets no grades.
+     *
+     * @param student The student of the rows.
+     * @param gradeRows The rows of the student.
+     * @return The number of added grades.
+     */
+    private int applyGrades(Student student, List<GradeRow> gradeRows) {
+        if (student.getStatus() == StudentStatus.DROPPED) {
+            gradeRows.forEach(gradeRow -> gradeRow.reject(UserMessages.STUDENT_DROPPED.message));
+            return 0;
         }
 
+        int addedCount = 0;
         Map<Subject, Double> studentGradesBySubject = student.getGradesBySubject();
+        for (GradeRow gradeRow : gradeRows) {
+            if (gradeRow.subject == null) {
+                continue;
+            }
 
-        //Exception if student is not enrolled in subject
-        Subject subject = studentUtility.getEnrolledSubjectOrThrow(studentGradesBySubject, subjectName);
+            //The subjects were resolved before the lock, so the student may have changed the program since
+            if (!studentGradesBySubject.containsKey(gradeRow.subject)) {
+                gradeRow.reject(UserMessages.SUBJECT_NOT_ENROLLED.message);
+                continue;
+            }
+
+            studentGradesBySubject.put(gradeRow.subject, gradeRow.grade);
+            record(journal -> journal.recordGrade(student, gradeRow.subject));
+            addedCount++;
+        }
 
-        studentGradesBySubject.put(subject, grade);
-        System.out.println(String.format("Successfully added grade %.2f for course %s in student %d record.", grade, subjectName, facultyNumber));
+        return addedCount;
+    }
+
+    /**
+     * Parses a row of an exam sheet and checks its grade, as a single grade is checked.
+     *
+     * @param csvFile The exam sheet file.
+     * @param row The index of the row.
+     * @return The parsed row or null if the row is rejected.
+     */
+    private GradeRow parseGradeRow(CsvFile csvFile, int row) {
+        try {
+            String[] fields = csvFile.getFields(row, GRADE_FIELDS_COUNT);
+            int facultyNumber = CommonUtility.intParser(fields[0]);
+            String subjectName = fields[1];
+
+            //Throwing exception if subject name is number
+            if (CommonUtility.isNumber(subjectName)) {
+                throw new IllegalArgumentException(String.format(UserMessages.WRONG_STRING_DATA.message, subjectName));
+            }
+
+            double grade = CommonUtility.doubleParser(fields[2]);
+            //Exception if grade is not in the range [2.00-6.00]
+            if (grade < 2.00 || grade > 6.00) {
+                throw new StudentException(UserMessages.GRADE_WRONG_VALUE.message);
+            }
+
+            return new GradeRow(csvFile, row, facultyNumber, subjectName, grade);
+        } catch (Exception e) {
+            csvFile.reject(row, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Finds the enrolled subject of every row of a student. The grades of the student are only read here,
+     * while the student is locked, as another session may add a grade to the student at the same time.
+     * A row whose subject the student is not enrolled in is rejected.
+     *
+     * @param student The student of the rows.
+     * @param gradeRows The rows of the student.
+     */
+    private void resolveSubjects(Student student, List<GradeRow> gradeRows) {
+        //The first subject with a name is the one a single grade would be added to
+        Map<String, Subject> subjectsByName = new HashMap<>();
+        Lock studentLock = studentLocks.get(student.getFacultyNumber());
+        studentLock.lock();
+        try {
+            for (Subject subject : student.getGradesBySubject().keySet()) {
+                subjectsByName.putIfAbsent(subject.getName().toLowerCase(Locale.ROOT), subject);
+            }
+        } finally {
+            studentLock.unlock();
+        }
+
+        for (GradeRow gradeRow : gradeRows) {
+            gradeRow.subject = subjectsByName.get(gradeRow.subjectName.toLowerCase(Locale.ROOT));
+            if (gradeRow.subject == null) {
+                gradeRow.reject(UserMessages.SUBJECT_NOT_ENROLLED.message);
+            }
+        }
+    }
+
+    /**
+     * Records a change in the journal if there is one.
+     *
+     * @param change The record of the change.
+     */
+    private void record(Consumer<StudentJournal> change) {
+        if (studentJournal != null) {
+            change.accept(studentJournal);
+        }
+    }
+
+    /**
+     * A row of an exam sheet with the subject resolved for the student of the row.
+     */
+    private static class GradeRow {
+        private final CsvFile csvFile;
+        private final int row;
+        private final int facultyNumber;
+        private final String subjectName;
+        private final double grade;
+        private Subject subject;
+
+        /**
+         * Constructs a new GradeRow.
+         *
+         * @param csvFile The exam sheet file of the row.
+         * @param row The index of the row in the file.
+         * @param facultyNumber The faculty number of the student.
+         * @param subjectName The name of the subject.
+         * @param grade The grade.
+         */
+        GradeRow(CsvFile csvFile, int row, int facultyNumber, String subjectName, double grade) {
+            this.csvFile = csvFile;
+            this.row = row;
+            this.facultyNumber = facultyNumber;
+            this.subjectName = subjectName;
+            this.grade = grade;
+        }
+
+        /**
+         * Rejects the row in its file.
+         *
+         * @param reason The reason of the rejection.
+         */
+        void reject(String reason) {
+            this.csvFile.reject(this.row, reason);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,126 @@
+package bg.tu_varna.sit.oop1.utilities;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The BackgroundSave class follows a save which writes a snapshot of the objects on its own thread.
+ * The writer counts the written objects, so the progress can be shown while the save is running.
+ */
+public class BackgroundSave {
+    private final String filePath;
+    private final int totalCount;
+    private final AtomicInteger writtenCount;
+    private final long startNanos;
+    private volatile long endNanos;
+    private Future<?> future;
+
+    /**
+     * Constructs a BackgroundSave which is not started yet.
+     *
+     * @param filePath The path of the saved file.
+     * @param totalCount The number of objects in the snapshot.
+     */
+    BackgroundSave(String filePath, int totalCount) {
+        this.filePath = filePath;
+        this.totalCount = totalCount;
+        this.writtenCount = new AtomicInteger();
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Starts the writing on a new thread.
+     *
+     * @param writing The writing of the snapshot.
+     */
+    void start(Callable<Void> writing) {
+        ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "background-save"));
+        try {
+            this.future = executor.submit(() -> {
+                try {
+                    return writing.call();
+                } finally {
+                    this.endNanos = System.nanoTime();
+                }
+            });
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Gets the counter of the written objects, which is increased by the writer.
+     *
+     * @return The counter of the written objects.
+     */
+    AtomicInteger getWrittenCounter() {
+        return this.writtenCount;
+    }
+
+    /**
+     * Gets the path of the saved file.
+     *
+     * @return The path of the file.
+     */
+    public String getFilePath() {
+        return this.filePath;
+    }
+
+    /**
+     * Gets the number of objects in the snapshot.
+     *
+     * @return The number of objects which will be written.
+     */
+    public int getTotalCount() {
+        return this.totalCount;
+    }
+
+    /**
+     * Gets the number of objects which are already written.
+     *
+     * @return The number of written objects.
+     */
+    public int getWrittenCount() {
+        return this.writtenCount.get();
+    }
+
+    /**
+     * Gets the time since the start of the save or, if it is done, the time it took.
+     *
+     * @return The time in milliseconds.
+     */
+    public long getElapsedMillis() {
+        long end = isDone() ? this.endNanos : System.nanoTime();
+        return (end - this.startNanos) / 1_000_000;
+    }
+
+    /**
+     * Checks if the save has finished, successfully or not.
+     *
+     * @return true if the save is done and false if it is still running.
+     */
+    public boolean isDone() {
+        return this.future.isDone();
+    }
+
+    /**
+     * Waits until the save is done.
+     *
+     * @return The error which stopped the save or null if the file was saved.
+     */
+    public Exception await() {
+        try {
+            this.future.get();
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return e;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package bg.tu_varna.sit.oop1.utilities;
+
+import bg.tu_varna.sit.oop1.serialization.deserializer.BinaryDeserializable;
+import bg.tu_varna.sit.oop1.serialization.serializer.BinarySerializable;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * The BinarySnapshot class keeps the parsed objects of a text file in a sidecar file in the binary format,
+ * so an unchanged text file can be opened again without parsing it.
+ * The sidecar file starts with the key of the text file: its path, size, modification time and a CRC-32 of its content.
+ * The objects follow in the format of the binary serializer. The sidecar file is memory-mapped when it is read
+ * and it is used only if the key still matches the text file.
+ *
+ * @param <T> The type of objects in the snapshot.
+ */
+public class BinarySnapshot<T> {
+    private static final String SNAPSHOT_EXTENSION = ".snapshot";
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+    private static final int MAGIC = 0x534E4150;
+    private static final int VERSION = 1;
+    private static final int HASH_BUFFER_SIZE = 1 << 20;
+
+    private File file;
+    private File snapshotFile;
+    private BinarySerializable<T> binarySerializableService;
+    private BinaryDeserializable<T> binaryDeserializableService;
+    private long fileLength;
+    private long fileLastModified;
+
+    /**
+     * Constructs a BinarySnapshot of the given text file. The size and the modification time of the file are taken now,
+     * so a file which is changed while it is being loaded does not get a snapshot.
+     *
+     * @param file The text file.
+     * @param binarySerializableService The service for serializing objects as binary records.
+     * @param binaryDeserializableService The service for deserializing objects from binary records.
+     */
+    public BinarySnapshot(File file, BinarySerializable<T> binarySerializableService, BinaryDeserializable<T> binaryDeserializableService) {
+        this.file = file.getAbsoluteFile();
+        this.snapshotFile = new File(this.file.getPath() + SNAPSHOT_EXTENSION);
+        this.binarySerializableService = binarySerializableService;
+        this.binaryDeserializableService = binaryDeserializableService;
+        this.fileLength = this.file.length();
+        this.fileLastModified = this.file.lastModified();
+    }
+
+    /**
+     * Checks if the text file has a sidecar file, which may be current.
+     *
+     * @return true if the sidecar file exists and false otherwise.
+     */
+    public boolean exists() {
+        return this.snapshotFile.exists();
+    }
+
+    /**
+     * Gets the sidecar file of the snapshot.
+     *
+     * @return The sidecar file.
+     */
+    public File getSnapshotFile() {
+        return this.snapshotFile;
+    }
+
+    /**
+     * Reads the objects of the snapshot if it belongs to the current content of the text file.
+     * A sidecar file which is out of date or damaged is not used, so the text file is parsed as usual.
+     *
+     * @return The objects in the order in which they were written or null if the snapshot can not be used.
+     * @throws IOException If the text file can not be read.
+     */
+    public List<T> read() throws IOException {
+        if (!exists()) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(this.snapshotFile.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            DataInputStream in = new DataInputStream(new ByteBufferInputStream(buffer));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !in.readUTF().equals(this.file.getPath())
+                    || in.readLong() != this.fileLength || in.readLong() != this.fileLastModified
+                    || in.readLong() != hashContent()) {
+                return null;
+            }
+
+            this.binaryDeserializableService.readHeader(in);
+            List<T> objects = new ArrayList<>();
+            T object;
+            while ((object = this.binaryDeserializableService.deserialize(in)) != null) {
+                objects.add(object);
+            }
+
+            return objects;
+        } catch (IOException e) {
+            if (!this.file.exists()) {
+                throw e;
+            }
+            return null;
+        } catch (Exception e) {
+            //A damaged or older sidecar file is written again after the text file is parsed
+            return null;
+        }
+    }
+
+    /**
+     * Writes the given objects as the snapshot of the text file. Nothing is written if the text file was changed
+     * since the snapshot was constructed, as the objects may not match its content.
+     * The sidecar file is written into a temporary file which replaces it.
+     *
+     * @param objects The objects parsed from the text file.
+     * @throws IOException If an error occurs while writing.
+     */
+    public void write(Collection<T> objects) throws IOException {
+        long hash = hashContent();
+        if (this.file.length() != this.fileLength || this.file.lastModified() != this.fileLastModified) {
+            return;
+        }
+
+        Path snapshotPath = this.snapshotFile.toPath();
+        Path temporaryPath = snapshotPath.resolveSibling(this.snapshotFile.getName() + TEMPORARY_EXTENSION);
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryPath.toFile())))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(this.file.getPath());
+                out.writeLong(this.fileLength);
+                out.writeLong(this.fileLastModified);
+                out.writeLong(hash);
+
+                this.binarySerializableService.writeHeader(objects, out);
+                for (T object : objects) {
+                    this.binarySerializableService.serialize(object, out);
+                }
+            }
+
+            try {
+                Files.move(temporaryPath, snapshotPath, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporaryPath);
+        }
+    }
+
+    /**
+     * Computes the CRC-32 of the content of the text file. The file is read in large blocks,
+     * so checking the snapshot costs one read of the file and no parsing.
+     *
+     * @return The CRC-32 of the file.
+     * @throws IOException If the file can not be read.
+     */
+    private long hashContent() throws IOException {
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(this.file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(HASH_BUFFER_SIZE);
+            while (channel.read(buffer) > 0) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        }
+
+        return crc.getValue();
+    }
+
+    /**
+     * An input stream over a byte buffer, through which the binary deserializer reads the mapped sidecar file.
+     */
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        /**
+         * Constructs a new ByteBufferInputStream.
+         *
+         * @param buffer The buffer to read from its position to its limit.
+         */
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /**
+         * Reads the next byte of the buffer.
+         *
+         * @return The byte or -1 at the end of the buffer.
+         */
+        @Override
+        public int read() {
+            return this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1;
+        }
+
+        /**
+         * Reads up to the given number of bytes of the buffer into an array.
+         *
+         * @param bytes The array to read into.
+         * @param offset The index of the array from which to write.
+         * @param length The maximum number of bytes to read.
+         * @return The number of read bytes or -1 at the end of the buffer.
+         */
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!this.buffer.hasRemaining()) {
+                return -1;
+            }
+
+            int readCount = Math.min(length, this.buffer.remaining());
+            this.buffer.get(bytes, offset, readCount);
+            return readCount;
+        }
+
+        /**
+         * Gets the number of bytes left in the buffer.
+         *
+         * @return The number of bytes.
+         */
+        @Override
+        public int available() {
+            return this.buffer.remaining();
+        }
+    }
+}
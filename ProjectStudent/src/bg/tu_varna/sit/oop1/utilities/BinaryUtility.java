@@ -0,0 +1,130 @@
+package bg.tu_varna.sit.oop1.utilities;
+
+import bg.tu_varna.sit.oop1.enums.UserMessages;
+import bg.tu_varna.sit.oop1.exceptions.DeserializationException;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The BinaryUtility class provides utility methods for the binary file format
+ * like writing and reading variable-length integers and strings.
+ * A variable-length integer keeps 7 bits in every byte and sets the highest bit while more bytes follow,
+ * so small numbers take a single byte.
+ */
+public class BinaryUtility {
+
+    /**
+     * Writes a non-negative integer as a variable-length integer.
+     *
+     * @param out The output to write to.
+     * @param value The integer to write.
+     * @throws IOException If an error occurs while writing.
+     */
+    public static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Reads a variable-length integer.
+     *
+     * @param in The input to read from.
+     * @return The integer value.
+     * @throws IOException If an error occurs while reading.
+     * @throws DeserializationException If the integer is longer than five bytes.
+     */
+    public static int readVarInt(DataInput in) throws IOException, DeserializationException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte part = in.readByte();
+            value |= (part & 0x7F) << shift;
+            if ((part & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new DeserializationException(UserMessages.WRONG_BINARY_DATA_FORMAT.message);
+    }
+
+    /**
+     * Reads a variable-length integer from a buffer.
+     *
+     * @param buffer The buffer to read from.
+     * @return The integer value.
+     * @throws DeserializationException If the integer is longer than five bytes or the buffer ends before it.
+     */
+    public static int readVarInt(ByteBuffer buffer) throws DeserializationException {
+        try {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte part = buffer.get();
+                value |= (part & 0x7F) << shift;
+                if ((part & 0x80) == 0) {
+                    return value;
+                }
+            }
+        } catch (BufferUnderflowException e) {
+            //Reported below as a wrong format
+        }
+
+        throw new DeserializationException(UserMessages.WRONG_BINARY_DATA_FORMAT.message);
+    }
+
+    /**
+     * Writes a string as its UTF-8 length followed by its UTF-8 bytes.
+     *
+     * @param out The output to write to.
+     * @param value The string to write.
+     * @throws IOException If an error occurs while writing.
+     */
+    public static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a string written by {@code writeString}.
+     *
+     * @param in The input to read from.
+     * @return The string value.
+     * @throws IOException If an error occurs while reading.
+     * @throws DeserializationException If the length of the string is not valid.
+     */
+    public static String readString(DataInput in) throws IOException, DeserializationException {
+        int length = readVarInt(in);
+        if (length < 0) {
+            throw new DeserializationException(UserMessages.WRONG_BINARY_DATA_FORMAT.message);
+        }
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a string written by {@code writeString} from a buffer.
+     *
+     * @param buffer The buffer to read from.
+     * @return The string value.
+     * @throws DeserializationException If the length of the string is not valid.
+     */
+    public static String readString(ByteBuffer buffer) throws DeserializationException {
+        int length = readVarInt(buffer);
+        if (length < 0 || length > buffer.remaining()) {
+            throw new DeserializationException(UserMessages.WRONG_BINARY_DATA_FORMAT.message);
+        }
+
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
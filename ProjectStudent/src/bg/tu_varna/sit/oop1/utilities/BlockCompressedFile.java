@@ -0,0 +1,454 @@
+package bg.tu_varna.sit.oop1.utilities;
+
+import bg.tu_varna.sit.oop1.enums.UserMessages;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The BlockCompressedFile class reads and writes text files whose lines are compressed in independent blocks.
+ * The file starts with magic bytes and a version, followed by blocks. Every block is the length of its text,
+ * the length of its compressed bytes and the bytes compressed with Deflater. A block holds whole lines only,
+ * so every block can be decompressed and parsed without the others, like the chunks of a plain text file.
+ * The text is in the platform charset, as in the plain text files.
+ */
+public final class BlockCompressedFile {
+    public static final String EXTENSION = ".stz";
+    public static final byte[] MAGIC = {'S', 'T', 'D', 'Z'};
+    public static final int VERSION = 1;
+    private static final int BLOCK_SIZE = 1 << 20;
+    private static final int BLOCK_HEADER_SIZE = 2 * Integer.BYTES;
+
+    /**
+     * The class only has static methods, so it can not be constructed.
+     */
+    private BlockCompressedFile() {
+    }
+
+    /**
+     * Checks if the given path is the path of a compressed file by its extension.
+     *
+     * @param path The path to check.
+     * @return true if the path ends with the extension of the compressed files and false otherwise.
+     */
+    public static boolean isCompressedPath(String path) {
+        return path.toLowerCase().endsWith(EXTENSION);
+    }
+
+    /**
+     * Checks if the given first bytes of a file are the magic bytes of the compressed format.
+     *
+     * @param firstBytes The first bytes of a file.
+     * @return true if the file is a compressed file and false otherwise.
+     */
+    public static boolean isFormatOf(byte[] firstBytes) {
+        return firstBytes.length >= MAGIC.length && Arrays.equals(Arrays.copyOf(firstBytes, MAGIC.length), MAGIC);
+    }
+
+    /**
+     * Opens a stream which reads the text of a compressed file block by block.
+     *
+     * @param file The compressed file.
+     * @return The stream of the decompressed text.
+     * @throws IOException If the file can not be read or is not a compressed file.
+     */
+    public static InputStream newInputStream(File file) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            readHeader(in);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+
+        return new BlockInputStream(in);
+    }
+
+    /**
+     * Opens a stream which compresses the written text in blocks which end at a line break.
+     * The header is written right away.
+     *
+     * @param out The stream of the file. It is closed together with the returned stream.
+     * @return The stream to which the text is written.
+     * @throws IOException If the header can not be written.
+     */
+    public static BlockOutputStream newOutputStream(OutputStream out) throws IOException {
+        return new BlockOutputStream(out);
+    }
+
+    /**
+     * Finds the blocks of a compressed file by reading only their lengths.
+     *
+     * @param channel The channel of the file.
+     * @return The position of the compressed bytes, their length and the length of the text of every block.
+     * @throws IOException If the file can not be read or is not a compressed file.
+     */
+    public static List<long[]> findBlocks(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(MAGIC.length + 1);
+        readFully(channel, header, 0);
+        readHeader(new DataInputStream(new ByteArrayInputStream(header.array())));
+
+        List<long[]> blocks = new ArrayList<>();
+        long fileSize = channel.size();
+        long position = header.capacity();
+        ByteBuffer blockHeader = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+        while (position < fileSize) {
+            blockHeader.clear();
+            readFully(channel, blockHeader, position);
+            int textLength = blockHeader.getInt(0);
+            int compressedLength = blockHeader.getInt(Integer.BYTES);
+            position += BLOCK_HEADER_SIZE;
+            if (textLength < 0 || compressedLength < 0 || position + compressedLength > fileSize) {
+                throw new IOException(UserMessages.WRONG_COMPRESSED_DATA_FORMAT.message);
+            }
+
+            blocks.add(new long[]{position, compressedLength, textLength});
+            position += compressedLength;
+        }
+
+        return blocks;
+    }
+
+    /**
+     * Reads and decompresses one block of a compressed file.
+     *
+     * @param channel The channel of the file.
+     * @param block The block as returned by {@link #findBlocks(FileChannel)}.
+     * @return The text of the block as bytes.
+     * @throws IOException If the file can not be read or the block is not valid.
+     */
+    public static byte[] readBlock(FileChannel channel, long[] block) throws IOException {
+        ByteBuffer compressed = ByteBuffer.allocate((int) block[1]);
+        readFully(channel, compressed, block[0]);
+        return inflate(compressed.array(), (int) block[1], (int) block[2]);
+    }
+
+    /**
+     * Reads and checks the magic bytes and the version.
+     *
+     * @param in The input to read from.
+     * @throws IOException If the header is not valid or the version is not supported.
+     */
+    private static void readHeader(DataInputStream in) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        try {
+            in.readFully(magic);
+        } catch (EOFException e) {
+            throw new IOException(UserMessages.WRONG_COMPRESSED_DATA_FORMAT.message);
+        }
+        if (!isFormatOf(magic)) {
+            throw new IOException(UserMessages.WRONG_COMPRESSED_DATA_FORMAT.message);
+        }
+
+        int version = in.readUnsignedByte();
+        if (version > VERSION) {
+            throw new IOException(String.format(UserMessages.UNSUPPORTED_BINARY_VERSION.message, version));
+        }
+    }
+
+    /**
+     * Reads bytes from the given position of the channel until the buffer is full.
+     *
+     * @param channel The channel to read from.
+     * @param buffer The buffer to fill.
+     * @param position The position in the file.
+     * @throws IOException If the file ends before the buffer is full.
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException(UserMessages.WRONG_COMPRESSED_DATA_FORMAT.message);
+            }
+        }
+    }
+
+    /**
+     * Decompresses the bytes of a block.
+     *
+     * @param compressed The compressed bytes.
+     * @param compressedLength The number of compressed bytes.
+     * @param textLength The length of the text of the block.
+     * @return The text of the block as bytes.
+     * @throws IOException If the bytes are not a valid block.
+     */
+    private static byte[] inflate(byte[] compressed, int compressedLength, int textLength) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed, 0, compressedLength);
+            byte[] text = new byte[textLength];
+            int inflatedLength = 0;
+            while (inflatedLength < textLength && !inflater.finished()) {
+                int count = inflater.inflate(text, inflatedLength, textLength - inflatedLength);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflatedLength += count;
+            }
+
+            if (inflatedLength != textLength || !inflater.finished()) {
+                throw new IOException(UserMessages.WRONG_COMPRESSED_DATA_FORMAT.message);
+            }
+            return text;
+        } catch (DataFormatException e) {
+            throw new IOException(UserMessages.WRONG_COMPRESSED_DATA_FORMAT.message, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * A stream which reads the blocks of a compressed file one after another and returns their text.
+     */
+    private static class BlockInputStream extends InputStream {
+        private final DataInputStream in;
+        private byte[] text;
+        private int position;
+
+        /**
+         * Constructs a new BlockInputStream.
+         *
+         * @param in The input of the file after its header.
+         */
+        BlockInputStream(DataInputStream in) {
+            this.in = in;
+            this.text = new byte[0];
+        }
+
+        /**
+         * Reads the next byte of the text.
+         *
+         * @return The byte or -1 at the end of the file.
+         * @throws IOException If a block can not be read.
+         */
+        @Override
+        public int read() throws IOException {
+            if (!hasText()) {
+                return -1;
+            }
+
+            return this.text[this.position++] & 0xFF;
+        }
+
+        /**
+         * Reads up to the given number of bytes of the text into an array.
+         *
+         * @param bytes The array to read into.
+         * @param offset The index of the array from which to write.
+         * @param length The maximum number of bytes to read.
+         * @return The number of read bytes or -1 at the end of the file.
+         * @throws IOException If a block can not be read.
+         */
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (!hasText()) {
+                return -1;
+            }
+
+            int readCount = Math.min(length, this.text.length - this.position);
+            System.arraycopy(this.text, this.position, bytes, offset, readCount);
+            this.position += readCount;
+            return readCount;
+        }
+
+        /**
+         * Closes the file.
+         *
+         * @throws IOException If the file can not be closed.
+         */
+        @Override
+        public void close() throws IOException {
+            this.in.close();
+        }
+
+        /**
+         * Makes sure there is text left to read by decompressing the next block if the current one is read.
+         *
+         * @return true if there is text to read and false at the end of the file.
+         * @throws IOException If a block can not be read.
+         */
+        private boolean hasText() throws IOException {
+            while (this.position == this.text.length) {
+                int textLength;
+                try {
+                    textLength = this.in.readInt();
+                } catch (EOFException e) {
+                    return false;
+                }
+
+                byte[] compressed;
+                try {
+                    int compressedLength = this.in.readInt();
+                    if (textLength < 0 || compressedLength < 0) {
+                        throw new IOException(UserMessages.WRONG_COMPRESSED_DATA_FORMAT.message);
+                    }
+
+                    compressed = new byte[compressedLength];
+                    this.in.readFully(compressed);
+                } catch (EOFException e) {
+                    //A block which was not fully written is not a valid end of the file
+                    throw new IOException(UserMessages.WRONG_COMPRESSED_DATA_FORMAT.message, e);
+                }
+                this.text = inflate(compressed, compressed.length, textLength);
+                this.position = 0;
+            }
+
+            return true;
+        }
+    }
+
+    /**
+     * A stream which collects the written text and compresses it in blocks.
+     * A block is written when the collected text reaches the block size and it ends after the last line break,
+     * so no line is split between two blocks.
+     */
+    public static class BlockOutputStream extends OutputStream {
+        private final DataOutputStream out;
+        private final Deflater deflater;
+        private byte[] text;
+        private int textLength;
+        private byte[] compressed;
+
+        /**
+         * Constructs a new BlockOutputStream and writes the header.
+         *
+         * @param out The stream of the file.
+         * @throws IOException If the header can not be written.
+         */
+        BlockOutputStream(OutputStream out) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(out));
+            this.deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+            this.text = new byte[BLOCK_SIZE * 2];
+            this.compressed = new byte[BLOCK_SIZE];
+
+            this.out.write(MAGIC);
+            this.out.writeByte(VERSION);
+        }
+
+        /**
+         * Writes one byte of text.
+         *
+         * @param b The byte to write.
+         * @throws IOException If a block can not be written.
+         */
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        /**
+         * Writes bytes of text. The full blocks are compressed and written.
+         *
+         * @param bytes The bytes to write.
+         * @param offset The index of the first byte to write.
+         * @param length The number of bytes to write.
+         * @throws IOException If a block can not be written.
+         */
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (this.textLength + length > this.text.length) {
+                this.text = Arrays.copyOf(this.text, Math.max(this.text.length * 2, this.textLength + length));
+            }
+            System.arraycopy(bytes, offset, this.text, this.textLength, length);
+            this.textLength += length;
+
+            if (this.textLength >= BLOCK_SIZE) {
+                writeBlock(false);
+            }
+        }
+
+        /**
+         * Writes the rest of the text as the last block and flushes the file, so it can be forced to the disk.
+         *
+         * @throws IOException If the block can not be written.
+         */
+        public void finish() throws IOException {
+            if (this.textLength > 0) {
+                writeBlock(true);
+            }
+            this.out.flush();
+        }
+
+        /**
+         * Writes the rest of the text and closes the file.
+         *
+         * @throws IOException If the block can not be written or the file can not be closed.
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                finish();
+            } finally {
+                this.deflater.end();
+                this.out.close();
+            }
+        }
+
+        /**
+         * Compresses and writes the collected whole lines as one block. The text after the last line break
+         * is kept for the next block, unless it is the last block.
+         *
+         * @param isLast true if the whole collected text has to be written.
+         * @throws IOException If the block can not be written.
+         */
+        private void writeBlock(boolean isLast) throws IOException {
+            int blockLength = isLast ? this.textLength : lastLineEnd();
+            if (blockLength == 0) {
+                //A line longer than a block is kept until its line break is written
+                return;
+            }
+
+            this.deflater.reset();
+            this.deflater.setInput(this.text, 0, blockLength);
+            this.deflater.finish();
+            int compressedLength = 0;
+            while (!this.deflater.finished()) {
+                if (compressedLength == this.compressed.length) {
+                    this.compressed = Arrays.copyOf(this.compressed, this.compressed.length * 2);
+                }
+                compressedLength += this.deflater.deflate(this.compressed, compressedLength, this.compressed.length - compressedLength);
+            }
+
+            this.out.writeInt(blockLength);
+            this.out.writeInt(compressedLength);
+            this.out.write(this.compressed, 0, compressedLength);
+
+            System.arraycopy(this.text, blockLength, this.text, 0, this.textLength - blockLength);
+            this.textLength -= blockLength;
+        }
+
+        /**
+         * Finds the end of the last whole line in the collected text.
+         *
+         * @return The index after the last line break or 0 if there is none.
+         */
+        private int lastLineEnd() {
+            for (int i = this.textLength - 1; i >= 0; i--) {
+                if (this.text[i] == '\n') {
+                    return i + 1;
+                }
+            }
+
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package bg.tu_varna.sit.oop1.utilities;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The ChannelTextWriter class writes text straight into a file channel through one reusable byte buffer.
+ * ASCII characters are copied into the buffer as single bytes. Only a string with other characters is passed
+ * to an encoder of the platform charset, which is the charset the text files are read with.
+ * Numbers are written digit by digit, so writing a record does not create strings.
+ */
+public class ChannelTextWriter implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_INT_LENGTH = 11;
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(Charset.defaultCharset());
+
+    private FileChannel channel;
+    private byte[] bytes;
+    private ByteBuffer buffer;
+    private CharsetEncoder encoder;
+    private int position;
+
+    /**
+     * Constructs a ChannelTextWriter for the file at the given path.
+     * The file is created if it does not exist and its old content is removed.
+     *
+     * @param filePath The path of the file.
+     * @throws IOException If the file can not be opened.
+     */
+    public ChannelTextWriter(String filePath) throws IOException {
+        this(FileChannel.open(Paths.get(filePath), StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    /**
+     * Constructs a ChannelTextWriter for the given channel.
+     *
+     * @param channel The channel to write to. It is closed together with the writer.
+     */
+    public ChannelTextWriter(FileChannel channel) {
+        this.channel = channel;
+        this.bytes = new byte[BUFFER_SIZE];
+        this.buffer = ByteBuffer.wrap(this.bytes);
+        this.encoder = Charset.defaultCharset().newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Writes the given text.
+     *
+     * @param text The text to write.
+     * @throws IOException If an error occurs while writing.
+     */
+    public void write(String text) throws IOException {
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                writeEncoded(text, i);
+                return;
+            }
+
+            if (this.position == this.bytes.length) {
+                flush();
+            }
+            this.bytes[this.position++] = (byte) c;
+        }
+    }
+
+    /**
+     * Writes an integer as decimal digits.
+     *
+     * @param value The integer to write.
+     * @throws IOException If an error occurs while writing.
+     */
+    public void write(int value) throws IOException {
+        ensureSpace(MAX_INT_LENGTH);
+
+        long remaining = value;
+        if (remaining < 0) {
+            this.bytes[this.position++] = '-';
+            remaining = -remaining;
+        }
+
+        int digitsStart = this.position;
+        do {
+            this.bytes[this.position++] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining > 0);
+
+        //The digits are written from the last one, so they are reversed in place
+        for (int left = digitsStart, right = this.position - 1; left < right; left++, right--) {
+            byte digit = this.bytes[left];
+            this.bytes[left] = this.bytes[right];
+            this.bytes[right] = digit;
+        }
+    }
+
+    /**
+     * Writes a number given in fixed-point hundredths, the same way as {@code Double.toString} writes it.
+     * The number has at least one decimal and at most two, like "4.0", "5.5" or "3.25".
+     *
+     * @param hundredths The number in hundredths.
+     * @throws IOException If an error occurs while writing.
+     */
+    public void writeHundredths(int hundredths) throws IOException {
+        if (hundredths < 0) {
+            write("-");
+            hundredths = -hundredths;
+        }
+
+        int fraction = hundredths % 100;
+        write(hundredths / 100);
+        ensureSpace(3);
+        this.bytes[this.position++] = '.';
+        if (fraction % 10 == 0) {
+            this.bytes[this.position++] = (byte) ('0' + fraction / 10);
+        } else {
+            this.bytes[this.position++] = (byte) ('0' + fraction / 10);
+            this.bytes[this.position++] = (byte) ('0' + fraction % 10);
+        }
+    }
+
+    /**
+     * Writes the line separator of the platform.
+     *
+     * @throws IOException If an error occurs while writing.
+     */
+    public void newLine() throws IOException {
+        ensureSpace(LINE_SEPARATOR.length);
+        System.arraycopy(LINE_SEPARATOR, 0, this.bytes, this.position, LINE_SEPARATOR.length);
+        this.position += LINE_SEPARATOR.length;
+    }
+
+    /**
+     * Writes the buffered bytes into the channel.
+     *
+     * @throws IOException If an error occurs while writing.
+     */
+    public void flush() throws IOException {
+        this.buffer.clear();
+        this.buffer.limit(this.position);
+        while (this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+        this.position = 0;
+    }
+
+    /**
+     * Writes the buffered bytes and forces them and the earlier ones to the disk.
+     *
+     * @throws IOException If an error occurs while writing.
+     */
+    public void force() throws IOException {
+        flush();
+        this.channel.force(true);
+    }
+
+    /**
+     * Writes the buffered bytes and closes the channel.
+     *
+     * @throws IOException If an error occurs while writing.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            this.channel.close();
+        }
+    }
+
+    /**
+     * Encodes the rest of the text, starting from its first character which is not ASCII, with the platform charset.
+     *
+     * @param text The text to write.
+     * @param start The index of the first character to encode.
+     * @throws IOException If an error occurs while writing.
+     */
+    private void writeEncoded(String text, int start) throws IOException {
+        CharBuffer chars = CharBuffer.wrap(text, start, text.length());
+        this.encoder.reset();
+        this.buffer.clear();
+        this.buffer.position(this.position);
+
+        CoderResult result;
+        do {
+            result = this.encoder.encode(chars, this.buffer, true);
+            if (result.isOverflow()) {
+                this.position = this.buffer.position();
+                flush();
+                this.buffer.clear();
+            }
+        } while (result.isOverflow());
+
+        while (this.encoder.flush(this.buffer).isOverflow()) {
+            this.position = this.buffer.position();
+            flush();
+            this.buffer.clear();
+        }
+        this.position = this.buffer.position();
+    }
+
+    /**
+     * Flushes the buffer if it has less free space than the given number of bytes.
+     *
+     * @param bytesCount The number of bytes which will be written.
+     * @throws IOException If an error occurs while writing.
+     */
+    private void ensureSpace(int bytesCount) throws IOException {
+        if (this.bytes.length - this.position < bytesCount) {
+            flush();
+        }
+    }
+}
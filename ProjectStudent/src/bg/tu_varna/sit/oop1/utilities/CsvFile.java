@@ -0,0 +1,231 @@
+package bg.tu_varna.sit.oop1.utilities;
+
+import bg.tu_varna.sit.oop1.enums.UserMessages;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The CsvFile class reads a file of comma-separated rows for the bulk commands and keeps the rows which were rejected.
+ * Empty lines and lines starting with # are skipped. The first row is skipped as a header if its fields are the names
+ * of the expected columns. Any other first row is kept, so a broken row is rejected with a reason like the other rows.
+ * The rejected rows are written to a file next to the input file, each one after a comment with its line number
+ * and the reason, so the file can be corrected and given to the command again.
+ */
+public class CsvFile {
+    private static final String SEPARATOR = ",";
+    private static final String COMMENT = "#";
+    private static final String REJECTS_EXTENSION = ".rejects";
+
+    private File file;
+    private List<String> rows;
+    private List<Integer> lineNumbers;
+    private String[] rejectReasons;
+
+    /**
+     * Constructs a CsvFile with the rows read from the given file.
+     *
+     * @param file The input file.
+     * @param rows The rows of the file.
+     * @param lineNumbers The line numbers of the rows in the file.
+     */
+    private CsvFile(File file, List<String> rows, List<Integer> lineNumbers) {
+        this.file = file;
+        this.rows = rows;
+        this.lineNumbers = lineNumbers;
+        this.rejectReasons = new String[rows.size()];
+    }
+
+    /**
+     * Reads the rows of the given file.
+     *
+     * @param path The path of the file.
+     * @param columnNames The names which a header may give to each column, in the order of the columns.
+     * @return The CsvFile with the rows of the file.
+     * @throws IOException If the file can not be read.
+     */
+    public static CsvFile read(String path, String[][] columnNames) throws IOException {
+        File file = new File(path);
+        List<String> rows = new ArrayList<>();
+        List<Integer> lineNumbers = new ArrayList<>();
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            int lineNumber = 0;
+            boolean isFirstRow = true;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                String trimmedLine = line.trim();
+                if (trimmedLine.isEmpty() || trimmedLine.startsWith(COMMENT)) {
+                    continue;
+                }
+
+                boolean isHeader = isFirstRow && isHeader(trimmedLine, columnNames);
+                isFirstRow = false;
+                if (isHeader) {
+                    continue;
+                }
+
+                rows.add(line);
+                lineNumbers.add(lineNumber);
+            }
+        }
+
+        return new CsvFile(file, rows, lineNumbers);
+    }
+
+    /**
+     * Checks if a row is a header, which names every column with one of its names.
+     *
+     * @param row The row to check.
+     * @param columnNames The names which a header may give to each column, in the order of the columns.
+     * @return true if the row is a header and false otherwise.
+     */
+    private static boolean isHeader(String row, String[][] columnNames) {
+        String[] fields = row.split(SEPARATOR, -1);
+        if (fields.length != columnNames.length) {
+            return false;
+        }
+
+        for (int i = 0; i < fields.length; i++) {
+            String field = fields[i].trim();
+            boolean isColumnName = false;
+            for (String columnName : columnNames[i]) {
+                if (columnName.equalsIgnoreCase(field)) {
+                    isColumnName = true;
+                    break;
+                }
+            }
+
+            if (!isColumnName) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Gets the name of the input file.
+     *
+     * @return The name of the file.
+     */
+    public String getName() {
+        return this.file.getName();
+    }
+
+    /**
+     * Gets the number of rows in the file.
+     *
+     * @return The number of rows.
+     */
+    public int size() {
+        return this.rows.size();
+    }
+
+    /**
+     * Gets the line number of a row in the file.
+     *
+     * @param row The index of the row.
+     * @return The line number, starting from 1.
+     */
+    public int getLineNumber(int row) {
+        return this.lineNumbers.get(row);
+    }
+
+    /**
+     * Splits a row into its trimmed fields. The last field keeps any commas in it.
+     *
+     * @param row The index of the row.
+     * @param fieldsCount The number of fields of a row.
+     * @return The fields of the row.
+     * @throws IllegalArgumentException If the row has fewer fields or one of them is empty.
+     */
+    public String[] getFields(int row, int fieldsCount) {
+        String[] fields = this.rows.get(row).split(SEPARATOR, fieldsCount);
+        if (fields.length != fieldsCount) {
+            throw new IllegalArgumentException(String.format(UserMessages.BULK_FIELDS_COUNT.message, fieldsCount, fields.length));
+        }
+
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = fields[i].trim();
+            if (fields[i].isEmpty()) {
+                throw new IllegalArgumentException(String.format(UserMessages.BULK_FIELD_EMPTY.message, i + 1));
+            }
+        }
+
+        return fields;
+    }
+
+    /**
+     * Rejects a row. Different rows may be rejected by different threads at the same time.
+     *
+     * @param row The index of the row.
+     * @param reason The reason of the rejection.
+     */
+    public void reject(int row, String reason) {
+        this.rejectReasons[row] = reason;
+    }
+
+    /**
+     * Checks if a row was rejected.
+     *
+     * @param row The index of the row.
+     * @return true if the row was rejected and false otherwise.
+     */
+    public boolean isRejected(int row) {
+        return this.rejectReasons[row] != null;
+    }
+
+    /**
+     * Writes the rejected rows in the order of the input file. An older rejects file is removed if no row was rejected.
+     *
+     * @return The number of rejected rows.
+     * @throws IOException If an error occurs while writing.
+     */
+    public int writeRejects() throws IOException {
+        File rejectsFile = getRejectsFile();
+        int rejectedCount = 0;
+        for (String reason : this.rejectReasons) {
+            if (reason != null) {
+                rejectedCount++;
+            }
+        }
+
+        if (rejectedCount == 0) {
+            Files.deleteIfExists(rejectsFile.toPath());
+            return 0;
+        }
+
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(rejectsFile))) {
+            for (int row = 0; row < this.rows.size(); row++) {
+                if (this.rejectReasons[row] == null) {
+                    continue;
+                }
+
+                writer.write(String.format(UserMessages.BULK_REJECTED_ROW.message, getLineNumber(row), this.rejectReasons[row]));
+                writer.newLine();
+                writer.write(this.rows.get(row));
+                writer.newLine();
+            }
+        }
+
+        return rejectedCount;
+    }
+
+    /**
+     * Gets the file into which the rejected rows are written.
+     *
+     * @return The rejects file.
+     */
+    public File getRejectsFile() {
+        return new File(this.file.getPath() + REJECTS_EXTENSION);
+    }
+}
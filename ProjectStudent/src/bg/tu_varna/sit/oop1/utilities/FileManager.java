@@ -1,22 +1,59 @@
 package bg.tu_varna.sit.oop1.utilities;
 
+import bg.tu_varna.sit.oop1.enums.FileFormat;
+import bg.tu_varna.sit.oop1.enums.LoadMode;
 import bg.tu_varna.sit.oop1.enums.UserMessages;
+import bg.tu_varna.sit.oop1.serialization.deserializer.BinaryDeserializable;
 import bg.tu_varna.sit.oop1.serialization.deserializer.CustomDeserializable;
+import bg.tu_varna.sit.oop1.serialization.serializer.BinarySerializable;
 import bg.tu_varna.sit.oop1.serialization.serializer.CustomSerializable;
+import bg.tu_varna.sit.oop1.serialization.serializer.StreamingSerializable;
+import bg.tu_varna.sit.oop1.repositories.LazyRepository;
 import bg.tu_varna.sit.oop1.repositories.Repository;
+import bg.tu_varna.sit.oop1.repositories.SegmentedRepository;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
 
 /**
  * The FileManager class provides functionalities to manage file operations.
  * It uses custom serialization and deserialization services.
+ * When binary services are given, the format of a file is detected when it is opened and the file is saved
+ * in the same format.
+ * A file is saved into a temporary file which replaces it only after it is fully written,
+ * so a save which is stopped halfway leaves the old file as it was.
+ * A path to a directory is a sharded dataset, which is read and written by a SegmentedRepository.
+ * A file with the magic bytes of the compressed format is read as text compressed in blocks, and a path
+ * with the extension of that format is saved compressed, whatever the format of the opened file was.
+ * A text file which was fully parsed gets a binary snapshot next to it, which is loaded instead of parsing
+ * the file again while the file is unchanged.
  *
  * @param <T> The type of objects that this file manager will handle.
  */
 public class FileManager<T> {
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+
     private CustomSerializable<T> serializableService;
     private CustomDeserializable<T> deserializableService;
+    private BinarySerializable<T> binarySerializableService;
+    private BinaryDeserializable<T> binaryDeserializableService;
     private Repository<T> repository;
+    private FileFormat fileFormat = FileFormat.TEXT;
+    private boolean isSnapshotEnabled = true;
+    private boolean hasSkippedRecords;
 
     /**
      * Constructs a FileManager with the specified deserializable service and repository.
@@ -36,8 +73,25 @@ public class FileManager<T> {
      * @param repository The repository to store and manage objects.
      */
     public FileManager(CustomSerializable<T> serializableService, CustomDeserializable<T> deserializableService, Repository<T> repository) {
+        this(serializableService, deserializableService, null, null, repository);
+    }
+
+    /**
+     * Constructs a FileManager which can read and write both the text and the binary format.
+     *
+     * @param serializableService The service for serializing objects as text.
+     * @param deserializableService The service for deserializing objects from text.
+     * @param binarySerializableService The service for serializing objects as binary records.
+     * @param binaryDeserializableService The service for deserializing objects from binary records.
+     * @param repository The repository to store and manage objects.
+     */
+    public FileManager(CustomSerializable<T> serializableService, CustomDeserializable<T> deserializableService,
+                       BinarySerializable<T> binarySerializableService, BinaryDeserializable<T> binaryDeserializableService,
+                       Repository<T> repository) {
         this.serializableService = serializableService;
         this.deserializableService = deserializableService;
+        this.binarySerializableService = binarySerializableService;
+        this.binaryDeserializableService = binaryDeserializableService;
         this.repository = repository;
     }
 
@@ -49,6 +103,50 @@ public class FileManager<T> {
      * @throws IOException If an error occurs while reading the file.
      */
     public void open (String filePath) throws IOException {
+        open(filePath, LoadMode.SEQUENTIAL);
+    }
+
+    /**
+     * Opens a file from the given file path and reads it in the given way.
+     * Deserializes the content of the file and store the objects in the repository.
+     * Binary files are always read sequentially, as their records are not separated by line breaks.
+     * Compressed files are read in parallel block by block with the parallel loading and sequentially otherwise.
+     *
+     * @param filePath The path of the file to open.
+     * @param loadMode The way in which the file is loaded.
+     * @throws IOException If an error occurs while reading the file.
+     */
+    public void open (String filePath, LoadMode loadMode) throws IOException {
+        open(filePath, loadMode, null);
+    }
+
+    /**
+     * Opens a file from the given file path and reads it in the given way after the given load.
+     * The records are parsed only after the dependency is completed, but the pipelined loading
+     * already starts reading the file while it is waiting.
+     *
+     * @param filePath The path of the file to open.
+     * @param loadMode The way in which the file is loaded.
+     * @param dependency A load which has to complete before the records are parsed or null if there is none.
+     * @throws IOException If an error occurs while reading the file or while running the dependency.
+     */
+    public void open (String filePath, LoadMode loadMode, Future<?> dependency) throws IOException {
+        try {
+            openAfter(filePath, loadMode, dependency);
+        } finally {
+            awaitDependency(dependency);
+        }
+    }
+
+    /**
+     * Opens a file from the given file path and reads it in the given way.
+     *
+     * @param filePath The path of the file to open.
+     * @param loadMode The way in which the file is loaded.
+     * @param dependency A load which has to complete before the records are parsed or null if there is none.
+     * @throws IOException If an error occurs while reading the file.
+     */
+    private void openAfter (String filePath, LoadMode loadMode, Future<?> dependency) throws IOException {
         File file = new File(filePath);
         String absolutePath = file.getAbsolutePath();
 
@@ -58,22 +156,129 @@ public class FileManager<T> {
         }
 
 
+        if (ShardedDataset.isDatasetPath(filePath)) {
+            Files.createDirectories(file.toPath());
+            fileFormat = FileFormat.SHARDED;
+            getSegmentedRepository().openSegments(file);
+            return;
+        }
+
+        fileFormat = BlockCompressedFile.isCompressedPath(filePath) ? FileFormat.COMPRESSED : FileFormat.TEXT;
         if (!file.exists()) {
             file.createNewFile();
             return; // New file created, nothing to load.
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                T object = deserializableService.deserialize(line);
-                repository.addNew(object);
+        try {
+            fileFormat = detectFormat(file);
+            hasSkippedRecords = false;
+            BinarySnapshot<T> snapshot = createSnapshot(file, loadMode);
+            if (snapshot != null && snapshot.exists()) {
+                //The binary records are linked to the catalog, so the pipelined loading waits for it here
+                awaitDependency(dependency);
+                if (loadSnapshot(snapshot)) {
+                    return;
+                }
+            }
+
+            if (loadMode == LoadMode.PIPELINED && fileFormat == FileFormat.TEXT) {
+                loadInPipeline(file, dependency);
+            } else {
+                awaitDependency(dependency);
+                //A repository which can not read its records later loads them sequentially
+                if (loadMode == LoadMode.LAZY && fileFormat == FileFormat.TEXT && repository instanceof LazyRepository) {
+                    ((LazyRepository) repository).openLazily(file);
+                } else if (loadMode == LoadMode.PARALLEL && fileFormat != FileFormat.BINARY) {
+                    loadInParallel(file);
+                } else {
+                    readFile(file, fileFormat, this::addToRepository);
+                }
+            }
+
+            //A file with skipped records is parsed again next time, so the skipped records are reported again
+            if (snapshot != null && !hasSkippedRecords) {
+                writeSnapshot(snapshot);
             }
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Enables or disables the binary snapshots of the opened text files.
+     * They have to be disabled when the repository does not get all objects of a file, like when loading with a filter.
+     *
+     * @param isSnapshotEnabled true to read and write snapshots and false otherwise.
+     */
+    public void setSnapshotEnabled(boolean isSnapshotEnabled) {
+        this.isSnapshotEnabled = isSnapshotEnabled;
+    }
+
+    /**
+     * Creates the snapshot of the given file if the file can have one. Only text files which are fully parsed
+     * on open can have a snapshot, so a lazily opened file has none.
+     *
+     * @param file The opened file.
+     * @param loadMode The way in which the file is loaded.
+     * @return The snapshot of the file or null if the file can not have one.
+     */
+    private BinarySnapshot<T> createSnapshot(File file, LoadMode loadMode) {
+        if (!isSnapshotEnabled || fileFormat != FileFormat.TEXT || loadMode == LoadMode.LAZY
+                || binarySerializableService == null || binaryDeserializableService == null) {
+            return null;
+        }
+
+        return new BinarySnapshot<>(file, binarySerializableService, binaryDeserializableService);
+    }
+
+    /**
+     * Loads the objects of the snapshot into the repository if the snapshot belongs to the current content of the file.
+     * Prints how many objects were loaded and how long it took.
+     *
+     * @param snapshot The snapshot of the opened file.
+     * @return true if the objects were loaded and false if the file has to be parsed.
+     * @throws IOException If the file can not be read.
+     */
+    private boolean loadSnapshot(BinarySnapshot<T> snapshot) throws IOException {
+        long startTime = System.nanoTime();
+        List<T> objects = snapshot.read();
+        if (objects == null) {
+            return false;
+        }
+
+        int recordNumber = 0;
+        for (T object : objects) {
+            recordNumber++;
+            addToRepository(object, recordNumber);
+        }
+
+        System.out.println(String.format(UserMessages.SNAPSHOT_LOADED.message, recordNumber,
+                snapshot.getSnapshotFile().getName(), toMillis(System.nanoTime() - startTime)));
+        return true;
+    }
+
+    /**
+     * Writes the objects of the repository as the snapshot of the opened file.
+     *
+     * @param snapshot The snapshot of the opened file.
+     */
+    private void writeSnapshot(BinarySnapshot<T> snapshot) {
+        //The snapshot only saves time on the next open, so a folder which can not be written is not an error
+        try {
+            snapshot.write(repository.getAll());
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Gets the format of the last opened file, in which the file is saved.
+     *
+     * @return The format of the file.
+     */
+    public FileFormat getFileFormat() {
+        return fileFormat;
+    }
+
     /**
      * Clears the repository.
      */
@@ -89,12 +294,393 @@ public class FileManager<T> {
      * @throws IOException If an error occurs while writing to the file.
      */
     public void save(String filePath) throws IOException {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
-            for (T object : repository.getAll()) {
+        if (ShardedDataset.isDatasetPath(filePath)) {
+            getSegmentedRepository().saveSegments(new File(filePath));
+            return;
+        }
+
+        writeFile(repository.getAll(), filePath, getSaveFormat(filePath), new AtomicInteger());
+    }
+
+    /**
+     * Saves a snapshot of the objects from the repository on a background thread.
+     * The objects are copied on the current thread, so the repository can be changed while the snapshot is written.
+     *
+     * @param filePath The path of the file where the objects will be saved.
+     * @param copyService The service which makes a copy of an object that does not change with it.
+     * @return The started save, which shows its progress.
+     * @throws IllegalStateException If the opened file or the target is a dataset directory.
+     */
+    public BackgroundSave saveInBackground(String filePath, UnaryOperator<T> copyService) {
+        if (fileFormat == FileFormat.SHARDED || ShardedDataset.isDatasetPath(filePath)) {
+            throw new IllegalStateException(UserMessages.SAVE_DATASET_IN_BACKGROUND.message);
+        }
+
+        Collection<T> objects = repository.getAll();
+        List<T> snapshot = new ArrayList<>(objects.size());
+        for (T object : objects) {
+            snapshot.add(copyService.apply(object));
+        }
+
+        FileFormat format = getSaveFormat(filePath);
+        BackgroundSave backgroundSave = new BackgroundSave(filePath, snapshot.size());
+        backgroundSave.start(() -> {
+            writeFile(snapshot, filePath, format, backgroundSave.getWrittenCounter());
+            return null;
+        });
+
+        return backgroundSave;
+    }
+
+    /**
+     * Reads all objects of the file or the dataset directory at the given path into the repository, so they can be converted.
+     * Unlike opening a file, a record which can not be read fails the reading and no snapshot is used.
+     *
+     * @param filePath The path of the file or the dataset directory to read.
+     * @return The format of the read file.
+     * @throws Exception If the file can not be read or a record is not valid.
+     */
+    public FileFormat read(String filePath) throws Exception {
+        File file = new File(filePath);
+        if (!file.exists()) {
+            throw new FileNotFoundException(filePath);
+        }
+
+        if (ShardedDataset.isDatasetPath(filePath)) {
+            fileFormat = FileFormat.SHARDED;
+            getSegmentedRepository().openSegments(file);
+            return fileFormat;
+        }
+
+        fileFormat = detectFormat(file);
+        readFile(file, fileFormat, this::addToRepository);
+        return fileFormat;
+    }
+
+    /**
+     * Writes the objects of the repository at the target path in the other format than the one of the read file.
+     * A text file is converted into a binary file and a binary file into a text file.
+     * A path with the extension of the compressed files is written compressed and a dataset directory in segments.
+     *
+     * @param targetPath The path of the converted file.
+     * @return The format of the converted file.
+     * @throws IOException If the target file can not be written.
+     */
+    public FileFormat convert(String targetPath) throws IOException {
+        if (ShardedDataset.isDatasetPath(targetPath)) {
+            getSegmentedRepository().saveSegments(new File(targetPath));
+            return FileFormat.SHARDED;
+        }
+
+        FileFormat targetFormat = fileFormat == FileFormat.TEXT ? FileFormat.BINARY : FileFormat.TEXT;
+        if (BlockCompressedFile.isCompressedPath(targetPath)) {
+            targetFormat = FileFormat.COMPRESSED;
+        }
+
+        writeFile(repository.getAll(), targetPath, targetFormat, new AtomicInteger());
+        return targetFormat;
+    }
+
+    /**
+     * Gets the repository as a repository which reads and writes dataset directories.
+     *
+     * @return The segmented repository.
+     * @throws IOException If the repository can not keep its objects in a dataset directory.
+     */
+    private SegmentedRepository getSegmentedRepository() throws IOException {
+        if (!(repository instanceof SegmentedRepository)) {
+            throw new IOException(UserMessages.MISSING_DIRECTORY_ERROR.message);
+        }
+
+        return (SegmentedRepository) repository;
+    }
+
+    /**
+     * Loads a text file with the parallel loader and adds the parsed objects to the repository in the order of the file.
+     * If a line can not be parsed, the objects before it are kept and the error is thrown, as in the sequential loading.
+     * Prints the number of loaded records per second.
+     *
+     * @param file The file to load.
+     * @throws Exception If the file can not be read or a line is not valid.
+     */
+    private void loadInParallel(File file) throws Exception {
+        long startTime = System.nanoTime();
+        ParallelTextLoader<T> loader = new ParallelTextLoader<>(deserializableService);
+        List<ParallelTextLoader.ChunkResult<T>> results = fileFormat == FileFormat.COMPRESSED
+                ? loader.loadCompressed(file) : loader.load(file);
+
+        int recordNumber = 0;
+        for (ParallelTextLoader.ChunkResult<T> result : results) {
+            for (T object : result.getObjects()) {
+                recordNumber++;
+                addToRepository(object, recordNumber);
+            }
+
+            if (result.getError() != null) {
+                throw result.getError();
+            }
+        }
+
+        long elapsedNanos = Math.max(1, System.nanoTime() - startTime);
+        long recordsPerSecond = recordNumber * 1_000_000_000L / elapsedNanos;
+        System.out.println(String.format(UserMessages.RECORDS_LOADED.message, recordNumber, toMillis(elapsedNanos), recordsPerSecond));
+    }
+
+    /**
+     * Loads a text file with the pipelined loader and prints how long every stage took.
+     *
+     * @param file The file to load.
+     * @param dependency A load which has to complete before the lines are parsed or null if there is none.
+     * @throws Exception If the file can not be read or a line is not valid.
+     */
+    private void loadInPipeline(File file, Future<?> dependency) throws Exception {
+        PipelinedTextLoader<T> loader = new PipelinedTextLoader<>(deserializableService);
+        try {
+            loader.load(file, dependency, this::addToRepository);
+        } finally {
+            System.out.println(String.format(UserMessages.PIPELINE_TIMINGS.message, loader.getRecordsCount(),
+                    toMillis(loader.getTotalNanos()), toMillis(loader.getDependencyNanos()), toMillis(loader.getReadNanos()),
+                    toMillis(loader.getParseNanos()), loader.getParsersCount(), toMillis(loader.getInsertNanos())));
+        }
+    }
+
+    /**
+     * Waits until the given load is completed.
+     *
+     * @param dependency The load to wait for or null if there is none.
+     * @throws IOException If the load failed or the waiting was interrupted.
+     */
+    private void awaitDependency(Future<?> dependency) throws IOException {
+        if (dependency == null) {
+            return;
+        }
+
+        try {
+            dependency.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Converts nanoseconds into milliseconds.
+     *
+     * @param nanos The time in nanoseconds.
+     * @return The time in milliseconds.
+     */
+    private static long toMillis(long nanos) {
+        return nanos / 1_000_000;
+    }
+
+    /**
+     * Adds a loaded object to the repository.
+     * The repository rejects records with an already loaded key, so they are reported and the rest of the file is still read.
+     *
+     * @param object The loaded object.
+     * @param recordNumber The number of the record in the file.
+     */
+    private void addToRepository(T object, int recordNumber) {
+        try {
+            repository.addNew(object);
+        } catch (IllegalArgumentException e) {
+            hasSkippedRecords = true;
+            System.out.println(String.format(UserMessages.DUPLICATE_RECORD.message, recordNumber, e.getMessage()));
+        }
+    }
+
+    /**
+     * Detects the format of the given file by its first bytes.
+     *
+     * @param file The file to check.
+     * @return The binary format if the file starts with the binary header and the text format otherwise.
+     * @throws IOException If an error occurs while reading the file.
+     */
+    private FileFormat detectFormat(File file) throws IOException {
+        byte[] firstBytes = new byte[8];
+        int readCount;
+        try (InputStream in = new FileInputStream(file)) {
+            readCount = in.read(firstBytes);
+        }
+        firstBytes = Arrays.copyOf(firstBytes, Math.max(0, readCount));
+
+        if (BlockCompressedFile.isFormatOf(firstBytes)) {
+            return FileFormat.COMPRESSED;
+        }
+
+        boolean isBinary = binaryDeserializableService != null && binaryDeserializableService.isFormatOf(firstBytes);
+        return isBinary ? FileFormat.BINARY : FileFormat.TEXT;
+    }
+
+    /**
+     * Gets the format in which the objects are saved to the given path.
+     * A path with the extension of the compressed files is saved compressed and a dataset saved into a single file
+     * is written as text. Otherwise the file is saved in the format of the opened file.
+     *
+     * @param filePath The path of the saved file.
+     * @return The format of the saved file.
+     */
+    private FileFormat getSaveFormat(String filePath) {
+        if (BlockCompressedFile.isCompressedPath(filePath)) {
+            return FileFormat.COMPRESSED;
+        }
+
+        return fileFormat == FileFormat.SHARDED ? FileFormat.TEXT : fileFormat;
+    }
+
+    /**
+     * Reads all records of the given file and passes each object to the handler.
+     *
+     * @param file The file to read.
+     * @param format The format of the file.
+     * @param handler The handler of the read objects.
+     * @throws Exception If the file can not be read or a record is not valid.
+     */
+    private void readFile(File file, FileFormat format, RecordHandler<T> handler) throws Exception {
+        if (format == FileFormat.BINARY) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                binaryDeserializableService.readHeader(in);
+                T object;
+                int recordNumber = 0;
+                while ((object = binaryDeserializableService.deserialize(in)) != null) {
+                    recordNumber++;
+                    handler.handle(object, recordNumber);
+                }
+            }
+            return;
+        }
+
+        //The lines of a compressed file are decompressed block by block while they are read
+        Reader fileReader = format == FileFormat.COMPRESSED
+                ? new InputStreamReader(BlockCompressedFile.newInputStream(file)) : new FileReader(file);
+        try (BufferedReader reader = new BufferedReader(fileReader)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                T object = deserializableService.deserialize(line);
+                if (object != null) {
+                    handler.handle(object, lineNumber);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the given objects to a file in the given format.
+     * The objects are written into a temporary file next to the file, which is forced to the disk
+     * and then moved over the file in one step.
+     *
+     * @param objects The objects to write.
+     * @param filePath The path of the file.
+     * @param format The format of the file.
+     * @param writtenCount The counter which is increased after every written object.
+     * @throws IOException If an error occurs while writing to the file.
+     */
+    private void writeFile(Collection<T> objects, String filePath, FileFormat format, AtomicInteger writtenCount) throws IOException {
+        Path targetPath = new File(filePath).getAbsoluteFile().toPath();
+        Path temporaryPath = targetPath.resolveSibling(targetPath.getFileName() + TEMPORARY_EXTENSION);
+
+        try {
+            writeObjects(objects, temporaryPath.toString(), format, writtenCount);
+            replaceFile(temporaryPath, targetPath);
+        } finally {
+            Files.deleteIfExists(temporaryPath);
+        }
+    }
+
+    /**
+     * Writes the given objects to a file in the given format and forces them to the disk.
+     *
+     * @param objects The objects to write.
+     * @param filePath The path of the file.
+     * @param format The format of the file.
+     * @param writtenCount The counter which is increased after every written object.
+     * @throws IOException If an error occurs while writing to the file.
+     */
+    @SuppressWarnings("unchecked")
+    private void writeObjects(Collection<T> objects, String filePath, FileFormat format, AtomicInteger writtenCount) throws IOException {
+        if (format == FileFormat.BINARY) {
+            FileOutputStream fileOut = new FileOutputStream(filePath);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+                binarySerializableService.writeHeader(objects, out);
+                for (T object : objects) {
+                    binarySerializableService.serialize(object, out);
+                    writtenCount.incrementAndGet();
+                }
+                out.flush();
+                fileOut.getFD().sync();
+            }
+            return;
+        }
+
+        if (format == FileFormat.COMPRESSED) {
+            FileOutputStream fileOut = new FileOutputStream(filePath);
+            BlockCompressedFile.BlockOutputStream blockOut = BlockCompressedFile.newOutputStream(fileOut);
+            try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(blockOut))) {
+                for (T object : objects) {
+                    writer.write(serializableService.serialize(object));
+                    writer.newLine();
+                    writtenCount.incrementAndGet();
+                }
+                writer.flush();
+                blockOut.finish();
+                fileOut.getFD().sync();
+            }
+            return;
+        }
+
+        //A streaming serializer writes every object straight into the file instead of building a string for it
+        if (serializableService instanceof StreamingSerializable) {
+            StreamingSerializable<T> streamingSerializableService = (StreamingSerializable<T>) serializableService;
+            try (ChannelTextWriter writer = new ChannelTextWriter(filePath)) {
+                for (T object : objects) {
+                    streamingSerializableService.serialize(object, writer);
+                    writer.newLine();
+                    writtenCount.incrementAndGet();
+                }
+                writer.force();
+            }
+            return;
+        }
+
+        FileOutputStream fileOut = new FileOutputStream(filePath);
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(fileOut))) {
+            for (T object : objects) {
                 String line = serializableService.serialize(object);
                 writer.write(line);
                 writer.newLine();
+                writtenCount.incrementAndGet();
             }
+            writer.flush();
+            fileOut.getFD().sync();
+        }
+    }
+
+    /**
+     * Moves the written temporary file over the target file in one step, so the target file is either
+     * the old one or the new one. If the file system can not move files atomically, the file is replaced normally.
+     *
+     * @param temporaryPath The path of the written temporary file.
+     * @param targetPath The path of the target file.
+     * @throws IOException If the file can not be moved.
+     */
+    private void replaceFile(Path temporaryPath, Path targetPath) throws IOException {
+        try {
+            Files.move(temporaryPath, targetPath, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporaryPath, targetPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        //The new name is kept after a crash only when the directory is forced too, which not every platform allows
+        try (FileChannel directory = FileChannel.open(targetPath.getParent(), StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException ignored) {
         }
     }
 
@@ -122,4 +708,19 @@ public class FileManager<T> {
             return false;
         }
     }
+
+    /**
+     * Handler of the objects read from a file.
+     *
+     * @param <T> The type of the read objects.
+     */
+    private interface RecordHandler<T> {
+        /**
+         * Handles an object read from a file.
+         *
+         * @param object The read object.
+         * @param recordNumber The number of the record in the file, starting from 1.
+         */
+        void handle(T object, int recordNumber);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+package bg.tu_varna.sit.oop1.utilities;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The IdDictionary class assigns consecutive numeric ids to values.
+ * It is used by the compact storages to replace repeated object references with small ids.
+ *
+ * @param <T> The type of values in the dictionary.
+ */
+public class IdDictionary<T> {
+    private Map<T, Integer> idsByValue;
+    private List<T> values;
+
+    /**
+     * Constructs a new empty IdDictionary.
+     */
+    public IdDictionary() {
+        this.idsByValue = new HashMap<>();
+        this.values = new ArrayList<>();
+    }
+
+    /**
+     * Gets the id of the given value. A new id is assigned if the value is not in the dictionary yet.
+     *
+     * @param value The value to look for.
+     * @return The id of the value.
+     */
+    public int getOrAddId(T value) {
+        Integer id = this.idsByValue.get(value);
+        if (id == null) {
+            id = this.values.size();
+            this.idsByValue.put(value, id);
+            this.values.add(value);
+        }
+
+        return id;
+    }
+
+    /**
+     * Gets the id of the given value.
+     *
+     * @param value The value to look for.
+     * @return The id of the value or -1 if the value is not in the dictionary.
+     */
+    public int getId(T value) {
+        Integer id = this.idsByValue.get(value);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Gets the value with the given id.
+     *
+     * @param id The id of the value.
+     * @return The value with this id.
+     */
+    public T get(int id) {
+        return this.values.get(id);
+    }
+
+    /**
+     * Gets all values in the order of their ids.
+     *
+     * @return A read-only list of the values.
+     */
+    public List<T> getAll() {
+        return Collections.unmodifiableList(this.values);
+    }
+
+    /**
+     * Gets the number of values in the dictionary.
+     *
+     * @return The number of values.
+     */
+    public int size() {
+        return this.values.size();
+    }
+
+    /**
+     * Removes all values from the dictionary.
+     */
+    public void clear() {
+        this.idsByValue.clear();
+        this.values.clear();
+    }
+}
@@ -0,0 +1,196 @@
+package bg.tu_varna.sit.oop1.utilities;
+
+import java.util.Arrays;
+
+/**
+ * The IntHashIndex class is a hash index from int keys to int values kept in two primitive arrays.
+ * It uses open addressing with linear probing, so it does not create an object per entry.
+ * The key 0 marks an empty slot and can not be stored, which suits faculty numbers as they can not be zero.
+ */
+public class IntHashIndex {
+    private static final int EMPTY_KEY = 0;
+    private static final int MISSING_VALUE = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    /**
+     * Constructs a new empty IntHashIndex.
+     */
+    public IntHashIndex() {
+        this.keys = new int[INITIAL_CAPACITY];
+        this.values = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Gets the value stored for the given key.
+     *
+     * @param key The key to look for.
+     * @return The value for the key or -1 if the key is not in the index.
+     */
+    public int get(int key) {
+        int slot = findSlot(key);
+        return this.keys[slot] == EMPTY_KEY ? MISSING_VALUE : this.values[slot];
+    }
+
+    /**
+     * Checks if the given key is in the index.
+     *
+     * @param key The key to look for.
+     * @return true if the key is in the index and false otherwise.
+     */
+    public boolean contains(int key) {
+        return key != EMPTY_KEY && this.keys[findSlot(key)] != EMPTY_KEY;
+    }
+
+    /**
+     * Stores a value for the given key, replacing the previous value if there is one.
+     *
+     * @param key The key of the value.
+     * @param value The value to store.
+     * @throws IllegalArgumentException If the key is zero.
+     */
+    public void put(int key, int value) {
+        if (key == EMPTY_KEY) {
+            throw new IllegalArgumentException(String.valueOf(key));
+        }
+
+        int slot = findSlot(key);
+        if (this.keys[slot] == EMPTY_KEY) {
+            this.keys[slot] = key;
+            this.size++;
+        }
+        this.values[slot] = value;
+
+        if (this.size * 4 > this.keys.length * 3) {
+            resize(this.keys.length * 2);
+        }
+    }
+
+    /**
+     * Removes the given key from the index.
+     * The following entries of the probe sequence are moved back, so no deleted markers are left.
+     *
+     * @param key The key to remove.
+     */
+    public void remove(int key) {
+        if (!contains(key)) {
+            return;
+        }
+
+        int mask = this.keys.length - 1;
+        int slot = findSlot(key);
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            int nextKey = this.keys[next];
+            if (nextKey == EMPTY_KEY) {
+                break;
+            }
+
+            int home = hash(nextKey) & mask;
+            //The entry can be moved to the free slot only if the free slot is between its home and its position
+            boolean isMovable = slot <= next ? (home <= slot || home > next) : (home <= slot && home > next);
+            if (isMovable) {
+                this.keys[slot] = nextKey;
+                this.values[slot] = this.values[next];
+                slot = next;
+            }
+        }
+
+        this.keys[slot] = EMPTY_KEY;
+        this.size--;
+    }
+
+    /**
+     * Gets the number of keys in the index.
+     *
+     * @return The number of keys.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets all keys of the index in no particular order.
+     *
+     * @return A new array with the keys.
+     */
+    public int[] getKeys() {
+        int[] storedKeys = new int[this.size];
+        int count = 0;
+        for (int key : this.keys) {
+            if (key != EMPTY_KEY) {
+                storedKeys[count++] = key;
+            }
+        }
+
+        return storedKeys;
+    }
+
+    /**
+     * Removes all keys from the index.
+     */
+    public void clear() {
+        Arrays.fill(this.keys, EMPTY_KEY);
+        this.size = 0;
+    }
+
+    /**
+     * Gets the number of bytes taken by the arrays of the index.
+     *
+     * @return The size of the index in bytes.
+     */
+    public long getBytes() {
+        return (long) (this.keys.length + this.values.length) * Integer.BYTES;
+    }
+
+    /**
+     * Finds the slot of the given key or the empty slot where it should be stored.
+     *
+     * @param key The key to look for.
+     * @return The slot of the key.
+     */
+    private int findSlot(int key) {
+        int mask = this.keys.length - 1;
+        int slot = hash(key) & mask;
+        while (this.keys[slot] != EMPTY_KEY && this.keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    /**
+     * Moves all entries into arrays with the given capacity.
+     *
+     * @param capacity The new capacity, which must be a power of two.
+     */
+    private void resize(int capacity) {
+        int[] oldKeys = this.keys;
+        int[] oldValues = this.values;
+        this.keys = new int[capacity];
+        this.values = new int[capacity];
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY_KEY) {
+                int slot = findSlot(oldKeys[i]);
+                this.keys[slot] = oldKeys[i];
+                this.values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Spreads the bits of the key, so consecutive faculty numbers do not form long probe sequences.
+     *
+     * @param key The key to hash.
+     * @return The hash of the key.
+     */
+    private static int hash(int key) {
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
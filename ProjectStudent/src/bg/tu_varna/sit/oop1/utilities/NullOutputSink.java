@@ -0,0 +1,68 @@
+package bg.tu_varna.sit.oop1.utilities;
+
+/**
+ * The NullOutputSink class implements the OutputSink interface by leaving out all output.
+ * It is used to measure the commands without the cost of writing their output.
+ */
+public class NullOutputSink implements OutputSink {
+    /**
+     * Leaves out the given text.
+     *
+     * @param text The text to leave out.
+     * @return This sink.
+     */
+    @Override
+    public OutputSink print(CharSequence text) {
+        return this;
+    }
+
+    /**
+     * Leaves out the given integer.
+     *
+     * @param value The integer to leave out.
+     * @return This sink.
+     */
+    @Override
+    public OutputSink print(int value) {
+        return this;
+    }
+
+    /**
+     * Leaves out the given number.
+     *
+     * @param value The number to leave out.
+     * @return This sink.
+     */
+    @Override
+    public OutputSink print(double value) {
+        return this;
+    }
+
+    /**
+     * Leaves out the given line.
+     *
+     * @param text The text to leave out.
+     * @return This sink.
+     */
+    @Override
+    public OutputSink println(CharSequence text) {
+        return this;
+    }
+
+    /**
+     * Leaves out a line separator.
+     *
+     * @return This sink.
+     */
+    @Override
+    public OutputSink println() {
+        return this;
+    }
+
+    /**
+     * Does nothing, as there is no buffered output.
+     */
+    @Override
+    public void flush() {
+    }
+}
@@ -0,0 +1,51 @@
+package bg.tu_varna.sit.oop1.utilities;
+
+/**
+ * The OutputSink interface defines where the services and the reporters write their output.
+ * The output may be buffered, so it is only guaranteed to reach its target after a flush.
+ */
+public interface OutputSink {
+    /**
+     * Writes the given text.
+     *
+     * @param text The text to write.
+     * @return This sink.
+     */
+    OutputSink print(CharSequence text);
+
+    /**
+     * Writes the given integer.
+     *
+     * @param value The integer to write.
+     * @return This sink.
+     */
+    OutputSink print(int value);
+
+    /**
+     * Writes the given number in the format of {@code Double.toString}.
+     *
+     * @param value The number to write.
+     * @return This sink.
+     */
+    OutputSink print(double value);
+
+    /**
+     * Writes the given text followed by a line separator.
+     *
+     * @param text The text to write.
+     * @return This sink.
+     */
+    OutputSink println(CharSequence text);
+
+    /**
+     * Writes a line separator.
+     *
+     * @return This sink.
+     */
+    OutputSink println();
+
+    /**
+     * Writes the buffered output to its target.
+     */
+    void flush();
+}
@@ -0,0 +1,295 @@
+package bg.tu_varna.sit.oop1.utilities;
+
+import bg.tu_varna.sit.oop1.serialization.deserializer.CustomDeserializable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * The ParallelTextLoader class parses a text file with one record per line on several threads.
+ * The file is memory-mapped and split into chunks which end at a line break, so no line is shared by two chunks.
+ * Every chunk is decoded and deserialized on a worker of a fork-join pool.
+ * The results are returned in the order of the chunks, so they can be added to a repository as if the file
+ * was read line by line.
+ * A block-compressed file is split by its blocks, which are decompressed and parsed on the workers in the same way.
+ *
+ * @param <T> The type of objects that are read from the file.
+ */
+public class ParallelTextLoader<T> {
+    private static final long MIN_CHUNK_SIZE = 1L << 20;
+    private static final long MAX_CHUNK_SIZE = 64L << 20;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int SCAN_BUFFER_SIZE = 8192;
+
+    private CustomDeserializable<T> deserializableService;
+    private ForkJoinPool pool;
+
+    /**
+     * Constructs a ParallelTextLoader which parses the chunks in the common fork-join pool.
+     *
+     * @param deserializableService The service for deserializing objects. It must be safe to use from several threads.
+     */
+    public ParallelTextLoader(CustomDeserializable<T> deserializableService) {
+        this(deserializableService, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a ParallelTextLoader which parses the chunks in the given fork-join pool.
+     *
+     * @param deserializableService The service for deserializing objects. It must be safe to use from several threads.
+     * @param pool The pool in which the chunks are parsed.
+     */
+    public ParallelTextLoader(CustomDeserializable<T> deserializableService, ForkJoinPool pool) {
+        this.deserializableService = deserializableService;
+        this.pool = pool;
+    }
+
+    /**
+     * Parses all lines of the given file.
+     *
+     * @param file The file to read.
+     * @return The results of the chunks in the order of the file.
+     * @throws IOException If an error occurs while reading the file.
+     * @throws InterruptedException If the thread is interrupted while waiting for the chunks.
+     */
+    public List<ChunkResult<T>> load(File file) throws IOException, InterruptedException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            List<Callable<ChunkResult<T>>> tasks = new ArrayList<>();
+            for (long[] chunk : splitIntoChunks(channel)) {
+                tasks.add(() -> parseChunk(channel, chunk[0], chunk[1]));
+            }
+
+            return invokeAll(tasks);
+        }
+    }
+
+    /**
+     * Parses all lines of the given block-compressed file. Every block is a chunk.
+     *
+     * @param file The compressed file to read.
+     * @return The results of the blocks in the order of the file.
+     * @throws IOException If an error occurs while reading the file or the file is not a compressed file.
+     * @throws InterruptedException If the thread is interrupted while waiting for the blocks.
+     */
+    public List<ChunkResult<T>> loadCompressed(File file) throws IOException, InterruptedException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            List<Callable<ChunkResult<T>>> tasks = new ArrayList<>();
+            for (long[] block : BlockCompressedFile.findBlocks(channel)) {
+                tasks.add(() -> parseBlock(channel, block));
+            }
+
+            return invokeAll(tasks);
+        }
+    }
+
+    /**
+     * Runs the parsing tasks in the pool and waits for all of them.
+     *
+     * @param tasks The tasks which parse the chunks.
+     * @return The results of the chunks in the order of the tasks.
+     * @throws IOException If a task failed unexpectedly.
+     * @throws InterruptedException If the thread is interrupted while waiting for the chunks.
+     */
+    private List<ChunkResult<T>> invokeAll(List<Callable<ChunkResult<T>>> tasks) throws IOException, InterruptedException {
+        List<ChunkResult<T>> results = new ArrayList<>();
+        for (Future<ChunkResult<T>> future : this.pool.invokeAll(tasks)) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                throw new IOException(e.getCause());
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Splits the file into chunks of about the same size. Every chunk except the last one ends after a line break.
+     *
+     * @param channel The channel of the file.
+     * @return The start and the end position of every chunk.
+     * @throws IOException If an error occurs while reading the file.
+     */
+    private List<long[]> splitIntoChunks(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        long chunkSize = fileSize / ((long) this.pool.getParallelism() * CHUNKS_PER_THREAD);
+        chunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, chunkSize));
+
+        List<long[]> chunks = new ArrayList<>();
+        long start = 0;
+        while (start < fileSize) {
+            long end = start + chunkSize;
+            end = end >= fileSize ? fileSize : findLineEnd(channel, end, fileSize);
+            chunks.add(new long[]{start, end});
+            start = end;
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Finds the position after the first line break at or after the given position.
+     *
+     * @param channel The channel of the file.
+     * @param position The position from which to search.
+     * @param fileSize The size of the file.
+     * @return The position after the line break or the size of the file if there is no line break.
+     * @throws IOException If an error occurs while reading the file.
+     */
+    private long findLineEnd(FileChannel channel, long position, long fileSize) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        while (position < fileSize) {
+            buffer.clear();
+            int readCount = channel.read(buffer, position);
+            if (readCount <= 0) {
+                break;
+            }
+
+            for (int i = 0; i < readCount; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += readCount;
+        }
+
+        return fileSize;
+    }
+
+    /**
+     * Maps, decodes and deserializes the lines of one chunk.
+     * Parsing stops at the first line which can not be deserialized, as the sequential loading does.
+     *
+     * @param channel The channel of the file.
+     * @param start The start position of the chunk.
+     * @param end The end position of the chunk.
+     * @return The objects of the chunk and the error which stopped the parsing, if any.
+     */
+    private ChunkResult<T> parseChunk(FileChannel channel, long start, long end) {
+        List<T> objects = new ArrayList<>();
+        try {
+            //Lines are decoded with the platform charset, as the sequential loading with FileReader does
+            MappedByteBuffer mappedChunk = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            parseLines(Charset.defaultCharset().decode(mappedChunk), objects);
+        } catch (Exception e) {
+            return new ChunkResult<>(objects, e);
+        }
+
+        return new ChunkResult<>(objects, null);
+    }
+
+    /**
+     * Decompresses, decodes and deserializes the lines of one block of a compressed file.
+     * Parsing stops at the first line which can not be deserialized, as the sequential loading does.
+     *
+     * @param channel The channel of the file.
+     * @param block The block as found by {@link BlockCompressedFile#findBlocks(FileChannel)}.
+     * @return The objects of the block and the error which stopped the parsing, if any.
+     */
+    private ChunkResult<T> parseBlock(FileChannel channel, long[] block) {
+        List<T> objects = new ArrayList<>();
+        try {
+            byte[] text = BlockCompressedFile.readBlock(channel, block);
+            parseLines(Charset.defaultCharset().decode(ByteBuffer.wrap(text)), objects);
+        } catch (Exception e) {
+            return new ChunkResult<>(objects, e);
+        }
+
+        return new ChunkResult<>(objects, null);
+    }
+
+    /**
+     * Splits the decoded text of a chunk into lines and deserializes them.
+     *
+     * @param chars The decoded text of the chunk.
+     * @param objects The objects of the chunk.
+     * @throws Exception If a line is not valid.
+     */
+    private void parseLines(CharBuffer chars, List<T> objects) throws Exception {
+        char[] array = chars.array();
+        int limit = chars.arrayOffset() + chars.limit();
+
+        int lineStart = chars.arrayOffset();
+        for (int i = lineStart; i < limit; i++) {
+            char c = array[i];
+            if (c != '\n' && c != '\r') {
+                continue;
+            }
+
+            addObject(objects, new String(array, lineStart, i - lineStart));
+            if (c == '\r' && i + 1 < limit && array[i + 1] == '\n') {
+                i++;
+            }
+            lineStart = i + 1;
+        }
+
+        if (lineStart < limit) {
+            addObject(objects, new String(array, lineStart, limit - lineStart));
+        }
+    }
+
+    /**
+     * Deserializes a line and adds the object to the objects of the chunk. A line skipped by the deserializer is not added.
+     *
+     * @param objects The objects of the chunk.
+     * @param line The line to deserialize.
+     * @throws Exception If the line is not valid.
+     */
+    private void addObject(List<T> objects, String line) throws Exception {
+        T object = this.deserializableService.deserialize(line);
+        if (object != null) {
+            objects.add(object);
+        }
+    }
+
+    /**
+     * The objects parsed from one chunk of the file.
+     *
+     * @param <T> The type of the parsed objects.
+     */
+    public static class ChunkResult<T> {
+        private final List<T> objects;
+        private final Exception error;
+
+        /**
+         * Constructs a new ChunkResult.
+         *
+         * @param objects The objects parsed from the chunk.
+         * @param error The error which stopped the parsing or null if the whole chunk was parsed.
+         */
+        ChunkResult(List<T> objects, Exception error) {
+            this.objects = objects;
+            this.error = error;
+        }
+
+        /**
+         * Gets the objects parsed from the chunk in the order of their lines.
+         *
+         * @return The parsed objects.
+         */
+        public List<T> getObjects() {
+            return this.objects;
+        }
+
+        /**
+         * Gets the error which stopped the parsing of the chunk.
+         *
+         * @return The error or null if the whole chunk was parsed.
+         */
+        public Exception getError() {
+            return this.error;
+        }
+    }
+}
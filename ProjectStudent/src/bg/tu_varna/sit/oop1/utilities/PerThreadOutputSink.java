@@ -0,0 +1,88 @@
+package bg.tu_varna.sit.oop1.utilities;
+
+import java.util.function.Supplier;
+
+/**
+ * The PerThreadOutputSink class implements the OutputSink interface with a separate sink for every thread.
+ * The sinks buffer the output, so threads which run commands at the same time must not share a buffer.
+ * Every thread writes to its own sink, which is created the first time the thread writes.
+ */
+public class PerThreadOutputSink implements OutputSink {
+    private ThreadLocal<OutputSink> sinks;
+
+    /**
+     * Constructs a PerThreadOutputSink.
+     *
+     * @param sinkFactory The factory of the sink of a thread.
+     */
+    public PerThreadOutputSink(Supplier<OutputSink> sinkFactory) {
+        this.sinks = ThreadLocal.withInitial(sinkFactory);
+    }
+
+    /**
+     * Writes the given text to the sink of the current thread.
+     *
+     * @param text The text to write.
+     * @return This sink.
+     */
+    @Override
+    public OutputSink print(CharSequence text) {
+        this.sinks.get().print(text);
+        return this;
+    }
+
+    /**
+     * Writes the given integer to the sink of the current thread.
+     *
+     * @param value The integer to write.
+     * @return This sink.
+     */
+    @Override
+    public OutputSink print(int value) {
+        this.sinks.get().print(value);
+        return this;
+    }
+
+    /**
+     * Writes the given number to the sink of the current thread.
+     *
+     * @param value The number to write.
+     * @return This sink.
+     */
+    @Override
+    public OutputSink print(double value) {
+        this.sinks.get().print(value);
+        return this;
+    }
+
+    /**
+     * Writes the given line to the sink of the current thread.
+     *
+     * @param text The text to write.
+     * @return This sink.
+     */
+    @Override
+    public OutputSink println(CharSequence text) {
+        this.sinks.get().println(text);
+        return this;
+    }
+
+    /**
+     * Writes a line separator to the sink of the current thread.
+     *
+     * @return This sink.
+     */
+    @Override
+    public OutputSink println() {
+        this.sinks.get().println();
+        return this;
+    }
+
+    /**
+     * Flushes the sink of the current thread.
+     */
+    @Override
+    public void flush() {
+        this.sinks.get().flush();
+    }
+}
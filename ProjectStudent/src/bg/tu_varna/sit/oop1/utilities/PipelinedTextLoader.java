@@ -0,0 +1,363 @@
+package bg.tu_varna.sit.oop1.utilities;
+
+import bg.tu_varna.sit.oop1.serialization.deserializer.CustomDeserializable;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * The PipelinedTextLoader class loads a text file with one record per line in three overlapped stages.
+ * A reader thread reads batches of lines, several parser threads deserialize the batches
+ * and the calling thread adds the parsed objects in the order of the file.
+ * The stages are connected by bounded queues, so a slow stage holds back the others instead of filling the memory.
+ * The parsers can wait for another load, such as the programs catalog, while the reader is already reading the file.
+ *
+ * @param <T> The type of objects that are read from the file.
+ */
+public class PipelinedTextLoader<T> {
+    private static final int BATCH_SIZE = 512;
+    private static final int QUEUED_BATCHES_PER_PARSER = 2;
+
+    private CustomDeserializable<T> deserializableService;
+    private int parsersCount;
+
+    private long recordsCount;
+    private long dependencyNanos;
+    private long readNanos;
+    private AtomicLong parseNanos;
+    private long insertNanos;
+    private long totalNanos;
+
+    /**
+     * Constructs a PipelinedTextLoader with one parser per available processor except the one of the reader.
+     *
+     * @param deserializableService The service for deserializing objects. It must be safe to use from several threads.
+     */
+    public PipelinedTextLoader(CustomDeserializable<T> deserializableService) {
+        this(deserializableService, Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    /**
+     * Constructs a PipelinedTextLoader with the given number of parsers.
+     *
+     * @param deserializableService The service for deserializing objects. It must be safe to use from several threads.
+     * @param parsersCount The number of parser threads.
+     */
+    public PipelinedTextLoader(CustomDeserializable<T> deserializableService, int parsersCount) {
+        this.deserializableService = deserializableService;
+        this.parsersCount = parsersCount;
+        this.parseNanos = new AtomicLong();
+    }
+
+    /**
+     * Loads all lines of the given file and passes the parsed objects to the handler in the order of the file.
+     * If a line can not be parsed, the objects before it are passed to the handler and the error is thrown.
+     *
+     * @param file The file to read.
+     * @param dependency A load which has to complete before the lines are parsed or null if there is none.
+     * @param handler The handler of the parsed objects and their record numbers. It is called on the current thread.
+     * @throws Exception If the file can not be read or a line is not valid.
+     */
+    public void load(File file, Future<?> dependency, ObjIntConsumer<T> handler) throws Exception {
+        long startTime = System.nanoTime();
+        this.recordsCount = 0;
+        this.dependencyNanos = 0;
+        this.readNanos = 0;
+        this.parseNanos.set(0);
+        this.insertNanos = 0;
+
+        int queueCapacity = this.parsersCount * QUEUED_BATCHES_PER_PARSER;
+        BlockingQueue<Batch<T>> linesQueue = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Batch<T>> parsedQueue = new ArrayBlockingQueue<>(queueCapacity);
+
+        ExecutorService executor = Executors.newFixedThreadPool(this.parsersCount + 1, runnable -> {
+            Thread thread = new Thread(runnable, "open-pipeline");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            Future<?> reader = executor.submit(() -> {
+                read(file, linesQueue);
+                return null;
+            });
+            for (int i = 0; i < this.parsersCount; i++) {
+                executor.submit(() -> {
+                    parse(dependency, startTime, linesQueue, parsedQueue);
+                    return null;
+                });
+            }
+
+            insert(parsedQueue, handler);
+            reader.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        } finally {
+            executor.shutdownNow();
+            this.totalNanos = System.nanoTime() - startTime;
+        }
+    }
+
+    /**
+     * Gets the number of records passed to the handler by the last load.
+     *
+     * @return The number of records.
+     */
+    public long getRecordsCount() {
+        return this.recordsCount;
+    }
+
+    /**
+     * Gets the time from the start of the last load until its dependency completed.
+     *
+     * @return The time in nanoseconds.
+     */
+    public long getDependencyNanos() {
+        return this.dependencyNanos;
+    }
+
+    /**
+     * Gets the time the reader spent reading lines, without the time it waited for free space in the queue.
+     *
+     * @return The time in nanoseconds.
+     */
+    public long getReadNanos() {
+        return this.readNanos;
+    }
+
+    /**
+     * Gets the time the parsers spent parsing lines, summed over all parsers.
+     *
+     * @return The time in nanoseconds.
+     */
+    public long getParseNanos() {
+        return this.parseNanos.get();
+    }
+
+    /**
+     * Gets the time the handler spent adding the parsed objects.
+     *
+     * @return The time in nanoseconds.
+     */
+    public long getInsertNanos() {
+        return this.insertNanos;
+    }
+
+    /**
+     * Gets the wall time of the last load.
+     *
+     * @return The time in nanoseconds.
+     */
+    public long getTotalNanos() {
+        return this.totalNanos;
+    }
+
+    /**
+     * Gets the number of parser threads.
+     *
+     * @return The number of parsers.
+     */
+    public int getParsersCount() {
+        return this.parsersCount;
+    }
+
+    /**
+     * The reader stage. Reads the file in numbered batches of lines and puts an end marker for every parser.
+     *
+     * @param file The file to read.
+     * @param linesQueue The queue of the read batches.
+     * @throws IOException If an error occurs while reading the file.
+     * @throws InterruptedException If the load is stopped.
+     */
+    private void read(File file, BlockingQueue<Batch<T>> linesQueue) throws IOException, InterruptedException {
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            long sequence = 0;
+            long readStart = System.nanoTime();
+            List<String> lines = new ArrayList<>(BATCH_SIZE);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+                if (lines.size() == BATCH_SIZE) {
+                    this.readNanos += System.nanoTime() - readStart;
+                    linesQueue.put(new Batch<>(sequence++, lines));
+                    lines = new ArrayList<>(BATCH_SIZE);
+                    readStart = System.nanoTime();
+                }
+            }
+            this.readNanos += System.nanoTime() - readStart;
+
+            if (!lines.isEmpty()) {
+                linesQueue.put(new Batch<>(sequence, lines));
+            }
+        } finally {
+            for (int i = 0; i < this.parsersCount; i++) {
+                linesQueue.put(Batch.end());
+            }
+        }
+    }
+
+    /**
+     * A parser stage. Waits for the dependency and then deserializes batches until it takes an end marker.
+     * A batch stops at its first invalid line and keeps the error, so the insert stage can stop at the same line.
+     *
+     * @param dependency The load which has to complete before parsing or null if there is none.
+     * @param startTime The start time of the load.
+     * @param linesQueue The queue of the read batches.
+     * @param parsedQueue The queue of the parsed batches.
+     * @throws InterruptedException If the load is stopped.
+     */
+    private void parse(Future<?> dependency, long startTime, BlockingQueue<Batch<T>> linesQueue,
+                       BlockingQueue<Batch<T>> parsedQueue) throws InterruptedException {
+        awaitDependency(dependency, startTime);
+
+        Batch<T> batch;
+        while (!(batch = linesQueue.take()).isEnd()) {
+            long parseStart = System.nanoTime();
+            batch.objects = new ArrayList<>(batch.lines.size());
+            try {
+                for (String line : batch.lines) {
+                    //A line skipped by the deserializer has no object
+                    T object = this.deserializableService.deserialize(line);
+                    if (object != null) {
+                        batch.objects.add(object);
+                    }
+                }
+            } catch (Exception e) {
+                batch.error = e;
+            }
+            batch.lines = null;
+            this.parseNanos.addAndGet(System.nanoTime() - parseStart);
+
+            parsedQueue.put(batch);
+        }
+
+        parsedQueue.put(Batch.end());
+    }
+
+    /**
+     * Waits until the dependency is completed. An error of the dependency is reported by the one who started it,
+     * so the file is still parsed.
+     *
+     * @param dependency The load to wait for or null if there is none.
+     * @param startTime The start time of the load.
+     * @throws InterruptedException If the load is stopped.
+     */
+    private void awaitDependency(Future<?> dependency, long startTime) throws InterruptedException {
+        if (dependency == null) {
+            return;
+        }
+
+        try {
+            dependency.get();
+        } catch (ExecutionException ignored) {
+        }
+
+        synchronized (this) {
+            if (this.dependencyNanos == 0) {
+                this.dependencyNanos = System.nanoTime() - startTime;
+            }
+        }
+    }
+
+    /**
+     * The insert stage. Puts the parsed batches back in the order of the file and passes their objects to the handler.
+     * After an invalid line it stops passing objects but keeps taking batches until every parser has finished.
+     *
+     * @param parsedQueue The queue of the parsed batches.
+     * @param handler The handler of the parsed objects.
+     * @throws Exception The error of the first invalid line.
+     */
+    private void insert(BlockingQueue<Batch<T>> parsedQueue, ObjIntConsumer<T> handler) throws Exception {
+        Map<Long, Batch<T>> waitingBatches = new HashMap<>();
+        long nextSequence = 0;
+        int finishedParsersCount = 0;
+        Exception error = null;
+
+        while (finishedParsersCount < this.parsersCount) {
+            Batch<T> batch = parsedQueue.take();
+            if (batch.isEnd()) {
+                finishedParsersCount++;
+                continue;
+            }
+
+            waitingBatches.put(batch.sequence, batch);
+            while ((batch = waitingBatches.remove(nextSequence)) != null) {
+                nextSequence++;
+                if (error != null) {
+                    continue;
+                }
+
+                long insertStart = System.nanoTime();
+                for (T object : batch.objects) {
+                    this.recordsCount++;
+                    handler.accept(object, (int) this.recordsCount);
+                }
+                this.insertNanos += System.nanoTime() - insertStart;
+                error = batch.error;
+            }
+        }
+
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * A numbered batch of lines which is replaced by the parsed objects.
+     *
+     * @param <T> The type of the parsed objects.
+     */
+    private static class Batch<T> {
+        private final long sequence;
+        private List<String> lines;
+        private List<T> objects;
+        private Exception error;
+
+        /**
+         * Constructs a new Batch.
+         *
+         * @param sequence The number of the batch in the file or -1 for an end marker.
+         * @param lines The lines of the batch.
+         */
+        Batch(long sequence, List<String> lines) {
+            this.sequence = sequence;
+            this.lines = lines;
+        }
+
+        /**
+         * Creates a marker which tells the next stage that there are no more batches.
+         *
+         * @param <T> The type of the parsed objects.
+         * @return The end marker.
+         */
+        static <T> Batch<T> end() {
+            return new Batch<>(-1, null);
+        }
+
+        /**
+         * Checks if the batch is an end marker.
+         *
+         * @return true if the batch is an end marker and false otherwise.
+         */
+        boolean isEnd() {
+            return this.sequence < 0;
+        }
+    }
+}
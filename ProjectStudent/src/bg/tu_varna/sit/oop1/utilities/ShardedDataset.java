@@ -0,0 +1,374 @@
+package bg.tu_varna.sit.oop1.utilities;
+
+import bg.tu_varna.sit.oop1.enums.UserMessages;
+import bg.tu_varna.sit.oop1.exceptions.DeserializationException;
+import bg.tu_varna.sit.oop1.models.Student;
+import bg.tu_varna.sit.oop1.serialization.deserializer.CustomDeserializable;
+import bg.tu_varna.sit.oop1.serialization.serializer.StreamingSerializable;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The ShardedDataset class reads and writes a students dataset which is kept in a directory.
+ * The students of every program and year are kept in their own segment file in the format of the students file.
+ * A manifest describes the segments and names an index file with the segment of every faculty number,
+ * so a student can be found without reading the segments.
+ *
+ * <p>Every save writes the changed segments and the index into new files and then replaces the manifest in one step.
+ * The old files are removed only after that, so a save which is stopped halfway leaves the previous dataset as it was.
+ * The manifest has one tab separated entry per line:
+ * <pre>
+ * generation  number
+ * index       file
+ * segment     file program year count
+ * </pre>
+ */
+public class ShardedDataset {
+    private static final String MANIFEST_FILE_NAME = "manifest.txt";
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+    private static final String GENERATION = "generation";
+    private static final String INDEX = "index";
+    private static final String SEGMENT = "segment";
+    private static final String SEPARATOR = "\t";
+    private static final int INDEX_ENTRY_SIZE = 2 * Integer.BYTES;
+
+    private File directory;
+    private int generation;
+    private String indexFileName;
+    private List<Segment> segments;
+
+    /**
+     * Constructs a ShardedDataset for the given directory. The manifest is not read yet.
+     *
+     * @param directory The directory of the dataset.
+     */
+    public ShardedDataset(File directory) {
+        this.directory = directory.getAbsoluteFile();
+        this.segments = new ArrayList<>();
+    }
+
+    /**
+     * Checks if the given path leads to a dataset directory, which is an existing directory
+     * or a path which ends with a path separator.
+     *
+     * @param path The path to check.
+     * @return true if the path is meant as a dataset directory and false otherwise.
+     */
+    public static boolean isDatasetPath(String path) {
+        return new File(path).isDirectory() || path.endsWith("/") || path.endsWith("\\");
+    }
+
+    /**
+     * Gets the directory of the dataset.
+     *
+     * @return The absolute directory of the dataset.
+     */
+    public File getDirectory() {
+        return this.directory;
+    }
+
+    /**
+     * Gets the segments described by the manifest.
+     *
+     * @return The segments in the order of the manifest.
+     */
+    public List<Segment> getSegments() {
+        return this.segments;
+    }
+
+    /**
+     * Reads the manifest of the dataset. A directory without a manifest is an empty dataset.
+     *
+     * @throws IOException If the manifest can not be read.
+     * @throws DeserializationException If the manifest is not valid.
+     */
+    public void load() throws IOException, DeserializationException {
+        this.generation = 0;
+        this.indexFileName = null;
+        this.segments = new ArrayList<>();
+
+        File manifestFile = new File(this.directory, MANIFEST_FILE_NAME);
+        if (!manifestFile.exists()) {
+            return;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(manifestFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] values = line.split(SEPARATOR, -1);
+                try {
+                    if (values[0].equals(GENERATION) && values.length == 2) {
+                        this.generation = Integer.parseInt(values[1]);
+                    } else if (values[0].equals(INDEX) && values.length == 2) {
+                        this.indexFileName = values[1];
+                    } else if (values[0].equals(SEGMENT) && values.length == 5) {
+                        this.segments.add(new Segment(values[1], values[2], Integer.parseInt(values[3]), Integer.parseInt(values[4])));
+                    } else {
+                        throw new DeserializationException(UserMessages.WRONG_MANIFEST_DATA_FORMAT.message);
+                    }
+                } catch (NumberFormatException e) {
+                    throw new DeserializationException(UserMessages.WRONG_MANIFEST_DATA_FORMAT.message);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the index of the dataset.
+     *
+     * @return The faculty number and the segment number of every student, one after the other.
+     * @throws IOException If the index file can not be read.
+     */
+    public int[] readIndex() throws IOException {
+        if (this.indexFileName == null) {
+            return new int[0];
+        }
+
+        ByteBuffer entries = ByteBuffer.wrap(Files.readAllBytes(new File(this.directory, this.indexFileName).toPath()));
+        int[] index = new int[entries.remaining() / INDEX_ENTRY_SIZE * 2];
+        for (int i = 0; i < index.length; i++) {
+            index[i] = entries.getInt();
+        }
+
+        return index;
+    }
+
+    /**
+     * Reads all students of a segment.
+     *
+     * @param segment The segment to read.
+     * @param deserializer The deserializer of the student lines.
+     * @return The students of the segment in the order of the file.
+     * @throws Exception If the segment file can not be read or a line is not valid.
+     */
+    public List<Student> readSegment(Segment segment, CustomDeserializable<Student> deserializer) throws Exception {
+        List<Student> students = new ArrayList<>(segment.getRecordsCount());
+        if (segment.getFileName() == null) {
+            return students;
+        }
+
+        //Segments are text files in the platform charset, as the students file
+        try (BufferedReader reader = new BufferedReader(new FileReader(new File(this.directory, segment.getFileName())))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                students.add(deserializer.deserialize(line));
+            }
+        }
+
+        return students;
+    }
+
+    /**
+     * Writes a new generation of the dataset. The given students replace the content of their segments,
+     * the other segments keep their files.
+     *
+     * @param segments All segments of the dataset in the order of their numbers.
+     * @param studentsBySegment The students of every segment which has to be written, by segment number.
+     * @param index The faculty number and the segment number of every student, one after the other.
+     * @param serializer The serializer of the student lines.
+     * @throws IOException If an error occurs while writing.
+     */
+    public void write(List<Segment> segments, Map<Integer, ? extends Collection<Student>> studentsBySegment, int[] index,
+                      StreamingSerializable<Student> serializer) throws IOException {
+        Files.createDirectories(this.directory.toPath());
+        Set<String> oldFileNames = getFileNames();
+        int newGeneration = this.generation + 1;
+
+        for (Map.Entry<Integer, ? extends Collection<Student>> entry : studentsBySegment.entrySet()) {
+            Segment segment = segments.get(entry.getKey());
+            String fileName = SEGMENT + "-" + entry.getKey() + "-" + newGeneration + ".txt";
+            try (ChannelTextWriter writer = new ChannelTextWriter(new File(this.directory, fileName).getPath())) {
+                for (Student student : entry.getValue()) {
+                    serializer.serialize(student, writer);
+                    writer.newLine();
+                }
+                writer.force();
+            }
+            segment.fileName = fileName;
+            segment.recordsCount = entry.getValue().size();
+        }
+
+        String newIndexFileName = INDEX + "-" + newGeneration + ".bin";
+        writeIndex(new File(this.directory, newIndexFileName), index);
+        writeManifest(newGeneration, newIndexFileName, segments);
+
+        this.generation = newGeneration;
+        this.indexFileName = newIndexFileName;
+        this.segments = segments;
+
+        //The previous generation is not needed once the new manifest is in place
+        oldFileNames.removeAll(getFileNames());
+        for (String oldFileName : oldFileNames) {
+            Files.deleteIfExists(new File(this.directory, oldFileName).toPath());
+        }
+    }
+
+    /**
+     * Gets the names of the files used by the current generation.
+     *
+     * @return The names of the index file and the segment files.
+     */
+    private Set<String> getFileNames() {
+        Set<String> fileNames = new HashSet<>();
+        if (this.indexFileName != null) {
+            fileNames.add(this.indexFileName);
+        }
+        for (Segment segment : this.segments) {
+            if (segment.getFileName() != null) {
+                fileNames.add(segment.getFileName());
+            }
+        }
+
+        return fileNames;
+    }
+
+    /**
+     * Writes the index file and forces it to the disk.
+     *
+     * @param indexFile The index file.
+     * @param index The faculty number and the segment number of every student, one after the other.
+     * @throws IOException If an error occurs while writing.
+     */
+    private void writeIndex(File indexFile, int[] index) throws IOException {
+        ByteBuffer entries = ByteBuffer.allocate(index.length * Integer.BYTES);
+        for (int value : index) {
+            entries.putInt(value);
+        }
+        entries.flip();
+
+        try (FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (entries.hasRemaining()) {
+                channel.write(entries);
+            }
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Writes the manifest into a temporary file and moves it over the manifest in one step.
+     *
+     * @param newGeneration The number of the new generation.
+     * @param newIndexFileName The name of the new index file.
+     * @param segments The segments of the new generation.
+     * @throws IOException If an error occurs while writing.
+     */
+    private void writeManifest(int newGeneration, String newIndexFileName, List<Segment> segments) throws IOException {
+        Path manifestPath = new File(this.directory, MANIFEST_FILE_NAME).toPath();
+        Path temporaryPath = manifestPath.resolveSibling(MANIFEST_FILE_NAME + TEMPORARY_EXTENSION);
+
+        FileOutputStream fileOut = new FileOutputStream(temporaryPath.toFile());
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(fileOut, StandardCharsets.UTF_8))) {
+            writer.write(GENERATION + SEPARATOR + newGeneration);
+            writer.newLine();
+            writer.write(INDEX + SEPARATOR + newIndexFileName);
+            writer.newLine();
+            for (Segment segment : segments) {
+                writer.write(String.join(SEPARATOR, SEGMENT, segment.getFileName(), segment.getProgramName(),
+                        String.valueOf(segment.getYear()), String.valueOf(segment.getRecordsCount())));
+                writer.newLine();
+            }
+            writer.flush();
+            fileOut.getFD().sync();
+        }
+
+        try {
+            Files.move(temporaryPath, manifestPath, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporaryPath, manifestPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * One segment of the dataset with the students of one program and year.
+     */
+    public static class Segment {
+        private String fileName;
+        private final String programName;
+        private final int year;
+        private int recordsCount;
+
+        /**
+         * Constructs a new Segment which has no file yet.
+         *
+         * @param programName The name of the program of the students.
+         * @param year The year of study of the students.
+         */
+        public Segment(String programName, int year) {
+            this(null, programName, year, 0);
+        }
+
+        /**
+         * Constructs a Segment described by the manifest.
+         *
+         * @param fileName The name of the segment file.
+         * @param programName The name of the program of the students.
+         * @param year The year of study of the students.
+         * @param recordsCount The number of students in the file.
+         */
+        Segment(String fileName, String programName, int year, int recordsCount) {
+            this.fileName = fileName;
+            this.programName = programName;
+            this.year = year;
+            this.recordsCount = recordsCount;
+        }
+
+        /**
+         * Gets the name of the segment file.
+         *
+         * @return The name of the file or null if the segment was not written yet.
+         */
+        public String getFileName() {
+            return this.fileName;
+        }
+
+        /**
+         * Gets the name of the program of the students in the segment.
+         *
+         * @return The name of the program.
+         */
+        public String getProgramName() {
+            return this.programName;
+        }
+
+        /**
+         * Gets the year of study of the students in the segment.
+         *
+         * @return The year of study.
+         */
+        public int getYear() {
+            return this.year;
+        }
+
+        /**
+         * Gets the number of students in the segment file.
+         *
+         * @return The number of students.
+         */
+        public int getRecordsCount() {
+            return this.recordsCount;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package bg.tu_varna.sit.oop1.utilities;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The StripedLocks class keeps a fixed number of locks which guard the students by faculty number.
+ * Every faculty number is mapped to one of the locks, so two sessions which change the same student wait
+ * for each other, while sessions which change different students rarely share a lock.
+ * A fixed number of locks needs no lock per student and no cleanup when students are removed.
+ */
+public class StripedLocks {
+    private static final int DEFAULT_STRIPES_COUNT = 64;
+
+    private final Lock[] locks;
+    private final int mask;
+
+    /**
+     * Constructs StripedLocks with the default number of locks.
+     */
+    public StripedLocks() {
+        this(DEFAULT_STRIPES_COUNT);
+    }
+
+    /**
+     * Constructs StripedLocks with at least the given number of locks. The number is rounded up to a power of two.
+     *
+     * @param stripesCount The least number of locks.
+     */
+    public StripedLocks(int stripesCount) {
+        int size = Integer.highestOneBit(Math.max(1, stripesCount));
+        if (size < stripesCount) {
+            size <<= 1;
+        }
+
+        this.locks = new Lock[size];
+        for (int i = 0; i < size; i++) {
+            this.locks[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Gets the lock of the student with the given faculty number.
+     *
+     * @param facultyNumber The faculty number of the student.
+     * @return The lock which guards the student.
+     */
+    public Lock get(int facultyNumber) {
+        //Faculty numbers are often consecutive, so the bits are mixed before a lock is chosen
+        int hash = facultyNumber * 0x9E3779B9;
+        return this.locks[(hash ^ (hash >>> 16)) & this.mask];
+    }
+}
@@ -0,0 +1,266 @@
+package bg.tu_varna.sit.oop1.utilities;
+
+import bg.tu_varna.sit.oop1.enums.UserMessages;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * The StudentArchive class keeps the students who are no longer active in a cold file next to the students file.
+ * The archive file has one student per line in the format of the students file. The lines are only appended,
+ * so a student who is archived again gets a new line and the old one is no longer used.
+ * An index file keeps the offset of the current line of every archived student, so a single student can be read
+ * without reading the whole archive. Only the index is kept in memory.
+ *
+ * <p>Every entry of the index file is a faculty number (4 bytes) followed by an offset (8 bytes).
+ * A later entry for the same faculty number replaces the earlier one and the offset -1 removes the student.
+ */
+public class StudentArchive {
+    private static final String ARCHIVE_EXTENSION = ".archive";
+    private static final String INDEX_EXTENSION = ".index";
+    private static final int ENTRY_SIZE = Integer.BYTES + Long.BYTES;
+    private static final long REMOVED = -1;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int READ_BUFFER_SIZE = 256;
+
+    private File archiveFile;
+    private File indexFile;
+    private IntHashIndex slotsByFacultyNumber;
+    private long[] offsets;
+    private int slotsCount;
+
+    /**
+     * Constructs a StudentArchive for the given students file.
+     *
+     * @param dataFilePath The path of the students file.
+     */
+    public StudentArchive(String dataFilePath) {
+        this.archiveFile = new File(new File(dataFilePath).getAbsolutePath() + ARCHIVE_EXTENSION);
+        this.indexFile = new File(this.archiveFile.getPath() + INDEX_EXTENSION);
+        this.slotsByFacultyNumber = new IntHashIndex();
+        clear();
+    }
+
+    /**
+     * Reads the index file into memory. An entry which was not fully written is ignored.
+     *
+     * @throws IOException If an error occurs while reading the index file.
+     */
+    public void load() throws IOException {
+        clear();
+        if (!this.indexFile.exists()) {
+            return;
+        }
+
+        long archiveLength = this.archiveFile.length();
+        ByteBuffer entries = ByteBuffer.wrap(Files.readAllBytes(this.indexFile.toPath()));
+        while (entries.remaining() >= ENTRY_SIZE) {
+            int facultyNumber = entries.getInt();
+            long offset = entries.getLong();
+            if (offset < archiveLength) {
+                setOffset(facultyNumber, offset);
+            }
+        }
+    }
+
+    /**
+     * Checks if the student with the given faculty number is in the archive.
+     *
+     * @param facultyNumber The faculty number to look for.
+     * @return true if the student is archived and false otherwise.
+     */
+    public boolean contains(int facultyNumber) {
+        return this.slotsByFacultyNumber.contains(facultyNumber);
+    }
+
+    /**
+     * Gets the number of archived students.
+     *
+     * @return The number of students in the archive.
+     */
+    public int size() {
+        return this.slotsByFacultyNumber.size();
+    }
+
+    /**
+     * Describes the archive files and the memory used by the index.
+     *
+     * @return A report with the number of archived students and the sizes of the archive.
+     */
+    public String getReport() {
+        long indexMemoryBytes = this.slotsByFacultyNumber.getBytes() + (long) this.offsets.length * Long.BYTES;
+        return String.format(UserMessages.ARCHIVE_REPORT.message, size(), this.archiveFile.length(),
+                this.indexFile.length(), indexMemoryBytes);
+    }
+
+    /**
+     * Reads the line of the archived student with the given faculty number.
+     *
+     * @param facultyNumber The faculty number of the student.
+     * @return The line of the student in the format of the students file.
+     * @throws IllegalArgumentException If the student is not in the archive.
+     * @throws IOException If an error occurs while reading the archive file.
+     */
+    public String readLine(int facultyNumber) throws IOException {
+        int slot = this.slotsByFacultyNumber.get(facultyNumber);
+        if (slot < 0) {
+            throw new IllegalArgumentException(String.format(UserMessages.STUDENT_NOT_ARCHIVED.message, facultyNumber));
+        }
+
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        try (FileChannel channel = FileChannel.open(this.archiveFile.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+            long position = this.offsets[slot];
+            int readCount;
+            while ((readCount = channel.read(buffer, position)) > 0) {
+                for (int i = 0; i < readCount; i++) {
+                    byte b = buffer.get(i);
+                    if (b == '\n') {
+                        return new String(line.toByteArray(), StandardCharsets.UTF_8);
+                    }
+                    line.write(b);
+                }
+                position += readCount;
+                buffer.clear();
+            }
+        }
+
+        return new String(line.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Appends the lines of the given students to the archive file and their offsets to the index file.
+     * The lines are forced to the disk before the index, so an index entry never points to a line which is not written.
+     *
+     * @param linesByFacultyNumber The lines of the students to archive by their faculty numbers.
+     * @throws IOException If an error occurs while writing.
+     */
+    public void append(Map<Integer, String> linesByFacultyNumber) throws IOException {
+        if (linesByFacultyNumber.isEmpty()) {
+            return;
+        }
+
+        ByteBuffer entries = ByteBuffer.allocate(linesByFacultyNumber.size() * ENTRY_SIZE);
+        try (FileChannel channel = FileChannel.open(this.archiveFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE)) {
+            long position = channel.size();
+            for (Map.Entry<Integer, String> entry : linesByFacultyNumber.entrySet()) {
+                entries.putInt(entry.getKey()).putLong(position);
+                ByteBuffer line = ByteBuffer.wrap((entry.getValue() + '\n').getBytes(StandardCharsets.UTF_8));
+                while (line.hasRemaining()) {
+                    position += channel.write(line, position);
+                }
+            }
+            channel.force(true);
+        }
+
+        appendEntries(entries);
+    }
+
+    /**
+     * Removes the given students from the archive by appending removal entries to the index file.
+     * It is used for students who are active again and are saved in the students file.
+     *
+     * @param facultyNumbers The faculty numbers of the students to remove.
+     * @throws IOException If an error occurs while writing.
+     */
+    public void remove(Collection<Integer> facultyNumbers) throws IOException {
+        ByteBuffer entries = ByteBuffer.allocate(facultyNumbers.size() * ENTRY_SIZE);
+        for (int facultyNumber : facultyNumbers) {
+            if (contains(facultyNumber)) {
+                entries.putInt(facultyNumber).putLong(REMOVED);
+            }
+        }
+
+        if (entries.position() > 0) {
+            appendEntries(entries);
+        }
+    }
+
+    /**
+     * Copies the archive to the students file at the given path, so that file keeps the archived students too.
+     *
+     * @param dataFilePath The path of the other students file.
+     * @throws IOException If an error occurs while copying.
+     */
+    public void copyTo(String dataFilePath) throws IOException {
+        StudentArchive target = new StudentArchive(dataFilePath);
+        if (target.archiveFile.equals(this.archiveFile)) {
+            return;
+        }
+
+        Files.deleteIfExists(target.indexFile.toPath());
+        Files.deleteIfExists(target.archiveFile.toPath());
+        if (this.indexFile.exists()) {
+            Files.copy(this.archiveFile.toPath(), target.archiveFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            Files.copy(this.indexFile.toPath(), target.indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Clears the index kept in memory. The archive files are not changed.
+     */
+    public void clear() {
+        this.slotsByFacultyNumber.clear();
+        this.offsets = new long[INITIAL_CAPACITY];
+        this.slotsCount = 0;
+    }
+
+    /**
+     * Appends entries to the index file, forces them to the disk and applies them to the index in memory.
+     * An entry which was not fully written by an earlier save is cut off first, so the new entries stay aligned.
+     *
+     * @param entries The entries to append. The buffer is read from its start to its position.
+     * @throws IOException If an error occurs while writing.
+     */
+    private void appendEntries(ByteBuffer entries) throws IOException {
+        entries.flip();
+        try (FileChannel channel = FileChannel.open(this.indexFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE)) {
+            long position = channel.size() - channel.size() % ENTRY_SIZE;
+            channel.truncate(position);
+            while (entries.hasRemaining()) {
+                position += channel.write(entries, position);
+            }
+            channel.force(true);
+        }
+
+        entries.rewind();
+        while (entries.hasRemaining()) {
+            setOffset(entries.getInt(), entries.getLong());
+        }
+    }
+
+    /**
+     * Sets the offset of the line of a student in the index kept in memory.
+     *
+     * @param facultyNumber The faculty number of the student.
+     * @param offset The offset of the line or -1 if the student is removed.
+     */
+    private void setOffset(int facultyNumber, long offset) {
+        if (offset == REMOVED) {
+            this.slotsByFacultyNumber.remove(facultyNumber);
+            return;
+        }
+
+        int slot = this.slotsByFacultyNumber.get(facultyNumber);
+        if (slot < 0) {
+            if (this.slotsCount == this.offsets.length) {
+                this.offsets = Arrays.copyOf(this.offsets, this.slotsCount * 2);
+            }
+            slot = this.slotsCount++;
+            this.slotsByFacultyNumber.put(facultyNumber, slot);
+        }
+        this.offsets[slot] = offset;
+    }
+}
@@ -0,0 +1,143 @@
+package bg.tu_varna.sit.oop1.utilities;
+
+import bg.tu_varna.sit.oop1.enums.UserMessages;
+import bg.tu_varna.sit.oop1.models.Student;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The StudentFilter class describes which students are loaded when a file is opened with a WHERE clause.
+ * A student matches when it is in the given program and year. A condition which is not given matches every student.
+ * The loaders also keep the students with some included faculty numbers, like the ones changed by the journal,
+ * because a change of their program or year may make them match.
+ */
+public class StudentFilter {
+    private static final String CONDITION_SEPARATOR = "=";
+    private static final String PROGRAM = "program";
+    private static final String YEAR = "year";
+    private static final int ANY_YEAR = 0;
+
+    private String programName;
+    private int year;
+    private Set<Integer> includedFacultyNumbers;
+
+    /**
+     * Constructs a new StudentFilter.
+     *
+     * @param programName The name of the program or null for any program.
+     * @param year The year of study or 0 for any year.
+     */
+    public StudentFilter(String programName, int year) {
+        this.programName = programName;
+        this.year = year;
+        this.includedFacultyNumbers = new HashSet<>();
+    }
+
+    /**
+     * Parses the conditions of a WHERE clause, like "program=SIT" and "year=2".
+     *
+     * @param conditions The command parts with the conditions.
+     * @param start The index of the first condition.
+     * @return The filter with the given conditions.
+     * @throws IllegalArgumentException If a condition is not known, a year is not a number or no condition is given.
+     */
+    public static StudentFilter parse(String[] conditions, int start) {
+        String programName = null;
+        int year = ANY_YEAR;
+        for (int i = start; i < conditions.length; i++) {
+            String condition = conditions[i];
+            int separatorIndex = condition.indexOf(CONDITION_SEPARATOR);
+            String key = separatorIndex < 0 ? condition : condition.substring(0, separatorIndex);
+            String value = separatorIndex < 0 ? "" : condition.substring(separatorIndex + 1);
+
+            if (key.equalsIgnoreCase(PROGRAM) && !value.isEmpty()) {
+                programName = value;
+            } else if (key.equalsIgnoreCase(YEAR) && !value.isEmpty()) {
+                year = CommonUtility.intParser(value); //Parses if possible and throws exception if not
+            } else {
+                throw new IllegalArgumentException(String.format(UserMessages.WHERE_CONDITION_UNKNOWN.message, condition));
+            }
+        }
+
+        if (programName == null && year == ANY_YEAR) {
+            throw new IllegalArgumentException(UserMessages.WHERE_CONDITION_MISSING.message);
+        }
+
+        return new StudentFilter(programName, year);
+    }
+
+    /**
+     * Includes the students with the given faculty numbers in the loading, whatever their program and year are.
+     *
+     * @param facultyNumbers The faculty numbers to include.
+     */
+    public void include(Collection<Integer> facultyNumbers) {
+        this.includedFacultyNumbers.addAll(facultyNumbers);
+    }
+
+    /**
+     * Checks if the student with the given faculty number has to be loaded whatever its program and year are.
+     *
+     * @param facultyNumber The faculty number to check.
+     * @return true if the student is included and false otherwise.
+     */
+    public boolean includes(int facultyNumber) {
+        return this.includedFacultyNumbers.contains(facultyNumber);
+    }
+
+    /**
+     * Checks if the program name in the given range of the text matches the filter.
+     *
+     * @param text The text with the program name.
+     * @param start The start of the program name.
+     * @param end The end of the program name.
+     * @return true if the program matches and false otherwise.
+     */
+    public boolean matchesProgram(String text, int start, int end) {
+        return this.programName == null || TextUtility.regionEquals(text, start, end, this.programName, true);
+    }
+
+    /**
+     * Checks if the year of study matches the filter.
+     *
+     * @param year The year of study.
+     * @return true if the year matches and false otherwise.
+     */
+    public boolean matchesYear(int year) {
+        return this.year == ANY_YEAR || this.year == year;
+    }
+
+    /**
+     * Checks if the student is in the program and the year of the filter. The included faculty numbers are not used.
+     *
+     * @param student The student to check.
+     * @return true if the student matches and false otherwise.
+     */
+    public boolean matches(Student student) {
+        String studentProgramName = student.getProgram().getName();
+        return matchesProgram(studentProgramName, 0, studentProgramName.length()) && matchesYear(student.getYear());
+    }
+
+    /**
+     * Describes the conditions of the filter.
+     *
+     * @return The conditions in the form in which they are given.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        if (this.programName != null) {
+            sb.append(PROGRAM).append(CONDITION_SEPARATOR).append(this.programName);
+        }
+        if (this.year != ANY_YEAR) {
+            if (sb.length() > 0) {
+                sb.append(" ");
+            }
+            sb.append(YEAR).append(CONDITION_SEPARATOR).append(this.year);
+        }
+
+        return sb.toString();
+    }
+}
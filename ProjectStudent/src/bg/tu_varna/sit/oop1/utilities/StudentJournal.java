@@ -0,0 +1,463 @@
+package bg.tu_varna.sit.oop1.utilities;
+
+import bg.tu_varna.sit.oop1.enums.UserMessages;
+import bg.tu_varna.sit.oop1.exceptions.DeserializationException;
+import bg.tu_varna.sit.oop1.exceptions.ProgramException;
+import bg.tu_varna.sit.oop1.models.GradeBook;
+import bg.tu_varna.sit.oop1.models.Program;
+import bg.tu_varna.sit.oop1.models.Student;
+import bg.tu_varna.sit.oop1.models.Subject;
+import bg.tu_varna.sit.oop1.repositories.Repository;
+import bg.tu_varna.sit.oop1.repositories.SubjectRepository;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The StudentJournal class keeps the changes of the students since the last full save of a students file.
+ * Every change is a record which sets the new value of one field, so applying a record twice gives the same result.
+ * The records are kept in memory until SAVE appends them to a journal file next to the students file.
+ * When the file is opened, the journal is replayed on top of the students loaded from the file.
+ * The journal is emptied when the students file is fully written again.
+ * The changes may be recorded by several sessions at the same time, so the unsaved records are guarded by the journal.
+ *
+ * <p>Every record is one line with tab separated values:
+ * <pre>
+ * ENROLL  fn name program year group status
+ * YEAR    fn year
+ * PROGRAM fn program
+ * GROUP   fn group
+ * STATUS  fn status
+ * GRADE   fn subject type hundredths
+ * </pre>
+ */
+public class StudentJournal {
+    private static final String JOURNAL_EXTENSION = ".journal";
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+    private static final char SEPARATOR = '\t';
+    private static final String ENROLL = "ENROLL";
+    private static final String YEAR = "YEAR";
+    private static final String PROGRAM = "PROGRAM";
+    private static final String GROUP = "GROUP";
+    private static final String STATUS = "STATUS";
+    private static final String GRADE = "GRADE";
+
+    private File dataFile;
+    private File journalFile;
+    private Repository<Student> studentRepository;
+    private Repository<Program> programRepository;
+    private SubjectRepository subjectRepository;
+    private List<String> pendingRecords;
+
+    /**
+     * Constructs a StudentJournal for the given students file.
+     *
+     * @param dataFilePath The path of the students file.
+     * @param studentRepository The repository with the students of the file.
+     * @param programRepository The repository of the catalog programs.
+     * @param subjectRepository The pool of subjects of the catalog.
+     */
+    public StudentJournal(String dataFilePath, Repository<Student> studentRepository, Repository<Program> programRepository,
+                          SubjectRepository subjectRepository) {
+        this.dataFile = new File(dataFilePath).getAbsoluteFile();
+        this.journalFile = new File(this.dataFile.getPath() + JOURNAL_EXTENSION);
+        this.studentRepository = studentRepository;
+        this.programRepository = programRepository;
+        this.subjectRepository = subjectRepository;
+        this.pendingRecords = new ArrayList<>();
+    }
+
+    /**
+     * Removes the journal file of the students file at the given path, if there is one.
+     * It is used when another students file is fully written over that file.
+     *
+     * @param dataFilePath The path of the students file.
+     * @throws IOException If the journal file can not be removed.
+     */
+    public static void deleteJournalOf(String dataFilePath) throws IOException {
+        Files.deleteIfExists(new File(new File(dataFilePath).getAbsolutePath() + JOURNAL_EXTENSION).toPath());
+    }
+
+    /**
+     * Checks if the journal belongs to the file at the given path.
+     *
+     * @param filePath The path of a students file.
+     * @return true if the path leads to the students file of the journal and false otherwise.
+     */
+    public boolean isJournalOf(String filePath) {
+        return this.dataFile.equals(new File(filePath).getAbsoluteFile());
+    }
+
+    /**
+     * Gets the number of changes which are not written to the journal file yet.
+     *
+     * @return The number of unsaved changes.
+     */
+    public synchronized int getPendingCount() {
+        return this.pendingRecords.size();
+    }
+
+    /**
+     * Checks if the journal file has grown to more than half of the students file.
+     * Replaying such a journal takes a noticeable part of the loading, so the students file should be written again.
+     *
+     * @return true if the students file should be fully saved and false otherwise.
+     */
+    public boolean needsCheckpoint() {
+        return this.journalFile.length() > getDataLength() / 2;
+    }
+
+    /**
+     * Gets the size of the students file. The size of a dataset directory is the size of all its files.
+     *
+     * @return The size in bytes.
+     */
+    private long getDataLength() {
+        File[] files = this.dataFile.listFiles();
+        if (files == null) {
+            return this.dataFile.length();
+        }
+
+        long length = 0;
+        for (File file : files) {
+            length += file.length();
+        }
+
+        return length;
+    }
+
+    /**
+     * Records the enrollment of a new student.
+     *
+     * @param student The enrolled student.
+     */
+    public void recordEnroll(Student student) {
+        addRecord(ENROLL, student.getFacultyNumber(), student.getName(), student.getProgram().getName(),
+                String.valueOf(student.getYear()), String.valueOf(student.getGroup()), student.getStatus().name());
+    }
+
+    /**
+     * Records the current year of the student.
+     *
+     * @param student The changed student.
+     */
+    public void recordYear(Student student) {
+        addRecord(YEAR, student.getFacultyNumber(), String.valueOf(student.getYear()));
+    }
+
+    /**
+     * Records the current program of the student.
+     *
+     * @param student The changed student.
+     */
+    public void recordProgram(Student student) {
+        addRecord(PROGRAM, student.getFacultyNumber(), student.getProgram().getName());
+    }
+
+    /**
+     * Records the current group of the student.
+     *
+     * @param student The changed student.
+     */
+    public void recordGroup(Student student) {
+        addRecord(GROUP, student.getFacultyNumber(), String.valueOf(student.getGroup()));
+    }
+
+    /**
+     * Records the current status of the student.
+     *
+     * @param student The changed student.
+     */
+    public void recordStatus(Student student) {
+        addRecord(STATUS, student.getFacultyNumber(), student.getStatus().name());
+    }
+
+    /**
+     * Records the current grade of the student for the given subject.
+     *
+     * @param student The changed student.
+     * @param subject The subject of the grade.
+     */
+    public void recordGrade(Student student, Subject subject) {
+        double grade = student.getGradesBySubject().get(subject);
+        addRecord(GRADE, student.getFacultyNumber(), subject.getName(), subject.getType(),
+                String.valueOf(GradeBook.toHundredths(grade)));
+    }
+
+    /**
+     * Appends the unsaved changes to the journal file and forces them to the disk.
+     *
+     * @return The number of written changes.
+     * @throws IOException If an error occurs while writing.
+     */
+    public synchronized int flush() throws IOException {
+        int flushedCount = this.pendingRecords.size();
+        if (flushedCount == 0) {
+            return 0;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        if (!endsWithLineBreak()) {
+            //The last record was not fully written, so it is ended and skipped on replay instead of joining the next one
+            sb.append('\n');
+        }
+        for (String record : this.pendingRecords) {
+            sb.append(record).append('\n');
+        }
+
+        try (FileChannel channel = FileChannel.open(this.journalFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+
+        this.pendingRecords.clear();
+        return flushedCount;
+    }
+
+    /**
+     * Checks if the journal file is empty or ends with a line break.
+     *
+     * @return true if a new record can be appended directly and false otherwise.
+     * @throws IOException If an error occurs while reading the journal file.
+     */
+    private boolean endsWithLineBreak() throws IOException {
+        long length = this.journalFile.length();
+        if (length == 0) {
+            return true;
+        }
+
+        try (FileChannel channel = FileChannel.open(this.journalFile.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer lastByte = ByteBuffer.allocate(1);
+            channel.read(lastByte, length - 1);
+            return lastByte.get(0) == '\n';
+        }
+    }
+
+    /**
+     * Removes the journal file and the unsaved changes after the students file was fully written.
+     *
+     * @throws IOException If the journal file can not be removed.
+     */
+    public synchronized void clear() throws IOException {
+        this.pendingRecords.clear();
+        Files.deleteIfExists(this.journalFile.toPath());
+    }
+
+    /**
+     * Gets the length of the journal file. After a flush it is the end of the last written record.
+     *
+     * @return The length of the journal file in bytes.
+     */
+    public long getFileLength() {
+        return this.journalFile.length();
+    }
+
+    /**
+     * Removes the records at the start of the journal file after a snapshot with them was saved in the students file.
+     * The records written after the snapshot and the unsaved changes are kept.
+     *
+     * @param savedLength The length of the journal file when the snapshot was taken.
+     * @throws IOException If the journal file can not be written.
+     */
+    public void checkpoint(long savedLength) throws IOException {
+        Path journalPath = this.journalFile.toPath();
+        long length = this.journalFile.length();
+        if (length <= savedLength) {
+            Files.deleteIfExists(journalPath);
+            return;
+        }
+
+        //The remaining records are written into a new file which replaces the journal in one step
+        Path temporaryPath = journalPath.resolveSibling(journalPath.getFileName() + TEMPORARY_EXTENSION);
+        try (FileChannel source = FileChannel.open(journalPath, StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = savedLength;
+            while (position < length) {
+                position += source.transferTo(position, length - position, target);
+            }
+            target.force(true);
+        }
+
+        try {
+            Files.move(temporaryPath, journalPath, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporaryPath, journalPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Reads the faculty numbers of the students changed by the records of the journal file.
+     * A record without a valid faculty number is left for the replay to report.
+     *
+     * @return The faculty numbers of the changed students.
+     * @throws IOException If an error occurs while reading the journal file.
+     */
+    public Set<Integer> readFacultyNumbers() throws IOException {
+        Set<Integer> facultyNumbers = new HashSet<>();
+        if (!this.journalFile.exists()) {
+            return facultyNumbers;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(this.journalFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] values = line.split(String.valueOf(SEPARATOR), -1);
+                try {
+                    if (values.length > 1) {
+                        facultyNumbers.add(Integer.parseInt(values[1]));
+                    }
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        }
+
+        return facultyNumbers;
+    }
+
+    /**
+     * Applies the records of the journal file to the students in the repository.
+     * A record which can not be applied, like the last record of a journal which was not fully written, is reported and skipped.
+     *
+     * @return The number of applied records.
+     * @throws IOException If an error occurs while reading the journal file.
+     */
+    public int replay() throws IOException {
+        if (!this.journalFile.exists()) {
+            return 0;
+        }
+
+        int appliedCount = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(this.journalFile), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                try {
+                    apply(line.split(String.valueOf(SEPARATOR), -1));
+                    appliedCount++;
+                } catch (Exception e) {
+                    System.out.println(String.format(UserMessages.JOURNAL_RECORD_SKIPPED.message, lineNumber, e.getMessage()));
+                }
+            }
+        }
+
+        return appliedCount;
+    }
+
+    /**
+     * Applies one record to the students in the repository.
+     *
+     * @param values The values of the record.
+     * @throws Exception If the record is not valid or can not be applied.
+     */
+    private void apply(String[] values) throws Exception {
+        if (values.length < 3) {
+            throw new DeserializationException(UserMessages.WRONG_JOURNAL_DATA_FORMAT.message);
+        }
+
+        String type = values[0];
+        int facultyNumber = Integer.parseInt(values[1]);
+        if (type.equals(ENROLL)) {
+            checkValuesCount(values, 7);
+
+            //The student is already in the file if the journal was not removed after the last full save
+            if (this.studentRepository.exists(facultyNumber)) {
+                return;
+            }
+
+            Student student = new Student(facultyNumber, values[2], getProgram(values[3]),
+                    Integer.parseInt(values[4]), Integer.parseInt(values[5]));
+            student.setStatus(values[6]);
+            this.studentRepository.addNew(student);
+            return;
+        }
+
+        Student student = this.studentRepository.getOrThrow(facultyNumber);
+        switch (type) {
+            case YEAR:
+                student.setYear(Integer.parseInt(values[2]));
+                break;
+            case PROGRAM:
+                student.setProgram(getProgram(values[2]));
+                break;
+            case GROUP:
+                student.setGroup(Integer.parseInt(values[2]));
+                break;
+            case STATUS:
+                student.setStatus(values[2]);
+                break;
+            case GRADE:
+                checkValuesCount(values, 5);
+                Subject subject = this.subjectRepository.intern(new Subject(values[2], values[3]));
+                student.getGradesBySubject().put(subject, GradeBook.fromHundredths(Integer.parseInt(values[4])));
+                break;
+            default:
+                throw new DeserializationException(UserMessages.WRONG_JOURNAL_DATA_FORMAT.message);
+        }
+    }
+
+    /**
+     * Checks if a record has at least the given number of values.
+     *
+     * @param values The values of the record.
+     * @param count The needed number of values.
+     * @throws DeserializationException If the record has less values.
+     */
+    private void checkValuesCount(String[] values, int count) throws DeserializationException {
+        if (values.length < count) {
+            throw new DeserializationException(UserMessages.WRONG_JOURNAL_DATA_FORMAT.message);
+        }
+    }
+
+    /**
+     * Returns the catalog program with the given name.
+     * A program that is no longer part of the catalog is kept as a program without subjects.
+     *
+     * @param programName The name of the program.
+     * @return The shared Program object from the catalog.
+     * @throws ProgramException If the program name is with wrong format.
+     */
+    private Program getProgram(String programName) throws ProgramException {
+        try {
+            return this.programRepository.getOrThrow(programName);
+        } catch (IllegalArgumentException e) {
+            return new Program(programName);
+        }
+    }
+
+    /**
+     * Adds a record with the given values to the unsaved changes.
+     *
+     * @param type The type of the record.
+     * @param facultyNumber The faculty number of the changed student.
+     * @param values The other values of the record.
+     */
+    private synchronized void addRecord(String type, int facultyNumber, String... values) {
+        StringBuilder sb = new StringBuilder(type).append(SEPARATOR).append(facultyNumber);
+        for (String value : values) {
+            sb.append(SEPARATOR).append(value);
+        }
+
+        this.pendingRecords.add(sb.toString());
+    }
+}
@@ -0,0 +1,530 @@
+package bg.tu_varna.sit.oop1.utilities;
+
+import bg.tu_varna.sit.oop1.enums.UserMessages;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The StudentOffsetIndex class keeps the offset of the line of every student in a students file,
+ * so a single line can be read when it is needed instead of parsing the whole file on open.
+ * The index is built by scanning the bytes of the file for the faculty numbers, without decoding the lines.
+ * It is saved in a sidecar file next to the students file and reused while the students file has the same size
+ * and modification time.
+ *
+ * <p>The sidecar file starts with a magic number, the size and the modification time of the students file
+ * and the number of entries. Every entry is a faculty number (4 bytes) followed by an offset (8 bytes),
+ * in the order of the lines in the file.
+ */
+public class StudentOffsetIndex {
+    private static final String OFFSETS_EXTENSION = ".offsets";
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+    private static final int MAGIC = 0x534F4658;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final byte[] FIELD_SEPARATOR = {' ', '|', ' '};
+    private static final int NO_FACULTY_NUMBER = -1;
+
+    private File dataFile;
+    private File offsetsFile;
+    private IntHashIndex slotsByFacultyNumber;
+    private int[] facultyNumbers;
+    private long[] offsets;
+    private int slotsCount;
+    private int recordsCount;
+    private FileChannel channel;
+
+    /**
+     * Constructs an empty StudentOffsetIndex for the given students file.
+     *
+     * @param dataFile The students file.
+     */
+    private StudentOffsetIndex(File dataFile) {
+        this.dataFile = dataFile.getAbsoluteFile();
+        this.offsetsFile = new File(this.dataFile.getPath() + OFFSETS_EXTENSION);
+        this.slotsByFacultyNumber = new IntHashIndex();
+        this.facultyNumbers = new int[INITIAL_CAPACITY];
+        this.offsets = new long[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Opens the index of the given students file. The sidecar file is used if it belongs to the current content
+     * of the file, otherwise the file is scanned and a new sidecar file is written.
+     * A line without a faculty number and a repeated faculty number are reported and left out of the index,
+     * as the sequential loading does with such records.
+     *
+     * @param dataFile The students file.
+     * @return The opened index.
+     * @throws IOException If the students file can not be read.
+     */
+    public static StudentOffsetIndex open(File dataFile) throws IOException {
+        StudentOffsetIndex index = new StudentOffsetIndex(dataFile);
+        if (!index.loadOffsets()) {
+            index.build();
+
+            //The sidecar only saves time on the next open, so a folder which can not be written is not an error
+            try {
+                index.saveOffsets();
+            } catch (IOException ignored) {
+            }
+        }
+
+        index.channel = FileChannel.open(index.dataFile.toPath(), StandardOpenOption.READ);
+        return index;
+    }
+
+    /**
+     * Checks if the line of the student with the given faculty number is still in the index.
+     *
+     * @param facultyNumber The faculty number to look for.
+     * @return true if the student is in the index and false otherwise.
+     */
+    public boolean contains(int facultyNumber) {
+        return this.slotsByFacultyNumber.contains(facultyNumber);
+    }
+
+    /**
+     * Gets the number of students which are still in the index.
+     *
+     * @return The number of students.
+     */
+    public int size() {
+        return this.slotsByFacultyNumber.size();
+    }
+
+    /**
+     * Gets the number of students the index had when it was opened.
+     *
+     * @return The number of students in the file.
+     */
+    public int getRecordsCount() {
+        return this.recordsCount;
+    }
+
+    /**
+     * Gets the memory used by the index.
+     *
+     * @return The number of bytes.
+     */
+    public long getBytes() {
+        return this.slotsByFacultyNumber.getBytes() + (long) this.facultyNumbers.length * Integer.BYTES
+                + (long) this.offsets.length * Long.BYTES;
+    }
+
+    /**
+     * Reads the line of the student with the given faculty number.
+     *
+     * @param facultyNumber The faculty number of the student.
+     * @return The line of the student without the line break.
+     * @throws IllegalArgumentException If the student is not in the index.
+     * @throws IOException If an error occurs while reading the file.
+     */
+    public String readLine(int facultyNumber) throws IOException {
+        int slot = this.slotsByFacultyNumber.get(facultyNumber);
+        if (slot < 0) {
+            throw new IllegalArgumentException(UserMessages.STUDENT_NOT_EXISTS.message);
+        }
+
+        long position = this.offsets[slot];
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        while (true) {
+            int readCount = this.channel.read(buffer, position + buffer.position());
+            int lineEnd = indexOf(buffer, (byte) '\n', 0, buffer.position());
+            if (lineEnd >= 0 || readCount <= 0) {
+                return decodeLine(buffer, 0, lineEnd >= 0 ? lineEnd : buffer.position());
+            }
+            if (!buffer.hasRemaining()) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2).put((ByteBuffer) buffer.flip());
+            }
+        }
+    }
+
+    /**
+     * Reads the lines of all students which are still in the index in the order of the file
+     * and passes them to the handler. The file is read in large blocks instead of line by line.
+     *
+     * @param handler The handler of the lines. It may remove students from the index.
+     * @throws Exception If the file can not be read or the handler fails.
+     */
+    public void forEachLine(LineHandler handler) throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        buffer.limit(0);
+        long bufferStart = 0;
+        long fileSize = this.channel.size();
+
+        //The slots are in the order of the lines in the file
+        int slotsCount = this.slotsCount;
+        for (int slot = 0; slot < slotsCount && this.channel != null; slot++) {
+            int facultyNumber = this.facultyNumbers[slot];
+            if (this.slotsByFacultyNumber.get(facultyNumber) != slot) {
+                continue;
+            }
+
+            long offset = this.offsets[slot];
+            int lineStart = (int) (offset - bufferStart);
+            int lineEnd = offset < bufferStart || lineStart > buffer.limit()
+                    ? -1 : indexOf(buffer, (byte) '\n', lineStart, buffer.limit());
+            if (lineEnd < 0) {
+                //The line is not fully in the block, so the next block starts with it
+                bufferStart = offset;
+                buffer = fill(buffer, bufferStart, fileSize);
+                lineStart = 0;
+                lineEnd = indexOf(buffer, (byte) '\n', 0, buffer.limit());
+                if (lineEnd < 0) {
+                    lineEnd = buffer.limit();
+                }
+            }
+
+            handler.handle(facultyNumber, decodeLine(buffer, lineStart, lineEnd));
+        }
+    }
+
+    /**
+     * Removes the student with the given faculty number from the index. It is used when the student is read
+     * into memory, so its line in the file is no longer used.
+     * The file is closed when no student is left, so it can be replaced by a save.
+     *
+     * @param facultyNumber The faculty number of the student.
+     * @throws IOException If the file can not be closed.
+     */
+    public void remove(int facultyNumber) throws IOException {
+        this.slotsByFacultyNumber.remove(facultyNumber);
+        if (this.slotsByFacultyNumber.size() == 0) {
+            close();
+        }
+    }
+
+    /**
+     * Closes the students file and removes all students from the index.
+     *
+     * @throws IOException If the file can not be closed.
+     */
+    public void close() throws IOException {
+        this.slotsByFacultyNumber.clear();
+        if (this.channel != null) {
+            this.channel.close();
+            this.channel = null;
+        }
+    }
+
+    /**
+     * Scans the students file and adds the offset of every line to the index.
+     *
+     * @throws IOException If the file can not be read.
+     */
+    private void build() throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(this.dataFile.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            LineScan scan = new LineScan();
+            long position = 0;
+            int readCount;
+            while ((readCount = fileChannel.read(buffer)) > 0) {
+                for (int i = 0; i < readCount; i++) {
+                    byte b = buffer.get(i);
+                    if (b == '\n') {
+                        addLine(scan);
+                        scan.reset(position + i + 1);
+                    } else {
+                        scan.accept(b);
+                    }
+                }
+                position += readCount;
+                buffer.clear();
+            }
+
+            if (position > scan.lineStart) {
+                addLine(scan);
+            }
+        }
+
+        this.recordsCount = this.slotsByFacultyNumber.size();
+    }
+
+    /**
+     * Adds a scanned line to the index. A line without a faculty number or with a repeated one is reported.
+     *
+     * @param scan The scan of the line.
+     */
+    private void addLine(LineScan scan) {
+        scan.lineNumber++;
+        int facultyNumber = scan.getFacultyNumber();
+        if (facultyNumber == NO_FACULTY_NUMBER) {
+            if (!scan.isBlank) {
+                System.out.println(String.format(UserMessages.DUPLICATE_RECORD.message, scan.lineNumber,
+                        UserMessages.WRONG_STUDENT_DATA_FORMAT.message));
+            }
+            return;
+        }
+        if (contains(facultyNumber)) {
+            System.out.println(String.format(UserMessages.DUPLICATE_RECORD.message, scan.lineNumber,
+                    UserMessages.STUDENT_EXISTS.message));
+            return;
+        }
+
+        addOffset(facultyNumber, scan.lineStart);
+    }
+
+    /**
+     * Adds the offset of the line of a student.
+     *
+     * @param facultyNumber The faculty number of the student.
+     * @param offset The offset of the line.
+     */
+    private void addOffset(int facultyNumber, long offset) {
+        if (this.slotsCount == this.offsets.length) {
+            this.facultyNumbers = Arrays.copyOf(this.facultyNumbers, this.slotsCount * 2);
+            this.offsets = Arrays.copyOf(this.offsets, this.slotsCount * 2);
+        }
+        this.facultyNumbers[this.slotsCount] = facultyNumber;
+        this.offsets[this.slotsCount] = offset;
+        this.slotsByFacultyNumber.put(facultyNumber, this.slotsCount++);
+    }
+
+    /**
+     * Reads the sidecar file if it belongs to the current content of the students file.
+     *
+     * @return true if the index was read and false if the file has to be scanned.
+     * @throws IOException If an error occurs while reading the sidecar file.
+     */
+    private boolean loadOffsets() throws IOException {
+        if (!this.offsetsFile.exists()) {
+            return false;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.offsetsFile)))) {
+            if (in.readInt() != MAGIC || in.readLong() != this.dataFile.length() || in.readLong() != this.dataFile.lastModified()) {
+                return false;
+            }
+
+            int count = in.readInt();
+            this.facultyNumbers = new int[Math.max(INITIAL_CAPACITY, count)];
+            this.offsets = new long[this.facultyNumbers.length];
+            for (int i = 0; i < count; i++) {
+                int facultyNumber = in.readInt();
+                addOffset(facultyNumber, in.readLong());
+            }
+        } catch (IOException e) {
+            //A sidecar which was not fully written is built again
+            this.slotsByFacultyNumber.clear();
+            this.slotsCount = 0;
+            return false;
+        }
+
+        this.recordsCount = this.slotsByFacultyNumber.size();
+        return true;
+    }
+
+    /**
+     * Writes the index into the sidecar file. It is written into a temporary file which replaces the sidecar file.
+     *
+     * @throws IOException If an error occurs while writing.
+     */
+    private void saveOffsets() throws IOException {
+        Path offsetsPath = this.offsetsFile.toPath();
+        Path temporaryPath = offsetsPath.resolveSibling(this.offsetsFile.getName() + TEMPORARY_EXTENSION);
+
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryPath.toFile())))) {
+                out.writeInt(MAGIC);
+                out.writeLong(this.dataFile.length());
+                out.writeLong(this.dataFile.lastModified());
+                out.writeInt(this.slotsCount);
+                for (int slot = 0; slot < this.slotsCount; slot++) {
+                    out.writeInt(this.facultyNumbers[slot]);
+                    out.writeLong(this.offsets[slot]);
+                }
+            }
+
+            try {
+                Files.move(temporaryPath, offsetsPath, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryPath, offsetsPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporaryPath);
+        }
+    }
+
+    /**
+     * Reads a block of the file from the given position into the buffer.
+     * The buffer is made larger if the block would not hold a whole line.
+     *
+     * @param buffer The buffer to fill.
+     * @param position The position of the block in the file.
+     * @param fileSize The size of the file.
+     * @return The filled buffer, read from its start to its limit.
+     * @throws IOException If an error occurs while reading the file.
+     */
+    private ByteBuffer fill(ByteBuffer buffer, long position, long fileSize) throws IOException {
+        buffer.clear();
+        while (true) {
+            while (buffer.hasRemaining() && position + buffer.position() < fileSize) {
+                if (this.channel.read(buffer, position + buffer.position()) <= 0) {
+                    break;
+                }
+            }
+
+            if (buffer.hasRemaining() || indexOf(buffer, (byte) '\n', 0, buffer.position()) >= 0) {
+                buffer.flip();
+                return buffer;
+            }
+            buffer = ByteBuffer.allocate(buffer.capacity() * 2).put((ByteBuffer) buffer.flip());
+        }
+    }
+
+    /**
+     * Finds a byte in the buffer between the given indexes.
+     *
+     * @param buffer The buffer to search.
+     * @param value The byte to find.
+     * @param from The index from which to search.
+     * @param end The index before which to search.
+     * @return The index of the byte or -1 if it is not found.
+     */
+    private static int indexOf(ByteBuffer buffer, byte value, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (buffer.get(i) == value) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Decodes the bytes of a line with the platform charset, as the sequential loading with FileReader does.
+     * A carriage return before the line break is removed.
+     *
+     * @param buffer The buffer with the line.
+     * @param start The start of the line.
+     * @param end The end of the line, before the line break.
+     * @return The decoded line.
+     */
+    private static String decodeLine(ByteBuffer buffer, int start, int end) {
+        if (end > start && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+
+        return new String(buffer.array(), buffer.arrayOffset() + start, end - start, Charset.defaultCharset());
+    }
+
+    /**
+     * Handler of the lines read from the students file.
+     */
+    public interface LineHandler {
+        /**
+         * Handles a line read from the students file.
+         *
+         * @param facultyNumber The faculty number of the student of the line.
+         * @param line The line without the line break.
+         * @throws Exception If the line can not be handled.
+         */
+        void handle(int facultyNumber, String line) throws Exception;
+    }
+
+    /**
+     * The state of the scan of one line, which finds the faculty number as the value of the second field
+     * while the bytes of the line are passed one by one.
+     */
+    private static class LineScan {
+        private static final int SEEK_FIELD = 0;
+        private static final int SEEK_VALUE = 1;
+        private static final int DIGITS = 2;
+        private static final int DONE = 3;
+        private static final int MAX_DIGITS = 10;
+
+        private long lineStart;
+        private int lineNumber;
+        private int state;
+        private int matchedCount;
+        private long value;
+        private int digitsCount;
+        private boolean isBlank = true;
+
+        /**
+         * Starts the scan of the next line.
+         *
+         * @param lineStart The offset of the next line.
+         */
+        void reset(long lineStart) {
+            this.lineStart = lineStart;
+            this.state = SEEK_FIELD;
+            this.matchedCount = 0;
+            this.value = 0;
+            this.digitsCount = 0;
+            this.isBlank = true;
+        }
+
+        /**
+         * Passes the next byte of the line to the scan.
+         *
+         * @param b The byte.
+         */
+        void accept(byte b) {
+            if (b != '\r') {
+                this.isBlank = false;
+            }
+
+            switch (this.state) {
+                case SEEK_FIELD:
+                    if (b == FIELD_SEPARATOR[this.matchedCount]) {
+                        this.matchedCount++;
+                        if (this.matchedCount == FIELD_SEPARATOR.length) {
+                            this.state = SEEK_VALUE;
+                            this.matchedCount = 0;
+                        }
+                    } else {
+                        this.matchedCount = b == FIELD_SEPARATOR[0] ? 1 : 0;
+                    }
+                    break;
+                case SEEK_VALUE:
+                    if (b == ':') {
+                        this.matchedCount = 1;
+                    } else if (b == ' ' && this.matchedCount == 1) {
+                        this.state = DIGITS;
+                    } else {
+                        this.matchedCount = 0;
+                    }
+                    break;
+                case DIGITS:
+                    if (b >= '0' && b <= '9' && this.digitsCount < MAX_DIGITS) {
+                        this.value = this.value * 10 + (b - '0');
+                        this.digitsCount++;
+                    } else {
+                        this.state = DONE;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        /**
+         * Gets the faculty number found in the line.
+         *
+         * @return The faculty number or -1 if the line has no valid faculty number.
+         */
+        int getFacultyNumber() {
+            if (this.digitsCount == 0 || this.value > Integer.MAX_VALUE) {
+                return NO_FACULTY_NUMBER;
+            }
+
+            return (int) this.value;
+        }
+    }
+}
@@ -105,8 +105,7 @@ public class StudentUtility {
     public Student generateStudentOrThrow(int facultyNumber, String studentName, String programName, int year, int group)
             throws StudentException {
         //Checking if student with this faculty number is already enrolled
-        boolean isInDatabase = studentRepository.getAll().stream()
-                .anyMatch(student -> student.getFacultyNumber() == facultyNumber);
+        boolean isInDatabase = studentRepository.exists(facultyNumber);
         //Exception if the student already is in the database
         if (isInDatabase) {
             throw new IllegalArgumentException(UserMessages.STUDENT_EXISTS.message);
@@ -154,15 +153,9 @@ public class StudentUtility {
      * @throws IllegalArgumentException If the subject is not available in the given program and year.
      */
     public Subject getAvailableSubjectOrThrow(String studentProgramName, String subjectName, int year) {
-        // All subjects by course for the student's program
-        Map<Integer, Collection<Subject>> studentProgramSubjects = programRepository.getOrThrow(studentProgramName).getSubjectsByCourse();
-        //All subject available for the student's current course
-        Collection<Subject> availableSubjects = studentProgramSubjects.get(year);
-
-        Subject subject = availableSubjects.stream()
-                .filter(element -> element.getName().equalsIgnoreCase(subjectName))
-                .findFirst()
-                .orElse(null);
+        Program studentProgram = programRepository.getOrThrow(studentProgramName);
+        //The subject taught in the student's current course under this name
+        Subject subject = studentProgram.getSubject(year, subjectName);
 
         if (subject == null) {
             throw new IllegalArgumentException(UserMessages.INCORRECT_SUBJECT.message);
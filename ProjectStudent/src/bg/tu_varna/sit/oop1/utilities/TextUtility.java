@@ -0,0 +1,140 @@
+package bg.tu_varna.sit.oop1.utilities;
+
+/**
+ * The TextUtility class provides utility methods for parsing parts of a line in place,
+ * without creating substrings or arrays and without regular expressions.
+ * All ranges are given as a start index and an end index which is not part of the range.
+ */
+public class TextUtility {
+    private static final int MAX_FAST_DOUBLE_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15};
+
+    /**
+     * Finds the first occurrence of the separator inside the given range of the text.
+     *
+     * @param text The text to search in.
+     * @param separator The separator to look for.
+     * @param start The start of the range.
+     * @param end The end of the range.
+     * @return The index of the separator or -1 if it is not inside the range.
+     */
+    public static int indexOf(String text, String separator, int start, int end) {
+        int index = text.indexOf(separator, start);
+        return index >= 0 && index + separator.length() <= end ? index : -1;
+    }
+
+    /**
+     * Checks if the given range of the text is equal to the value.
+     *
+     * @param text The text to check.
+     * @param start The start of the range.
+     * @param end The end of the range.
+     * @param value The value to compare with.
+     * @param ignoreCase true if the case of the letters should be ignored.
+     * @return true if the range is equal to the value and false otherwise.
+     */
+    public static boolean regionEquals(String text, int start, int end, String value, boolean ignoreCase) {
+        return value.length() == end - start && text.regionMatches(ignoreCase, start, value, 0, value.length());
+    }
+
+    /**
+     * Parses the given range of the text as a decimal integer, as {@code Integer.parseInt} does.
+     *
+     * @param text The text to parse.
+     * @param start The start of the range.
+     * @param end The end of the range.
+     * @return The integer value.
+     * @throws NumberFormatException If the range is not a valid integer.
+     */
+    public static int parseInt(String text, int start, int end) {
+        int index = start;
+        boolean isNegative = false;
+        if (index < end && (text.charAt(index) == '-' || text.charAt(index) == '+')) {
+            isNegative = text.charAt(index) == '-';
+            index++;
+        }
+        if (index == end) {
+            throw numberFormatException(text, start, end);
+        }
+
+        long value = 0;
+        for (; index < end; index++) {
+            int digit = text.charAt(index) - '0';
+            if (digit < 0 || digit > 9) {
+                throw numberFormatException(text, start, end);
+            }
+
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw numberFormatException(text, start, end);
+            }
+        }
+
+        value = isNegative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw numberFormatException(text, start, end);
+        }
+
+        return (int) value;
+    }
+
+    /**
+     * Parses the given range of the text as a decimal number, as {@code Double.parseDouble} does.
+     * Plain numbers with up to 15 digits are parsed in place. The mantissa and the power of ten are exact,
+     * so the single division gives the same result as {@code Double.parseDouble}.
+     * Other numbers, like ones with an exponent, are passed to {@code Double.parseDouble}.
+     *
+     * @param text The text to parse.
+     * @param start The start of the range.
+     * @param end The end of the range.
+     * @return The number value.
+     * @throws NumberFormatException If the range is not a valid number.
+     */
+    public static double parseDouble(String text, int start, int end) {
+        int index = start;
+        boolean isNegative = false;
+        if (index < end && (text.charAt(index) == '-' || text.charAt(index) == '+')) {
+            isNegative = text.charAt(index) == '-';
+            index++;
+        }
+
+        long mantissa = 0;
+        int digitsCount = 0;
+        int fractionDigitsCount = -1;
+        for (; index < end; index++) {
+            char c = text.charAt(index);
+            if (c == '.' && fractionDigitsCount < 0) {
+                fractionDigitsCount = 0;
+                continue;
+            }
+            if (c < '0' || c > '9' || digitsCount == MAX_FAST_DOUBLE_DIGITS) {
+                return Double.parseDouble(text.substring(start, end));
+            }
+
+            mantissa = mantissa * 10 + (c - '0');
+            digitsCount++;
+            if (fractionDigitsCount >= 0) {
+                fractionDigitsCount++;
+            }
+        }
+
+        if (digitsCount == 0) {
+            return Double.parseDouble(text.substring(start, end));
+        }
+
+        double value = fractionDigitsCount > 0 ? mantissa / POWERS_OF_TEN[fractionDigitsCount] : mantissa;
+        return isNegative ? -value : value;
+    }
+
+    /**
+     * Creates the exception for a range which is not a valid number.
+     *
+     * @param text The parsed text.
+     * @param start The start of the range.
+     * @param end The end of the range.
+     * @return The exception with the same message as the one of {@code Integer.parseInt}.
+     */
+    private static NumberFormatException numberFormatException(String text, int start, int end) {
+        return new NumberFormatException("For input string: \"" + text.substring(start, end) + "\"");
+    }
+}
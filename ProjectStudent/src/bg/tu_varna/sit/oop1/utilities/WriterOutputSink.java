@@ -0,0 +1,213 @@
+package bg.tu_varna.sit.oop1.utilities;
+
+import java.io.Closeable;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * The WriterOutputSink class implements the OutputSink interface over a writer.
+ * The output is collected in one reusable buffer and passed to the writer in large blocks,
+ * so a report of many lines costs a few writes instead of one write and flush for every line.
+ * Numbers are appended to the buffer directly, so they do not create strings.
+ */
+public class WriterOutputSink implements OutputSink, Closeable {
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private Writer writer;
+    private StringBuilder buffer;
+    private char[] chars;
+
+    /**
+     * Constructs a WriterOutputSink over the given writer.
+     *
+     * @param writer The writer to pass the output to. It is closed together with the sink.
+     */
+    public WriterOutputSink(Writer writer) {
+        this.writer = writer;
+        this.buffer = new StringBuilder(BUFFER_SIZE);
+        this.chars = new char[BUFFER_SIZE];
+    }
+
+    /**
+     * Creates a sink which writes to the standard output.
+     * The standard output is looked up on every flush, so the sink follows a replaced {@code System.out}.
+     *
+     * @return The console sink.
+     */
+    public static WriterOutputSink console() {
+        return new WriterOutputSink(new ConsoleWriter());
+    }
+
+    /**
+     * Creates a sink which writes to the file at the given path. The old content of the file is removed.
+     *
+     * @param filePath The path of the file.
+     * @return The file sink.
+     * @throws IOException If the file can not be opened.
+     */
+    public static WriterOutputSink toFile(String filePath) throws IOException {
+        return new WriterOutputSink(new FileWriter(filePath));
+    }
+
+    /**
+     * Writes the given text.
+     *
+     * @param text The text to write.
+     * @return This sink.
+     * @throws UncheckedIOException If an error occurs while writing.
+     */
+    @Override
+    public OutputSink print(CharSequence text) {
+        this.buffer.append(text);
+        drainIfFull();
+        return this;
+    }
+
+    /**
+     * Writes the given integer.
+     *
+     * @param value The integer to write.
+     * @return This sink.
+     * @throws UncheckedIOException If an error occurs while writing.
+     */
+    @Override
+    public OutputSink print(int value) {
+        this.buffer.append(value);
+        drainIfFull();
+        return this;
+    }
+
+    /**
+     * Writes the given number in the format of {@code Double.toString}.
+     *
+     * @param value The number to write.
+     * @return This sink.
+     * @throws UncheckedIOException If an error occurs while writing.
+     */
+    @Override
+    public OutputSink print(double value) {
+        this.buffer.append(value);
+        drainIfFull();
+        return this;
+    }
+
+    /**
+     * Writes the given text followed by a line separator.
+     *
+     * @param text The text to write.
+     * @return This sink.
+     * @throws UncheckedIOException If an error occurs while writing.
+     */
+    @Override
+    public OutputSink println(CharSequence text) {
+        this.buffer.append(text).append(System.lineSeparator());
+        drainIfFull();
+        return this;
+    }
+
+    /**
+     * Writes a line separator.
+     *
+     * @return This sink.
+     * @throws UncheckedIOException If an error occurs while writing.
+     */
+    @Override
+    public OutputSink println() {
+        this.buffer.append(System.lineSeparator());
+        drainIfFull();
+        return this;
+    }
+
+    /**
+     * Passes the buffered output to the writer and flushes the writer.
+     *
+     * @throws UncheckedIOException If an error occurs while writing.
+     */
+    @Override
+    public void flush() {
+        try {
+            drain();
+            this.writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Flushes the buffered output and closes the writer.
+     *
+     * @throws IOException If an error occurs while writing or closing.
+     */
+    @Override
+    public void close() throws IOException {
+        drain();
+        this.writer.close();
+    }
+
+    /**
+     * Passes the buffered output to the writer once the buffer is full.
+     *
+     * @throws UncheckedIOException If an error occurs while writing.
+     */
+    private void drainIfFull() {
+        if (this.buffer.length() < BUFFER_SIZE) {
+            return;
+        }
+
+        try {
+            drain();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Passes the buffered output to the writer through the reusable array and empties the buffer.
+     *
+     * @throws IOException If an error occurs while writing.
+     */
+    private void drain() throws IOException {
+        int length = this.buffer.length();
+        for (int start = 0; start < length; start += this.chars.length) {
+            int end = Math.min(length, start + this.chars.length);
+            this.buffer.getChars(start, end, this.chars, 0);
+            this.writer.write(this.chars, 0, end - start);
+        }
+        this.buffer.setLength(0);
+    }
+
+    /**
+     * A writer to the current standard output. It is not closed with the sink, as the standard output stays open.
+     */
+    private static class ConsoleWriter extends Writer {
+        /**
+         * Writes a part of the given array to the standard output.
+         *
+         * @param chars The characters to write.
+         * @param offset The index of the first character to write.
+         * @param length The number of characters to write.
+         */
+        @Override
+        public void write(char[] chars, int offset, int length) {
+            System.out.print(String.valueOf(chars, offset, length));
+        }
+
+        /**
+         * Flushes the standard output.
+         */
+        @Override
+        public void flush() {
+            System.out.flush();
+        }
+
+        /**
+         * Flushes the standard output without closing it.
+         */
+        @Override
+        public void close() {
+            flush();
+        }
+    }
+}